@@ -21,12 +21,12 @@ import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertThat;
 
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.Instant;
 import java.time.LocalDate;
-import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.UUID;
-import javax.persistence.EntityManager;
-import javax.persistence.PersistenceContext;
 import org.apache.commons.lang.StringUtils;
 import org.assertj.core.util.Maps;
 import org.javers.core.Javers;
@@ -34,6 +34,7 @@ import org.javers.core.metamodel.object.CdoSnapshot;
 import org.javers.core.metamodel.object.GlobalId;
 import org.javers.core.metamodel.object.InstanceId;
 import org.javers.repository.jql.QueryBuilder;
+import org.junit.After;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.openlmis.requisition.domain.AvailableRequisitionColumn;
@@ -49,12 +50,14 @@ import org.openlmis.requisition.testutils.AvailableRequisitionColumnDataBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.boot.test.context.SpringBootTest.WebEnvironment;
-import org.springframework.context.ApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.test.context.ActiveProfiles;
 import org.springframework.test.context.junit4.SpringRunner;
-import org.springframework.transaction.annotation.Transactional;
 
-@Transactional
+/**
+ * The initializer creates snapshots on its own threads, so the data used here is committed and
+ * removed after each test.
+ */
 @ActiveProfiles({"test", "init-audit-log"})
 @RunWith(SpringRunner.class)
 @SpringBootTest(webEnvironment = WebEnvironment.RANDOM_PORT)
@@ -83,18 +86,27 @@ public class AuditLogInitializerIntegrationTest {
   private Javers javers;
 
   @Autowired
-  private ApplicationContext applicationContext;
+  private AuditLogInitializer auditLogInitializer;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
 
-  @PersistenceContext
-  private EntityManager entityManager;
+  private UUID requisitionId = UUID.randomUUID();
+  private AvailableRequisitionColumn availableRequisitionColumn;
+  private RequisitionTemplate requisitionTemplate;
+
+  @After
+  public void tearDown() {
+    jdbcTemplate.update("DELETE FROM requisition.requisitions WHERE id = ?", requisitionId);
+    requisitionTemplateRepository.delete(requisitionTemplate);
+    availableRequisitionColumnRepository.delete(availableRequisitionColumn);
+  }
 
   @Test
   public void shouldCreateSnapshots() {
     // given
-    UUID requisitionId = UUID.randomUUID();
-
-    AvailableRequisitionColumn availableRequisitionColumn = addAvailableRequisitionColumn();
-    RequisitionTemplate requisitionTemplate = addRequisitionTemplate(availableRequisitionColumn);
+    availableRequisitionColumn = addAvailableRequisitionColumn();
+    requisitionTemplate = addRequisitionTemplate(availableRequisitionColumn);
     addRequisition(requisitionId, requisitionTemplate.getId());
 
     // when
@@ -103,7 +115,6 @@ public class AuditLogInitializerIntegrationTest {
 
     assertThat(snapshots, hasSize(0));
 
-    AuditLogInitializer auditLogInitializer = new AuditLogInitializer(applicationContext, javers);
     auditLogInitializer.run();
 
     snapshots = javers.findSnapshots(jqlQuery.build());
@@ -148,25 +159,24 @@ public class AuditLogInitializerIntegrationTest {
   }
 
   private void addRequisition(UUID requisitionId, UUID requisitionTemplateId) {
-    entityManager.flush();
-    entityManager
-        .createNativeQuery(INSERT_SQL)
-        .setParameter(1, requisitionId) // id
-        .setParameter(2, ZonedDateTime.now()) // createdDate
-        .setParameter(3, ZonedDateTime.now()) // modifiedDate
-        .setParameter(4, "") // draftStatusMessage
-        .setParameter(5, false) // emergency
-        .setParameter(6, UUID.randomUUID()) // facilityId
-        .setParameter(7, 1) // numberOfMonthsInPeriod
-        .setParameter(8, UUID.randomUUID()) // processingPeriodId
-        .setParameter(9, UUID.randomUUID()) // programId
-        .setParameter(10, RequisitionStatus.RELEASED.name()) // status
-        .setParameter(11, UUID.randomUUID()) // supervisoryNodeId
-        .setParameter(12, UUID.randomUUID()) // supplyingFacilityId
-        .setParameter(13, requisitionTemplateId) // templateId
-        .setParameter(14, LocalDate.now()) // datePhysicalStockCountCompleted
-        .setParameter(15, 10) // version
-        .setParameter(16, false) // reportOnly
-        .executeUpdate();
+    Timestamp now = Timestamp.from(Instant.now());
+
+    jdbcTemplate.update(INSERT_SQL,
+        requisitionId, // id
+        now, // createdDate
+        now, // modifiedDate
+        "", // draftStatusMessage
+        false, // emergency
+        UUID.randomUUID(), // facilityId
+        1, // numberOfMonthsInPeriod
+        UUID.randomUUID(), // processingPeriodId
+        UUID.randomUUID(), // programId
+        RequisitionStatus.RELEASED.name(), // status
+        UUID.randomUUID(), // supervisoryNodeId
+        UUID.randomUUID(), // supplyingFacilityId
+        requisitionTemplateId, // templateId
+        Date.valueOf(LocalDate.now()), // datePhysicalStockCountCompleted
+        10, // version
+        false); // reportOnly
   }
 }
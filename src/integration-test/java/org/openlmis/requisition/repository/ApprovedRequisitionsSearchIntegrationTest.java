@@ -0,0 +1,118 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository;
+
+import static java.util.Collections.singleton;
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toSet;
+import static org.junit.Assert.assertEquals;
+import static org.openlmis.requisition.domain.requisition.RequisitionStatus.APPROVED;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.apache.commons.lang3.tuple.Pair;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.domain.RequisitionTemplateDataBuilder;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.StatusChange;
+import org.springframework.data.domain.PageRequest;
+
+public class ApprovedRequisitionsSearchIntegrationTest
+    extends BaseRequisitionRepositoryIntegrationTest {
+
+  private static final int REQUISITIONS = 10;
+  private static final int MANY_PAIRS = 500;
+
+  private List<Requisition> approved = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    testTemplate = templateRepository.save(new RequisitionTemplateDataBuilder().build());
+
+    for (int i = 0; i < REQUISITIONS; ++i) {
+      Requisition requisition = generateInstance();
+      requisition.setStatus(APPROVED);
+      requisition.setStatusChanges(singletonList(
+          StatusChange.newStatusChange(requisition, UUID.randomUUID())));
+
+      approved.add(repository.save(requisition));
+    }
+
+    entityManager.flush();
+  }
+
+  @Test
+  public void shouldFindRequisitionsOfOnePair() {
+    Requisition requisition = approved.get(0);
+
+    Set<UUID> found = search(singleton(
+        Pair.of(requisition.getProgramId(), requisition.getSupervisoryNodeId())));
+
+    assertEquals(singleton(requisition.getId()), found);
+  }
+
+  @Test
+  public void shouldFindRequisitionsOfManyPairs() {
+    Set<Pair<UUID, UUID>> pairs = new HashSet<>();
+    Set<UUID> expected = new HashSet<>();
+
+    for (int i = 0; i < MANY_PAIRS; ++i) {
+      if (i % 2 == 0 && i / 2 < approved.size()) {
+        Requisition requisition = approved.get(i / 2);
+        pairs.add(Pair.of(requisition.getProgramId(), requisition.getSupervisoryNodeId()));
+        expected.add(requisition.getId());
+      } else {
+        pairs.add(Pair.of(UUID.randomUUID(), UUID.randomUUID()));
+      }
+    }
+
+    assertEquals(expected, search(pairs));
+  }
+
+  @Test
+  public void shouldFindRequisitionsOfMixedPairs() {
+    Requisition byPair = approved.get(0);
+    Requisition byProgram = approved.get(1);
+    Requisition byNode = approved.get(2);
+
+    Set<Pair<UUID, UUID>> pairs = new HashSet<>();
+    pairs.add(Pair.of(byPair.getProgramId(), byPair.getSupervisoryNodeId()));
+    pairs.add(Pair.of(byPair.getProgramId(), UUID.randomUUID()));
+    pairs.add(Pair.of(byProgram.getProgramId(), null));
+    pairs.add(Pair.of(null, byNode.getSupervisoryNodeId()));
+    pairs.add(Pair.of(approved.get(3).getProgramId(), approved.get(4).getSupervisoryNodeId()));
+
+    Set<UUID> expected = new HashSet<>();
+    expected.add(byPair.getId());
+    expected.add(byProgram.getId());
+    expected.add(byNode.getId());
+
+    assertEquals(expected, search(pairs));
+  }
+
+  private Set<UUID> search(Set<Pair<UUID, UUID>> pairs) {
+    return repository
+        .searchApprovedRequisitions(null, pairs, PageRequest.of(0, REQUISITIONS))
+        .getContent()
+        .stream()
+        .map(Requisition::getId)
+        .collect(toSet());
+  }
+}
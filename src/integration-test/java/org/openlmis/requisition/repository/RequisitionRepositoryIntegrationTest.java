@@ -16,7 +16,6 @@
 package org.openlmis.requisition.repository;
 
 import static java.util.Arrays.asList;
-import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
@@ -31,6 +30,7 @@ import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.APPROVED;
@@ -41,9 +41,11 @@ import static org.openlmis.requisition.domain.requisition.RequisitionStatus.SKIP
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.SUBMITTED;
 
 import com.google.common.collect.Sets;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.EnumSet;
 import java.util.List;
 import java.util.Map;
@@ -67,16 +69,21 @@ import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItemDataBuilder;
 import org.openlmis.requisition.domain.requisition.RequisitionPeriod;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.RequisitionStatusChangeDate;
 import org.openlmis.requisition.domain.requisition.StatusChange;
 import org.openlmis.requisition.domain.requisition.StockAdjustment;
 import org.openlmis.requisition.domain.requisition.StockAdjustmentDataBuilder;
 import org.openlmis.requisition.dto.OrderableDto;
 import org.openlmis.requisition.dto.VersionIdentityDto;
+import org.openlmis.requisition.exception.ValidationMessageException;
 import org.openlmis.requisition.repository.custom.DefaultRequisitionSearchParams;
 import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
+import org.openlmis.requisition.service.referencedata.CompactPermissionStrings;
 import org.openlmis.requisition.testutils.AvailableRequisitionColumnDataBuilder;
 import org.openlmis.requisition.testutils.DefaultRequisitionSearchParamsDataBuilder;
 import org.openlmis.requisition.testutils.StatusChangeDataBuilder;
+import org.openlmis.requisition.utils.CursorPage;
+import org.openlmis.requisition.utils.CursorPageRequest;
 import org.openlmis.requisition.utils.Pagination;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
@@ -84,6 +91,7 @@ import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
 import org.springframework.data.domain.Sort.Direction;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 @SuppressWarnings("PMD.TooManyMethods")
 public class RequisitionRepositoryIntegrationTest
@@ -145,7 +153,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(2, receivedRequisitions.size());
@@ -192,7 +201,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(3, receivedRequisitions.size());
@@ -217,7 +227,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(3, receivedRequisitions.size());
@@ -242,7 +253,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(2, receivedRequisitions.size());
@@ -278,7 +290,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(2, receivedRequisitions.size());
@@ -299,7 +312,8 @@ public class RequisitionRepositoryIntegrationTest
     RequisitionSearchParams searchParams = new DefaultRequisitionSearchParams();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(5, receivedRequisitions.size());
@@ -312,7 +326,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(2, receivedRequisitions.size());
@@ -326,7 +341,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(3, receivedRequisitions.size());
@@ -363,6 +379,100 @@ public class RequisitionRepositoryIntegrationTest
     });
   }
 
+  @Test
+  public void shouldSearchFirstStatusChangeDatesForFacilitiesAndPeriods() {
+    // given
+    UUID programId = UUID.randomUUID();
+    UUID periodId = UUID.randomUUID();
+
+    Requisition approved = generateInstance(UUID.randomUUID(), programId, periodId);
+    approved.setEmergency(false);
+    approved.getStatusChanges().add(new StatusChangeDataBuilder()
+        .withRequisition(approved)
+        .withStatus(APPROVED)
+        .buildAsNew());
+    saveAndFlushWithDelay(approved);
+
+    approved.getStatusChanges().add(new StatusChangeDataBuilder()
+        .withRequisition(approved)
+        .withStatus(APPROVED)
+        .buildAsNew());
+    repository.saveAndFlush(approved);
+
+    Requisition initiated = generateInstance(UUID.randomUUID(), programId, periodId);
+    initiated.setEmergency(false);
+    repository.saveAndFlush(initiated);
+
+    Requisition otherPeriod = generateInstance(approved.getFacilityId(), programId,
+        UUID.randomUUID());
+    otherPeriod.setEmergency(false);
+    repository.saveAndFlush(otherPeriod);
+
+    // when
+    List<RequisitionStatusChangeDate> result = repository.searchStatusChangeDates(programId,
+        singleton(periodId), asList(approved.getFacilityId(), initiated.getFacilityId()),
+        false, APPROVED);
+
+    // then
+    assertThat(result, hasSize(2));
+
+    ZonedDateTime firstApproved = approved.getStatusChanges()
+        .stream()
+        .filter(statusChange -> statusChange.getStatus() == APPROVED)
+        .map(StatusChange::getCreatedDate)
+        .min(ZonedDateTime::compareTo)
+        .orElseThrow(IllegalStateException::new);
+
+    RequisitionStatusChangeDate approvedDate = result
+        .stream()
+        .filter(item -> approved.getId().equals(item.getRequisitionId()))
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+    assertEquals(approved.getFacilityId(), approvedDate.getFacilityId());
+    assertEquals(periodId, approvedDate.getProcessingPeriodId());
+    assertTrue(firstApproved.isEqual(approvedDate.getStatusChangeDate()));
+
+    RequisitionStatusChangeDate initiatedDate = result
+        .stream()
+        .filter(item -> initiated.getId().equals(item.getRequisitionId()))
+        .findFirst()
+        .orElseThrow(IllegalStateException::new);
+    assertNull(initiatedDate.getStatusChangeDate());
+  }
+
+  @Test
+  public void shouldSearchFacilityIdsWithRequisitions() {
+    // given
+    UUID programId = UUID.randomUUID();
+    UUID periodId = UUID.randomUUID();
+
+    Requisition approved = generateInstance(UUID.randomUUID(), programId, periodId);
+    approved.setStatus(APPROVED);
+    repository.save(approved);
+
+    Requisition released = generateInstance(UUID.randomUUID(), programId, periodId);
+    released.setStatus(RELEASED);
+    repository.save(released);
+
+    Requisition initiated = generateInstance(UUID.randomUUID(), programId, periodId);
+    repository.save(initiated);
+
+    Requisition otherProgram = generateInstance(UUID.randomUUID(), UUID.randomUUID(), periodId);
+    otherProgram.setStatus(APPROVED);
+    repository.save(otherProgram);
+
+    UUID facilityWithoutRequisition = UUID.randomUUID();
+
+    // when
+    Set<UUID> result = repository.searchFacilityIdsWithRequisitions(programId, periodId,
+        EnumSet.of(APPROVED, RELEASED),
+        asList(approved.getFacilityId(), released.getFacilityId(), initiated.getFacilityId(),
+            otherProgram.getFacilityId(), facilityWithoutRequisition));
+
+    // then
+    assertEquals(Sets.newHashSet(approved.getFacilityId(), released.getFacilityId()), result);
+  }
+
   @Test
   public void searchShouldExcludeRequisitionsWithNoMatchingPermissionStrings() {
     // given
@@ -374,7 +484,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStringSubset, emptySet(), pageRequest)
+        .searchRequisitions(searchParams,
+            CompactPermissionStrings.from(userPermissionStringSubset), emptySet(), pageRequest)
         .getContent();
 
     // then
@@ -394,7 +505,8 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, emptyList(), programNodePairsSubset, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.empty(), programNodePairsSubset,
+            pageRequest)
         .getContent();
 
     // then
@@ -424,7 +536,7 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> found = repository
-        .searchRequisitions(searchParams, permissionStringsSubset,
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(permissionStringsSubset),
             programNodePairSubset, pageRequest)
         .getContent();
 
@@ -450,7 +562,7 @@ public class RequisitionRepositoryIntegrationTest
         .build();
 
     List<Requisition> found = repository
-        .searchRequisitions(searchParams, permissionStringsSubset,
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(permissionStringsSubset),
             programNodePairSubset, pageRequest)
         .getContent();
 
@@ -690,8 +802,47 @@ public class RequisitionRepositoryIntegrationTest
 
     // then
     assertEquals(2, results.getTotalElements());
-    assertThat(results.getContent().get(0), is(matchingRequisition2));
-    assertThat(results.getContent().get(1), is(matchingRequisition1));
+    assertThat(results.getContent().get(0).getId(), is(matchingRequisition2.getId()));
+    assertThat(results.getContent().get(1).getId(), is(matchingRequisition1.getId()));
+  }
+
+  @Test
+  public void searchByProgramSupervisoryNodePairsShouldReturnFieldsOfBasicRequisition() {
+    // given
+    Requisition requisition = requisitions.get(0);
+    requisition.setStatus(RequisitionStatus.AUTHORIZED);
+    requisition.setExtraData(Collections.singletonMap("key", "value"));
+    requisition.getStatusChanges().add(new StatusChangeDataBuilder()
+        .forAuthorizedRequisition(requisition)
+        .buildAsNew());
+    repository.saveAndFlush(requisition);
+
+    final StatusChange authorized = requisition.getStatusChanges()
+        .get(requisition.getStatusChanges().size() - 1);
+
+    // when
+    Page<Requisition> results = repository
+        .searchApprovableRequisitionsByProgramSupervisoryNodePairs(
+            singleton(Pair.of(requisition.getProgramId(), requisition.getSupervisoryNodeId())),
+            pageRequest);
+
+    // then
+    assertThat(results.getContent(), hasSize(1));
+
+    Requisition result = results.getContent().get(0);
+    assertThat(entityManager.contains(result), is(false));
+    assertThat(result, allOf(
+        hasProperty("id", is(requisition.getId())),
+        hasProperty("facilityId", is(requisition.getFacilityId())),
+        hasProperty("programId", is(requisition.getProgramId())),
+        hasProperty("processingPeriodId", is(requisition.getProcessingPeriodId())),
+        hasProperty("status", is(RequisitionStatus.AUTHORIZED)),
+        hasProperty("emergency", is(requisition.getEmergency())),
+        hasProperty("reportOnly", is(requisition.getReportOnly())),
+        hasProperty("extraData", is(requisition.getExtraData()))));
+    assertThat(result.getStatusChanges(), hasItem(allOf(
+        hasProperty("status", is(RequisitionStatus.AUTHORIZED)),
+        hasProperty("authorId", is(authorized.getAuthorId())))));
   }
 
   @Test
@@ -932,7 +1083,8 @@ public class RequisitionRepositoryIntegrationTest
         EnumSet.of(requisitionToCopy.getStatus()));
 
     List<Requisition> receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(2, receivedRequisitions.size());
@@ -943,7 +1095,8 @@ public class RequisitionRepositoryIntegrationTest
         Sort.Direction.DESC, "createdDate");
 
     receivedRequisitions = repository
-        .searchRequisitions(searchParams, userPermissionStrings, programNodePairs, pageRequest)
+        .searchRequisitions(searchParams, CompactPermissionStrings.from(userPermissionStrings),
+            programNodePairs, pageRequest)
         .getContent();
 
     assertEquals(2, receivedRequisitions.size());
@@ -951,6 +1104,60 @@ public class RequisitionRepositoryIntegrationTest
         .compareTo(receivedRequisitions.get(1).getCreatedDate()) > 0);
   }
 
+  @Test
+  public void searchShouldReturnNextPagesAfterCursor() {
+    RequisitionSearchParams searchParams = new DefaultRequisitionSearchParamsDataBuilder()
+        .build();
+
+    List<Requisition> found = new ArrayList<>();
+    String cursor = "";
+
+    while (null != cursor) {
+      Page<Requisition> page = repository.searchRequisitions(searchParams,
+          CompactPermissionStrings.from(userPermissionStrings), programNodePairs,
+          CursorPageRequest.of(PageRequest.of(0, 2), cursor, false));
+
+      found.addAll(page.getContent());
+      cursor = ((CursorPage<Requisition>) page).getNextCursor();
+    }
+
+    List<Requisition> expected = new ArrayList<>(requisitions);
+    expected.sort(Comparator
+        .comparing(Requisition::getCreatedDate)
+        .thenComparing(requisition -> requisition.getId().toString()));
+
+    assertEquals(expected, found);
+  }
+
+  @Test
+  public void searchShouldReturnSamePagesByNumberAsByCursor() {
+    RequisitionSearchParams searchParams = new DefaultRequisitionSearchParamsDataBuilder()
+        .build();
+
+    List<Requisition> byCursor = new ArrayList<>();
+    List<Requisition> byNumber = new ArrayList<>();
+    Pageable cursorPageable = CursorPageRequest.of(PageRequest.of(0, 2), "", false);
+    Pageable numberPageable = cursorPageable;
+    Page<Requisition> page;
+
+    do {
+      page = repository.searchRequisitions(searchParams,
+          CompactPermissionStrings.from(userPermissionStrings), programNodePairs, cursorPageable);
+      byCursor.addAll(page.getContent());
+      cursorPageable = page.nextPageable();
+    } while (page.hasNext());
+
+    do {
+      page = repository.searchRequisitions(searchParams,
+          CompactPermissionStrings.from(userPermissionStrings), programNodePairs, numberPageable);
+      byNumber.addAll(page.getContent());
+      numberPageable = numberPageable.next();
+    } while (page.hasNext());
+
+    assertEquals(requisitions.size(), byCursor.size());
+    assertEquals(byCursor, byNumber);
+  }
+
   @Test(expected = PersistenceException.class)
   public void shouldNotAllowMultipleReasonsOfTheSameTypeInSingleLineItem() {
     UUID reasonId = UUID.randomUUID();
@@ -1055,6 +1262,63 @@ public class RequisitionRepositoryIntegrationTest
     assertTrue(requisitionIds.contains(requisition1.getId()));
   }
 
+  @Test
+  public void shouldFilterApprovedRequisitionsByManyProgramAndSupervisoryNodePairs() {
+    Requisition requisition1 = generateRequisition(RequisitionStatus.APPROVED);
+    Requisition requisition2 = generateRequisition(RequisitionStatus.APPROVED);
+    generateRequisition(RequisitionStatus.APPROVED);
+
+    Set<Pair<UUID, UUID>> pairs = Sets.newHashSet(
+        Pair.of(requisition1.getProgramId(), requisition1.getSupervisoryNodeId()),
+        Pair.of(requisition2.getProgramId(), null),
+        Pair.of(requisition1.getProgramId(), UUID.randomUUID()));
+
+    Page<Requisition> requisitions = repository.searchApprovedRequisitions(
+        null, pairs, createPageable(10, 0));
+
+    assertEquals(2, requisitions.getTotalElements());
+    assertThat(requisitions, hasItem(hasProperty("id", is(requisition1.getId()))));
+    assertThat(requisitions, hasItem(hasProperty("id", is(requisition2.getId()))));
+  }
+
+  @Test
+  public void shouldSortApprovedRequisitionsByEachOrderDirection() {
+    Requisition requisition1 = generateRequisition(RequisitionStatus.APPROVED);
+    Requisition requisition2 = generateRequisition(RequisitionStatus.APPROVED);
+    requisition2.setEmergency(!requisition1.getEmergency());
+    repository.saveAndFlush(requisition2);
+
+    Requisition emergency = requisition1.getEmergency() ? requisition1 : requisition2;
+
+    Page<Requisition> requisitions = repository.searchApprovedRequisitions(null, emptySet(),
+        PageRequest.of(0, 10, Sort.by(Sort.Order.desc("emergency"), Sort.Order.asc("id"))));
+
+    assertEquals(emergency.getId(), requisitions.getContent().get(0).getId());
+  }
+
+  @Test
+  public void shouldSortApprovedRequisitionsByColumnNotReturnedBySearch() {
+    Requisition requisition1 = generateRequisition(RequisitionStatus.APPROVED);
+    Requisition requisition2 = generateRequisition(RequisitionStatus.APPROVED);
+    requisition2.setCreatedDate(requisition1.getCreatedDate().minusDays(1));
+    repository.saveAndFlush(requisition2);
+
+    Page<Requisition> requisitions = repository.searchApprovedRequisitions(null, emptySet(),
+        PageRequest.of(0, 10, Sort.by(Sort.Order.asc("createdDate"))));
+
+    assertEquals(2, requisitions.getTotalElements());
+    assertEquals(requisition2.getId(), requisitions.getContent().get(0).getId());
+    assertEquals(requisition1.getId(), requisitions.getContent().get(1).getId());
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldNotSortApprovedRequisitionsByUnknownProperty() {
+    generateRequisition(RequisitionStatus.APPROVED);
+
+    repository.searchApprovedRequisitions(null, emptySet(),
+        PageRequest.of(0, 10, Sort.by("id; DROP TABLE requisitions")));
+  }
+
   @Test
   public void shouldReturnEmptyPageWhenNoRequisitionsWithGivenParametersFound() {
     Requisition requisition1 = generateRequisition(RequisitionStatus.APPROVED);
@@ -1129,6 +1393,37 @@ public class RequisitionRepositoryIntegrationTest
     assertThat(result, is(false));
   }
 
+  @Test
+  public void shouldAddAuditOutboxEntriesWhenSavingAndDeletingRequisition() {
+    // given
+    Requisition requisition = repository.save(generateInstance());
+    commitAuditOutboxEntries();
+
+    // when
+    repository.delete(requisition);
+    commitAuditOutboxEntries();
+
+    // then
+    List<Object[]> entries = entityManager
+        .createNativeQuery("SELECT deleted, state->>'version'"
+            + " FROM requisition.requisition_audit_outbox WHERE requisitionid = ? ORDER BY id")
+        .setParameter(1, requisition.getId())
+        .getResultList();
+
+    assertEquals(2, entries.size());
+    assertEquals(false, entries.get(0)[0]);
+    assertEquals(String.valueOf(requisition.getVersion()), entries.get(0)[1]);
+    assertEquals(true, entries.get(1)[0]);
+    assertNull(entries.get(1)[1]);
+  }
+
+  // audit outbox entries are written just before the transaction commits, which tests never do
+  private void commitAuditOutboxEntries() {
+    TransactionSynchronizationManager
+        .getSynchronizations()
+        .forEach(synchronization -> synchronization.beforeCommit(false));
+  }
+
   private RequisitionLineItem generateLineItem(Requisition requisition) {
     RequisitionLineItem item = new RequisitionLineItemDataBuilder()
         .withRequisition(requisition)
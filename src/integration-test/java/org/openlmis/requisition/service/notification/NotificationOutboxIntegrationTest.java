@@ -0,0 +1,147 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.notification;
+
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.time.Instant;
+import java.util.List;
+import java.util.UUID;
+import java.util.stream.Collectors;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.openlmis.requisition.service.notification.NotificationOutbox.Entry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.annotation.Transactional;
+
+@Transactional
+@ActiveProfiles("test")
+@RunWith(SpringRunner.class)
+@SpringBootTest
+public class NotificationOutboxIntegrationTest {
+  private static final long LEASE = 300;
+
+  @Autowired
+  private NotificationOutbox outbox;
+
+  @Autowired
+  private JdbcTemplate jdbcTemplate;
+
+  private UUID userId = UUID.randomUUID();
+
+  private NotificationDto notification = new NotificationDto(userId,
+      singletonMap("email", new MessageDto("subject", "body", "tag")));
+
+  @Test
+  public void shouldReturnQueuedNotificationUntilItIsRemoved() {
+    outbox.add(notification);
+
+    List<Entry> entries = claim(Instant.now());
+
+    assertEquals(1, entries.size());
+    assertEquals(notification, entries.get(0).getNotification());
+    assertEquals(0, entries.get(0).getAttempts());
+
+    outbox.remove(singletonList(entries.get(0).getId()));
+
+    assertTrue(claim(Instant.now().plusSeconds(2 * LEASE)).isEmpty());
+  }
+
+  @Test
+  public void shouldNotReturnClaimedNotificationBeforeLeaseEnds() {
+    outbox.add(notification);
+    claim(Instant.now());
+
+    assertTrue(claim(Instant.now()).isEmpty());
+    assertEquals(1, claim(Instant.now().plusSeconds(2 * LEASE)).size());
+  }
+
+  @Test
+  public void shouldReturnReleasedNotificationWithoutCountingAnAttempt() {
+    outbox.add(notification);
+    Entry entry = claim(Instant.now()).get(0);
+
+    outbox.release(singletonList(entry.getId()), Instant.now());
+    List<Entry> entries = claim(Instant.now());
+
+    assertEquals(1, entries.size());
+    assertEquals(0, entries.get(0).getAttempts());
+  }
+
+  @Test
+  public void shouldNotReturnNotificationBeforeItsNextAttempt() {
+    outbox.add(notification);
+    Entry entry = claim(Instant.now()).get(0);
+
+    outbox.retry(entry.getId(), Instant.now().plusSeconds(60));
+
+    assertTrue(claim(Instant.now()).isEmpty());
+    assertEquals(1, claim(Instant.now().plusSeconds(120)).size());
+  }
+
+  @Test
+  public void shouldReturnLaterNotificationOfRecipientOnlyAfterEarlierOneIsRemoved() {
+    NotificationDto later = new NotificationDto(userId,
+        singletonMap("email", new MessageDto("later", "body", "tag")));
+    outbox.add(notification);
+    outbox.add(later);
+
+    List<Entry> entries = claim(Instant.now());
+
+    assertEquals(1, entries.size());
+    assertEquals(notification, entries.get(0).getNotification());
+
+    outbox.retry(entries.get(0).getId(), Instant.now().plusSeconds(60));
+    assertTrue(claim(Instant.now()).isEmpty());
+
+    outbox.remove(singletonList(entries.get(0).getId()));
+    entries = claim(Instant.now());
+
+    assertEquals(1, entries.size());
+    assertEquals(later, entries.get(0).getNotification());
+  }
+
+  @Test
+  public void shouldMoveNotificationToDeadLetters() {
+    outbox.add(notification);
+    Entry entry = claim(Instant.now()).get(0);
+    long deadLetters = outbox.getBacklog(Instant.now()).getDeadLetters();
+
+    outbox.moveToDeadLetters(entry.getId(), Instant.now());
+
+    assertTrue(claim(Instant.now().plusSeconds(2 * LEASE)).isEmpty());
+    assertEquals(deadLetters + 1, outbox.getBacklog(Instant.now()).getDeadLetters());
+    assertEquals(Integer.valueOf(1), jdbcTemplate.queryForObject(
+        "SELECT attempts FROM requisition.notification_outbox_dead_letters WHERE id = ?",
+        Integer.class, entry.getId()));
+  }
+
+  // other tests may leave notifications of other users in the outbox
+  private List<Entry> claim(Instant now) {
+    return outbox
+        .claim(100, now, now.plusSeconds(LEASE))
+        .stream()
+        .filter(entry -> userId.equals(entry.getUserId()))
+        .collect(Collectors.toList());
+  }
+}
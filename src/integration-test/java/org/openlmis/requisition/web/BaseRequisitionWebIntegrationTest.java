@@ -59,6 +59,7 @@ import org.openlmis.requisition.dto.VersionIdentityDto;
 import org.openlmis.requisition.dto.stockmanagement.StockEventDto;
 import org.openlmis.requisition.exception.ValidationMessageException;
 import org.openlmis.requisition.i18n.MessageKeys;
+import org.openlmis.requisition.service.ServiceResponse;
 import org.openlmis.requisition.testutils.ApprovedProductDtoDataBuilder;
 import org.openlmis.requisition.testutils.DtoGenerator;
 import org.openlmis.requisition.testutils.FacilityDtoDataBuilder;
@@ -67,13 +68,15 @@ import org.openlmis.requisition.testutils.ProcessingPeriodDtoDataBuilder;
 import org.openlmis.requisition.testutils.ProgramDtoDataBuilder;
 import org.openlmis.requisition.testutils.ReasonDtoDataBuilder;
 import org.openlmis.requisition.utils.Message;
+import org.springframework.http.HttpHeaders;
 
 @SuppressWarnings("PMD.TooManyMethods")
 public abstract class BaseRequisitionWebIntegrationTest extends BaseWebIntegrationTest {
 
   @Before
   public void setUp() {
-    given(togglzReferenceDataService.findAll()).willReturn(emptyList());
+    given(togglzReferenceDataService.getFeatures(nullable(String.class)))
+        .willReturn(new ServiceResponse<>(emptyList(), new HttpHeaders(), true));
   }
 
   void mockRequisitionDtoBuilderResponses() {
@@ -99,6 +102,11 @@ public abstract class BaseRequisitionWebIntegrationTest extends BaseWebIntegrati
   void mockStockEventServiceResponses() {
     when(stockEventBuilder.fromRequisition(any(), any(), anyMap()))
         .thenReturn(new StockEventDto());
+    when(stockEventBuilder.fromRequisitions(anyListOf(Requisition.class), any(), anyMap()))
+        .thenAnswer(invocation -> ((List<?>) invocation.getArgument(0))
+            .stream()
+            .map(requisition -> new StockEventDto())
+            .collect(Collectors.toList()));
     doNothing().when(stockEventStockManagementService).submit(any(StockEventDto.class));
   }
 
@@ -19,6 +19,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.post;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlPathEqualTo;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.mockito.BDDMockito.given;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.anyBoolean;
@@ -44,9 +45,11 @@ import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.List;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
 import javax.annotation.PostConstruct;
 import org.assertj.core.util.Lists;
+import org.junit.Before;
 import org.junit.Rule;
 import org.junit.runner.RunWith;
 import org.mockito.invocation.InvocationOnMock;
@@ -76,6 +79,7 @@ import org.openlmis.requisition.repository.custom.ProcessedRequestsRedisReposito
 import org.openlmis.requisition.service.JasperReportsViewService;
 import org.openlmis.requisition.service.PeriodService;
 import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.ReportJobService;
 import org.openlmis.requisition.service.RequisitionService;
 import org.openlmis.requisition.service.RequisitionStatusProcessor;
 import org.openlmis.requisition.service.RequisitionTemplateService;
@@ -236,6 +240,9 @@ public abstract class BaseWebIntegrationTest {
   @MockBean
   JasperReportsViewService jasperReportsViewService;
 
+  @MockBean
+  ReportJobService reportJobService;
+
   @MockBean
   RequisitionReportDtoBuilder requisitionReportDtoBuilder;
 
@@ -285,6 +292,48 @@ public abstract class BaseWebIntegrationTest {
     restAssured = ramlDefinition.createRestAssured();
   }
 
+  /**
+   * Makes asynchronous reference data requests return the result of their synchronous variants,
+   * so tests can stub and verify the synchronous methods only.
+   */
+  @Before
+  public void mockAsyncReferenceDataRequests() {
+    given(facilityReferenceDataService.findOneAsync(any()))
+        .willAnswer(invocation -> completedFuture(
+            facilityReferenceDataService.findOne((UUID) invocation.getArgument(0))));
+    given(facilityReferenceDataService.searchAsync(any()))
+        .willAnswer(invocation -> completedFuture(
+            facilityReferenceDataService.search((Set<UUID>) invocation.getArgument(0))));
+    given(programReferenceDataService.findOneAsync(any()))
+        .willAnswer(invocation -> completedFuture(
+            programReferenceDataService.findOne((UUID) invocation.getArgument(0))));
+    given(periodReferenceDataService.searchAsync(any()))
+        .willAnswer(invocation -> completedFuture(
+            periodReferenceDataService.search((Set<UUID>) invocation.getArgument(0))));
+    given(approvedProductReferenceDataService.getApprovedProductsAsync(any(), any()))
+        .willAnswer(invocation -> completedFuture(
+            approvedProductReferenceDataService.getApprovedProducts(
+                invocation.getArgument(0), invocation.getArgument(1))));
+    given(validReasonStockmanagementService.searchAsync(any(), any()))
+        .willAnswer(invocation -> completedFuture(validReasonStockmanagementService
+            .search(invocation.getArgument(0), invocation.getArgument(1))));
+    given(userReferenceDataService.getPermissionStringsAsync(any()))
+        .willAnswer(invocation -> completedFuture(
+            userReferenceDataService.getPermissionStrings((UUID) invocation.getArgument(0))));
+    given(supervisoryNodeReferenceDataService.findByIdsAsync(any()))
+        .willAnswer(invocation -> completedFuture(
+            supervisoryNodeReferenceDataService.findByIds(invocation.getArgument(0))));
+    given(supplyLineReferenceDataService.searchAsync(any(), any()))
+        .willAnswer(invocation -> completedFuture(supplyLineReferenceDataService
+            .search((UUID) invocation.getArgument(0), (UUID) invocation.getArgument(1))));
+    given(orderableReferenceDataService.findByIdentitiesAsync(any()))
+        .willAnswer(invocation -> completedFuture(
+            orderableReferenceDataService.findByIdentities(invocation.getArgument(0))));
+    given(facilityTypeApprovedProductReferenceDataService.findByIdentitiesAsync(any()))
+        .willAnswer(invocation -> completedFuture(facilityTypeApprovedProductReferenceDataService
+            .findByIdentities(invocation.getArgument(0))));
+  }
+
   protected UserDto mockUserAuthenticated() {
     UserDto user = new UserDtoDataBuilder().buildAsDto();
 
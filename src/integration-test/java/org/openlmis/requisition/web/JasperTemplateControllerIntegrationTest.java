@@ -20,21 +20,28 @@ import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.BDDMockito.given;
+import static org.mockito.BDDMockito.willAnswer;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import guru.nidi.ramltester.junit.RamlMatchers;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.time.ZonedDateTime;
 import java.util.Arrays;
 import java.util.Optional;
 import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
 import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.domain.ReportJob;
+import org.openlmis.requisition.domain.ReportJobStatus;
 import org.openlmis.requisition.dto.JasperTemplateDto;
+import org.openlmis.requisition.dto.ReportJobDto;
 import org.openlmis.requisition.errorhandling.ValidationResult;
 import org.openlmis.requisition.exception.JasperReportViewException;
 import org.springframework.core.io.ClassPathResource;
@@ -230,6 +237,55 @@ public class JasperTemplateControllerIntegrationTest extends BaseWebIntegrationT
     testGenerateReportInGivenFormat("text/html", "html");
   }
 
+  // POST /api/reports/templates/requisitions/{id}/{format}
+
+  @Test
+  public void shouldSubmitReport() {
+    // given
+    JasperTemplate template = generateTemplate();
+    ReportJob job = new ReportJob(template, "pdf", "hash", ZonedDateTime.now());
+    job.setId(UUID.randomUUID());
+    job.setCreatedDate(ZonedDateTime.now());
+
+    given(reportJobService.submit(eq(template), eq("pdf"), anyMap())).willReturn(job);
+
+    // when
+    ReportJobDto result = restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", template.getId())
+        .pathParam(FORMAT_PARAM, "pdf")
+        .when()
+        .post(REPORT_URL)
+        .then()
+        .statusCode(202)
+        .extract().as(ReportJobDto.class);
+
+    // then
+    assertEquals(job.getId(), result.getId());
+    assertEquals(ReportJobStatus.PENDING, result.getStatus());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void submitReportShouldReturnNotFoundWhenReportTemplateDoesNotExist() {
+    // given
+    given(jasperTemplateRepository.findById(any(UUID.class))).willReturn(Optional.empty());
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", UUID.randomUUID())
+        .pathParam(FORMAT_PARAM, "pdf")
+        .when()
+        .post(REPORT_URL)
+        .then()
+        .statusCode(404);
+
+    // then
+    verify(reportJobService, never()).submit(any(), any(), anyMap());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   // Helper methods
 
   private void testGenerateReportInGivenFormat(String contentType, String formatParam)
@@ -238,9 +294,11 @@ public class JasperTemplateControllerIntegrationTest extends BaseWebIntegrationT
     JasperTemplate template = generateTemplate();
 
     given(jasperTemplateRepository.findById(template.getId())).willReturn(Optional.of(template));
-    given(jasperReportsViewService
-        .generateReport(any(JasperTemplate.class), anyMap()))
-        .willReturn(new byte[1]);
+    willAnswer(invocation -> {
+      invocation.getArgument(2, OutputStream.class).write(new byte[1]);
+      return null;
+    }).given(jasperReportsViewService)
+        .generateTemplateReport(any(JasperTemplate.class), anyMap(), any(OutputStream.class));
 
     // when
     restAssured.given()
@@ -0,0 +1,119 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REFERENCE_DATA_CACHE_NOT_FOUND;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import org.junit.Test;
+import org.openlmis.requisition.errorhandling.ValidationResult;
+import org.openlmis.requisition.service.referencedata.ReferenceDataCache;
+import org.springframework.boot.test.mock.mockito.MockBean;
+import org.springframework.http.HttpHeaders;
+
+public class ReferenceDataCacheControllerIntegrationTest extends BaseWebIntegrationTest {
+  private static final String RESOURCE_URL = "/api/referenceDataCache";
+  private static final String NAME_URL = RESOURCE_URL + "/{name}";
+  private static final String FACILITIES = "facilities";
+  private static final String MESSAGE_KEY = "messageKey";
+  private static final String REQUISITION_TEMPLATES_MANAGE = "REQUISITION_TEMPLATES_MANAGE";
+
+  @MockBean
+  private ReferenceDataCache referenceDataCache;
+
+  @Test
+  public void shouldFlushReferenceDataCache() {
+    // given
+    doReturn(ValidationResult.success()).when(permissionService).canManageRequisitionTemplate();
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .delete(RESOURCE_URL)
+        .then()
+        .statusCode(204);
+
+    // then
+    verify(referenceDataCache).flush();
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldFlushReferenceDataCacheRegion() {
+    // given
+    doReturn(ValidationResult.success()).when(permissionService).canManageRequisitionTemplate();
+    when(referenceDataCache.flush(FACILITIES)).thenReturn(true);
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("name", FACILITIES)
+        .when()
+        .delete(NAME_URL)
+        .then()
+        .statusCode(204);
+
+    // then
+    verify(referenceDataCache).flush(FACILITIES);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotFoundForUnknownReferenceDataCacheRegion() {
+    // given
+    doReturn(ValidationResult.success()).when(permissionService).canManageRequisitionTemplate();
+    when(referenceDataCache.flush(FACILITIES)).thenReturn(false);
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("name", FACILITIES)
+        .when()
+        .delete(NAME_URL)
+        .then()
+        .statusCode(404)
+        .body(MESSAGE_KEY, equalTo(ERROR_REFERENCE_DATA_CACHE_NOT_FOUND));
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotFlushReferenceDataCacheWithoutPermission() {
+    // given
+    doReturn(ValidationResult.noPermission(PERMISSION_ERROR_MESSAGE, REQUISITION_TEMPLATES_MANAGE))
+        .when(permissionService).canManageRequisitionTemplate();
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .when()
+        .delete(RESOURCE_URL)
+        .then()
+        .statusCode(403);
+
+    // then
+    verify(referenceDataCache, never()).flush();
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+}
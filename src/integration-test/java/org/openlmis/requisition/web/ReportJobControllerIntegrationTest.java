@@ -0,0 +1,153 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.hamcrest.Matchers.equalTo;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.doReturn;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REPORT_JOB_NOT_COMPLETED;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REPORT_JOB_NOT_FOUND;
+
+import guru.nidi.ramltester.junit.RamlMatchers;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.domain.ReportJob;
+import org.openlmis.requisition.domain.ReportJobStatus;
+import org.openlmis.requisition.dto.ReportJobDto;
+import org.openlmis.requisition.errorhandling.ValidationResult;
+import org.springframework.http.HttpHeaders;
+
+public class ReportJobControllerIntegrationTest extends BaseWebIntegrationTest {
+  private static final String RESOURCE_URL = "/api/reports/jobs";
+  private static final String ID_URL = RESOURCE_URL + "/{id}";
+  private static final String REPORT_URL = ID_URL + "/report";
+  private static final String MESSAGE_KEY = "messageKey";
+
+  private ReportJob job;
+  private Path file;
+
+  @Before
+  public void setUp() throws IOException {
+    mockUserAuthenticated();
+    doReturn(ValidationResult.success()).when(permissionService).canViewReports();
+
+    JasperTemplate template = new JasperTemplate();
+    template.setId(UUID.randomUUID());
+    template.setName("Reporting Rate");
+
+    job = new ReportJob(template, "pdf", "hash", ZonedDateTime.now().plusHours(1));
+    job.setId(UUID.randomUUID());
+    job.setCreatedDate(ZonedDateTime.now());
+
+    file = Files.createTempFile("report", ".pdf");
+
+    given(reportJobService.findJob(job.getId())).willReturn(Optional.of(job));
+    given(reportJobService.getReportFile(job)).willReturn(file);
+  }
+
+  @After
+  public void tearDown() throws IOException {
+    Files.deleteIfExists(file);
+  }
+
+  // GET /api/reports/jobs/{id}
+
+  @Test
+  public void shouldGetJob() {
+    // when
+    ReportJobDto result = restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(200)
+        .extract().as(ReportJobDto.class);
+
+    // then
+    assertEquals(job.getId(), result.getId());
+    assertEquals(ReportJobStatus.PENDING, result.getStatus());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldReturnNotFoundForUnknownJob() {
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", UUID.randomUUID())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(404)
+        .body(MESSAGE_KEY, equalTo(ERROR_REPORT_JOB_NOT_FOUND));
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  // GET /api/reports/jobs/{id}/report
+
+  @Test
+  public void shouldGetReportOfCompletedJob() throws IOException {
+    // given
+    byte[] report = new byte[] { 1, 2, 3 };
+    Files.write(file, report);
+    job.complete(ZonedDateTime.now(), ZonedDateTime.now().plusHours(1));
+
+    // when
+    byte[] result = restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(REPORT_URL)
+        .then()
+        .statusCode(200)
+        .header(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=Reporting_Rate.pdf")
+        .extract().asByteArray();
+
+    // then
+    assertArrayEquals(report, result);
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
+  @Test
+  public void shouldNotGetReportOfJobThatIsNotCompleted() {
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .pathParam("id", job.getId())
+        .when()
+        .get(REPORT_URL)
+        .then()
+        .statusCode(400)
+        .body(MESSAGE_KEY, equalTo(ERROR_REPORT_JOB_NOT_COMPLETED));
+
+    // then
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+}
@@ -225,6 +225,33 @@ public class RequisitionControllerIntegrationTest extends BaseRequisitionWebInte
     assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
   }
 
+  @Test
+  public void shouldReturnNotModifiedIfChosenRequisitionHasNotChanged() {
+    // given
+    Requisition requisition = generateRequisition(RequisitionStatus.INITIATED);
+    given(requisitionRepository.findVersionById(requisition.getId()))
+        .willReturn(Optional.of(new Requisition(requisition.getId(), 1L,
+            requisition.getFacilityId(), requisition.getProgramId(), null, emptyMap())));
+    doReturn(ValidationResult.success())
+        .when(permissionService).canViewRequisition(any(Requisition.class));
+
+    // when
+    restAssured.given()
+        .header(HttpHeaders.AUTHORIZATION, getTokenHeader())
+        .header(HttpHeaders.IF_NONE_MATCH, "W/1")
+        .contentType(MediaType.APPLICATION_JSON_VALUE)
+        .pathParam("id", requisition.getId())
+        .when()
+        .get(ID_URL)
+        .then()
+        .statusCode(304)
+        .header(HttpHeaders.ETAG, "W/1");
+
+    // then
+    verify(requisitionRepository, never()).findById(requisition.getId());
+    assertThat(RAML_ASSERT_MESSAGE, restAssured.getLastReport(), RamlMatchers.hasNoViolations());
+  }
+
   @Test
   public void shouldNotGetChosenRequisitionWhenUserHasNoRightForView() {
     // given
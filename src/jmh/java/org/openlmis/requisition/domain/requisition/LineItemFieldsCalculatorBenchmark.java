@@ -0,0 +1,103 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain.requisition;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Measures calculating Adjusted Consumption and Average Consumption for every line item of a
+ * requisition, with values in the ranges seen in production data.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LineItemFieldsCalculatorBenchmark {
+
+  @Param({"600"})
+  private int lineItems;
+
+  @Param({"1", "3"})
+  private int monthsInThePeriod;
+
+  private List<RequisitionLineItem> requisitionLineItems;
+
+  /**
+   * Prepares line items with random consumption, stockout days and previous consumptions.
+   */
+  @Setup
+  public void setUp() {
+    Random random = new Random(lineItems);
+    requisitionLineItems = new ArrayList<>(lineItems);
+
+    for (int i = 0; i < lineItems; ++i) {
+      List<Integer> previousAdjustedConsumptions = new ArrayList<>();
+      for (int j = random.nextInt(3); j > 0; --j) {
+        previousAdjustedConsumptions.add(random.nextInt(10_000));
+      }
+
+      requisitionLineItems.add(new RequisitionLineItemDataBuilder()
+          .withTotalConsumedQuantity(random.nextInt(10_000))
+          .withTotalStockoutDays(random.nextInt(10) == 0 ? random.nextInt(30) : 0)
+          .withAdditionalQuantityRequired(random.nextInt(10) == 0 ? random.nextInt(100) : 0)
+          .withAdjustedConsumption(random.nextInt(10_000))
+          .withPreviousAdjustedConsumptions(previousAdjustedConsumptions)
+          .build());
+    }
+  }
+
+  /**
+   * Calculates Adjusted Consumption of every line item.
+   */
+  @Benchmark
+  public int adjustedConsumption() {
+    int result = 0;
+    for (RequisitionLineItem lineItem : requisitionLineItems) {
+      result += LineItemFieldsCalculator
+          .calculateAdjustedConsumption(lineItem, monthsInThePeriod, true);
+    }
+    return result;
+  }
+
+  /**
+   * Calculates Average Consumption of every line item from its previous Adjusted Consumptions.
+   */
+  @Benchmark
+  public int averageConsumption() {
+    int result = 0;
+    for (RequisitionLineItem lineItem : requisitionLineItems) {
+      lineItem.calculateAndSetAverageConsumption();
+      result += lineItem.getAverageConsumption();
+    }
+    return result;
+  }
+}
@@ -0,0 +1,128 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain.requisition;
+
+import static java.util.Collections.emptyList;
+import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonList;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.requisition.domain.RequisitionTemplate;
+import org.openlmis.requisition.domain.RequisitionTemplateDataBuilder;
+import org.openlmis.requisition.dto.ApprovedProductDto;
+import org.openlmis.requisition.dto.OrderableDto;
+import org.openlmis.requisition.dto.ProcessingPeriodDto;
+import org.openlmis.requisition.dto.stockmanagement.StockCardRangeSummaryDto;
+import org.openlmis.requisition.testutils.ApprovedProductDtoDataBuilder;
+import org.openlmis.requisition.testutils.OrderableDtoDataBuilder;
+import org.openlmis.requisition.testutils.ProcessingPeriodDtoDataBuilder;
+import org.openlmis.requisition.testutils.StockCardRangeSummaryDtoDataBuilder;
+
+/**
+ * Measures initiating a regular requisition with the given number of full supply products, with
+ * and without populating the stock on hand from stock cards.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class RequisitionInitiateBenchmark {
+
+  @Param({"100", "500", "2000"})
+  private int products;
+
+  @Param({"true", "false"})
+  private boolean stockBased;
+
+  private final UUID facilityId = UUID.randomUUID();
+  private final UUID programId = UUID.randomUUID();
+  private final UUID processingPeriodId = UUID.randomUUID();
+
+  private RequisitionTemplate template;
+  private List<ApprovedProductDto> fullSupplyProducts;
+  private StockData stockData;
+  private List<StockCardRangeSummaryDto> stockCardRangeSummaries;
+  private List<ProcessingPeriodDto> periods;
+
+  /**
+   * Prepares the products and their stock data.
+   */
+  @Setup
+  public void setUp() {
+    template = new RequisitionTemplateDataBuilder()
+        .withAllColumns()
+        .withPopulateStockOnHandFromStockCards(stockBased)
+        .build();
+
+    fullSupplyProducts = new ArrayList<>(products);
+    stockCardRangeSummaries = new ArrayList<>(products);
+    Map<UUID, Integer> stockOnHands = new HashMap<>();
+    Map<UUID, Integer> beginningBalances = new HashMap<>();
+
+    for (int i = 0; i < products; ++i) {
+      OrderableDto orderable = new OrderableDtoDataBuilder()
+          .withProgramOrderable(programId, true)
+          .buildAsDto();
+
+      fullSupplyProducts.add(new ApprovedProductDtoDataBuilder()
+          .withOrderable(orderable)
+          .buildAsDto());
+      stockCardRangeSummaries.add(new StockCardRangeSummaryDtoDataBuilder()
+          .withOrderableId(orderable.getId())
+          .withStockOutDays(i % 30)
+          .buildAsDto());
+      stockOnHands.put(orderable.getId(), i);
+      beginningBalances.put(orderable.getId(), i);
+    }
+
+    stockData = new StockData(stockOnHands, beginningBalances);
+    periods = singletonList(new ProcessingPeriodDtoDataBuilder().buildAsDto());
+  }
+
+  /**
+   * Initiates a new requisition.
+   */
+  @Benchmark
+  public Requisition initiate() {
+    Requisition requisition = new Requisition(facilityId, programId, processingPeriodId,
+        RequisitionStatus.INITIATED, false);
+    requisition.setNumberOfMonthsInPeriod(1);
+
+    requisition.initiate(template, fullSupplyProducts, emptyList(), 0, null, emptyMap(),
+        UUID.randomUUID(), stockData, stockCardRangeSummaries, stockCardRangeSummaries,
+        periods);
+
+    return requisition;
+  }
+}
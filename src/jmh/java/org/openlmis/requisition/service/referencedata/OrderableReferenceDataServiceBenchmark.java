@@ -0,0 +1,141 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableMap;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openlmis.requisition.domain.requisition.VersionEntityReference;
+import org.openlmis.requisition.dto.OrderableDto;
+import org.openlmis.requisition.service.AuthService;
+import org.openlmis.requisition.testutils.OrderableDtoDataBuilder;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
+import org.springframework.mock.http.client.MockClientHttpRequest;
+import org.springframework.mock.http.client.MockClientHttpResponse;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Measures finding the orderables of a requisition by their identities, with the versioned cache
+ * turned on and off. The Reference Data service is replaced by a canned JSON response, so the
+ * uncached results show the cost of a request without its network round trip.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class OrderableReferenceDataServiceBenchmark {
+
+  @Param({"100", "1000"})
+  private int products;
+
+  @Param({"true", "false"})
+  private boolean cached;
+
+  private OrderableReferenceDataService service;
+  private Set<VersionEntityReference> references;
+
+  /**
+   * Prepares the orderables, the canned response and a warm cache.
+   */
+  @Setup
+  public void setUp() throws Exception {
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    List<OrderableDto> orderables = new ArrayList<>(products);
+    references = new HashSet<>();
+
+    for (int i = 0; i < products; ++i) {
+      OrderableDto orderable = new OrderableDtoDataBuilder()
+          .withVersionNumber(1L)
+          .buildAsDto();
+
+      orderables.add(orderable);
+      references.add(new VersionEntityReference(orderable.getId(), 1L));
+    }
+
+    byte[] page = objectMapper.writeValueAsBytes(ImmutableMap.builder()
+        .put("content", orderables)
+        .put("first", true)
+        .put("last", true)
+        .put("number", 0)
+        .put("size", products)
+        .put("numberOfElements", products)
+        .put("totalElements", products)
+        .put("totalPages", 1)
+        .build());
+
+    final ClientHttpRequestFactory requestFactory = (uri, method) -> {
+      MockClientHttpResponse response = new MockClientHttpResponse(page, HttpStatus.OK);
+      response.getHeaders().setContentType(MediaType.APPLICATION_JSON);
+
+      MockClientHttpRequest request = new MockClientHttpRequest(method, uri);
+      request.setResponse(response);
+
+      return request;
+    };
+
+    AuthService authService = mock(AuthService.class);
+    when(authService.obtainAccessToken()).thenReturn("token");
+
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("referencedata.cache.orderables.maxSize", cached ? "100000" : "0");
+
+    service = new OrderableReferenceDataService();
+    service.setAuthService(authService);
+    service.setReferenceDataCache(new ReferenceDataCache(environment, new SimpleMeterRegistry(),
+        objectMapper, Clock.systemUTC()));
+    ReflectionTestUtils.setField(service, "restTemplate", new RestTemplate(requestFactory));
+    ReflectionTestUtils.setField(service, "referenceDataUrl", "http://localhost");
+    ReflectionTestUtils.setField(service, "maxUrlLength", 2000);
+    ReflectionTestUtils.setField(service, "maxParallelRequests", 1);
+
+    service.findByIdentities(references);
+  }
+
+  /**
+   * Finds the orderables of a requisition.
+   */
+  @Benchmark
+  public List<OrderableDto> findByIdentities() {
+    return service.findByIdentities(references);
+  }
+}
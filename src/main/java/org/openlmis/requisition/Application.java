@@ -132,6 +132,13 @@ public class Application {
     return new UserNameProvider();
   }
 
+  /**
+   * Create and return the provider of JaVers commit dates.
+   */
+  @Bean
+  public JaVersDateProvider javersDateProvider() {
+    return new JaVersDateProvider();
+  }
 
   /**
    * Create and return an instance of JaVers precisely configured as necessary.
@@ -152,8 +159,6 @@ public class Application {
         .withSchema(preferredSchema)
         .build();
 
-    JaVersDateProvider customDateProvider = new JaVersDateProvider();
-
     return TransactionalJaversBuilder
         .javers()
         .withTxManager(transactionManager)
@@ -167,7 +172,7 @@ public class Application {
         .withPrettyPrint(javersProperties.isPrettyPrint())
         .withTypeSafeValues(javersProperties.isTypeSafeValues())
         .withPackagesToScan(javersProperties.getPackagesToScan())
-        .withDateTimeProvider(customDateProvider)
+        .withDateTimeProvider(javersDateProvider())
         .build();
   }
 
@@ -15,50 +15,113 @@
 
 package org.openlmis.requisition;
 
-import static org.openlmis.requisition.utils.Pagination.DEFAULT_PAGE_NUMBER;
-
+import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
 import org.javers.core.Javers;
-import org.javers.core.metamodel.object.CdoSnapshot;
-import org.javers.repository.jql.QueryBuilder;
-import org.javers.spring.annotation.JaversSpringDataAuditable;
-import org.openlmis.requisition.domain.BaseEntity;
-import org.openlmis.requisition.i18n.MessageKeys;
-import org.openlmis.requisition.repository.BaseAuditableRepository;
+import org.openlmis.requisition.repository.RequisitionRepository;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.boot.CommandLineRunner;
-import org.springframework.context.ApplicationContext;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.annotation.Order;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageRequest;
-import org.springframework.data.domain.Pageable;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 
 /**
  * AuditLogInitializer runs after its associated Spring application has loaded.
  * It examines each domain object in the database and registers them with JaVers
  * if they haven't already been so. This is, in part, a fix for
  * <a href="https://github.com/javers/javers/issues/214">this issue</a>.
+ *
+ * <p>The requisition ids are split into {@code audit.initializer.partitions} ranges that are
+ * processed by a pool of {@code audit.initializer.threads} workers. Every page of requisitions
+ * is committed together with the last id of its range, so a run that was interrupted continues
+ * from there the next time the {@code init-audit-log} profile is active.
  */
-
 @Component
 @Profile("init-audit-log")
 @Order(20)
 public class AuditLogInitializer implements CommandLineRunner {
+  static final String AUTHOR = "System: AuditLogInitializer";
+
   private static final XLogger LOGGER = XLoggerFactory.getXLogger(AuditLogInitializer.class);
 
-  private ApplicationContext applicationContext;
-  private Javers javers;
+  private static final long PROGRESS_INTERVAL = TimeUnit.SECONDS.toNanos(10);
+
+  // the anti-join compares with the JaVers local id as it is stored, a quoted uuid, so the
+  // index on jv_global_id.local_id can be used
+  private static final String FIND_WITHOUT_SNAPSHOTS_SQL = "SELECT r.id"
+      + " FROM requisition.requisitions r"
+      + " WHERE r.id > ? AND r.id <= ?"
+      + " AND NOT EXISTS ("
+      + "SELECT 1 FROM requisition.jv_global_id g"
+      + " INNER JOIN requisition.jv_snapshot s ON s.global_id_fk = g.global_id_pk"
+      + " WHERE g.local_id = '\"' || CAST(r.id AS varchar) || '\"'"
+      + " AND g.type_name = 'Requisition')"
+      + " ORDER BY r.id"
+      + " LIMIT ?";
+
+  private static final String FIND_PARTITIONS_SQL = "SELECT lowerbound, upperbound, lastid, done"
+      + " FROM requisition.audit_log_initializer_partitions"
+      + " ORDER BY lowerbound";
+
+  private static final String INSERT_PARTITION_SQL = "INSERT INTO"
+      + " requisition.audit_log_initializer_partitions (lowerbound, upperbound, lastid)"
+      + " VALUES (?, ?, ?)";
 
+  private static final String UPDATE_PARTITION_SQL = "UPDATE"
+      + " requisition.audit_log_initializer_partitions SET lastid = ?, done = ?"
+      + " WHERE lowerbound = ?";
+
+  private static final String DELETE_PARTITIONS_SQL = "DELETE FROM"
+      + " requisition.audit_log_initializer_partitions";
+
+  private final RequisitionRepository requisitionRepository;
+  private final Javers javers;
+  private final JdbcTemplate jdbcTemplate;
+  private final TransactionTemplate transactionTemplate;
+
+  private final int threads;
+  private final int partitions;
+  private final int pageSize;
+
+  private final AtomicLong snapshots = new AtomicLong();
+  private final AtomicInteger partitionsDone = new AtomicInteger();
+  private final AtomicLong lastProgress = new AtomicLong();
+  private long started;
+
+  /**
+   * Creates a new instance of the initializer.
+   */
   @Autowired
-  public AuditLogInitializer(ApplicationContext applicationContext, Javers javers) {
-    this.applicationContext = applicationContext;
+  public AuditLogInitializer(RequisitionRepository requisitionRepository, Javers javers,
+      JdbcTemplate jdbcTemplate, PlatformTransactionManager transactionManager,
+      @Value("${audit.initializer.threads}") int threads,
+      @Value("${audit.initializer.partitions}") int partitions,
+      @Value("${audit.initializer.pageSize}") int pageSize) {
+    this.requisitionRepository = requisitionRepository;
     this.javers = javers;
+    this.jdbcTemplate = jdbcTemplate;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.threads = threads;
+    this.partitions = partitions;
+    this.pageSize = pageSize;
   }
 
   /**
@@ -70,58 +133,162 @@ public class AuditLogInitializer implements CommandLineRunner {
     Profiler profiler = new Profiler("RUN_AUDIT_LOG_INIT");
     profiler.setLogger(LOGGER);
 
-    profiler.start("GET_AUDITABLE_REPOSITORIES");
-    //Get all JaVers repositories.
-    Map<String,Object> repositoryMap =
-            applicationContext.getBeansWithAnnotation(JaversSpringDataAuditable.class);
-
-    //For each one...
-    for (Map.Entry<String, Object> entry : repositoryMap.entrySet()) {
-      String beanName = entry.getKey();
-      Object bean = entry.getValue();
-      profiler.start("CREATE_SNAPSHOTS_OF_" + beanName);
-      if (bean instanceof BaseAuditableRepository) {
-        createSnapshots((BaseAuditableRepository<?, ?>) bean);
-      } else {
-        LOGGER.warn("The repository should implement findAllWithoutSnapshots method"
-            + "from BaseAuditableRepository with appropriate query");
-      }
+    profiler.start("GET_PARTITIONS");
+    List<Partition> all = getPartitions();
+    List<Partition> remaining = all
+        .stream()
+        .filter(partition -> !partition.isDone())
+        .collect(Collectors.toList());
+    int total = all.size();
+    partitionsDone.set(total - remaining.size());
+
+    LOGGER.info("Creating requisition snapshots in {} of {} partitions with {} threads",
+        remaining.size(), total, threads);
+
+    // requisitions are the only audited entities, see RequisitionAuditOutboxAspect
+    profiler.start("CREATE_SNAPSHOTS_OF_REQUISITIONS");
+    started = System.nanoTime();
+    lastProgress.set(started);
+    boolean completed = createSnapshots(remaining, total);
+
+    if (completed) {
+      jdbcTemplate.update(DELETE_PARTITIONS_SQL);
+    } else {
+      LOGGER.error("Not all requisition snapshots were created, run the init-audit-log profile"
+          + " again to continue");
     }
 
+    logProgress(total);
     profiler.stop().log();
     LOGGER.exit();
   }
 
-  protected void createSnapshots(BaseAuditableRepository<?, ?> repository) {
-    Pageable pageable = PageRequest.of(DEFAULT_PAGE_NUMBER, 2000);
+  private List<Partition> getPartitions() {
+    List<Partition> stored = jdbcTemplate.query(FIND_PARTITIONS_SQL, (rs, rowNum) ->
+        new Partition(rs.getObject(1, UUID.class), rs.getObject(2, UUID.class),
+            rs.getObject(3, UUID.class), rs.getBoolean(4)));
 
-    while (true) {
-      Page<?> page = repository.findAllWithoutSnapshots(pageable);
+    if (!stored.isEmpty()) {
+      LOGGER.info("Resuming an interrupted run");
+      return stored;
+    }
+
+    List<Partition> created = split(partitions);
+    created.forEach(partition -> jdbcTemplate.update(INSERT_PARTITION_SQL,
+        partition.getLowerBound(), partition.getUpperBound(), partition.getLastId()));
+
+    return created;
+  }
+
+  /**
+   * Splits the uuid space into the given number of ranges. The lower bound of a range is
+   * exclusive and its upper bound is inclusive, both are compared the way the database compares
+   * uuids, as unsigned bytes.
+   */
+  static List<Partition> split(int count) {
+    long step = Long.divideUnsigned(-1L, count);
+    List<Partition> split = new ArrayList<>(count);
+    UUID lowerBound = new UUID(0, 0);
 
-      if (!page.hasContent()) {
-        break;
+    for (int index = 1; index <= count; ++index) {
+      UUID upperBound = index == count
+          ? new UUID(-1L, -1L)
+          : new UUID(step * index, 0);
+
+      split.add(new Partition(lowerBound, upperBound, lowerBound, false));
+      lowerBound = upperBound;
+    }
+
+    return split;
+  }
+
+  private boolean createSnapshots(List<Partition> remaining, int total) {
+    ExecutorService executor = Executors.newFixedThreadPool(threads);
+    List<Future<?>> futures = new ArrayList<>(remaining.size());
+
+    for (Partition partition : remaining) {
+      futures.add(executor.submit(() -> createSnapshotsOfPartition(partition, total)));
+    }
+
+    boolean completed = true;
+
+    try {
+      for (Future<?> future : futures) {
+        try {
+          future.get();
+        } catch (ExecutionException ex) {
+          LOGGER.error("Could not create requisition snapshots", ex.getCause());
+          completed = false;
+        }
       }
+    } catch (InterruptedException ex) {
+      Thread.currentThread().interrupt();
+      completed = false;
+    } finally {
+      executor.shutdownNow();
+    }
+
+    return completed;
+  }
+
+  private void createSnapshotsOfPartition(Partition partition, int total) {
+    UUID lastId = partition.getLastId();
+    boolean done = false;
 
-      page.forEach(this::createSnapshot);
+    while (!done) {
+      UUID after = lastId;
+      List<UUID> ids = transactionTemplate
+          .execute(status -> createSnapshotsOfPage(partition, after));
 
-      pageable = pageable.next();
+      done = ids.size() < pageSize;
+      lastId = ids.isEmpty() ? lastId : ids.get(ids.size() - 1);
+      snapshots.addAndGet(ids.size());
+
+      maybeLogProgress(total);
     }
+
+    partitionsDone.incrementAndGet();
   }
 
-  private void createSnapshot(Object object) {
-    //...check whether there exists a snapshot for it in the audit log.
-    // Note that we don't care about checking for logged changes, per se,
-    // and thus use findSnapshots() rather than findChanges()
-    BaseEntity baseEntity = (BaseEntity) object;
+  private List<UUID> createSnapshotsOfPage(Partition partition, UUID after) {
+    List<UUID> ids = jdbcTemplate.queryForList(FIND_WITHOUT_SNAPSHOTS_SQL, UUID.class,
+        after, partition.getUpperBound(), pageSize);
 
-    QueryBuilder jqlQuery = QueryBuilder.byInstanceId(baseEntity.getId(), object.getClass());
-    List<CdoSnapshot> snapshots = javers.findSnapshots(jqlQuery.build());
+    requisitionRepository
+        .findAllById(ids)
+        .forEach(requisition -> javers.commit(AUTHOR, requisition));
 
-    if (snapshots.isEmpty()) {
-      javers.commit("System: AuditLogInitializer", baseEntity);
-    } else {
-      LOGGER.info(MessageKeys.ERROR_JAVERS_EXISTING_ENTRY,
-          baseEntity.getClass(), baseEntity.getId());
+    // the page and the position in the partition are committed together
+    UUID lastId = ids.isEmpty() ? after : ids.get(ids.size() - 1);
+    jdbcTemplate.update(UPDATE_PARTITION_SQL, lastId, ids.size() < pageSize,
+        partition.getLowerBound());
+
+    return ids;
+  }
+
+  private void maybeLogProgress(int total) {
+    long now = System.nanoTime();
+    long last = lastProgress.get();
+
+    if (now - last >= PROGRESS_INTERVAL && lastProgress.compareAndSet(last, now)) {
+      logProgress(total);
     }
   }
+
+  private void logProgress(int total) {
+    long elapsed = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(System.nanoTime() - started));
+    long created = snapshots.get();
+
+    LOGGER.info("Created {} requisition snapshots in {} s ({} per second), {} of {} partitions"
+        + " done", created, elapsed, created / elapsed, partitionsDone.get(), total);
+  }
+
+  @Getter
+  @AllArgsConstructor
+  static final class Partition {
+    private final UUID lowerBound;
+    private final UUID upperBound;
+    private final UUID lastId;
+    private final boolean done;
+  }
 }
@@ -0,0 +1,158 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.httpcomponents.PoolingHttpClientConnectionManagerMetricsBinder;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.conn.ConnectionPoolTimeoutException;
+import org.apache.http.conn.ConnectionRequest;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.impl.client.HttpClients;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.HttpComponentsClientHttpRequestFactory;
+
+/**
+ * Configures the HTTP client shared by all requests to other services. Connections are pooled
+ * with a limit per host and in total, idle connections are closed in the background and gzip
+ * responses are decompressed. The pool size, the time it took to lease a connection and the
+ * pool limits are published as metrics.
+ */
+@Configuration
+public class HttpClientConfiguration {
+  static final String POOL_NAME = "outbound";
+  static final String LEASE_METRIC = "http.client.pool.lease";
+
+  @Value("${http.client.maxConnections}")
+  private int maxConnections;
+
+  @Value("${http.client.maxConnectionsPerRoute}")
+  private int maxConnectionsPerRoute;
+
+  @Value("${http.client.connectTimeout}")
+  private int connectTimeout;
+
+  @Value("${http.client.readTimeout}")
+  private int readTimeout;
+
+  @Value("${http.client.connectionRequestTimeout}")
+  private int connectionRequestTimeout;
+
+  @Value("${http.client.idleTimeout}")
+  private long idleTimeout;
+
+  @Value("${http.client.timeToLive}")
+  private long timeToLive;
+
+  /**
+   * Creates the connection pool shared by all outbound requests.
+   */
+  @Bean
+  public PoolingHttpClientConnectionManager httpConnectionManager(MeterRegistry meterRegistry) {
+    Timer leaseTimer = Timer
+        .builder(LEASE_METRIC)
+        .tag("httpclient", POOL_NAME)
+        .description("The time spent waiting for a pooled connection")
+        .register(meterRegistry);
+
+    PoolingHttpClientConnectionManager manager =
+        new LeaseTimingConnectionManager(timeToLive, leaseTimer);
+    manager.setMaxTotal(maxConnections);
+    manager.setDefaultMaxPerRoute(maxConnectionsPerRoute);
+
+    return manager;
+  }
+
+  /**
+   * Creates the HTTP client. Its background thread that evicts idle connections is stopped when
+   * the client is closed together with the application context.
+   */
+  @Bean(destroyMethod = "close")
+  public CloseableHttpClient httpClient(PoolingHttpClientConnectionManager httpConnectionManager) {
+    RequestConfig requestConfig = RequestConfig
+        .custom()
+        .setConnectTimeout(connectTimeout)
+        .setSocketTimeout(readTimeout)
+        .setConnectionRequestTimeout(connectionRequestTimeout)
+        .build();
+
+    return HttpClients
+        .custom()
+        .setConnectionManager(httpConnectionManager)
+        .setDefaultRequestConfig(requestConfig)
+        .evictExpiredConnections()
+        .evictIdleConnections(idleTimeout, TimeUnit.SECONDS)
+        .useSystemProperties()
+        .build();
+  }
+
+  @Bean
+  public ClientHttpRequestFactory httpRequestFactory(CloseableHttpClient httpClient) {
+    return new HttpComponentsClientHttpRequestFactory(httpClient);
+  }
+
+  /**
+   * Publishes the number of leased, available and pending connections of the pool.
+   */
+  @Bean
+  public MeterBinder httpConnectionPoolMetrics(
+      PoolingHttpClientConnectionManager httpConnectionManager) {
+    return new PoolingHttpClientConnectionManagerMetricsBinder(httpConnectionManager, POOL_NAME);
+  }
+
+  static final class LeaseTimingConnectionManager extends PoolingHttpClientConnectionManager {
+    private final Timer leaseTimer;
+
+    LeaseTimingConnectionManager(long timeToLive, Timer leaseTimer) {
+      super(timeToLive, TimeUnit.SECONDS);
+      this.leaseTimer = leaseTimer;
+    }
+
+    @Override
+    public ConnectionRequest requestConnection(HttpRoute route, Object state) {
+      ConnectionRequest request = super.requestConnection(route, state);
+
+      return new ConnectionRequest() {
+        @Override
+        public HttpClientConnection get(long timeout, TimeUnit unit)
+            throws InterruptedException, ExecutionException, ConnectionPoolTimeoutException {
+          long start = System.nanoTime();
+
+          try {
+            return request.get(timeout, unit);
+          } finally {
+            leaseTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+          }
+        }
+
+        @Override
+        public boolean cancel() {
+          return request.cancel();
+        }
+      };
+    }
+  }
+}
@@ -28,13 +28,36 @@ import org.javers.common.date.DateProvider;
  * It is intended to be used, rather than JaVers' default DateProvider, so as to be explicit and
  * consistent with the use of UTC within JaVers' domain. (Otherwise, JaVers uses the default
  * system timezone, which may change, when constructing a LocalDateTime.)
+ *
+ * <p>Commits made in {@link #runAt(Instant, Runnable)} are dated at the given time instead, so
+ * changes recorded later by a background worker keep the time they were made.
  */
 public class JaVersDateProvider implements DateProvider {
   public static final ZoneOffset ZONE_OFFSET = ZoneOffset.UTC;
   public static final ZoneId ZONE_ID = ZoneId.of(ZONE_OFFSET.getId());
 
+  private final ThreadLocal<LocalDateTime> commitDate = new ThreadLocal<>();
+
+  /**
+   * Returns the date of the commit being made, which is the current time unless the commit is
+   * made in {@link #runAt(Instant, Runnable)}.
+   */
   public LocalDateTime now() {
-    return LocalDateTime.now(ZONE_OFFSET);
+    LocalDateTime date = commitDate.get();
+    return null == date ? LocalDateTime.now(ZONE_OFFSET) : date;
+  }
+
+  /**
+   * Runs the given action, dating the commits it makes in the current thread at the given time.
+   */
+  public void runAt(Instant date, Runnable action) {
+    commitDate.set(LocalDateTime.ofInstant(date, ZONE_OFFSET));
+
+    try {
+      action.run();
+    } finally {
+      commitDate.remove();
+    }
   }
 
   /**
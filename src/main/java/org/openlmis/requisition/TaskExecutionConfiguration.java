@@ -0,0 +1,106 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition;
+
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.binder.MeterBinder;
+import io.micrometer.core.instrument.binder.jvm.ExecutorServiceMetrics;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openlmis.requisition.security.SpringSecurityRunnableWrapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.task.TaskExecutorCustomizer;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+/**
+ * Configures the application task executor that is shared by the whole service (for example by
+ * the batch approval stock event submission and by {@code @Async} methods). The pool size and the
+ * queue capacity are set with the {@code spring.task.execution} properties.
+ */
+@Configuration
+public class TaskExecutionConfiguration {
+  static final String REJECTED_METRIC = "executor.rejected";
+
+  private final CallerRunsCountingPolicy rejectionPolicy = new CallerRunsCountingPolicy();
+
+  /**
+   * Passes the security context of the submitting thread to the worker thread.
+   */
+  @Bean
+  public TaskDecorator securityContextTaskDecorator() {
+    return task -> new SpringSecurityRunnableWrapper(SecurityContextHolder.getContext(), task);
+  }
+
+  /**
+   * Runs tasks that did not fit into a full pool and queue on the submitting thread instead of
+   * failing them, so a busy executor slows callers down rather than losing work.
+   */
+  @Bean
+  public TaskExecutorCustomizer rejectionPolicyCustomizer() {
+    return executor -> executor.setRejectedExecutionHandler(rejectionPolicy);
+  }
+
+  /**
+   * Publishes the number of active, queued, completed and rejected tasks of the application task
+   * executor.
+   */
+  @Bean
+  public MeterBinder applicationTaskExecutorMetrics(
+      @Qualifier(APPLICATION_TASK_EXECUTOR_BEAN_NAME) ThreadPoolTaskExecutor executor) {
+    return registry -> {
+      Tags tags = Tags.of("name", APPLICATION_TASK_EXECUTOR_BEAN_NAME);
+
+      new ExecutorServiceMetrics(executor.getThreadPoolExecutor(),
+          APPLICATION_TASK_EXECUTOR_BEAN_NAME, Tags.empty()).bindTo(registry);
+
+      FunctionCounter
+          .builder(REJECTED_METRIC, rejectionPolicy, CallerRunsCountingPolicy::getRejectedCount)
+          .tags(tags)
+          .description("The number of tasks that were run on the submitting thread because "
+              + "the executor was saturated")
+          .register(registry);
+    };
+  }
+
+  static final class CallerRunsCountingPolicy extends ThreadPoolExecutor.CallerRunsPolicy {
+    private static final Logger LOGGER = LoggerFactory.getLogger(CallerRunsCountingPolicy.class);
+
+    private final AtomicLong rejectedCount = new AtomicLong();
+
+    @Override
+    public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+      long count = rejectedCount.incrementAndGet();
+      LOGGER.warn("Task executor saturated (active: {}, queued: {}), running task on the "
+          + "submitting thread; {} task(s) rejected so far",
+          executor.getActiveCount(), executor.getQueue().size(), count);
+
+      super.rejectedExecution(task, executor);
+    }
+
+    long getRejectedCount() {
+      return rejectedCount.get();
+    }
+  }
+}
@@ -35,9 +35,9 @@ public class TestDataInitializer implements CommandLineRunner {
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(TestDataInitializer.class);
 
   private static final String DEMO_DATA_PATH = "classpath:db/demo-data/";
-  private static final String DB_MIGRATION_PATH = "classpath:db/migration/";
 
   private static final String FILE_EXTENSION = ".csv";
+  private static final String SQL_EXTENSION = ".sql";
 
   // table names
   private static final String COLUMNS_MAPS = "columns_maps";
@@ -46,6 +46,7 @@ public class TestDataInitializer implements CommandLineRunner {
   private static final String JASPER_TEMPLATES = "jasper_templates";
   private static final String PREVIOUS_ADJUSTED_CONSUMPTIONS = "previous_adjusted_consumptions";
   private static final String REQUISITION_LINE_ITEMS = "requisition_line_items";
+  private static final String REQUISITION_PERMISSION_STRINGS = "requisition_permission_strings";
   private static final String REQUISITION_TEMPLATE_ASSIGNMENTS = "requisition_template_assignments";
   private static final String REQUISITION_TEMPLATES = "requisition_templates";
   private static final String REQUISITIONS = "requisitions";
@@ -64,6 +65,8 @@ public class TestDataInitializer implements CommandLineRunner {
   static final String PREVIOUS_ADJUSTED_CONSUMPTIONS_TABLE =
       DB_SCHEMA + PREVIOUS_ADJUSTED_CONSUMPTIONS;
   static final String REQUISITION_LINE_ITEMS_TABLE = DB_SCHEMA + REQUISITION_LINE_ITEMS;
+  static final String REQUISITION_PERMISSION_STRINGS_TABLE =
+      DB_SCHEMA + REQUISITION_PERMISSION_STRINGS;
   static final String REQUISITION_TEMPLATE_ASSIGNMENTS_TABLE =
       DB_SCHEMA + REQUISITION_TEMPLATE_ASSIGNMENTS;
   static final String REQUISITION_TEMPLATES_TABLE = DB_SCHEMA + REQUISITION_TEMPLATES;
@@ -114,8 +117,7 @@ public class TestDataInitializer implements CommandLineRunner {
   @Value(value = DEMO_DATA_PATH + DB_SCHEMA + TEMPLATE_PARAMETERS + FILE_EXTENSION)
   private Resource templateParametersResource;
 
-  @Value(value = DB_MIGRATION_PATH
-      + "20170822230153657__generate_requisition_permission_strings.sql")
+  @Value(value = DEMO_DATA_PATH + DB_SCHEMA + REQUISITION_PERMISSION_STRINGS + SQL_EXTENSION)
   private Resource generateRequisitionPermissionStringsResource;
 
   private JdbcTemplate template;
@@ -157,7 +159,7 @@ public class TestDataInitializer implements CommandLineRunner {
     loader.insertToDbFromCsv(
         JASPER_TEMPLATE_PARAMETER_DEPENDENCIES_TABLE, jasperTemplateParameterDependenciesResource);
 
-    template.update("DELETE FROM requisition.requisition_permission_strings;");
+    template.update("DELETE FROM " + REQUISITION_PERMISSION_STRINGS_TABLE + ";");
     loader.updateDbFromSqlSingle(generateRequisitionPermissionStringsResource);
 
     XLOGGER.exit();
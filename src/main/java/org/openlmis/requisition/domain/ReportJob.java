@@ -0,0 +1,162 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain;
+
+import java.time.ZonedDateTime;
+import java.util.UUID;
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.EnumType;
+import javax.persistence.Enumerated;
+import javax.persistence.Table;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+import org.hibernate.annotations.Type;
+
+/**
+ * A report that is generated in the background. The generated file is kept until the expiry date
+ * and identical reports submitted before then reuse the same job.
+ */
+@Entity
+@Table(name = "report_jobs")
+@NoArgsConstructor
+public class ReportJob extends BaseTimestampedEntity {
+
+  @Type(type = UUID_TYPE)
+  @Column(nullable = false)
+  @Getter
+  private UUID templateId;
+
+  @Column(nullable = false, columnDefinition = TEXT_COLUMN_DEFINITION)
+  @Getter
+  private String format;
+
+  @Column(nullable = false, columnDefinition = TEXT_COLUMN_DEFINITION)
+  @Getter
+  private String fileName;
+
+  @Column(nullable = false, columnDefinition = TEXT_COLUMN_DEFINITION)
+  @Getter
+  private String parametersHash;
+
+  @Enumerated(EnumType.STRING)
+  @Column(nullable = false)
+  @Getter
+  private ReportJobStatus status;
+
+  @Column(columnDefinition = TEXT_COLUMN_DEFINITION)
+  @Getter
+  private String errorMessage;
+
+  @Column(columnDefinition = "timestamp with time zone")
+  @Getter
+  private ZonedDateTime completedDate;
+
+  @Column(nullable = false, columnDefinition = "timestamp with time zone")
+  @Getter
+  private ZonedDateTime expiryDate;
+
+  @Column(nullable = false, columnDefinition = "timestamp with time zone")
+  @Getter
+  private ZonedDateTime heartbeatDate;
+
+  /**
+   * Creates a new pending report job.
+   *
+   * @param template template the report is generated from
+   * @param format report format
+   * @param parametersHash hash of the template, the format and the report parameters
+   * @param expiryDate date after which the job is removed
+   */
+  public ReportJob(JasperTemplate template, String format, String parametersHash,
+      ZonedDateTime expiryDate) {
+    this.templateId = template.getId();
+    this.format = format;
+    this.fileName = template.getName().replaceAll("\\s+", "_") + "." + format;
+    this.parametersHash = parametersHash;
+    this.status = ReportJobStatus.PENDING;
+    this.expiryDate = expiryDate;
+    this.heartbeatDate = ZonedDateTime.now();
+  }
+
+  public void start() {
+    status = ReportJobStatus.RUNNING;
+  }
+
+  /**
+   * Marks the job as completed. The report is kept until the given expiry date.
+   */
+  public void complete(ZonedDateTime completedDate, ZonedDateTime expiryDate) {
+    this.status = ReportJobStatus.COMPLETED;
+    this.completedDate = completedDate;
+    this.expiryDate = expiryDate;
+  }
+
+  /**
+   * Marks the job as failed with the given reason.
+   */
+  public void fail(ZonedDateTime completedDate, String errorMessage) {
+    this.status = ReportJobStatus.FAILED;
+    this.completedDate = completedDate;
+    this.errorMessage = errorMessage;
+  }
+
+  public boolean isCompleted() {
+    return ReportJobStatus.COMPLETED == status;
+  }
+
+  /**
+   * Checks if the job is pending or running, but the instance generating it has not updated its
+   * heartbeat date since the given date, so the report will never be generated.
+   */
+  public boolean isAbandoned(ZonedDateTime staleBefore) {
+    return status.isActive() && heartbeatDate.isBefore(staleBefore);
+  }
+
+  /**
+   * Export this object to the specified exporter (DTO).
+   *
+   * @param exporter exporter to export to
+   */
+  public void export(Exporter exporter) {
+    exporter.setId(id);
+    exporter.setTemplateId(templateId);
+    exporter.setFormat(format);
+    exporter.setStatus(status);
+    exporter.setErrorMessage(errorMessage);
+    exporter.setCreatedDate(getCreatedDate());
+    exporter.setCompletedDate(completedDate);
+    exporter.setExpiryDate(expiryDate);
+  }
+
+  public interface Exporter {
+    void setId(UUID id);
+
+    void setTemplateId(UUID templateId);
+
+    void setFormat(String format);
+
+    void setStatus(ReportJobStatus status);
+
+    void setErrorMessage(String errorMessage);
+
+    void setCreatedDate(ZonedDateTime createdDate);
+
+    void setCompletedDate(ZonedDateTime completedDate);
+
+    void setExpiryDate(ZonedDateTime expiryDate);
+  }
+}
@@ -23,7 +23,6 @@ import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.TO
 import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.TOTAL_RECEIVED_QUANTITY;
 
 import java.math.BigDecimal;
-import java.math.RoundingMode;
 import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
@@ -43,6 +42,8 @@ import org.openlmis.requisition.utils.Message;
 @SuppressWarnings("PMD.TooManyMethods")
 public final class LineItemFieldsCalculator {
 
+  private static final int RATIO_SCALE = 1000;
+
   private LineItemFieldsCalculator() {
   }
 
@@ -204,18 +205,27 @@ public final class LineItemFieldsCalculator {
    * P = Roundup( (N<sub>t0</sub> + N<sub>t-1</sub>) / 2).
    */
   public static int calculateAverageConsumption(List<Integer> adjustedConsumptions) {
-    int numberOfPeriods = adjustedConsumptions.size();
-    if (numberOfPeriods == 1) {
-      return adjustedConsumptions.get(0);
+    int sum = 0;
+    for (int adjustedConsumption : adjustedConsumptions) {
+      sum += adjustedConsumption;
     }
 
-    if (numberOfPeriods == 2) {
-      return (int) Math.ceil((adjustedConsumptions.get(0) + adjustedConsumptions.get(1)) / 2.0);
-    }
+    return ceilDivide(sum, adjustedConsumptions.size());
+  }
 
-    int sum = adjustedConsumptions.stream().reduce(0, Integer::sum);
+  /**
+   * Calculates Average Consumption (P) value from the previous Adjusted Consumptions and the
+   * current one. It gives the same result as {@link #calculateAverageConsumption(List)} called
+   * with the current value appended to the previous ones, without copying them to a new list.
+   */
+  public static int calculateAverageConsumption(List<Integer> previousAdjustedConsumptions,
+      int adjustedConsumption) {
+    int sum = adjustedConsumption;
+    for (int previousAdjustedConsumption : previousAdjustedConsumptions) {
+      sum += previousAdjustedConsumption;
+    }
 
-    return (int) Math.ceil((double)sum / numberOfPeriods);
+    return ceilDivide(sum, previousAdjustedConsumptions.size() + 1);
   }
 
   /**
@@ -394,43 +404,115 @@ public final class LineItemFieldsCalculator {
     if (null != summaryDto) {
       Integer totalConsumedQuantity =
           calculateStockBasedTotalConsumedQuantity(template, summaryDto, orderableId);
+      int monthsInThePeriods = 0;
+      for (ProcessingPeriodDto period : periods) {
+        monthsInThePeriods += period.getDurationInMonths();
+      }
       int adjustedConsumption = calculateAdjustedConsumptionValue(
           totalConsumedQuantity,
           summaryDto.getStockOutDays(),
-          periods.stream().mapToInt(ProcessingPeriodDto::getDurationInMonths).sum(),
+          monthsInThePeriods,
           additionalQuantityRequired);
-      value = (int) Math.ceil((double) adjustedConsumption / periods.size());
+      value = ceilDivide(adjustedConsumption, periods.size());
     }
     return value;
   }
 
   private static int calculateAdjustedConsumptionValue(Integer totalConsumedQuantity,
       Integer totalStockoutDays, int monthsInThePeriod, Integer additionalQuantityRequired) {
-    int consumedQuantity = zeroIfNull(totalConsumedQuantity);
+    int adjustedConsumption = calculateAdjustedConsumptionValue(zeroIfNull(totalConsumedQuantity),
+        zeroIfNull(totalStockoutDays), monthsInThePeriod);
+
+    if (null != additionalQuantityRequired && additionalQuantityRequired > 0) {
+      return adjustedConsumption + additionalQuantityRequired;
+    }
+    return adjustedConsumption;
+  }
 
+  /**
+   * Calculates Adjusted Consumption without Additional Quantity Required, that is
+   * N = RoundUp(C * ((M * 30) / ((M * 30) - X))).
+   *
+   * <p>The ratio used to be a {@link BigDecimal} rounded half up to 1000 decimal places, which was
+   * then multiplied by C and rounded up. This gives the same results with long arithmetic: the
+   * rounding of the ratio can only change the result when C * ratio is a whole number, and then
+   * it is one more if the rounded ratio moved the product up.</p>
+   */
+  static int calculateAdjustedConsumptionValue(int consumedQuantity, int stockoutDays,
+      int monthsInThePeriod) {
     if (consumedQuantity == 0) {
       return 0;
     }
 
     final int totalDays = 30 * monthsInThePeriod;
-    final int stockoutDays = zeroIfNull(totalStockoutDays);
     final int nonStockoutDays = totalDays - stockoutDays;
 
     if (nonStockoutDays == 0) {
       return consumedQuantity;
     }
 
-    BigDecimal divide = new BigDecimal(totalDays)
-        .divide(new BigDecimal(nonStockoutDays), 1000, BigDecimal.ROUND_HALF_UP);
+    long product = (long) consumedQuantity * totalDays;
+
+    if (product % nonStockoutDays != 0) {
+      return (int) -Math.floorDiv(-product, nonStockoutDays);
+    }
+
+    long adjustedConsumption = product / nonStockoutDays;
+    int roundingDirection = getRatioRoundingDirection(totalDays, nonStockoutDays);
 
-    BigDecimal adjustedConsumption = new BigDecimal(consumedQuantity)
-        .multiply(divide)
-        .setScale(0, RoundingMode.CEILING);
+    if (roundingDirection != 0 && Integer.signum(consumedQuantity) == roundingDirection) {
+      adjustedConsumption++;
+    }
+    return (int) adjustedConsumption;
+  }
 
-    if (null != additionalQuantityRequired && additionalQuantityRequired > 0) {
-      return adjustedConsumption.intValue() + additionalQuantityRequired;
+  /**
+   * Returns the sign of the error made by rounding dividend / divisor half up to
+   * {@value #RATIO_SCALE} decimal places, or zero if the ratio has no more decimal places.
+   */
+  private static int getRatioRoundingDirection(int dividend, int divisor) {
+    long absoluteDivisor = Math.abs((long) divisor);
+    long remainder = Math.abs((long) dividend) % absoluteDivisor;
+
+    if (remainder == 0) {
+      return 0;
+    }
+
+    long remainderAfterScale = remainder * powerOfTenModulo(RATIO_SCALE, absoluteDivisor)
+        % absoluteDivisor;
+
+    if (remainderAfterScale == 0) {
+      return 0;
+    }
+
+    int ratioSign = Integer.signum(dividend) * Integer.signum(divisor);
+    return 2 * remainderAfterScale >= absoluteDivisor ? ratioSign : -ratioSign;
+  }
+
+  private static long powerOfTenModulo(int exponent, long modulus) {
+    long result = 1 % modulus;
+    long base = 10 % modulus;
+    for (int remaining = exponent; remaining > 0; remaining >>= 1) {
+      if ((remaining & 1) == 1) {
+        result = result * base % modulus;
+      }
+      base = base * base % modulus;
+    }
+    return result;
+  }
+
+  /**
+   * Divides and rounds up the same way as (int) Math.ceil((double) dividend / divisor), including
+   * division by zero.
+   */
+  private static int ceilDivide(int dividend, int divisor) {
+    if (divisor == 0) {
+      if (dividend == 0) {
+        return 0;
+      }
+      return dividend > 0 ? Integer.MAX_VALUE : Integer.MIN_VALUE;
     }
-    return adjustedConsumption.intValue();
+    return (int) -Math.floorDiv(-(long) dividend, divisor);
   }
 
   private static boolean hasNonZeroStockValue(RequisitionLineItem currentLineItem) {
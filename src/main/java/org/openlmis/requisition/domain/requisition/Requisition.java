@@ -291,6 +291,41 @@ public class Requisition extends BaseTimestampedEntity {
         PermissionService.REQUISITION_VIEW, facilityId, programId));
   }
 
+  /**
+   * Creates a requisition with only fields that are needed to build basic requisition DTOs. It
+   * is used by queries that select those fields instead of the whole entity, so the result is
+   * not tracked by the persistence context and must not be saved.
+   */
+  public Requisition(UUID id, ZonedDateTime createdDate, ZonedDateTime modifiedDate,
+      UUID facilityId, UUID programId, UUID processingPeriodId, RequisitionStatus status,
+      Boolean emergency, Boolean reportOnly, Map<String, Object> extraData) {
+    setId(id);
+    setCreatedDate(createdDate);
+    setModifiedDate(modifiedDate);
+    this.facilityId = facilityId;
+    this.programId = programId;
+    this.processingPeriodId = processingPeriodId;
+    this.status = status;
+    this.emergency = emergency;
+    this.reportOnly = reportOnly;
+    this.extraData = new ExtraDataEntity(extraData);
+  }
+
+  /**
+   * Creates a requisition with only its version and the fields that are needed to check if it
+   * can be viewed. It is used by the query that checks if a requisition has changed, so the
+   * result is not tracked by the persistence context and must not be saved.
+   */
+  public Requisition(UUID id, Long version, UUID facilityId, UUID programId,
+      UUID supervisoryNodeId, Map<String, Object> extraData) {
+    setId(id);
+    this.version = version;
+    this.facilityId = facilityId;
+    this.programId = programId;
+    this.supervisoryNodeId = supervisoryNodeId;
+    this.extraData = new ExtraDataEntity(extraData);
+  }
+
   /**
    * Copy constructor.
    *
@@ -315,7 +350,8 @@ public class Requisition extends BaseTimestampedEntity {
     permissionStrings = original
         .permissionStrings
         .stream()
-        .map(rps -> new RequisitionPermissionString(this, rps.getPermissionString()))
+        .map(rps -> new RequisitionPermissionString(this, rps.getRightName(),
+            rps.getFacilityId(), rps.getProgramId()))
         .collect(toList());
 
     this.stockAdjustmentReasons = original
@@ -503,6 +539,13 @@ public class Requisition extends BaseTimestampedEntity {
     this.requisitionLineItems = new ArrayList<>();
 
     if (isNotTrue(emergency)) {
+      Map<UUID, StockCardRangeSummaryDto> summaries =
+          indexStockCardRangeSummaries(stockCardRangeSummaries);
+      Map<UUID, StockCardRangeSummaryDto> summariesToAverage =
+          stockCardRangeSummariesToAverage == stockCardRangeSummaries
+              ? summaries
+              : indexStockCardRangeSummaries(stockCardRangeSummariesToAverage);
+
       for (ApprovedProductDto product : fullSupplyProducts) {
         UUID orderableId = product.getOrderable().getId();
 
@@ -517,10 +560,8 @@ public class Requisition extends BaseTimestampedEntity {
             ? stockData.getBeginningBalance(orderableId)
             : 0);
 
-        StockCardRangeSummaryDto summary = findStockCardRangeSummary(
-            stockCardRangeSummaries, lineItem.getOrderable().getId());
-        StockCardRangeSummaryDto summaryToAverage = findStockCardRangeSummary(
-            stockCardRangeSummariesToAverage, lineItem.getOrderable().getId());
+        StockCardRangeSummaryDto summary = summaries.get(orderableId);
+        StockCardRangeSummaryDto summaryToAverage = summariesToAverage.get(orderableId);
 
         lineItem.calculateAndSetStockBasedTotalReceivedQuantity(template, summary);
         lineItem.calculateAndSetStockBasedTotalStockoutDays(summary, numberOfMonthsInPeriod);
@@ -1127,13 +1168,20 @@ public class Requisition extends BaseTimestampedEntity {
     requisitionLineItems.addAll(updatedList);
   }
 
-  private StockCardRangeSummaryDto findStockCardRangeSummary(
-      List<StockCardRangeSummaryDto> stockCardRangeSummaryDtos, UUID orderableId) {
-    return stockCardRangeSummaryDtos
-        .stream()
-        .filter(range -> range.getOrderable().getId().equals(orderableId))
-        .findFirst()
-        .orElse(null);
+  /**
+   * Maps stock card range summaries by orderable id, so that each line item finds its summary
+   * without scanning the whole list. The first summary of an orderable is kept if there are
+   * more.
+   */
+  private Map<UUID, StockCardRangeSummaryDto> indexStockCardRangeSummaries(
+      List<StockCardRangeSummaryDto> stockCardRangeSummaryDtos) {
+    Map<UUID, StockCardRangeSummaryDto> index = new HashMap<>();
+
+    for (StockCardRangeSummaryDto summary : stockCardRangeSummaryDtos) {
+      index.putIfAbsent(summary.getOrderable().getId(), summary);
+    }
+
+    return index;
   }
 
   public Map<String, Object> getExtraData() {
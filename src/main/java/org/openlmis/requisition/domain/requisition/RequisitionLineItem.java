@@ -627,10 +627,8 @@ public class RequisitionLineItem extends BaseEntity {
    * Sets appropriate value for Average Consumption field in {@link RequisitionLineItem}.
    */
   void calculateAndSetAverageConsumption() {
-    List<Integer> previous = new ArrayList<>(getPreviousAdjustedConsumptions());
-    previous.add(getAdjustedConsumption());
-    Integer calculated = calculateAverageConsumption(previous);
-    setAverageConsumption(calculated);
+    setAverageConsumption(
+        calculateAverageConsumption(getPreviousAdjustedConsumptions(), getAdjustedConsumption()));
   }
 
   /**
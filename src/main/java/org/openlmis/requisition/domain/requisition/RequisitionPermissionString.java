@@ -23,7 +23,6 @@ import javax.persistence.Entity;
 import javax.persistence.JoinColumn;
 import javax.persistence.ManyToOne;
 import javax.persistence.Table;
-import lombok.AllArgsConstructor;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
@@ -32,7 +31,6 @@ import org.openlmis.requisition.domain.BaseEntity;
 @Entity
 @Table(name = "requisition_permission_strings")
 @NoArgsConstructor
-@AllArgsConstructor
 public class RequisitionPermissionString extends BaseEntity {
 
   @ManyToOne(cascade = {CascadeType.REFRESH})
@@ -46,6 +44,28 @@ public class RequisitionPermissionString extends BaseEntity {
   @Setter
   private String permissionString;
 
+  @Column(columnDefinition = TEXT_COLUMN_DEFINITION, nullable = false)
+  @Getter
+  private String rightName;
+
+  @Column(nullable = false)
+  @Getter
+  private UUID facilityId;
+
+  @Column(nullable = false)
+  @Getter
+  private UUID programId;
+
+  RequisitionPermissionString(Requisition requisition, String rightName, UUID facilityId,
+      UUID programId) {
+    this.requisition = requisition;
+    this.permissionString = String.join("|", rightName, facilityId.toString(),
+        programId.toString());
+    this.rightName = rightName;
+    this.facilityId = facilityId;
+    this.programId = programId;
+  }
+
   /**
    * Convenience constructor to create permission string based on a set of values, which all must
    * not be null.
@@ -61,7 +81,6 @@ public class RequisitionPermissionString extends BaseEntity {
     Objects.requireNonNull(rightName);
     Objects.requireNonNull(facilityId);
     Objects.requireNonNull(programId);
-    return new RequisitionPermissionString(requisition,
-        String.join("|", rightName, facilityId.toString(), programId.toString()));
+    return new RequisitionPermissionString(requisition, rightName, facilityId, programId);
   }
 }
@@ -46,6 +46,10 @@ public abstract class MessageKeys {
       + ".reporting.template.exist";
   public static final String ERROR_REPORTING_TEMPLATE_NOT_FOUND = ERROR_PREFIX
       + ".reporting.template.notFound";
+  public static final String ERROR_REPORT_JOB_NOT_FOUND = ERROR_PREFIX
+      + ".reportJob.notFound";
+  public static final String ERROR_REPORT_JOB_NOT_COMPLETED = ERROR_PREFIX
+      + ".reportJob.notCompleted";
   public static final String ERROR_MUST_BE_SUBMITTED_TO_BE_AUTHORIZED = ERROR_PREFIX
       + ".authorize.mustBeSubmittedToBeAuthorize";
   public static final String ERROR_FINISH_PROVIOUS_REQUISITION = ERROR_PREFIX
@@ -78,6 +82,8 @@ public abstract class MessageKeys {
       + ".facilityNotFound";
   public static final String ERROR_PROGRAM_NOT_FOUND = ERROR_PREFIX
       + ".programNotFound";
+  public static final String ERROR_REFERENCE_DATA_CACHE_NOT_FOUND = ERROR_PREFIX
+      + ".referenceDataCacheNotFound";
   public static final String ERROR_ID_MISMATCH = ERROR_PREFIX
       + ".idMismatch";
   public static final String ERROR_NO_SUBMITTED_REQUISITIONS = ERROR_PREFIX
@@ -264,6 +270,8 @@ public abstract class MessageKeys {
       ERROR_PREFIX + ".validation.params.requisitionStatus.notValidStatus";
   public static final String ERROR_SEARCH_INVALID_PARAMS =
       ERROR_PREFIX + ".search.invalidParams";
+  public static final String ERROR_SEARCH_INVALID_CURSOR =
+      ERROR_PREFIX + ".search.invalidCursor";
   public static final String ERROR_INVALID_DATE_FORMAT =
       ERROR_PREFIX + ".validation.invalidDateFormat";
   public static final String ERROR_INVALID_BOOLEAN_FORMAT =
@@ -0,0 +1,67 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository;
+
+import java.time.ZonedDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Optional;
+import java.util.UUID;
+import org.openlmis.requisition.domain.ReportJob;
+import org.openlmis.requisition.domain.ReportJobStatus;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.PagingAndSortingRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+public interface ReportJobRepository extends PagingAndSortingRepository<ReportJob, UUID> {
+
+  Optional<ReportJob> findFirstByParametersHashAndStatusInAndExpiryDateAfterOrderByCreatedDateDesc(
+      String parametersHash, Collection<ReportJobStatus> statuses, ZonedDateTime date);
+
+  List<ReportJob> findByExpiryDateBefore(ZonedDateTime date);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE ReportJob j SET j.heartbeatDate = :date"
+      + " WHERE j.id IN :ids AND j.status IN :statuses")
+  int updateHeartbeatDate(@Param("ids") Collection<UUID> ids,
+      @Param("statuses") Collection<ReportJobStatus> statuses,
+      @Param("date") ZonedDateTime date);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE ReportJob j"
+      + " SET j.status = org.openlmis.requisition.domain.ReportJobStatus.FAILED,"
+      + " j.errorMessage = :message, j.completedDate = :date"
+      + " WHERE j.id IN :ids AND j.status IN :statuses")
+  int failJobs(@Param("ids") Collection<UUID> ids,
+      @Param("statuses") Collection<ReportJobStatus> statuses,
+      @Param("message") String message,
+      @Param("date") ZonedDateTime date);
+
+  @Modifying
+  @Transactional
+  @Query("UPDATE ReportJob j"
+      + " SET j.status = org.openlmis.requisition.domain.ReportJobStatus.FAILED,"
+      + " j.errorMessage = :message, j.completedDate = :date"
+      + " WHERE j.heartbeatDate < :staleBefore AND j.status IN :statuses")
+  int failJobsWithHeartbeatDateBefore(@Param("staleBefore") ZonedDateTime staleBefore,
+      @Param("statuses") Collection<ReportJobStatus> statuses,
+      @Param("message") String message,
+      @Param("date") ZonedDateTime date);
+}
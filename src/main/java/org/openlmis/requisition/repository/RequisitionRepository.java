@@ -16,8 +16,8 @@
 package org.openlmis.requisition.repository;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.UUID;
-import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.repository.custom.RequisitionRepositoryCustom;
 import org.springframework.data.domain.Page;
@@ -28,7 +28,6 @@ import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 
-@JaversSpringDataAuditable
 public interface RequisitionRepository extends
     JpaRepository<Requisition, UUID>,
     RequisitionRepositoryCustom,
@@ -43,19 +42,26 @@ public interface RequisitionRepository extends
       + "FROM\n"
       + "    requisition.requisitions r\n"
       + "WHERE\n"
-      + "    id NOT IN (\n"
+      + "    NOT EXISTS (\n"
       + "        SELECT\n"
-      + "            id\n"
+      + "            1\n"
       + "        FROM\n"
-      + "            requisition.requisitions r\n"
-      + "            INNER JOIN requisition.jv_global_id g "
-      + "ON CAST(r.id AS varchar) = SUBSTRING(g.local_id, 2, 36)\n"
-      + "            INNER JOIN requisition.jv_snapshot s  ON g.global_id_pk = s.global_id_fk\n"
+      + "            requisition.jv_global_id g\n"
+      + "            INNER JOIN requisition.jv_snapshot s ON g.global_id_pk = s.global_id_fk\n"
+      + "        WHERE\n"
+      + "            g.local_id = '\"' || CAST(r.id AS varchar) || '\"'\n"
+      + "            AND g.type_name = 'Requisition'\n"
       + "    )\n"
       + " ORDER BY ?#{#pageable}",
       nativeQuery = true)
   Page<Requisition> findAllWithoutSnapshots(Pageable pageable);
 
+  @Query("SELECT new org.openlmis.requisition.domain.requisition.Requisition("
+      + "r.id, r.version, r.facilityId, r.programId, r.supervisoryNodeId, r.extraData.extraData)"
+      + " FROM Requisition r"
+      + " WHERE r.id = :id")
+  Optional<Requisition> findVersionById(@Param("id") UUID id);
+
   @Query(value = "SELECT CASE WHEN count(r) > 0 THEN true ELSE false END"
       + " FROM requisition.requisitions r"
       + " WHERE (r.extradata ->> 'originalRequisition')\\:\\:uuid = :originalRequisitionId",
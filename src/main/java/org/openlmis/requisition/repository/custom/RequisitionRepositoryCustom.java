@@ -15,6 +15,7 @@
 
 package org.openlmis.requisition.repository.custom;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.util.Set;
@@ -22,18 +23,28 @@ import java.util.UUID;
 import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionPeriod;
+import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.RequisitionStatusChangeDate;
+import org.openlmis.requisition.service.referencedata.CompactPermissionStrings;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 public interface RequisitionRepositoryCustom {
 
   Page<Requisition> searchRequisitions(RequisitionSearchParams params,
-      List<String> userPermissionStrings, Set<Pair<UUID, UUID>> programNodePairs,
+      CompactPermissionStrings userPermissionStrings, Set<Pair<UUID, UUID>> programNodePairs,
       Pageable pageable);
 
   List<Requisition> searchRequisitions(UUID processingPeriod,
       UUID facility, UUID program, Boolean emergency);
 
+  List<RequisitionStatusChangeDate> searchStatusChangeDates(UUID program,
+      Collection<UUID> processingPeriods, Collection<UUID> facilities, Boolean emergency,
+      RequisitionStatus status);
+
+  Set<UUID> searchFacilityIdsWithRequisitions(UUID program, UUID processingPeriod,
+      Set<RequisitionStatus> statuses, Collection<UUID> facilities);
+
   Optional<Requisition> findRegularRequisition(UUID processingPeriod, UUID facility, UUID program);
 
   List<RequisitionPeriod> searchRequisitionIdAndStatusPairs(UUID facility, UUID program,
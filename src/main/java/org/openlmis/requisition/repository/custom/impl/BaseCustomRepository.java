@@ -20,6 +20,8 @@ import java.time.LocalTime;
 import java.time.ZonedDateTime;
 import java.util.Collection;
 import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
 import javax.persistence.EntityManager;
 import javax.persistence.PersistenceContext;
 import javax.persistence.criteria.CriteriaBuilder;
@@ -30,8 +32,12 @@ import javax.persistence.criteria.Predicate;
 import javax.persistence.criteria.Root;
 import org.apache.commons.lang3.ObjectUtils;
 import org.apache.commons.lang3.tuple.Pair;
+import org.openlmis.requisition.utils.CursorPage;
+import org.openlmis.requisition.utils.CursorPageRequest;
+import org.openlmis.requisition.utils.CursorPageRequest.Cursor;
 import org.openlmis.requisition.utils.DateHelper;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 
 abstract class BaseCustomRepository<T> {
@@ -54,6 +60,37 @@ abstract class BaseCustomRepository<T> {
     return ObjectUtils.compare(count, 0L) == 0;
   }
 
+  boolean isCounted(Pageable pageable) {
+    return !(pageable instanceof CursorPageRequest) || ((CursorPageRequest) pageable).isCounted();
+  }
+
+  /**
+   * Returns the page of entities that come after the cursor of the given pageable, skipping the
+   * pages before its page number. The query must be ordered by the sort of the pageable and
+   * filtered with {@link #addCursorFilter}.
+   *
+   * @param count  number of all matching entities or null if they were not counted.
+   * @param cursor function returning the cursor pointing right after the given entity.
+   */
+  Page<T> getCursorPage(CriteriaQuery<T> query, CursorPageRequest pageable, Long count,
+      Function<T, String> cursor) {
+    int pageSize = pageable.getPageSize();
+    List<T> entities = entityManager
+        .createQuery(query)
+        .setFirstResult(Math.toIntExact(pageable.getOffset()))
+        .setMaxResults(pageSize < Integer.MAX_VALUE ? pageSize + 1 : pageSize)
+        .getResultList();
+
+    boolean hasNext = entities.size() > pageSize;
+    List<T> content = hasNext ? entities.subList(0, pageSize) : entities;
+    String nextCursor = hasNext ? cursor.apply(content.get(content.size() - 1)) : null;
+    long total = null == count
+        ? pageable.getOffset() + content.size() + (hasNext ? 1 : 0)
+        : count;
+
+    return new CursorPage<>(content, pageable, total, nextCursor);
+  }
+
   List<T> getEntities(CriteriaQuery<T> query, Pageable pageable) {
     Pair<Integer, Integer> maxAndFirst = PageableUtil.querysMaxAndFirstResult(pageable);
     return entityManager
@@ -77,6 +114,29 @@ abstract class BaseCustomRepository<T> {
         : builder.and(predicate, getField(root, field).in(values));
   }
 
+  Predicate addCursorFilter(Predicate predicate, CriteriaBuilder builder, Root<T> root,
+      Pageable pageable) {
+    if (!(pageable instanceof CursorPageRequest)) {
+      return predicate;
+    }
+
+    Cursor cursor = ((CursorPageRequest) pageable).getCursor();
+
+    if (null == cursor) {
+      return predicate;
+    }
+
+    Path<ZonedDateTime> createdDate = root.get(CursorPageRequest.CREATED_DATE);
+    Path<UUID> id = root.get(CursorPageRequest.ID);
+
+    // the first condition is redundant, but lets the database seek the index on (createdDate, id)
+    return builder.and(predicate,
+        builder.greaterThanOrEqualTo(createdDate, cursor.getCreatedDate()),
+        builder.or(
+            builder.greaterThan(createdDate, cursor.getCreatedDate()),
+            builder.greaterThan(id, cursor.getId())));
+  }
+
   Predicate addDateRangeFilter(Predicate predicate, CriteriaBuilder builder,
       Root<T> root, String field, ZonedDateTime startDate, ZonedDateTime endDate) {
     if (null != startDate && null != endDate) {
@@ -16,12 +16,19 @@
 package org.openlmis.requisition.repository.custom.impl;
 
 import static java.util.stream.Collectors.toList;
+import static org.apache.commons.collections4.CollectionUtils.isEmpty;
 import static org.apache.commons.collections4.CollectionUtils.isNotEmpty;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_COLUMN_IS_NOT_VALID_FOR_SORTING;
 
 import com.google.common.base.Joiner;
+import com.google.common.collect.ImmutableSortedMap;
+import com.google.common.collect.Lists;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
@@ -34,7 +41,6 @@ import javax.persistence.PersistenceContext;
 import javax.persistence.Query;
 import javax.persistence.criteria.CriteriaBuilder;
 import javax.persistence.criteria.CriteriaQuery;
-import javax.persistence.criteria.Expression;
 import javax.persistence.criteria.Join;
 import javax.persistence.criteria.JoinType;
 import javax.persistence.criteria.ListJoin;
@@ -55,15 +61,18 @@ import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionPeriod;
 import org.openlmis.requisition.domain.requisition.RequisitionPermissionString;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
+import org.openlmis.requisition.domain.requisition.RequisitionStatusChangeDate;
 import org.openlmis.requisition.domain.requisition.StatusChange;
-import org.openlmis.requisition.repository.StatusChangeRepository;
+import org.openlmis.requisition.exception.ValidationMessageException;
 import org.openlmis.requisition.repository.custom.RequisitionRepositoryCustom;
 import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
+import org.openlmis.requisition.service.referencedata.CompactPermissionStrings;
+import org.openlmis.requisition.utils.CursorPageRequest;
+import org.openlmis.requisition.utils.Message;
 import org.openlmis.requisition.utils.Pagination;
 import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
-import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
 import org.springframework.data.domain.Sort;
@@ -86,14 +95,13 @@ public class RequisitionRepositoryImpl
       + " r.id AS req_id, r.emergency AS req_emergency,"
       + " r.facilityid AS facility_id, r.programid AS program_id,"
       + " r.processingperiodid as period_id, r.supervisorynodeid as node_id,"
-      + " s.createdDate as approved_date"
-      + FROM;
+      + " s.createdDate as approved_date";
 
-  private static final String SELECT_COUNT_APPROVED_SQL = "SELECT DISTINCT COUNT(*)"
-      + FROM;
+  private static final String SELECT_COUNT_APPROVED_SQL = "SELECT DISTINCT COUNT(*)";
 
   private static final String FACILITY_ID = "facilityId";
   private static final String PROGRAM_ID = "programId";
+  private static final String RIGHT_NAME = "rightName";
   private static final String EMERGENCY = "emergency";
   private static final String STATUS = "status";
   private static final String CREATED_DATE = "createdDate";
@@ -101,13 +109,39 @@ public class RequisitionRepositoryImpl
   private static final String SUPERVISORY_NODE_ID = "supervisoryNodeId";
   private static final String AUTHORIZED_DATE = "authorizedDate";
   private static final String MODIFIED_DATE = "modifiedDate";
+  private static final String ID = "id";
+  private static final String REPORT_ONLY = "reportOnly";
+  private static final String EXTRA_DATA = "extraData";
+  private static final String REQUISITION = "requisition";
+  private static final String AUTHOR_ID = "authorId";
+
+  private static final int IN_CLAUSE_BATCH_SIZE = 1000;
+
+  // every requisitions column can be sorted by, and like column names the keys ignore case
+  private static final Map<String, String> APPROVED_SORT_COLUMNS = ImmutableSortedMap
+      .<String, String>orderedBy(String.CASE_INSENSITIVE_ORDER)
+      .put(ID, "r.id")
+      .put(CREATED_DATE, "r.createddate")
+      .put(MODIFIED_DATE, "r.modifieddate")
+      .put("draftStatusMessage", "r.draftstatusmessage")
+      .put(EMERGENCY, "r.emergency")
+      .put(FACILITY_ID, "r.facilityid")
+      .put("numberOfMonthsInPeriod", "r.numberofmonthsinperiod")
+      .put(PROCESSING_PERIOD_ID, "r.processingperiodid")
+      .put(PROGRAM_ID, "r.programid")
+      .put(STATUS, "r.status")
+      .put(SUPERVISORY_NODE_ID, "r.supervisorynodeid")
+      .put("supplyingFacilityId", "r.supplyingfacilityid")
+      .put("templateId", "r.templateid")
+      .put(REPORT_ONLY, "r.reportonly")
+      .put("version", "r.version")
+      .put("datePhysicalStockCountCompleted", "r.datephysicalstockcountcompleted")
+      .put(EXTRA_DATA, "r.extradata")
+      .build();
 
   @PersistenceContext
   private EntityManager entityManager;
 
-  @Autowired
-  private StatusChangeRepository statusChangeRepository;
-
   /**
    * Method returns all Requisitions with matched parameters. User permission strings must not be
    * empty.
@@ -119,24 +153,32 @@ public class RequisitionRepositoryImpl
    */
   @Override
   public Page<Requisition> searchRequisitions(RequisitionSearchParams params,
-      List<String> userPermissionStrings, Set<Pair<UUID, UUID>> programNodePairs,
+      CompactPermissionStrings userPermissionStrings, Set<Pair<UUID, UUID>> programNodePairs,
       Pageable pageable) {
     CriteriaBuilder builder = getCriteriaBuilder();
+    Long count = null;
 
-    CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
-    countQuery = prepareQuery(builder, countQuery, params,
-        userPermissionStrings, programNodePairs, true, pageable);
+    if (isCounted(pageable)) {
+      CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
+      countQuery = prepareQuery(builder, countQuery, params,
+          userPermissionStrings, programNodePairs, true, pageable);
 
-    Long count = countEntities(countQuery);
+      count = countEntities(countQuery);
 
-    if (isZeroEntities(count)) {
-      return Pagination.getPage(Collections.emptyList(), pageable, count);
+      if (isZeroEntities(count)) {
+        return Pagination.getPage(Collections.emptyList(), pageable, count);
+      }
     }
 
     CriteriaQuery<Requisition> requisitionQuery = builder.createQuery(Requisition.class);
     requisitionQuery = prepareQuery(builder, requisitionQuery, params,
         userPermissionStrings, programNodePairs, false, pageable);
 
+    if (pageable instanceof CursorPageRequest) {
+      return getCursorPage(requisitionQuery, (CursorPageRequest) pageable, count,
+          this::getCursor);
+    }
+
     List<Requisition> requisitions = getEntities(requisitionQuery, pageable);
     return Pagination.getPage(requisitions, pageable, count);
   }
@@ -170,6 +212,124 @@ public class RequisitionRepositoryImpl
     return entityManager.createQuery(query).getResultList();
   }
 
+  /**
+   * Method returns, for every requisition with matched parameters, its facility, its processing
+   * period and the date of its first status change to the given status. Only scalar values are
+   * selected so that requisitions are not loaded into the persistence context. Facilities are
+   * queried in batches so that the IN clause stays within the database parameter limits.
+   *
+   * @param program           Program of searched Requisitions.
+   * @param processingPeriods ProcessingPeriods of searched Requisitions.
+   * @param facilities        Facilities of searched Requisitions.
+   * @param emergency         if {@code true}, the method will look only for emergency
+   *                          requisitions, if {@code false}, the method will look only for
+   *                          standard requisitions, if {@code null} the method will check all
+   *                          requisitions.
+   * @param status            Status of the status change which date should be returned. If
+   *                          a requisition has never been in this status, the date is null.
+   * @return List of requisition facility, period and status change date with matched parameters.
+   */
+  @Override
+  public List<RequisitionStatusChangeDate> searchStatusChangeDates(UUID program,
+      Collection<UUID> processingPeriods, Collection<UUID> facilities, Boolean emergency,
+      RequisitionStatus status) {
+    XLOGGER.entry(program, processingPeriods, facilities, emergency, status);
+
+    if (isEmpty(processingPeriods) || isEmpty(facilities)) {
+      XLOGGER.exit(Collections.emptyList());
+      return Collections.emptyList();
+    }
+
+    Profiler profiler = new Profiler("SEARCH_STATUS_CHANGE_DATES");
+    profiler.setLogger(XLOGGER);
+
+    List<RequisitionStatusChangeDate> result = new ArrayList<>();
+
+    for (List<UUID> batch : Lists.partition(new ArrayList<>(facilities), IN_CLAUSE_BATCH_SIZE)) {
+      profiler.start("PREPARE_QUERY");
+      CriteriaBuilder builder = getCriteriaBuilder();
+      CriteriaQuery<RequisitionStatusChangeDate> query = builder
+          .createQuery(RequisitionStatusChangeDate.class);
+      Root<Requisition> root = query.from(Requisition.class);
+
+      ListJoin<Requisition, StatusChange> statusChanges = root
+          .joinList(Requisition.STATUS_CHANGES, JoinType.LEFT);
+      statusChanges.on(builder.equal(statusChanges.get(STATUS), status));
+
+      query.multiselect(root.get(ID), root.get(FACILITY_ID), root.get(PROCESSING_PERIOD_ID),
+          builder.least(statusChanges.<ZonedDateTime>get(CREATED_DATE)));
+
+      Predicate predicate = builder.conjunction();
+      predicate = addEqualFilter(predicate, builder, root, PROGRAM_ID, program);
+      predicate = addEqualFilter(predicate, builder, root, EMERGENCY, emergency);
+      predicate = addInFilter(predicate, builder, root, PROCESSING_PERIOD_ID, processingPeriods);
+      predicate = addInFilter(predicate, builder, root, FACILITY_ID, batch);
+
+      query.where(predicate);
+      query.groupBy(root.get(ID), root.get(FACILITY_ID), root.get(PROCESSING_PERIOD_ID));
+
+      profiler.start("EXECUTE_QUERY");
+      result.addAll(entityManager.createQuery(query)
+          .setHint(QueryHints.HINT_READONLY, true)
+          .getResultList());
+    }
+
+    XLOGGER.exit(result.size());
+    profiler.stop().log();
+    return result;
+  }
+
+  /**
+   * Method returns ids of those given facilities that have at least one requisition with matched
+   * parameters. Only distinct facility ids are selected, requisitions are not loaded. Facilities
+   * are queried in batches so that the IN clause stays within the database parameter limits.
+   *
+   * @param program          Program of searched Requisitions.
+   * @param processingPeriod ProcessingPeriod of searched Requisitions.
+   * @param statuses         Statuses of searched Requisitions. If empty, all statuses match.
+   * @param facilities       Facilities which should be checked.
+   * @return Set of ids of facilities that have a requisition with matched parameters.
+   */
+  @Override
+  public Set<UUID> searchFacilityIdsWithRequisitions(UUID program, UUID processingPeriod,
+      Set<RequisitionStatus> statuses, Collection<UUID> facilities) {
+    XLOGGER.entry(program, processingPeriod, statuses, facilities);
+
+    if (isEmpty(facilities)) {
+      XLOGGER.exit(Collections.emptySet());
+      return Collections.emptySet();
+    }
+
+    Profiler profiler = new Profiler("SEARCH_FACILITY_IDS_WITH_REQUISITIONS");
+    profiler.setLogger(XLOGGER);
+
+    Set<UUID> result = new HashSet<>();
+
+    for (List<UUID> batch : Lists.partition(new ArrayList<>(facilities), IN_CLAUSE_BATCH_SIZE)) {
+      profiler.start("PREPARE_QUERY");
+      CriteriaBuilder builder = getCriteriaBuilder();
+      CriteriaQuery<UUID> query = builder.createQuery(UUID.class);
+      Root<Requisition> root = query.from(Requisition.class);
+
+      query.select(root.get(FACILITY_ID)).distinct(true);
+
+      Predicate predicate = builder.conjunction();
+      predicate = addEqualFilter(predicate, builder, root, PROGRAM_ID, program);
+      predicate = addEqualFilter(predicate, builder, root, PROCESSING_PERIOD_ID, processingPeriod);
+      predicate = addInFilter(predicate, builder, root, STATUS, statuses);
+      predicate = addInFilter(predicate, builder, root, FACILITY_ID, batch);
+
+      query.where(predicate);
+
+      profiler.start("EXECUTE_QUERY");
+      result.addAll(entityManager.createQuery(query).getResultList());
+    }
+
+    XLOGGER.exit(result.size());
+    profiler.stop().log();
+    return result;
+  }
+
   /**
    * Method returns Requisition with matched parameters.
    *
@@ -220,7 +380,7 @@ public class RequisitionRepositoryImpl
 
     CriteriaQuery<RequisitionPeriod> query = builder.createQuery(RequisitionPeriod.class);
     Root<Requisition> root = query.from(Requisition.class);
-    query.multiselect(root.get("id"), root.get(STATUS), root.get(PROCESSING_PERIOD_ID));
+    query.multiselect(root.get(ID), root.get(STATUS), root.get(PROCESSING_PERIOD_ID));
 
     Predicate predicate = builder.conjunction();
     predicate = addEqualFilter(predicate, builder, root, EMERGENCY, emergency);
@@ -296,57 +456,54 @@ public class RequisitionRepositoryImpl
     profiler.start("CREATE_BUILDER");
     CriteriaBuilder builder = getCriteriaBuilder();
 
-    profiler.start("PREPARE_COUNT_QUERY");
-    CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
-    countQuery = prepareApprovableQuery(builder, countQuery, programNodePairs, true, pageable);
+    Long count = null;
 
-    profiler.start("EXECUTE_COUNT_QUERY");
-    Long count = countEntities(countQuery);
+    if (isCounted(pageable)) {
+      profiler.start("PREPARE_COUNT_QUERY");
+      CriteriaQuery<Long> countQuery = builder.createQuery(Long.class);
+      countQuery = prepareApprovableQuery(builder, countQuery, programNodePairs, true, pageable);
 
-    if (isZeroEntities(count)) {
-      profiler.start("CREATE_RESULT_PAGE");
-      Page<Requisition> page = Pagination.getPage(Collections.emptyList(), pageable, count);
+      profiler.start("EXECUTE_COUNT_QUERY");
+      count = countEntities(countQuery);
 
-      XLOGGER.exit(page);
-      profiler.stop().log();
+      if (isZeroEntities(count)) {
+        profiler.start("CREATE_RESULT_PAGE");
+        Page<Requisition> page = Pagination.getPage(Collections.emptyList(), pageable, count);
 
-      return page;
-    }
+        XLOGGER.exit(page);
+        profiler.stop().log();
 
-    profiler.start("GET_MAX_AND_FIRST");
-    final Pair<Integer, Integer> maxAndFirst = PageableUtil.querysMaxAndFirstResult(pageable);
+        return page;
+      }
+    }
 
     profiler.start("PREPARE_MAIN_QUERY");
     CriteriaQuery<Requisition> query = builder.createQuery(Requisition.class);
     query = prepareApprovableQuery(builder, query, programNodePairs, false, pageable);
 
     profiler.start("EXECUTE_MAIN_QUERY");
-    List<Requisition> requisitions = entityManager.createQuery(query)
-        .setMaxResults(maxAndFirst.getLeft())
-        .setFirstResult(maxAndFirst.getRight())
-        .getResultList();
-
-    profiler.start("GET_REQUISITIONS_IDS");
-    Set<UUID> requisitionIds = requisitions
-        .stream()
-        .map(BaseEntity::getId)
-        .collect(Collectors.toSet());
-
-    profiler.start("GET_STATUS_CHANGES_BY_REQ_IDS");
-    Map<UUID, List<StatusChange>> allStatusChanges = statusChangeRepository
-        .findByRequisitionIdIn(requisitionIds)
-        .stream()
-        .collect(Collectors.groupingBy(status -> status.getRequisition().getId()));
-
-    profiler.start("MATCH_REQ_WITH_STATUS_CHANGES");
-    requisitions
-        .forEach(requisition -> {
-          List<StatusChange> statusChanges = allStatusChanges.get(requisition.getId());
-          requisition.setStatusChanges(statusChanges);
-        });
-
-    profiler.start("CREATE_RESULT_PAGE");
-    Page<Requisition> page = Pagination.getPage(requisitions, pageable, count);
+    Page<Requisition> page = pageable instanceof CursorPageRequest
+        ? getCursorPage(query, (CursorPageRequest) pageable, count, this::getCursor)
+        : Pagination.getPage(getEntities(query, pageable), pageable, count);
+    List<Requisition> requisitions = page.getContent();
+
+    if (!requisitions.isEmpty()) {
+      profiler.start("GET_REQUISITIONS_IDS");
+      Set<UUID> requisitionIds = requisitions
+          .stream()
+          .map(BaseEntity::getId)
+          .collect(Collectors.toSet());
+
+      profiler.start("GET_STATUS_CHANGES_BY_REQ_IDS");
+      Map<UUID, List<StatusChange>> allStatusChanges = findStatusChanges(requisitionIds);
+
+      profiler.start("MATCH_REQ_WITH_STATUS_CHANGES");
+      requisitions
+          .forEach(requisition -> {
+            List<StatusChange> statusChanges = allStatusChanges.get(requisition.getId());
+            requisition.setStatusChanges(statusChanges);
+          });
+    }
 
     XLOGGER.exit(page);
     profiler.stop().log();
@@ -355,7 +512,7 @@ public class RequisitionRepositoryImpl
   }
 
   private <T> CriteriaQuery<T> prepareQuery(CriteriaBuilder builder, CriteriaQuery<T> query,
-      RequisitionSearchParams params, List<String> userPermissionStrings,
+      RequisitionSearchParams params, CompactPermissionStrings userPermissionStrings,
       Set<Pair<UUID, UUID>> programNodePairs, boolean count, Pageable pageable) {
 
     Root<Requisition> root = query.from(Requisition.class);
@@ -391,6 +548,10 @@ public class RequisitionRepositoryImpl
     predicate = createPermissionPredicate(
         builder, root, predicate, userPermissionStrings, programNodePairs);
 
+    if (!count) {
+      predicate = addCursorFilter(predicate, builder, root, pageable);
+    }
+
     query.where(predicate);
 
     query.distinct(true);
@@ -402,8 +563,12 @@ public class RequisitionRepositoryImpl
     return query;
   }
 
+  private String getCursor(Requisition requisition) {
+    return CursorPageRequest.encode(requisition.getCreatedDate(), requisition.getId());
+  }
+
   private Predicate createPermissionPredicate(CriteriaBuilder builder, Root<Requisition> root,
-      Predicate predicate, List<String> userPermissionStrings,
+      Predicate predicate, CompactPermissionStrings userPermissionStrings,
       Set<Pair<UUID, UUID>> programNodePairs) {
     if (userPermissionStrings.isEmpty() && programNodePairs.isEmpty()) {
       return predicate;
@@ -411,7 +576,7 @@ public class RequisitionRepositoryImpl
 
     if (!userPermissionStrings.isEmpty() && programNodePairs.isEmpty()) {
       return builder.and(predicate,
-          createPermissionStringsPredicate(root, userPermissionStrings));
+          createPermissionStringsPredicate(builder, root, userPermissionStrings));
     }
 
     if (userPermissionStrings.isEmpty()) {
@@ -421,17 +586,41 @@ public class RequisitionRepositoryImpl
 
     return builder.and(predicate,
         builder.or(
-            createPermissionStringsPredicate(root, userPermissionStrings),
+            createPermissionStringsPredicate(builder, root, userPermissionStrings),
             createProgramNodePairPredicate(builder, root, programNodePairs)));
   }
 
-  private Predicate createPermissionStringsPredicate(Root<Requisition> root,
-      List<String> userPermissionStrings) {
+  /**
+   * Permission strings are matched on their typed columns. Rights, programs and facilities are
+   * bound as three parallel arrays, so the SQL text is the same for every user and does not get
+   * longer with the number of facilities.
+   */
+  private Predicate createPermissionStringsPredicate(CriteriaBuilder builder,
+      Root<Requisition> root, CompactPermissionStrings userPermissionStrings) {
+    List<String> rightNames = new ArrayList<>();
+    List<UUID> programIds = new ArrayList<>();
+    List<UUID> facilityIds = new ArrayList<>();
+
+    userPermissionStrings.forEach((rightName, facilityId, programId) -> {
+      // only strings with facility and program are stored for requisitions
+      if (null != facilityId && null != programId) {
+        rightNames.add(rightName);
+        facilityIds.add(facilityId);
+        programIds.add(programId);
+      }
+    });
+
     Join<Requisition, RequisitionPermissionString> permissionStringJoin = root
         .join("permissionStrings");
-    Expression<String> permissionStringExp = permissionStringJoin.get("permissionString");
 
-    return permissionStringExp.in(userPermissionStrings);
+    return builder.isTrue(builder.function(SqlFunctionsContributor.PERMISSION_STRING_IN,
+        Boolean.class,
+        permissionStringJoin.get(RIGHT_NAME),
+        permissionStringJoin.get(PROGRAM_ID),
+        permissionStringJoin.get(FACILITY_ID),
+        builder.literal(toArrayLiteral(rightNames)),
+        builder.literal(toArrayLiteral(programIds)),
+        builder.literal(toArrayLiteral(facilityIds))));
   }
 
   private <T> CriteriaQuery<T> prepareApprovableQuery(CriteriaBuilder builder,
@@ -443,6 +632,14 @@ public class RequisitionRepositoryImpl
     if (isCountQuery) {
       CriteriaQuery<Long> countQuery = (CriteriaQuery<Long>) query;
       query = (CriteriaQuery<T>) countQuery.select(builder.count(root));
+    } else {
+      // only fields needed by basic requisition DTOs are selected, so the whole entities
+      // with their collections are not loaded into the persistence context
+      CriteriaQuery<Requisition> requisitionQuery = (CriteriaQuery<Requisition>) query;
+      query = (CriteriaQuery<T>) requisitionQuery.select(builder.construct(Requisition.class,
+          root.get(ID), root.get(CREATED_DATE), root.get(MODIFIED_DATE), root.get(FACILITY_ID),
+          root.get(PROGRAM_ID), root.get(PROCESSING_PERIOD_ID), root.get(STATUS),
+          root.get(EMERGENCY), root.get(REPORT_ONLY), root.get(EXTRA_DATA).get(EXTRA_DATA)));
     }
 
     Predicate pairPredicate = createProgramNodePairPredicate(builder, root, programNodePairs);
@@ -460,7 +657,7 @@ public class RequisitionRepositoryImpl
       subquery.select(builder.greatest(subRoot.<ZonedDateTime>get(CREATED_DATE)));
       subquery.where(builder.and(
           builder.equal(subRoot.get(STATUS), RequisitionStatus.AUTHORIZED),
-          builder.equal(subRoot.get("requisition"), root)));
+          builder.equal(subRoot.get(REQUISITION), root)));
 
       // partner requisitions (in the IN_APPROVAL status) does not have status changes
       ListJoin<Object, Object> statusChanges = root
@@ -471,6 +668,7 @@ public class RequisitionRepositoryImpl
       predicate = builder
           .and(predicate, builder
               .or(statusChanges.isNull(), statusChanges.get(CREATED_DATE).in(subquery)));
+      predicate = addCursorFilter(predicate, builder, root, pageable);
     }
 
     if (!isCountQuery && pageable != null && !pageable.getSort().isEmpty()) {
@@ -480,6 +678,34 @@ public class RequisitionRepositoryImpl
     return query.where(predicate);
   }
 
+  private Map<UUID, List<StatusChange>> findStatusChanges(Collection<UUID> requisitionIds) {
+    CriteriaBuilder builder = getCriteriaBuilder();
+    CriteriaQuery<Object[]> query = builder.createQuery(Object[].class);
+    Root<StatusChange> root = query.from(StatusChange.class);
+    Path<UUID> requisitionId = root.get(REQUISITION).get(ID);
+
+    query.multiselect(requisitionId, root.get(STATUS), root.get(AUTHOR_ID),
+        root.get(CREATED_DATE));
+    query.where(requisitionId.in(requisitionIds));
+
+    return entityManager
+        .createQuery(query)
+        .getResultList()
+        .stream()
+        .collect(Collectors.groupingBy(
+            values -> (UUID) values[0],
+            Collectors.mapping(this::toStatusChange, toList())));
+  }
+
+  private StatusChange toStatusChange(Object[] values) {
+    StatusChange statusChange = new StatusChange();
+    statusChange.setStatus((RequisitionStatus) values[1]);
+    statusChange.setAuthorId((UUID) values[2]);
+    statusChange.setCreatedDate((ZonedDateTime) values[3]);
+
+    return statusChange;
+  }
+
   private Predicate createProgramNodePairPredicate(CriteriaBuilder builder,
       Root<Requisition> root, Set<Pair<UUID, UUID>> programNodePairs) {
     Predicate[] combinedPredicates = new Predicate[programNodePairs.size()];
@@ -534,16 +760,25 @@ public class RequisitionRepositoryImpl
       Boolean count, Pageable pageable) {
     StringBuilder builder =
         new StringBuilder(count ? SELECT_COUNT_APPROVED_SQL : SEARCH_APPROVED_SQL);
+    Map<String, String> parameters = new HashMap<>();
+
+    if (!count) {
+      // SELECT DISTINCT can only be sorted by selected columns; these are not read
+      for (Sort.Order order : pageable.getSort()) {
+        builder.append(", ").append(getSortColumn(order));
+      }
+    }
+
+    builder.append(FROM);
 
     if (null != facilityId) {
-      builder.append(String.format(" AND r.facilityid = '%s'", facilityId));
+      builder.append(" AND r.facilityid = CAST(:facilityId AS uuid)");
+      parameters.put("facilityId", facilityId.toString());
     }
     if (isNotEmpty(programSupervisoryNode)) {
       builder.append(" AND (");
-      List<String> programAndSupervisoryNodeConditions = programSupervisoryNode.stream()
-          .map(this::createQueryForProgramAndNode)
-          .collect(toList());
-      builder.append(Joiner.on(" OR ").join(programAndSupervisoryNodeConditions));
+      builder.append(Joiner.on(" OR ").join(
+          createProgramAndNodeConditions(programSupervisoryNode, parameters)));
       builder.append(')');
     }
 
@@ -553,6 +788,7 @@ public class RequisitionRepositoryImpl
     }
 
     Query query = entityManager.createNativeQuery(builder.toString());
+    parameters.forEach(query::setParameter);
 
     if (count) {
       addScalarsForCount(query);
@@ -597,35 +833,71 @@ public class RequisitionRepositoryImpl
 
   private String getOrderPredicate(Pageable pageable) {
     List<String> orderPredicate = new ArrayList<>();
-    List<String> sql = new ArrayList<>();
-    Iterator<Sort.Order> iterator = pageable.getSort().iterator();
-    Sort.Order order;
-    Sort.Direction sortDirection = Sort.Direction.ASC;
 
-    while (iterator.hasNext()) {
-      order = iterator.next();
-      orderPredicate.add("r.".concat(order.getProperty()));
-      sortDirection = order.getDirection();
+    for (Sort.Order order : pageable.getSort()) {
+      orderPredicate.add(getSortColumn(order) + ' ' + order.getDirection().name());
     }
 
-    sql.add(Joiner.on(",").join(orderPredicate));
-    sql.add(sortDirection.name());
+    return Joiner.on(", ").join(orderPredicate);
+  }
+
+  private String getSortColumn(Sort.Order order) {
+    String column = APPROVED_SORT_COLUMNS.get(order.getProperty());
+
+    if (null == column) {
+      throw new ValidationMessageException(
+          new Message(ERROR_COLUMN_IS_NOT_VALID_FOR_SORTING, order.getProperty()));
+    }
 
-    return Joiner.on(' ').join(sql);
+    return column;
   }
 
-  private String createQueryForProgramAndNode(Pair<UUID, UUID> programSupervisoryNode) {
-    UUID programId = programSupervisoryNode.getLeft();
-    UUID supervisoryNodeId = programSupervisoryNode.getRight();
+  /**
+   * Pairs are bound as arrays, so the SQL text only depends on which kinds of pairs are given
+   * and not on their number or values. A null program or supervisory node matches any.
+   */
+  private List<String> createProgramAndNodeConditions(
+      Set<Pair<UUID, UUID>> programSupervisoryNode, Map<String, String> parameters) {
+    List<UUID> pairProgramIds = new ArrayList<>();
+    List<UUID> pairNodeIds = new ArrayList<>();
+    List<UUID> programIds = new ArrayList<>();
+    List<UUID> nodeIds = new ArrayList<>();
+
+    for (Pair<UUID, UUID> pair : programSupervisoryNode) {
+      if (null != pair.getLeft() && null != pair.getRight()) {
+        pairProgramIds.add(pair.getLeft());
+        pairNodeIds.add(pair.getRight());
+      } else if (null != pair.getLeft()) {
+        programIds.add(pair.getLeft());
+      } else if (null != pair.getRight()) {
+        nodeIds.add(pair.getRight());
+      }
+    }
+
+    List<String> conditions = new ArrayList<>();
 
-    if (null != programId && null != supervisoryNodeId) {
-      return String.format("(r.programId = '%s' AND r.supervisoryNodeId = '%s')",
-          programId, supervisoryNodeId);
-    } else if (null != programId) {
-      return String.format("r.programId = '%s'", programId);
-    } else if (null != supervisoryNodeId) {
-      return String.format("r.supervisoryNodeId = '%s'", supervisoryNodeId);
+    if (!pairProgramIds.isEmpty()) {
+      conditions.add("(r.programid, r.supervisorynodeid) IN (SELECT * FROM unnest("
+          + "CAST(:pairProgramIds AS uuid[]), CAST(:pairSupervisoryNodeIds AS uuid[])))");
+      parameters.put("pairProgramIds", toArrayLiteral(pairProgramIds));
+      parameters.put("pairSupervisoryNodeIds", toArrayLiteral(pairNodeIds));
     }
-    return "";
+    if (!programIds.isEmpty()) {
+      conditions.add("r.programid = ANY(CAST(:programIds AS uuid[]))");
+      parameters.put("programIds", toArrayLiteral(programIds));
+    }
+    if (!nodeIds.isEmpty()) {
+      conditions.add("r.supervisorynodeid = ANY(CAST(:supervisoryNodeIds AS uuid[]))");
+      parameters.put("supervisoryNodeIds", toArrayLiteral(nodeIds));
+    }
+    if (conditions.isEmpty()) {
+      conditions.add("TRUE");
+    }
+
+    return conditions;
+  }
+
+  private String toArrayLiteral(List<?> values) {
+    return '{' + Joiner.on(',').join(values) + '}';
   }
 }
@@ -0,0 +1,42 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.repository.custom.impl;
+
+import org.hibernate.boot.MetadataBuilder;
+import org.hibernate.boot.spi.MetadataBuilderContributor;
+import org.hibernate.dialect.function.SQLFunctionTemplate;
+import org.hibernate.type.BooleanType;
+
+/**
+ * Registers SQL functions used by the custom repositories. Lists of values are bound as single
+ * Postgres array parameters, so the SQL text does not depend on the number of values.
+ */
+public class SqlFunctionsContributor implements MetadataBuilderContributor {
+
+  /**
+   * {@code permission_string_in(rightName, programId, facilityId, rights, programs, facilities)}
+   * is true if the given columns are equal to one of the elements of the given parallel arrays.
+   * The arrays are passed as Postgres array literals.
+   */
+  static final String PERMISSION_STRING_IN = "permission_string_in";
+
+  @Override
+  public void contribute(MetadataBuilder metadataBuilder) {
+    metadataBuilder.applySqlFunction(PERMISSION_STRING_IN, new SQLFunctionTemplate(
+        BooleanType.INSTANCE, "((?1, ?2, ?3) IN (SELECT * FROM unnest(CAST(?4 AS text[]),"
+        + " CAST(?5 AS uuid[]), CAST(?6 AS uuid[]))))"));
+  }
+}
@@ -19,6 +19,8 @@ import org.springframework.security.core.context.SecurityContext;
 import org.springframework.security.core.context.SecurityContextHolder;
 
 public class SpringSecurityRunnableWrapper implements Runnable {
+  private static final SecurityContext EMPTY_CONTEXT = SecurityContextHolder.createEmptyContext();
+
   private SecurityContext context;
   private Runnable delegate;
  
@@ -28,14 +30,21 @@ public class SpringSecurityRunnableWrapper implements Runnable {
   }
 
   /**
-   * Sets context and run delegate.
+   * Sets context and run delegate. The context that was set on the current thread before is
+   * restored afterwards, so the wrapper can also be run directly on the submitting thread.
    */
   public void run() {
+    SecurityContext original = SecurityContextHolder.getContext();
+
     try {
       SecurityContextHolder.setContext(context);
       delegate.run();
     } finally {
-      SecurityContextHolder.clearContext();
+      if (EMPTY_CONTEXT.equals(original)) {
+        SecurityContextHolder.clearContext();
+      } else {
+        SecurityContextHolder.setContext(original);
+      }
     }
   }
 }
\ No newline at end of file
@@ -19,12 +19,20 @@ import static org.openlmis.requisition.i18n.MessageKeys.ERROR_SERVICE_OCCURED;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_SERVICE_REQUIRED;
 import static org.openlmis.requisition.utils.RequestHelper.createEntity;
 import static org.openlmis.requisition.utils.RequestHelper.createUri;
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
 
 import java.lang.reflect.Array;
 import java.net.URI;
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import org.openlmis.requisition.dto.ResultDto;
@@ -36,8 +44,10 @@ import org.openlmis.requisition.utils.RequestHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.core.task.SyncTaskExecutor;
 import org.springframework.data.domain.Page;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpMethod;
@@ -45,19 +55,23 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.client.HttpStatusCodeException;
 import org.springframework.web.client.RestOperations;
-import org.springframework.web.client.RestTemplate;
 
 @SuppressWarnings("PMD.TooManyMethods")
 public abstract class BaseCommunicationService<T> {
   protected final Logger logger = LoggerFactory.getLogger(getClass());
 
-  protected RestOperations restTemplate = new RestTemplate();
+  protected RestOperations restTemplate;
 
   protected AuthService authService;
 
+  private Executor asyncExecutor = new SyncTaskExecutor();
+
   @Value("${request.maxUrlLength}")
   private int maxUrlLength;
 
+  @Value("${request.maxParallelRequests}")
+  private int maxParallelRequests;
+
   protected abstract String getServiceUrl();
 
   protected abstract String getUrl();
@@ -125,6 +139,16 @@ public abstract class BaseCommunicationService<T> {
     }
   }
 
+  /**
+   * Return one object from service without blocking the calling thread.
+   *
+   * @param id UUID of requesting object.
+   * @return a future of the requesting reference data object.
+   */
+  public CompletableFuture<T> findOneAsync(UUID id) {
+    return supplyAsync(() -> findOne(id));
+  }
+
   public List<T> findAll() {
     return findAll("");
   }
@@ -171,6 +195,44 @@ public abstract class BaseCommunicationService<T> {
     }
   }
 
+  /**
+   * Return all reference data T objects without blocking the calling thread.
+   *
+   * @param resourceUrl Endpoint url.
+   * @param parameters  Map of query parameters.
+   * @return a future of all reference data T objects.
+   */
+  public CompletableFuture<List<T>> findAllAsync(String resourceUrl,
+      RequestParameters parameters) {
+    return supplyAsync(() -> findAll(resourceUrl, parameters));
+  }
+
+  /**
+   * Return one object from service if it has changed since the given eTag was sent. A response
+   * for a non-existing object is modified and has no body.
+   */
+  protected <P> ServiceResponse<P> tryFindOne(String resourceUrl, Class<P> type, String etag) {
+    String url = getServiceUrl() + getUrl() + resourceUrl;
+
+    try {
+      ResponseEntity<P> response = runWithTokenRetry(() -> restTemplate.exchange(
+          url, HttpMethod.GET,
+          RequestHelper.createEntity(null, addAuthHeader(RequestHeaders.init()
+              .setIfNoneMatch(etag))),
+          type
+      ));
+
+      return new ServiceResponse<>(response.getBody(), response.getHeaders(),
+          response.getStatusCode() != HttpStatus.NOT_MODIFIED);
+    } catch (HttpStatusCodeException ex) {
+      if (HttpStatus.NOT_FOUND == ex.getStatusCode()) {
+        return new ServiceResponse<>(null, ex.getResponseHeaders(), true);
+      }
+
+      throw buildDataRetrievalException(ex);
+    }
+  }
+
   protected <P> ServiceResponse<List<P>> tryFindAll(String resourceUrl, Class<P[]> type,
       String etag) {
     String url = getServiceUrl() + getUrl() + resourceUrl;
@@ -229,6 +291,10 @@ public abstract class BaseCommunicationService<T> {
     }
   }
 
+  public CompletableFuture<Page<T>> getPageAsync(RequestParameters parameters) {
+    return supplyAsync(() -> getPage(parameters));
+  }
+
   protected <P> ResultDto<P> getResult(String resourceUrl, RequestParameters parameters,
                                        Class<P> type) {
     String url = getServiceUrl() + getUrl() + resourceUrl;
@@ -249,13 +315,11 @@ public abstract class BaseCommunicationService<T> {
   private <E> ResponseEntity<E[]> doListRequest(String url, RequestParameters parameters,
                                                 Object payload, HttpMethod method,
                                                 Class<E[]> type) {
-    HttpEntity<Object> entity = RequestHelper
-        .createEntity(payload, authService.obtainAccessToken());
-    List<E[]> arrays = new ArrayList<>();
-
-    for (URI uri : RequestHelper.splitRequest(url, parameters, maxUrlLength)) {
-      arrays.add(restTemplate.exchange(uri, method, entity, type).getBody());
-    }
+    String token = authService.obtainAccessToken();
+    HttpEntity<Object> entity = RequestHelper.createEntity(payload, token);
+    URI[] uris = RequestHelper.splitRequest(url, parameters, maxUrlLength);
+    List<E[]> arrays =
+        exchangeAll(uris, uri -> restTemplate.exchange(uri, method, entity, type).getBody());
 
     E[] body = Merger
         .ofArrays(arrays)
@@ -270,15 +334,13 @@ public abstract class BaseCommunicationService<T> {
                                                        Object payload,
                                                        HttpMethod method,
                                                        Class<E> type) {
-    HttpEntity<Object> entity = RequestHelper
-        .createEntity(payload, authService.obtainAccessToken());
+    String token = authService.obtainAccessToken();
+    HttpEntity<Object> entity = RequestHelper.createEntity(payload, token);
     ParameterizedTypeReference<PageDto<E>> parameterizedType =
         new DynamicPageTypeReference<>(type);
-    List<PageDto<E>> pages = new ArrayList<>();
-
-    for (URI uri : RequestHelper.splitRequest(url, parameters, maxUrlLength)) {
-      pages.add(restTemplate.exchange(uri, method, entity, parameterizedType).getBody());
-    }
+    URI[] uris = RequestHelper.splitRequest(url, parameters, maxUrlLength);
+    List<PageDto<E>> pages = exchangeAll(uris,
+        uri -> restTemplate.exchange(uri, method, entity, parameterizedType).getBody());
 
     PageDto<E> body = Merger
         .ofPages(pages)
@@ -288,6 +350,68 @@ public abstract class BaseCommunicationService<T> {
     return new ResponseEntity<>(body, HttpStatus.OK);
   }
 
+  /**
+   * Sends requests for the given chunks of a split url concurrently, using at most
+   * {@code maxParallelRequests} threads including the calling one, and returns the responses in
+   * the order of the chunks. The calling thread also sends requests, so the chunks are sent even
+   * if the executor has no free threads.
+   */
+  private <E> List<E> exchangeAll(URI[] uris, Function<URI, E> exchange) {
+    if (uris.length == 1) {
+      return Collections.singletonList(exchange.apply(uris[0]));
+    }
+
+    List<CompletableFuture<E>> responses = new ArrayList<>(uris.length);
+    for (int i = 0; i < uris.length; ++i) {
+      responses.add(new CompletableFuture<>());
+    }
+
+    AtomicInteger next = new AtomicInteger();
+    Runnable worker = () -> {
+      for (int i = next.getAndIncrement(); i < uris.length; i = next.getAndIncrement()) {
+        try {
+          responses.get(i).complete(exchange.apply(uris[i]));
+        } catch (RuntimeException ex) {
+          responses.get(i).completeExceptionally(ex);
+        }
+      }
+    };
+
+    int helpers = Math.min(maxParallelRequests, uris.length) - 1;
+    for (int i = 0; i < helpers; ++i) {
+      asyncExecutor.execute(worker);
+    }
+    worker.run();
+
+    return responses
+        .stream()
+        .map(BaseCommunicationService::join)
+        .collect(Collectors.toList());
+  }
+
+  private static <E> E join(CompletableFuture<E> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
+  /**
+   * Runs the given request on the shared task executor, so that requests that do not depend on
+   * each other can be sent at the same time. The executor passes the security context of the
+   * calling thread to the worker thread.
+   *
+   * @param request the request to run.
+   * @return a future of the request result.
+   */
+  protected <R> CompletableFuture<R> supplyAsync(Supplier<R> request) {
+    return CompletableFuture.supplyAsync(request, asyncExecutor);
+  }
+
   protected <P> ResponseEntity<P> runWithTokenRetry(HttpTask<P> task) {
     try {
       return task.run();
@@ -354,6 +478,20 @@ public abstract class BaseCommunicationService<T> {
     this.authService = authService;
   }
 
+  /**
+   * Sends the requests of this service through the shared HTTP client.
+   */
+  @Autowired
+  public void setServiceRestTemplates(ServiceRestTemplates serviceRestTemplates) {
+    this.restTemplate = serviceRestTemplates.forService(getServiceName());
+  }
+
+  @Autowired
+  public void setAsyncExecutor(
+      @Qualifier(APPLICATION_TASK_EXECUTOR_BEAN_NAME) Executor asyncExecutor) {
+    this.asyncExecutor = asyncExecutor;
+  }
+
   void setRestTemplate(RestOperations template) {
     this.restTemplate = template;
   }
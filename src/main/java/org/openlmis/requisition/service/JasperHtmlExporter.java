@@ -15,7 +15,7 @@
 
 package org.openlmis.requisition.service;
 
-import java.io.ByteArrayOutputStream;
+import java.io.OutputStream;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.export.HtmlExporter;
@@ -31,12 +31,10 @@ public class JasperHtmlExporter implements JasperExporter {
   }
 
   @Override
-  public byte[] exportReport() throws JRException {
-    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+  public void exportReport(OutputStream outputStream) throws JRException {
     HtmlExporter exporter = new HtmlExporter();
     exporter.setExporterInput(new SimpleExporterInput(jasperPrint));
-    exporter.setExporterOutput(new SimpleHtmlExporterOutput(baos));
+    exporter.setExporterOutput(new SimpleHtmlExporterOutput(outputStream));
     exporter.exportReport();
-    return baos.toByteArray();
   }
 }
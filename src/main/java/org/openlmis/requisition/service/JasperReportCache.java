@@ -0,0 +1,118 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import com.google.common.base.Throwables;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import net.sf.jasperreports.engine.JasperReport;
+import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.exception.JasperReportViewException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps compiled Jasper reports, so that they are not compiled or deserialized again for every
+ * generated report. Compiled reports are only read while they are filled, so one instance can be
+ * shared by concurrent requests.
+ *
+ * <p>Reports from Jasper templates are kept by template id and a hash of the template data, so a
+ * template changed by another instance of the service is never served from the cache. Bundled
+ * reports are kept by their resource path and the customized requisition line subreport by the
+ * columns it shows. At most {@code reports.cache.maxSize} reports are kept and the least
+ * recently used ones are evicted first.
+ */
+@Component
+public class JasperReportCache {
+  private final Cache<Key, JasperReport> reports;
+
+  @Autowired
+  public JasperReportCache(@Value("${reports.cache.maxSize}") long maxSize) {
+    reports = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+  }
+
+  /**
+   * Returns the report compiled from the given template, loading it if it is not in the cache.
+   */
+  public JasperReport getTemplateReport(JasperTemplate template, Loader loader)
+      throws JasperReportViewException {
+    byte[] data = Optional.ofNullable(template.getData()).orElse(new byte[0]);
+    String hash = Hashing.sha256().hashBytes(data).toString();
+    return get(new Key(KeyType.TEMPLATE, template.getId(), hash), loader);
+  }
+
+  /**
+   * Returns the report compiled from the given resource, loading it if it is not in the cache.
+   */
+  public JasperReport getResourceReport(String resource, Loader loader)
+      throws JasperReportViewException {
+    return get(new Key(KeyType.RESOURCE, resource, null), loader);
+  }
+
+  /**
+   * Returns the requisition line subreport showing the given columns in the given order,
+   * loading it if it is not in the cache.
+   */
+  public JasperReport getLineSubreport(List<String> columns, Loader loader)
+      throws JasperReportViewException {
+    return get(new Key(KeyType.LINE_SUBREPORT, columns, null), loader);
+  }
+
+  /**
+   * Removes all reports compiled from the template with the given id.
+   */
+  public void evictTemplate(UUID templateId) {
+    reports.asMap().keySet().removeIf(key -> KeyType.TEMPLATE == key.type
+        && Objects.equals(templateId, key.id));
+  }
+
+  private JasperReport get(Key key, Loader loader) throws JasperReportViewException {
+    try {
+      return reports.get(key, loader::load);
+    } catch (ExecutionException | UncheckedExecutionException ex) {
+      Throwables.throwIfInstanceOf(ex.getCause(), JasperReportViewException.class);
+      Throwables.throwIfUnchecked(ex.getCause());
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  @FunctionalInterface
+  public interface Loader {
+    JasperReport load() throws JasperReportViewException;
+  }
+
+  private enum KeyType {
+    TEMPLATE, RESOURCE, LINE_SUBREPORT
+  }
+
+  @AllArgsConstructor
+  @EqualsAndHashCode
+  private static final class Key {
+    private final KeyType type;
+    private final Object id;
+    private final String version;
+  }
+}
@@ -25,6 +25,7 @@ import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.ObjectInputStream;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -43,6 +44,7 @@ import javax.sql.DataSource;
 import net.sf.jasperreports.engine.JRBand;
 import net.sf.jasperreports.engine.JRDataSource;
 import net.sf.jasperreports.engine.JRException;
+import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JasperCompileManager;
 import net.sf.jasperreports.engine.JasperExportManager;
 import net.sf.jasperreports.engine.JasperFillManager;
@@ -50,6 +52,10 @@ import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
 import net.sf.jasperreports.engine.data.JRBeanCollectionDataSource;
 import net.sf.jasperreports.engine.design.JasperDesign;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
+import net.sf.jasperreports.engine.util.JRSwapFile;
 import net.sf.jasperreports.engine.xml.JRXmlLoader;
 import org.openlmis.requisition.domain.JasperTemplate;
 import org.openlmis.requisition.domain.RequisitionTemplate;
@@ -66,29 +72,33 @@ import org.openlmis.requisition.dto.RequisitionReportDto;
 import org.openlmis.requisition.dto.TimelinessReportFacilityDto;
 import org.openlmis.requisition.exception.JasperReportViewException;
 import org.openlmis.requisition.exception.ValidationMessageException;
-import org.openlmis.requisition.repository.custom.DefaultRequisitionSearchParams;
-import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
+import org.openlmis.requisition.repository.RequisitionRepository;
 import org.openlmis.requisition.service.referencedata.FacilityReferenceDataService;
 import org.openlmis.requisition.service.referencedata.GeographicZoneReferenceDataService;
 import org.openlmis.requisition.service.referencedata.PeriodReferenceDataService;
 import org.openlmis.requisition.service.referencedata.ProgramReferenceDataService;
 import org.openlmis.requisition.utils.Message;
-import org.openlmis.requisition.utils.Pagination;
 import org.openlmis.requisition.utils.ReportUtils;
 import org.openlmis.requisition.web.ReportingRateReportDtoBuilder;
 import org.openlmis.requisition.web.RequisitionReportDtoBuilder;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
-import org.springframework.data.domain.PageRequest;
 import org.springframework.stereotype.Service;
 
 @Service
 @SuppressWarnings({"PMD.TooManyMethods"})
 public class JasperReportsViewService {
   private static final String DATASOURCE = "datasource";
+  private static final String TIMELINESS_REPORT = "Timeliness Report";
+  private static final String REPORTING_RATE_REPORT = "Reporting Rate Report";
+  private static final int DUE_DAYS = 10;
   private static final String REQUISITION_REPORT_DIR = "/jasperTemplates/requisition.jrxml";
   private static final String REQUISITION_LINE_REPORT_DIR =
       "/jasperTemplates/requisitionLines.jrxml";
+  private static final String SWAP_VIRTUALIZER = "swap";
+  private static final String GZIP_VIRTUALIZER = "gzip";
+  private static final int SWAP_FILE_BLOCK_SIZE = 4096;
+  private static final int SWAP_FILE_MIN_GROW_COUNT = 256;
 
   @Autowired
   private DataSource replicationDataSource;
@@ -109,11 +119,14 @@ public class JasperReportsViewService {
   private GeographicZoneReferenceDataService geographicZoneReferenceDataService;
 
   @Autowired
-  private RequisitionService requisitionService;
+  private RequisitionRepository requisitionRepository;
 
   @Autowired
   private ReportingRateReportDtoBuilder reportingRateReportDtoBuilder;
 
+  @Autowired
+  private JasperReportCache jasperReportCache;
+
   @Value("${dateFormat}")
   private String dateFormat;
 
@@ -129,17 +142,43 @@ public class JasperReportsViewService {
   @Value("${currencyLocale}")
   private String currencyLocale;
 
+  @Value("${reports.virtualizer.type}")
+  private String virtualizerType;
+
+  @Value("${reports.virtualizer.maxSize}")
+  private int virtualizerMaxSize;
+
+  /**
+   * Generate a report from the template, choosing how it is generated by the template type.
+   *
+   * @param jasperTemplate template that will be used to generate the report
+   * @param params report parameters
+   * @param outputStream stream the generated report is written to
+   * @throws JasperReportViewException if there will be any problem with generating the report.
+   */
+  public void generateTemplateReport(JasperTemplate jasperTemplate, Map<String, Object> params,
+      OutputStream outputStream) throws JasperReportViewException {
+    if (TIMELINESS_REPORT.equals(jasperTemplate.getType())) {
+      generateTimelinessReport(jasperTemplate, params, outputStream);
+    } else if (REPORTING_RATE_REPORT.equals(jasperTemplate.getType())) {
+      params.putIfAbsent("DueDays", String.valueOf(DUE_DAYS));
+      generateReportingRateReport(jasperTemplate, params, outputStream);
+    } else {
+      generateReport(jasperTemplate, params, outputStream);
+    }
+  }
+
   /**
    * Generate Jasper Report.
    *
    * @param jasperTemplate template that will be used to generate the report
    * @param params report parameters
-   * @return generated report.
+   * @param outputStream stream the generated report is written to
    * @throws JasperReportViewException if there will be any problem with generating the report.
    */
-  public byte[] generateReport(JasperTemplate jasperTemplate, Map<String, Object> params)
-      throws JasperReportViewException {
-    return fillAndExportReport(getReportFromTemplateData(jasperTemplate), params);
+  public void generateReport(JasperTemplate jasperTemplate, Map<String, Object> params,
+      OutputStream outputStream) throws JasperReportViewException {
+    fillAndExportReport(getReportFromTemplateData(jasperTemplate), params, outputStream);
   }
 
   /**
@@ -147,11 +186,11 @@ public class JasperReportsViewService {
    *
    * @param jasperTemplate template that will be used to generate the report
    * @param params report parameters
-   * @return generated report.
+   * @param outputStream stream the generated report is written to
    * @throws JasperReportViewException if there will be any problem with generating the report.
    */
-  public byte[] generateReportingRateReport(JasperTemplate jasperTemplate,
-      Map<String, Object> params)
+  public void generateReportingRateReport(JasperTemplate jasperTemplate,
+      Map<String, Object> params, OutputStream outputStream)
       throws JasperReportViewException {
 
     UUID programId = (UUID) processParameter(params, "Program", true, UUID.class);
@@ -178,23 +217,23 @@ public class JasperReportsViewService {
     params.put("dateFormat", dateFormat);
     params.put("decimalFormat", createDecimalFormat());
 
-    return fillAndExportReport(getReportFromTemplateData(jasperTemplate), params);
+    fillAndExportReport(getReportFromTemplateData(jasperTemplate), params, outputStream);
   }
 
   /**
    * Generate Jasper Report for printing a requisition.
    *
    * @param requisition requisition for printing the report.
-   * @return generated report.
+   * @param outputStream stream the generated report is written to
    * @throws JasperReportViewException if there will be any problem with generating the report.
    */
-  public byte[] generateRequisitionReport(Requisition requisition)
+  public void generateRequisitionReport(Requisition requisition, OutputStream outputStream)
       throws JasperReportViewException {
     RequisitionReportDto reportDto = requisitionReportDtoBuilder.build(requisition);
     RequisitionTemplate template = requisition.getTemplate();
 
     Map<String, Object> params = ReportUtils.createParametersMap();
-    params.put("subreport", createCustomizedRequisitionLineSubreport(template,
+    params.put("subreport", getCustomizedRequisitionLineSubreport(template,
         requisition.getStatus()));
     params.put(DATASOURCE, Collections.singletonList(reportDto));
     params.put("template", template);
@@ -203,7 +242,10 @@ public class JasperReportsViewService {
     params.put("currencyDecimalFormat",
         NumberFormat.getCurrencyInstance(getLocaleFromService()));
 
-    return fillAndExportReport(compileReportFromTemplateUrl(REQUISITION_REPORT_DIR), params);
+    JasperReport report = jasperReportCache.getResourceReport(REQUISITION_REPORT_DIR,
+        () -> compileReportFromTemplateUrl(REQUISITION_REPORT_DIR));
+
+    fillAndExportReport(report, params, outputStream);
   }
 
   /**
@@ -211,11 +253,11 @@ public class JasperReportsViewService {
    *
    * @param jasperTemplate template that will be used to generate the report
    * @param parameters report parameters
-   * @return generated report.
+   * @param outputStream stream the generated report is written to
    * @throws JasperReportViewException if there will be any problem with generating the report.
    */
-  public byte[] generateTimelinessReport(JasperTemplate jasperTemplate,
-      Map<String, Object> parameters)
+  public void generateTimelinessReport(JasperTemplate jasperTemplate,
+      Map<String, Object> parameters, OutputStream outputStream)
       throws JasperReportViewException {
     ProgramDto program = programReferenceDataService.findOne(
         UUID.fromString(parameters.get("program").toString())
@@ -236,24 +278,30 @@ public class JasperReportsViewService {
     parameters.put("period", period);
     parameters.put("district", district);
 
-    return fillAndExportReport(getReportFromTemplateData(jasperTemplate), parameters);
+    fillAndExportReport(getReportFromTemplateData(jasperTemplate), parameters, outputStream);
   }
 
-  private JasperDesign createCustomizedRequisitionLineSubreport(RequisitionTemplate template,
-                                                                RequisitionStatus requisitionStatus)
-      throws JasperReportViewException {
+  private JasperReport getCustomizedRequisitionLineSubreport(RequisitionTemplate template,
+      RequisitionStatus requisitionStatus) throws JasperReportViewException {
+    Map<String, RequisitionTemplateColumn> columns =
+        ReportUtils.getSortedTemplateColumnsForPrint(template.viewColumns(), requisitionStatus);
+
+    // the subreport layout only depends on which columns are shown and in what order
+    return jasperReportCache.getLineSubreport(new ArrayList<>(columns.keySet()),
+        () -> compileCustomizedRequisitionLineSubreport(columns));
+  }
+
+  private JasperReport compileCustomizedRequisitionLineSubreport(
+      Map<String, RequisitionTemplateColumn> columns) throws JasperReportViewException {
     try (InputStream inputStream = getClass().getResourceAsStream(REQUISITION_LINE_REPORT_DIR)) {
       JasperDesign design = JRXmlLoader.load(inputStream);
       JRBand detail = design.getDetailSection().getBands()[0];
       JRBand header = design.getColumnHeader();
 
-      Map<String, RequisitionTemplateColumn> columns =
-          ReportUtils.getSortedTemplateColumnsForPrint(template.viewColumns(), requisitionStatus);
-
       ReportUtils.customizeBandWithTemplateFields(detail, columns, design.getPageWidth(), 9);
       ReportUtils.customizeBandWithTemplateFields(header, columns, design.getPageWidth(), 9);
 
-      return design;
+      return JasperCompileManager.compileReport(design);
     } catch (IOException err) {
       throw new JasperReportViewException(err, ERROR_IO, err.getMessage());
     } catch (JRException err) {
@@ -262,38 +310,49 @@ public class JasperReportsViewService {
   }
 
   /**
-   * Fill in and export a compiled report.
+   * Fill in a compiled report and export it to the given stream. If a virtualizer is
+   * configured, filled pages are moved out of the heap until they are exported.
    */
-  byte[] fillAndExportReport(JasperReport compiledReport, Map<String, Object> params)
-      throws JasperReportViewException {
-
-    byte[] bytes;
+  void fillAndExportReport(JasperReport compiledReport, Map<String, Object> params,
+      OutputStream outputStream) throws JasperReportViewException {
+    JRAbstractLRUVirtualizer virtualizer = createVirtualizer();
 
     try {
+      if (null != virtualizer) {
+        params.put(JRParameter.REPORT_VIRTUALIZER, virtualizer);
+      }
+
       JasperPrint jasperPrint;
       if (params.containsKey(DATASOURCE)) {
         jasperPrint = fillJasperReport(compiledReport, params,
             new JRBeanCollectionDataSource((List) params.get(DATASOURCE)));
       } else {
-        jasperPrint = fillJasperReport(compiledReport, params,
-            replicationDataSource.getConnection());
+        try (Connection connection = replicationDataSource.getConnection()) {
+          jasperPrint = fillJasperReport(compiledReport, params, connection);
+        }
+      }
+
+      if (null != virtualizer) {
+        virtualizer.setReadOnly(true);
       }
 
       String format = (String) params.get("format");
       if ("csv".equals(format)) {
-        bytes = exportJasperReportToCsv(jasperPrint);
+        exportJasperReportToCsv(jasperPrint, outputStream);
       } else if ("xls".equals(format)) {
-        bytes = exportJasperReportToXls(jasperPrint);
+        exportJasperReportToXls(jasperPrint, outputStream);
       } else if ("html".equals(format)) {
-        bytes = exportJasperReportToHtml(jasperPrint);
+        exportJasperReportToHtml(jasperPrint, outputStream);
       } else {
-        bytes = exportJasperReportToPdf(jasperPrint);
+        exportJasperReportToPdf(jasperPrint, outputStream);
       }
     } catch (Exception e) {
       throw new JasperReportViewException(e, ERROR_JASPER_FILE_FORMAT, e.getMessage());
+    } finally {
+      if (null != virtualizer) {
+        virtualizer.cleanup();
+      }
     }
-
-    return bytes;
   }
 
   /**
@@ -316,6 +375,12 @@ public class JasperReportsViewService {
    */
   private JasperReport getReportFromTemplateData(JasperTemplate jasperTemplate)
       throws JasperReportViewException {
+    return jasperReportCache.getTemplateReport(jasperTemplate,
+        () -> deserializeReportFromTemplateData(jasperTemplate));
+  }
+
+  private JasperReport deserializeReportFromTemplateData(JasperTemplate jasperTemplate)
+      throws JasperReportViewException {
 
     try (ObjectInputStream inputStream = createObjectInputStream(jasperTemplate)) {
 
@@ -340,26 +405,22 @@ public class JasperReportsViewService {
       facilities.addAll(facilityReferenceDataService.findAll());
     }
 
+    List<MinimalFacilityDto> activeFacilities = facilities
+        .stream()
+        .filter(MinimalFacilityDto::getActive)
+        .collect(Collectors.toList());
+
+    Set<UUID> facilitiesWithRnR = requisitionRepository.searchFacilityIdsWithRequisitions(
+        program.getId(), processingPeriod.getId(), validStatuses,
+        activeFacilities.stream().map(MinimalFacilityDto::getId).collect(Collectors.toSet()));
+
     List<TimelinessReportFacilityDto> facilitiesMissingRnR = new ArrayList<>();
     // find active facilities that are missing R&R
-    for (MinimalFacilityDto facility : facilities) {
-      if (facility.getActive()) {
-        RequisitionSearchParams params = new DefaultRequisitionSearchParams(
-            facility.getId(), program.getId(), processingPeriod.getId(),
-            null, null, null, null, null, null, validStatuses);
-
-        PageRequest pageRequest = PageRequest.of(Pagination.DEFAULT_PAGE_NUMBER,
-            Pagination.NO_PAGINATION);
-
-        List<Requisition> requisitions = requisitionService
-            .searchRequisitions(params, pageRequest)
-            .getContent();
-
-        if (requisitions.isEmpty()) {
-          TimelinessReportFacilityDto timelinessFacility = new TimelinessReportFacilityDto();
-          facility.export(timelinessFacility);
-          facilitiesMissingRnR.add(timelinessFacility);
-        }
+    for (MinimalFacilityDto facility : activeFacilities) {
+      if (!facilitiesWithRnR.contains(facility.getId())) {
+        TimelinessReportFacilityDto timelinessFacility = new TimelinessReportFacilityDto();
+        facility.export(timelinessFacility);
+        facilitiesMissingRnR.add(timelinessFacility);
       }
     }
 
@@ -427,20 +488,40 @@ public class JasperReportsViewService {
     return JasperFillManager.fillReport(jasperReport, parameters, connection);
   }
 
-  byte[] exportJasperReportToCsv(JasperPrint jasperPrint) throws JRException {
-    return new JasperCsvExporter(jasperPrint).exportReport();
+  void exportJasperReportToCsv(JasperPrint jasperPrint, OutputStream outputStream)
+      throws JRException {
+    new JasperCsvExporter(jasperPrint).exportReport(outputStream);
+  }
+
+  void exportJasperReportToXls(JasperPrint jasperPrint, OutputStream outputStream)
+      throws JRException {
+    new JasperXlsExporter(jasperPrint).exportReport(outputStream);
   }
 
-  byte[] exportJasperReportToXls(JasperPrint jasperPrint) throws JRException {
-    return new JasperXlsExporter(jasperPrint).exportReport();
+  void exportJasperReportToHtml(JasperPrint jasperPrint, OutputStream outputStream)
+      throws JRException {
+    new JasperHtmlExporter(jasperPrint).exportReport(outputStream);
   }
 
-  byte[] exportJasperReportToHtml(JasperPrint jasperPrint) throws JRException {
-    return new JasperHtmlExporter(jasperPrint).exportReport();
+  void exportJasperReportToPdf(JasperPrint jasperPrint, OutputStream outputStream)
+      throws JRException {
+    JasperExportManager.exportReportToPdfStream(jasperPrint, outputStream);
   }
 
-  byte[] exportJasperReportToPdf(JasperPrint jasperPrint) throws JRException {
-    return JasperExportManager.exportReportToPdf(jasperPrint);
+  /**
+   * Creates the virtualizer set by the {@code reports.virtualizer.type} property, or returns
+   * null if filled reports should be kept in the heap.
+   */
+  JRAbstractLRUVirtualizer createVirtualizer() {
+    if (SWAP_VIRTUALIZER.equals(virtualizerType)) {
+      JRSwapFile swapFile = new JRSwapFile(System.getProperty("java.io.tmpdir"),
+          SWAP_FILE_BLOCK_SIZE, SWAP_FILE_MIN_GROW_COUNT);
+      return new JRSwapFileVirtualizer(virtualizerMaxSize, swapFile, true);
+    }
+    if (GZIP_VIRTUALIZER.equals(virtualizerType)) {
+      return new JRGzipVirtualizer(virtualizerMaxSize);
+    }
+    return null;
   }
 
   protected Locale getLocaleFromService() {
@@ -0,0 +1,313 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import com.google.common.hash.Hashing;
+import java.io.BufferedOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.ZonedDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.domain.ReportJob;
+import org.openlmis.requisition.domain.ReportJobStatus;
+import org.openlmis.requisition.exception.JasperReportViewException;
+import org.openlmis.requisition.repository.ReportJobRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+/**
+ * Generates reports in the background on a bounded pool of workers, so that long running reports
+ * do not hold request threads. Generated reports are written to files in the
+ * {@code reports.jobs.directory} directory and are kept for {@code reports.jobs.timeToLive}
+ * seconds. Reports submitted again with the same template, format and parameters before then
+ * reuse the existing job.
+ *
+ * <p>Jobs are generated by the instance they were submitted to, which updates their heartbeat
+ * date every {@code reports.jobs.heartbeat.interval} milliseconds. Jobs of an instance that
+ * stops are failed; jobs whose heartbeat is older than {@value #STALE_HEARTBEATS} intervals
+ * belong to an instance that stopped unexpectedly, so they are failed and not reused.
+ */
+@Service
+@SuppressWarnings("PMD.TooManyMethods")
+public class ReportJobService {
+  private static final Logger LOGGER = LoggerFactory.getLogger(ReportJobService.class);
+
+  static final String QUEUE_FULL_MESSAGE =
+      "Too many reports are being generated at the moment, please try again later";
+  static final String STOPPED_MESSAGE =
+      "The report was not generated because the service was stopped, please submit it again";
+  static final int STALE_HEARTBEATS = 3;
+
+  private static final Set<ReportJobStatus> REUSABLE_STATUSES = EnumSet.of(
+      ReportJobStatus.PENDING, ReportJobStatus.RUNNING, ReportJobStatus.COMPLETED);
+
+  @Autowired
+  private ReportJobRepository reportJobRepository;
+
+  @Autowired
+  private JasperReportsViewService jasperReportsViewService;
+
+  @Autowired
+  private TaskDecorator taskDecorator;
+
+  @Value("${reports.jobs.directory}")
+  private String directory;
+
+  @Value("${reports.jobs.timeToLive}")
+  private long timeToLive;
+
+  @Value("${reports.jobs.poolSize}")
+  private int poolSize;
+
+  @Value("${reports.jobs.queueCapacity}")
+  private int queueCapacity;
+
+  @Value("${reports.jobs.heartbeat.interval}")
+  private long heartbeatInterval;
+
+  private ThreadPoolTaskExecutor executor;
+
+  private final Set<UUID> activeJobs = ConcurrentHashMap.newKeySet();
+
+  /**
+   * Starts the workers that generate submitted reports, and fails the jobs that were left behind
+   * by instances that stopped unexpectedly.
+   */
+  @PostConstruct
+  public void startWorkers() {
+    failAbandonedJobs();
+
+    executor = new ThreadPoolTaskExecutor();
+    executor.setCorePoolSize(poolSize);
+    executor.setMaxPoolSize(poolSize);
+    executor.setQueueCapacity(queueCapacity);
+    executor.setThreadNamePrefix("requisition-report-");
+    executor.setTaskDecorator(taskDecorator);
+    executor.initialize();
+  }
+
+  /**
+   * Stops the workers. Reports that are still pending or running are not generated, so their
+   * jobs are failed.
+   */
+  @PreDestroy
+  public void stopWorkers() {
+    executor.shutdown();
+
+    if (!activeJobs.isEmpty()) {
+      LOGGER.warn("Failing {} report job(s) that will not be generated", activeJobs.size());
+      reportJobRepository.failJobs(new ArrayList<>(activeJobs), ReportJobStatus.ACTIVE,
+          STOPPED_MESSAGE, ZonedDateTime.now());
+      activeJobs.clear();
+    }
+  }
+
+  /**
+   * Submits a report to be generated in the background. If the same report has been submitted
+   * before and the job has not failed, expired or been abandoned, that job is returned instead.
+   *
+   * @param template template that will be used to generate the report
+   * @param format report format
+   * @param params report parameters
+   * @return the submitted or the already existing job
+   */
+  public ReportJob submit(JasperTemplate template, String format, Map<String, Object> params) {
+    String parametersHash = hash(template, params);
+    ZonedDateTime now = ZonedDateTime.now();
+
+    Optional<ReportJob> existing = reportJobRepository
+        .findFirstByParametersHashAndStatusInAndExpiryDateAfterOrderByCreatedDateDesc(
+            parametersHash, REUSABLE_STATUSES, now);
+    if (existing.isPresent()) {
+      ReportJob job = existing.get();
+
+      if (!job.isAbandoned(getStaleBefore(now))) {
+        LOGGER.debug("Reusing report job {}", job.getId());
+        return job;
+      }
+
+      LOGGER.warn("Report job {} was abandoned, submitting the report again", job.getId());
+      reportJobRepository.failJobs(Collections.singleton(job.getId()), ReportJobStatus.ACTIVE,
+          STOPPED_MESSAGE, now);
+    }
+
+    ReportJob job;
+
+    try {
+      job = reportJobRepository.save(
+          new ReportJob(template, format, parametersHash, now.plusSeconds(timeToLive)));
+    } catch (DataIntegrityViolationException ex) {
+      // the same report was submitted at the same time, and only one job can be active
+      return reportJobRepository
+          .findFirstByParametersHashAndStatusInAndExpiryDateAfterOrderByCreatedDateDesc(
+              parametersHash, ReportJobStatus.ACTIVE, now)
+          .orElseThrow(() -> ex);
+    }
+
+    activeJobs.add(job.getId());
+
+    try {
+      executor.execute(() -> generate(job, template, params));
+    } catch (TaskRejectedException ex) {
+      LOGGER.warn("Report job {} rejected, the report queue is full", job.getId(), ex);
+      activeJobs.remove(job.getId());
+      job.fail(ZonedDateTime.now(), QUEUE_FULL_MESSAGE);
+      return reportJobRepository.save(job);
+    }
+
+    return job;
+  }
+
+  /**
+   * Finds the report job with the given id.
+   */
+  public Optional<ReportJob> findJob(UUID id) {
+    return reportJobRepository.findById(id);
+  }
+
+  /**
+   * Returns the file the report of the given job is written to.
+   */
+  public Path getReportFile(ReportJob job) {
+    return Paths.get(directory, job.getId().toString());
+  }
+
+  /**
+   * Removes expired jobs and their reports. This is run periodically based on the cron
+   * expression.
+   */
+  @Scheduled(cron = "${reports.jobs.cleanup.cron.expression}")
+  public void removeExpiredJobs() {
+    failAbandonedJobs();
+
+    List<ReportJob> expired = reportJobRepository.findByExpiryDateBefore(ZonedDateTime.now());
+
+    if (!expired.isEmpty()) {
+      LOGGER.info("Removing {} expired report job(s)", expired.size());
+      expired.forEach(job -> deleteReportFile(getReportFile(job)));
+      reportJobRepository.deleteAll(expired);
+    }
+  }
+
+  /**
+   * Updates the heartbeat date of the jobs generated by this instance, so other instances do not
+   * take them for abandoned.
+   */
+  @Scheduled(fixedDelayString = "${reports.jobs.heartbeat.interval}")
+  public void updateHeartbeats() {
+    if (!activeJobs.isEmpty()) {
+      reportJobRepository.updateHeartbeatDate(new ArrayList<>(activeJobs), ReportJobStatus.ACTIVE,
+          ZonedDateTime.now());
+    }
+  }
+
+  void generate(ReportJob job, JasperTemplate template, Map<String, Object> params) {
+    try {
+      doGenerate(job, template, params);
+    } finally {
+      activeJobs.remove(job.getId());
+    }
+  }
+
+  private void doGenerate(ReportJob job, JasperTemplate template, Map<String, Object> params) {
+    job.start();
+    reportJobRepository.save(job);
+
+    Path file = getReportFile(job);
+
+    try {
+      Files.createDirectories(file.getParent());
+
+      try (OutputStream outputStream = new BufferedOutputStream(Files.newOutputStream(file))) {
+        jasperReportsViewService.generateTemplateReport(template, params, outputStream);
+      }
+
+      ZonedDateTime now = ZonedDateTime.now();
+      job.complete(now, now.plusSeconds(timeToLive));
+    } catch (JasperReportViewException | IOException | RuntimeException ex) {
+      // any failure must end the job, otherwise clients would poll it until it expires
+      LOGGER.error("Could not generate report for job {}", job.getId(), ex);
+      deleteReportFile(file);
+      job.fail(ZonedDateTime.now(), ex.getMessage());
+    }
+
+    if (reportJobRepository.existsById(job.getId())) {
+      reportJobRepository.save(job);
+    } else {
+      // the job expired and was removed while the report was being generated
+      deleteReportFile(file);
+    }
+  }
+
+  private void failAbandonedJobs() {
+    ZonedDateTime now = ZonedDateTime.now();
+    int failed = reportJobRepository.failJobsWithHeartbeatDateBefore(getStaleBefore(now),
+        ReportJobStatus.ACTIVE, STOPPED_MESSAGE, now);
+
+    if (failed > 0) {
+      LOGGER.warn("Failed {} abandoned report job(s)", failed);
+    }
+  }
+
+  private ZonedDateTime getStaleBefore(ZonedDateTime now) {
+    return now.minus(STALE_HEARTBEATS * heartbeatInterval, ChronoUnit.MILLIS);
+  }
+
+  private String hash(JasperTemplate template, Map<String, Object> params) {
+    byte[] data = Optional.ofNullable(template.getData()).orElse(new byte[0]);
+
+    return Hashing.sha256()
+        .newHasher()
+        .putString(template.getId().toString(), StandardCharsets.UTF_8)
+        .putBytes(data)
+        .putString(new TreeMap<>(params).toString(), StandardCharsets.UTF_8)
+        .hash()
+        .toString();
+  }
+
+  private void deleteReportFile(Path file) {
+    try {
+      Files.deleteIfExists(file);
+    } catch (IOException ex) {
+      LOGGER.warn("Could not delete report file {}", file, ex);
+    }
+  }
+}
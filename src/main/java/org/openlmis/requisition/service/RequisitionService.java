@@ -91,8 +91,8 @@ import org.openlmis.requisition.repository.StatusMessageRepository;
 import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
 import org.openlmis.requisition.service.fulfillment.OrderFulfillmentService;
 import org.openlmis.requisition.service.referencedata.ApproveProductsAggregator;
+import org.openlmis.requisition.service.referencedata.CompactPermissionStrings;
 import org.openlmis.requisition.service.referencedata.IdealStockAmountReferenceDataService;
-import org.openlmis.requisition.service.referencedata.PermissionStringDto;
 import org.openlmis.requisition.service.referencedata.PermissionStrings;
 import org.openlmis.requisition.service.referencedata.RightReferenceDataService;
 import org.openlmis.requisition.service.referencedata.SupplyLineReferenceDataService;
@@ -375,17 +375,12 @@ public class RequisitionService {
     Profiler profiler = new Profiler("REQUISITION_SERVICE_SEARCH");
     profiler.setLogger(LOGGER);
     UserDto user = authenticationHelper.getCurrentUser();
-    List<String> permissionStrings = new ArrayList<>();
+    CompactPermissionStrings permissionStrings = CompactPermissionStrings.empty();
     Set<Pair<UUID, UUID>> programNodePairs = Sets.newHashSet();
 
     if (null != user) {
       profiler.start("GET_PERM_STRINGS");
-      PermissionStrings.Handler handler = permissionService.getPermissionStrings(user.getId());
-
-      permissionStrings = handler.get()
-              .stream()
-              .map(PermissionStringDto::toString)
-              .collect(toList());
+      permissionStrings = permissionService.getPermissionStrings(user.getId()).get();
 
       profiler.start("GET_PROGRAM_AND_NODE_IDS_FROM_ROLE_ASSIGNMENTS");
       programNodePairs = user
@@ -631,13 +626,10 @@ public class RequisitionService {
     if (null != user) {
       profiler.start("GET_PERMISSION_STRINGS");
       PermissionStrings.Handler handler = permissionService.getPermissionStrings(user.getId());
-      Set<PermissionStringDto> permissionStrings = handler.get();
+      CompactPermissionStrings permissionStrings = handler.get();
 
       profiler.start("FILTER_PERMISSION_STRINGS");
-      fulfillmentFacilitiesIds = permissionStrings.stream()
-              .filter(permission -> ORDERS_EDIT.equals(permission.getRightName()))
-              .map(PermissionStringDto::getFacilityId)
-              .collect(toSet());
+      fulfillmentFacilitiesIds = permissionStrings.getFacilityIds(ORDERS_EDIT);
 
       if (isEmpty(fulfillmentFacilitiesIds)) {
         return Pagination.getPage(emptyList(), pageable, 0);
@@ -0,0 +1,103 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Tags;
+import io.micrometer.core.instrument.Timer;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpRequest;
+import org.springframework.http.client.ClientHttpRequestExecution;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.http.client.ClientHttpRequestInterceptor;
+import org.springframework.http.client.ClientHttpResponse;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+/**
+ * Creates the rest templates used to communicate with other services. All of them send requests
+ * through the shared, pooled HTTP client; every service gets its own template, so the latency of
+ * its requests and the number of its requests in flight are published separately.
+ */
+@Component
+public class ServiceRestTemplates {
+  static final String REQUESTS_METRIC = "http.client.service.requests";
+  static final String IN_FLIGHT_METRIC = "http.client.service.inflight";
+
+  private final ClientHttpRequestFactory requestFactory;
+  private final MeterRegistry meterRegistry;
+  private final Map<String, RestTemplate> templates = new ConcurrentHashMap<>();
+
+  @Autowired
+  public ServiceRestTemplates(ClientHttpRequestFactory requestFactory,
+      MeterRegistry meterRegistry) {
+    this.requestFactory = requestFactory;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Returns the rest template of the service with the given name.
+   */
+  public RestTemplate forService(String serviceName) {
+    return templates.computeIfAbsent(serviceName, this::create);
+  }
+
+  private RestTemplate create(String serviceName) {
+    RestTemplate template = new RestTemplate(requestFactory);
+    template.getInterceptors().add(new MetricsInterceptor(serviceName));
+
+    return template;
+  }
+
+  final class MetricsInterceptor implements ClientHttpRequestInterceptor {
+    private final String serviceName;
+    private final AtomicInteger inFlight;
+
+    MetricsInterceptor(String serviceName) {
+      this.serviceName = serviceName;
+      this.inFlight = meterRegistry
+          .gauge(IN_FLIGHT_METRIC, Tags.of("service", serviceName), new AtomicInteger());
+    }
+
+    @Override
+    public ClientHttpResponse intercept(HttpRequest request, byte[] body,
+        ClientHttpRequestExecution execution) throws IOException {
+      long start = System.nanoTime();
+      String status = "IO_ERROR";
+      inFlight.incrementAndGet();
+
+      try {
+        ClientHttpResponse response = execution.execute(request, body);
+        status = String.valueOf(response.getRawStatusCode());
+
+        return response;
+      } finally {
+        inFlight.decrementAndGet();
+        Timer
+            .builder(REQUESTS_METRIC)
+            .tags("service", serviceName, "method", request.getMethodValue(), "status", status)
+            .publishPercentileHistogram()
+            .register(meterRegistry)
+            .record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+      }
+    }
+  }
+}
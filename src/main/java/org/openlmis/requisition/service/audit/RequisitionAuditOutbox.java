@@ -0,0 +1,165 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.audit;
+
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Table of requisition changes that still have to be recorded in the JaVers audit log. Entries
+ * are added in the transaction that saves or deletes the requisition, so an entry exists exactly
+ * when that transaction commits, and are removed once {@link RequisitionAuditWorker} has created
+ * the snapshot. Entries that failed too many times are moved to a dead letter table.
+ */
+@Component
+public class RequisitionAuditOutbox {
+
+  private static final String INSERT_SQL = "INSERT INTO requisition.requisition_audit_outbox"
+      + " (requisitionid, author, deleted, state, createddate, nextattemptdate)"
+      + " VALUES (?, ?, ?, CAST(? AS jsonb), ?, ?)";
+
+  // only the oldest entry of each requisition is returned, so its snapshots are made in order;
+  // rows locked by another instance are skipped, so several instances can drain at once
+  private static final String LOCK_SQL = "SELECT o.id, o.requisitionid, o.author, o.deleted,"
+      + " o.state, o.createddate, o.attempts FROM requisition.requisition_audit_outbox o"
+      + " WHERE o.nextattemptdate <= ? AND NOT EXISTS (SELECT 1"
+      + " FROM requisition.requisition_audit_outbox p"
+      + " WHERE p.requisitionid = o.requisitionid AND p.id < o.id)"
+      + " ORDER BY o.id LIMIT ? FOR UPDATE OF o SKIP LOCKED";
+
+  private static final String DELETE_SQL = "DELETE FROM requisition.requisition_audit_outbox"
+      + " WHERE id IN (:ids)";
+
+  private static final String RETRY_SQL = "UPDATE requisition.requisition_audit_outbox"
+      + " SET attempts = attempts + 1, nextattemptdate = ? WHERE id = ?";
+
+  private static final String DEAD_LETTER_SQL = "WITH moved AS ("
+      + "DELETE FROM requisition.requisition_audit_outbox WHERE id = ?"
+      + " RETURNING id, requisitionid, author, deleted, state, createddate, attempts)"
+      + " INSERT INTO requisition.requisition_audit_outbox_dead_letters"
+      + " (id, requisitionid, author, deleted, state, createddate, attempts, deadletterdate)"
+      + " SELECT id, requisitionid, author, deleted, state, createddate, attempts + 1, ?"
+      + " FROM moved";
+
+  private static final String BACKLOG_SQL = "SELECT count(*), min(createddate),"
+      + " (SELECT count(*) FROM requisition.requisition_audit_outbox_dead_letters)"
+      + " FROM requisition.requisition_audit_outbox";
+
+  private static final String IDS = "ids";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+
+  @Autowired
+  public RequisitionAuditOutbox(JdbcTemplate jdbcTemplate) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+  }
+
+  /**
+   * Adds an entry for the given requisition. The state is null for deleted requisitions. This
+   * joins the current transaction.
+   */
+  public void add(UUID requisitionId, String author, boolean deleted, String state,
+      Instant createdDate) {
+    Timestamp timestamp = Timestamp.from(createdDate);
+    jdbcTemplate.update(INSERT_SQL, requisitionId, author, deleted, state, timestamp, timestamp);
+  }
+
+  /**
+   * Locks and returns up to {@code limit} oldest entries that are due to be tried, at most one
+   * for each requisition. The locks are held until the current transaction ends.
+   */
+  public List<Entry> lock(int limit, Instant now) {
+    return jdbcTemplate.query(LOCK_SQL, (rs, rowNum) -> new Entry(
+        rs.getLong("id"),
+        rs.getObject("requisitionid", UUID.class),
+        rs.getString("author"),
+        rs.getBoolean("deleted"),
+        rs.getString("state"),
+        rs.getTimestamp("createddate").toInstant(),
+        rs.getInt("attempts")), Timestamp.from(now), limit);
+  }
+
+  /**
+   * Removes entries that have been recorded in the audit log.
+   */
+  public void remove(Collection<Long> ids) {
+    if (!ids.isEmpty()) {
+      namedJdbcTemplate.update(DELETE_SQL, new MapSqlParameterSource(IDS, ids));
+    }
+  }
+
+  /**
+   * Counts a failed attempt for the given entry, so it is tried again at the given time.
+   */
+  public void retry(long id, Instant nextAttemptDate) {
+    jdbcTemplate.update(RETRY_SQL, Timestamp.from(nextAttemptDate), id);
+  }
+
+  /**
+   * Counts the last failed attempt for the given entry and moves it to the dead letter table.
+   */
+  public void moveToDeadLetters(long id, Instant now) {
+    jdbcTemplate.update(DEAD_LETTER_SQL, id, Timestamp.from(now));
+  }
+
+  /**
+   * Returns the number of entries waiting to be recorded, the age of the oldest one and the
+   * number of dead letters.
+   */
+  public Backlog getBacklog(Instant now) {
+    return jdbcTemplate.queryForObject(BACKLOG_SQL, (rs, rowNum) -> {
+      Timestamp oldest = rs.getTimestamp(2);
+      Duration lag = null == oldest
+          ? Duration.ZERO
+          : Duration.between(oldest.toInstant(), now);
+
+      return new Backlog(rs.getLong(1), lag, rs.getLong(3));
+    });
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static final class Entry {
+    private final long id;
+    private final UUID requisitionId;
+    private final String author;
+    private final boolean deleted;
+    private final String state;
+    private final Instant createdDate;
+    private final int attempts;
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static final class Backlog {
+    private final long size;
+    private final Duration lag;
+    private final long deadLetters;
+  }
+}
@@ -0,0 +1,166 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.audit;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import lombok.AllArgsConstructor;
+import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.annotation.AfterReturning;
+import org.aspectj.lang.annotation.Aspect;
+import org.javers.spring.auditable.AuthorProvider;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Adds an audit outbox entry for every requisition saved or deleted through
+ * {@link org.openlmis.requisition.repository.RequisitionRepository}. This replaces the JaVers
+ * aspect that created the snapshot synchronously, in the request that changed the requisition.
+ * The author is resolved here, because the snapshot is created later by a background worker
+ * that has no user in its security context.
+ *
+ * <p>Within a transaction, the entries are written just before it commits, after the changes
+ * have been flushed. The recorded state then has the version and modified date that are stored
+ * in the database, and a requisition saved several times in one transaction gets one entry with
+ * the state it is committed with.
+ */
+@Aspect
+@Component
+public class RequisitionAuditOutboxAspect {
+
+  private final RequisitionAuditOutbox outbox;
+  private final AuthorProvider authorProvider;
+  private final Clock clock;
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  /**
+   * Creates a new instance of the aspect.
+   */
+  @Autowired
+  public RequisitionAuditOutboxAspect(RequisitionAuditOutbox outbox,
+      AuthorProvider authorProvider, Clock clock) {
+    this.outbox = outbox;
+    this.authorProvider = authorProvider;
+    this.clock = clock;
+  }
+
+  /**
+   * Adds entries for requisitions returned by save, saveAndFlush and saveAll.
+   */
+  @AfterReturning(value = "execution(public * save*(..))"
+      + " && this(org.openlmis.requisition.repository.RequisitionRepository)",
+      returning = "result")
+  public void onSave(Object result) {
+    if (result instanceof Iterable) {
+      ((Iterable<?>) result).forEach(item -> add(item, false));
+    } else {
+      add(result, false);
+    }
+  }
+
+  /**
+   * Adds entries for requisitions passed to delete, deleteById and deleteAll.
+   */
+  @AfterReturning("execution(public * delete*(..))"
+      + " && this(org.openlmis.requisition.repository.RequisitionRepository)")
+  public void onDelete(JoinPoint joinPoint) {
+    for (Object arg : joinPoint.getArgs()) {
+      if (arg instanceof Iterable) {
+        ((Iterable<?>) arg).forEach(item -> add(item, true));
+      } else {
+        add(arg, true);
+      }
+    }
+  }
+
+  private void add(Object object, boolean deleted) {
+    Change change;
+
+    if (object instanceof Requisition) {
+      Requisition requisition = (Requisition) object;
+      change = new Change(requisition.getId(), deleted ? null : requisition,
+          authorProvider.provide());
+    } else if (object instanceof UUID) {
+      change = new Change((UUID) object, null, authorProvider.provide());
+    } else {
+      return;
+    }
+
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      getPendingChanges().add(change);
+    } else {
+      // the repository has committed the change in its own transaction
+      write(change);
+    }
+  }
+
+  private void write(Change change) {
+    String state = null == change.requisition
+        ? null
+        : RequisitionAuditState.write(change.requisition);
+
+    outbox.add(change.requisitionId, change.author, null == change.requisition, state,
+        Instant.now(clock));
+  }
+
+  // the synchronizations are suspended with their transaction, unlike bound resources
+  private PendingChanges getPendingChanges() {
+    for (TransactionSynchronization synchronization
+        : TransactionSynchronizationManager.getSynchronizations()) {
+      if (synchronization instanceof PendingChanges) {
+        return (PendingChanges) synchronization;
+      }
+    }
+
+    PendingChanges pendingChanges = new PendingChanges();
+    TransactionSynchronizationManager.registerSynchronization(pendingChanges);
+
+    return pendingChanges;
+  }
+
+  @AllArgsConstructor
+  private static final class Change {
+    private final UUID requisitionId;
+    private final Requisition requisition;
+    private final String author;
+  }
+
+  private final class PendingChanges extends TransactionSynchronizationAdapter {
+    private final Map<UUID, Change> changes = new LinkedHashMap<>();
+
+    void add(Change change) {
+      changes.put(change.requisitionId, change);
+    }
+
+    @Override
+    public void beforeCommit(boolean readOnly) {
+      // versions and modified dates are set when the changes are flushed
+      entityManager.flush();
+      changes.values().forEach(RequisitionAuditOutboxAspect.this::write);
+    }
+  }
+}
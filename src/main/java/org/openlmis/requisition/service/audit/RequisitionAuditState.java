@@ -0,0 +1,77 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.audit;
+
+import com.fasterxml.jackson.annotation.JsonAutoDetect.Visibility;
+import com.fasterxml.jackson.annotation.PropertyAccessor;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.databind.introspect.AnnotatedMember;
+import com.fasterxml.jackson.databind.introspect.JacksonAnnotationIntrospector;
+import com.fasterxml.jackson.datatype.jsr310.JavaTimeModule;
+import org.hibernate.Hibernate;
+import org.javers.core.metamodel.annotation.DiffIgnore;
+import org.openlmis.requisition.domain.requisition.Requisition;
+
+/**
+ * Converts the audited state of a requisition to JSON and back. Only fields that JaVers compares
+ * are kept, so the requisition read from the JSON gives the same snapshot as the one written,
+ * without its line items, status changes and other collections ignored by the audit log.
+ */
+final class RequisitionAuditState {
+
+  private static final ObjectMapper MAPPER = new ObjectMapper()
+      .registerModule(new JavaTimeModule())
+      .setAnnotationIntrospector(new AuditedFieldsIntrospector())
+      .setVisibility(PropertyAccessor.ALL, Visibility.NONE)
+      .setVisibility(PropertyAccessor.FIELD, Visibility.ANY)
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .enable(SerializationFeature.WRITE_DATES_WITH_ZONE_ID)
+      .disable(DeserializationFeature.ADJUST_DATES_TO_CONTEXT_TIME_ZONE)
+      .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+  private RequisitionAuditState() {
+    throw new UnsupportedOperationException();
+  }
+
+  static String write(Requisition requisition) {
+    try {
+      return MAPPER.writeValueAsString(Hibernate.unproxy(requisition));
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Could not write audit state of requisition "
+          + requisition.getId(), ex);
+    }
+  }
+
+  static Requisition read(String state) {
+    try {
+      return MAPPER.readValue(state, Requisition.class);
+    } catch (JsonProcessingException ex) {
+      throw new IllegalStateException("Could not read audit state of requisition", ex);
+    }
+  }
+
+  private static final class AuditedFieldsIntrospector extends JacksonAnnotationIntrospector {
+    private static final long serialVersionUID = 1L;
+
+    @Override
+    public boolean hasIgnoreMarker(AnnotatedMember member) {
+      return member.hasAnnotation(DiffIgnore.class) || super.hasIgnoreMarker(member);
+    }
+  }
+}
@@ -0,0 +1,237 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.audit;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import org.javers.core.Javers;
+import org.javers.repository.jql.QueryBuilder;
+import org.openlmis.requisition.JaVersDateProvider;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.service.audit.RequisitionAuditOutbox.Backlog;
+import org.openlmis.requisition.service.audit.RequisitionAuditOutbox.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Creates JaVers snapshots of requisitions listed in the {@link RequisitionAuditOutbox}. The
+ * outbox is drained in batches based on the {@code audit.outbox.drain.delay} property; every run
+ * stops after {@code audit.outbox.maxBatches} batches, so a large backlog is worked off gradually
+ * instead of holding database connections for a long time.
+ *
+ * <p>Every entry is committed with the state, author and date it was written with. Entries of
+ * one requisition are committed one at a time, in the order they were written. A failed entry
+ * is tried again after a delay that doubles with every attempt, and after
+ * {@code audit.outbox.maxAttempts} attempts it is moved to the dead letter table.
+ */
+@Component
+public class RequisitionAuditWorker {
+  static final String PROCESSED_METRIC = "requisition.audit.outbox.processed";
+  static final String FAILED_METRIC = "requisition.audit.outbox.failed";
+  static final String DEAD_LETTERED_METRIC = "requisition.audit.outbox.deadLettered";
+  static final String SIZE_METRIC = "requisition.audit.outbox.size";
+  static final String LAG_METRIC = "requisition.audit.outbox.lag";
+  static final String DEAD_LETTERS_METRIC = "requisition.audit.outbox.deadLetters";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(RequisitionAuditWorker.class);
+
+  private final RequisitionAuditOutbox outbox;
+  private final RequisitionRepository requisitionRepository;
+  private final Javers javers;
+  private final JaVersDateProvider dateProvider;
+  private final Clock clock;
+  private final TransactionTemplate batchTransaction;
+  private final TransactionTemplate snapshotTransaction;
+
+  private final int batchSize;
+  private final int maxBatches;
+  private final int maxAttempts;
+  private final Duration retryDelay;
+  private final Duration maxRetryDelay;
+
+  private final Counter processed;
+  private final Counter failed;
+  private final Counter deadLettered;
+  private final AtomicLong size = new AtomicLong();
+  private final AtomicLong lag = new AtomicLong();
+  private final AtomicLong deadLetters = new AtomicLong();
+
+  /**
+   * Creates a new instance of the worker.
+   */
+  @Autowired
+  public RequisitionAuditWorker(RequisitionAuditOutbox outbox,
+      RequisitionRepository requisitionRepository, Javers javers,
+      JaVersDateProvider dateProvider, Clock clock,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+      @Value("${audit.outbox.batchSize}") int batchSize,
+      @Value("${audit.outbox.maxBatches}") int maxBatches,
+      @Value("${audit.outbox.maxAttempts}") int maxAttempts,
+      @Value("${audit.outbox.retryDelay}") long retryDelay,
+      @Value("${audit.outbox.maxRetryDelay}") long maxRetryDelay) {
+    this.outbox = outbox;
+    this.requisitionRepository = requisitionRepository;
+    this.javers = javers;
+    this.dateProvider = dateProvider;
+    this.clock = clock;
+    this.batchSize = batchSize;
+    this.maxBatches = maxBatches;
+    this.maxAttempts = maxAttempts;
+    this.retryDelay = Duration.ofMillis(retryDelay);
+    this.maxRetryDelay = Duration.ofMillis(maxRetryDelay);
+
+    this.batchTransaction = new TransactionTemplate(transactionManager);
+    // a failed snapshot must not roll back the batch that holds the outbox locks
+    this.snapshotTransaction = new TransactionTemplate(transactionManager);
+    this.snapshotTransaction
+        .setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+    this.processed = meterRegistry.counter(PROCESSED_METRIC);
+    this.failed = meterRegistry.counter(FAILED_METRIC);
+    this.deadLettered = meterRegistry.counter(DEAD_LETTERED_METRIC);
+    Gauge
+        .builder(SIZE_METRIC, size, AtomicLong::get)
+        .register(meterRegistry);
+    Gauge
+        .builder(LAG_METRIC, lag, AtomicLong::get)
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    Gauge
+        .builder(DEAD_LETTERS_METRIC, deadLetters, AtomicLong::get)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Drains the outbox. This is run periodically based on the {@code audit.outbox.drain.delay}
+   * property.
+   */
+  @Scheduled(fixedDelayString = "${audit.outbox.drain.delay}")
+  public void drain() {
+    // a batch takes one entry of each requisition, so the next one may find later entries
+    for (int batch = 0; batch < maxBatches; ++batch) {
+      if (drainBatch() == 0) {
+        break;
+      }
+    }
+
+    Backlog backlog = outbox.getBacklog(clock.instant());
+    size.set(backlog.getSize());
+    lag.set(backlog.getLag().getSeconds());
+    deadLetters.set(backlog.getDeadLetters());
+  }
+
+  int drainBatch() {
+    Integer drained = batchTransaction.execute(status -> {
+      List<Entry> entries = outbox.lock(batchSize, clock.instant());
+      List<Long> recorded = new ArrayList<>();
+
+      for (Entry entry : entries) {
+        if (record(entry)) {
+          recorded.add(entry.getId());
+        }
+      }
+
+      outbox.remove(recorded);
+      processed.increment(recorded.size());
+
+      return entries.size();
+    });
+
+    return null == drained ? 0 : drained;
+  }
+
+  private boolean record(Entry entry) {
+    try {
+      snapshotTransaction.execute(status -> {
+        dateProvider.runAt(entry.getCreatedDate(), () -> snapshot(entry));
+        return null;
+      });
+      return true;
+    } catch (RuntimeException ex) {
+      int attempts = entry.getAttempts() + 1;
+      failed.increment();
+
+      if (attempts < maxAttempts) {
+        Instant nextAttemptDate = clock.instant().plus(getRetryDelay(attempts));
+        LOGGER.warn("Could not create audit snapshot of requisition {}, attempt {} of {},"
+            + " retrying at {}", entry.getRequisitionId(), attempts, maxAttempts,
+            nextAttemptDate, ex);
+        outbox.retry(entry.getId(), nextAttemptDate);
+      } else {
+        LOGGER.error("Could not create audit snapshot of requisition {}, moving entry {} to"
+            + " dead letters after {} attempts", entry.getRequisitionId(), entry.getId(),
+            attempts, ex);
+        outbox.moveToDeadLetters(entry.getId(), clock.instant());
+        deadLettered.increment();
+      }
+
+      return false;
+    }
+  }
+
+  // the delay doubles with every attempt, up to the maximum
+  private Duration getRetryDelay(int attempts) {
+    Duration delay = retryDelay;
+
+    for (int attempt = 1; attempt < attempts && delay.compareTo(maxRetryDelay) < 0; ++attempt) {
+      delay = delay.multipliedBy(2);
+    }
+
+    return delay.compareTo(maxRetryDelay) < 0 ? delay : maxRetryDelay;
+  }
+
+  private void snapshot(Entry entry) {
+    UUID requisitionId = entry.getRequisitionId();
+
+    if (entry.isDeleted()) {
+      // a requisition deleted before its first snapshot has nothing to terminate
+      boolean audited = !javers
+          .findSnapshots(QueryBuilder.byInstanceId(requisitionId, Requisition.class)
+              .limit(1)
+              .build())
+          .isEmpty();
+
+      if (audited) {
+        Requisition requisition = new Requisition();
+        requisition.setId(requisitionId);
+        javers.commitShallowDelete(entry.getAuthor(), requisition);
+      }
+    } else if (null != entry.getState()) {
+      javers.commit(entry.getAuthor(), RequisitionAuditState.read(entry.getState()));
+    } else {
+      // entries written before the state was recorded fall back to the current state
+      requisitionRepository
+          .findById(requisitionId)
+          .ifPresent(requisition -> javers.commit(entry.getAuthor(), requisition));
+    }
+  }
+}
@@ -0,0 +1,204 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.notification;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import org.openlmis.requisition.service.AuthService;
+import org.openlmis.requisition.service.notification.NotificationOutbox.Backlog;
+import org.openlmis.requisition.service.notification.NotificationOutbox.Entry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+/**
+ * Sends notifications queued in the {@link NotificationOutbox}. The outbox is drained in batches
+ * based on the {@code notification.outbox.drain.delay} property, with one access token for the
+ * whole batch. A batch is claimed for {@code notification.outbox.lease} milliseconds in a short
+ * transaction and sent after it commits, so no locks are held while waiting for the Notification
+ * service. A notification is only sent if it can time out before the lease ends; the rest of the
+ * batch is released, so it is never sent by another instance at the same time. Notifications of
+ * one recipient are sent one at a time in the order they were queued;
+ * a later one is not claimed until the earlier one has been sent or moved to the dead letters.
+ * A failed notification is retried with an exponentially growing delay until
+ * {@code notification.outbox.maxAttempts} is reached.
+ */
+@Component
+public class NotificationDispatcher {
+  static final String SENT_METRIC = "notification.outbox.sent";
+  static final String FAILED_METRIC = "notification.outbox.failed";
+  static final String DEAD_LETTERED_METRIC = "notification.outbox.deadLettered";
+  static final String SIZE_METRIC = "notification.outbox.size";
+  static final String LAG_METRIC = "notification.outbox.lag";
+  static final String DEAD_LETTERS_METRIC = "notification.outbox.deadLetters";
+
+  private static final Logger LOGGER = LoggerFactory.getLogger(NotificationDispatcher.class);
+
+  private final NotificationOutbox outbox;
+  private final NotificationService notificationService;
+  private final AuthService authService;
+  private final Clock clock;
+  private final TransactionTemplate transactionTemplate;
+
+  private final int batchSize;
+  private final int maxBatches;
+  private final int maxAttempts;
+  private final Duration retryDelay;
+  private final Duration maxRetryDelay;
+  private final Duration lease;
+  private final Duration sendTimeout;
+
+  private final Counter sent;
+  private final Counter failed;
+  private final Counter deadLettered;
+  private final AtomicLong size = new AtomicLong();
+  private final AtomicLong lag = new AtomicLong();
+  private final AtomicLong deadLetters = new AtomicLong();
+
+  /**
+   * Creates a new instance of the dispatcher.
+   */
+  @Autowired
+  public NotificationDispatcher(NotificationOutbox outbox,
+      NotificationService notificationService, AuthService authService, Clock clock,
+      PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+      @Value("${notification.outbox.batchSize}") int batchSize,
+      @Value("${notification.outbox.maxBatches}") int maxBatches,
+      @Value("${notification.outbox.maxAttempts}") int maxAttempts,
+      @Value("${notification.outbox.retryDelay}") long retryDelay,
+      @Value("${notification.outbox.maxRetryDelay}") long maxRetryDelay,
+      @Value("${notification.outbox.lease}") long lease,
+      @Value("#{${http.client.connectionRequestTimeout} + ${http.client.connectTimeout}"
+          + " + ${http.client.readTimeout}}") long sendTimeout) {
+    if (sendTimeout >= lease) {
+      throw new IllegalArgumentException("The notification outbox lease must be longer than the"
+          + " HTTP client timeouts of a single request");
+    }
+
+
+    this.outbox = outbox;
+    this.notificationService = notificationService;
+    this.authService = authService;
+    this.clock = clock;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.batchSize = batchSize;
+    this.maxBatches = maxBatches;
+    this.maxAttempts = maxAttempts;
+    this.retryDelay = Duration.ofMillis(retryDelay);
+    this.maxRetryDelay = Duration.ofMillis(maxRetryDelay);
+    this.lease = Duration.ofMillis(lease);
+    this.sendTimeout = Duration.ofMillis(sendTimeout);
+
+    this.sent = meterRegistry.counter(SENT_METRIC);
+    this.failed = meterRegistry.counter(FAILED_METRIC);
+    this.deadLettered = meterRegistry.counter(DEAD_LETTERED_METRIC);
+    Gauge
+        .builder(SIZE_METRIC, size, AtomicLong::get)
+        .register(meterRegistry);
+    Gauge
+        .builder(LAG_METRIC, lag, AtomicLong::get)
+        .baseUnit("seconds")
+        .register(meterRegistry);
+    Gauge
+        .builder(DEAD_LETTERS_METRIC, deadLetters, AtomicLong::get)
+        .register(meterRegistry);
+  }
+
+  /**
+   * Sends queued notifications. This is run periodically based on the
+   * {@code notification.outbox.drain.delay} property.
+   */
+  @Scheduled(fixedDelayString = "${notification.outbox.drain.delay}")
+  public void drain() {
+    for (int batch = 0; batch < maxBatches; ++batch) {
+      if (dispatchBatch() == 0) {
+        break;
+      }
+    }
+
+    Backlog backlog = outbox.getBacklog(clock.instant());
+    size.set(backlog.getSize());
+    lag.set(backlog.getLag().getSeconds());
+    deadLetters.set(backlog.getDeadLetters());
+  }
+
+  int dispatchBatch() {
+    Instant now = clock.instant();
+    Instant leaseEnd = now.plus(lease);
+    List<Entry> entries = transactionTemplate
+        .execute(status -> outbox.claim(batchSize, now, leaseEnd));
+
+    if (null == entries || entries.isEmpty()) {
+      return 0;
+    }
+
+    String accessToken = authService.obtainAccessToken();
+    List<Long> sentIds = new ArrayList<>();
+    List<Entry> failedEntries = new ArrayList<>();
+    List<Long> releasedIds = new ArrayList<>();
+
+    for (Entry entry : entries) {
+      // once the lease ends the notification can be claimed again, so it could be sent twice
+      if (clock.instant().plus(sendTimeout).isAfter(leaseEnd)) {
+        releasedIds.add(entry.getId());
+      } else if (notificationService.send(entry.getNotification(), accessToken)) {
+        sentIds.add(entry.getId());
+      } else {
+        failedEntries.add(entry);
+      }
+    }
+
+    Instant sentDate = clock.instant();
+    transactionTemplate.execute(status -> {
+      outbox.remove(sentIds);
+      outbox.release(releasedIds, sentDate);
+      failedEntries.forEach(entry -> retry(entry, sentDate));
+      return null;
+    });
+
+    sent.increment(sentIds.size());
+    return entries.size();
+  }
+
+  private void retry(Entry entry, Instant now) {
+    int attempts = entry.getAttempts() + 1;
+    failed.increment();
+
+    if (attempts < maxAttempts) {
+      Duration delay = retryDelay.multipliedBy(1L << Math.min(attempts - 1, 30));
+      outbox.retry(entry.getId(), now.plus(delay.compareTo(maxRetryDelay) < 0
+          ? delay
+          : maxRetryDelay));
+    } else {
+      LOGGER.error("Could not send notification to user {}, moving it to the dead letters"
+          + " after {} attempts", entry.getUserId(), attempts);
+      outbox.moveToDeadLetters(entry.getId(), now);
+      deadLettered.increment();
+    }
+  }
+}
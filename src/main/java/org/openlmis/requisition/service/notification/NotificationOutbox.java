@@ -0,0 +1,196 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.notification;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.io.IOException;
+import java.sql.Timestamp;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.List;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import org.openlmis.requisition.exception.ServerException;
+import org.openlmis.requisition.i18n.MessageKeys;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Component;
+
+/**
+ * Table of notifications that still have to be sent to the Notification service. Notifications
+ * are added in the transaction that changes the requisition, so they are only sent if it commits,
+ * and are removed by {@link NotificationDispatcher} once they have been sent. Notifications that
+ * failed too many times are moved to a dead letter table.
+ */
+@Component
+public class NotificationOutbox {
+
+  private static final String INSERT_SQL = "INSERT INTO requisition.notification_outbox"
+      + " (userid, notification) VALUES (?, CAST(? AS jsonb))";
+
+  // only the oldest notification of each recipient is claimed, so they are sent in order;
+  // rows locked by another instance are skipped, so several instances can send at once
+  private static final String CLAIM_SQL = "UPDATE requisition.notification_outbox"
+      + " SET nextattemptdate = ? WHERE id IN (SELECT o.id"
+      + " FROM requisition.notification_outbox o"
+      + " WHERE o.nextattemptdate <= ? AND NOT EXISTS (SELECT 1"
+      + " FROM requisition.notification_outbox p"
+      + " WHERE p.userid = o.userid AND p.id < o.id)"
+      + " ORDER BY o.id LIMIT ? FOR UPDATE OF o SKIP LOCKED)"
+      + " RETURNING id, notification, attempts";
+
+  private static final String DELETE_SQL = "DELETE FROM requisition.notification_outbox"
+      + " WHERE id IN (:ids)";
+
+  private static final String RELEASE_SQL = "UPDATE requisition.notification_outbox"
+      + " SET nextattemptdate = :nextAttemptDate WHERE id IN (:ids)";
+
+  private static final String RETRY_SQL = "UPDATE requisition.notification_outbox"
+      + " SET attempts = attempts + 1, nextattemptdate = ? WHERE id = ?";
+
+  private static final String DEAD_LETTER_SQL = "WITH moved AS ("
+      + "DELETE FROM requisition.notification_outbox WHERE id = ?"
+      + " RETURNING id, userid, notification, createddate, attempts)"
+      + " INSERT INTO requisition.notification_outbox_dead_letters"
+      + " (id, userid, notification, createddate, attempts, deadletterdate)"
+      + " SELECT id, userid, notification, createddate, attempts + 1, ? FROM moved";
+
+  private static final String BACKLOG_SQL = "SELECT count(*), min(createddate),"
+      + " (SELECT count(*) FROM requisition.notification_outbox_dead_letters)"
+      + " FROM requisition.notification_outbox";
+
+  private static final String IDS = "ids";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final NamedParameterJdbcTemplate namedJdbcTemplate;
+  private final ObjectMapper objectMapper;
+
+  /**
+   * Creates a new instance of the outbox.
+   */
+  @Autowired
+  public NotificationOutbox(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper) {
+    this.jdbcTemplate = jdbcTemplate;
+    this.namedJdbcTemplate = new NamedParameterJdbcTemplate(jdbcTemplate);
+    this.objectMapper = objectMapper;
+  }
+
+  /**
+   * Adds the given notification. This joins the current transaction.
+   */
+  public void add(NotificationDto notification) {
+    try {
+      jdbcTemplate.update(INSERT_SQL, notification.getUserId(),
+          objectMapper.writeValueAsString(notification));
+    } catch (IOException ex) {
+      throw new ServerException(ex, MessageKeys.ERROR_IO, ex.getMessage());
+    }
+  }
+
+  /**
+   * Claims and returns up to {@code limit} oldest notifications that are due at the given time,
+   * at most one for each recipient. Claimed notifications are not returned again until the lease
+   * ends, so they can be sent after the current transaction commits.
+   */
+  public List<Entry> claim(int limit, Instant now, Instant leaseEnd) {
+    return jdbcTemplate.query(CLAIM_SQL, (rs, rowNum) -> new Entry(
+        rs.getLong("id"),
+        read(rs.getString("notification")),
+        rs.getInt("attempts")), Timestamp.from(leaseEnd), Timestamp.from(now), limit);
+  }
+
+  /**
+   * Removes notifications that have been sent.
+   */
+  public void remove(Collection<Long> ids) {
+    if (!ids.isEmpty()) {
+      namedJdbcTemplate.update(DELETE_SQL, new MapSqlParameterSource(IDS, ids));
+    }
+  }
+
+  /**
+   * Ends the lease of claimed notifications that have not been tried, so they can be claimed again
+   * at the given time.
+   */
+  public void release(Collection<Long> ids, Instant nextAttemptDate) {
+    if (!ids.isEmpty()) {
+      namedJdbcTemplate.update(RELEASE_SQL, new MapSqlParameterSource(IDS, ids)
+          .addValue("nextAttemptDate", Timestamp.from(nextAttemptDate)));
+    }
+  }
+
+  /**
+   * Counts a failed attempt for the given notification and postpones it until the given time.
+   */
+  public void retry(long id, Instant nextAttempt) {
+    jdbcTemplate.update(RETRY_SQL, Timestamp.from(nextAttempt), id);
+  }
+
+  /**
+   * Counts the last failed attempt for the given notification and moves it to the dead letter
+   * table.
+   */
+  public void moveToDeadLetters(long id, Instant now) {
+    jdbcTemplate.update(DEAD_LETTER_SQL, id, Timestamp.from(now));
+  }
+
+  /**
+   * Returns the number of notifications waiting to be sent, the age of the oldest one and the
+   * number of dead letters.
+   */
+  public Backlog getBacklog(Instant now) {
+    return jdbcTemplate.queryForObject(BACKLOG_SQL, (rs, rowNum) -> {
+      Timestamp oldest = rs.getTimestamp(2);
+      Duration lag = null == oldest
+          ? Duration.ZERO
+          : Duration.between(oldest.toInstant(), now);
+
+      return new Backlog(rs.getLong(1), lag, rs.getLong(3));
+    });
+  }
+
+  private NotificationDto read(String json) {
+    try {
+      return objectMapper.readValue(json, NotificationDto.class);
+    } catch (IOException ex) {
+      throw new ServerException(ex, MessageKeys.ERROR_IO, ex.getMessage());
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static final class Entry {
+    private final long id;
+    private final NotificationDto notification;
+    private final int attempts;
+
+    public UUID getUserId() {
+      return notification.getUserId();
+    }
+  }
+
+  @Getter
+  @AllArgsConstructor
+  public static final class Backlog {
+    private final long size;
+    private final Duration lag;
+    private final long deadLetters;
+  }
+}
@@ -21,7 +21,7 @@ import static org.openlmis.requisition.service.notification.NotificationChannelD
 import java.util.HashMap;
 import java.util.Map;
 import org.openlmis.requisition.dto.UserDto;
-import org.openlmis.requisition.service.AuthService;
+import org.openlmis.requisition.service.ServiceRestTemplates;
 import org.openlmis.requisition.utils.RequestHelper;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,8 +29,8 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 import org.springframework.web.client.HttpStatusCodeException;
+import org.springframework.web.client.RestClientException;
 import org.springframework.web.client.RestOperations;
-import org.springframework.web.client.RestTemplate;
 
 @Service
 public class NotificationService {
@@ -38,31 +38,42 @@ public class NotificationService {
   private final Logger logger = LoggerFactory.getLogger(getClass());
 
   @Autowired
-  private AuthService authService;
+  private NotificationOutbox notificationOutbox;
 
   @Value("${notification.url}")
   private String notificationUrl;
 
-  private RestOperations restTemplate = new RestTemplate();
+  private RestOperations restTemplate;
 
   /**
-   * Send an email notification.
+   * Queues an email and SMS notification. It is sent by {@link NotificationDispatcher} once the
+   * current transaction commits.
    *
    * @param user    receiver of the notification
    * @param subject subject of the email
    * @param emailContent content of the email
-   * @return true if success, false if failed.
+   * @return true, the notification is always queued.
    */
   public boolean notify(UserDto user, String subject, String emailContent, String smsContent,
       String tag) {
-    String url = notificationUrl + "/api/notifications";
+    notificationOutbox.add(buildNotification(user, subject, emailContent, smsContent, tag));
+    return true;
+  }
 
-    NotificationDto request = buildNotification(user, subject, emailContent, smsContent, tag);
+  /**
+   * Sends the given notification to the Notification service.
+   *
+   * @param notification notification to send
+   * @param accessToken  token used to authorize the request
+   * @return true if success, false if failed.
+   */
+  public boolean send(NotificationDto notification, String accessToken) {
+    String url = notificationUrl + "/api/notifications";
 
     try {
       restTemplate.postForObject(
               RequestHelper.createUri(url),
-              RequestHelper.createEntity(request, authService.obtainAccessToken()),
+              RequestHelper.createEntity(notification, accessToken),
               Object.class);
     } catch (HttpStatusCodeException ex) {
       logger.error(
@@ -70,10 +81,21 @@ public class NotificationService {
           ex.getStatusCode(), ex.getResponseBodyAsString()
       );
       return false;
+    } catch (RestClientException ex) {
+      logger.error("Unable to send notification", ex);
+      return false;
     }
     return true;
   }
 
+  /**
+   * Sends notifications through the shared HTTP client.
+   */
+  @Autowired
+  public void setServiceRestTemplates(ServiceRestTemplates serviceRestTemplates) {
+    this.restTemplate = serviceRestTemplates.forService("Notification");
+  }
+
   void setRestTemplate(RestOperations restTemplate) {
     this.restTemplate = restTemplate;
   }
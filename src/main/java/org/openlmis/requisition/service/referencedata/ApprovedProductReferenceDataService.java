@@ -17,6 +17,7 @@ package org.openlmis.requisition.service.referencedata;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.dto.ApprovedProductDto;
 import org.openlmis.requisition.service.RequestParameters;
 import org.springframework.data.domain.Page;
@@ -60,4 +61,12 @@ public class ApprovedProductReferenceDataService extends
 
     return new ApproveProductsAggregator(content, programId);
   }
+
+  /**
+   * Asynchronous variant of {@link #getApprovedProducts(UUID, UUID)}.
+   */
+  public CompletableFuture<ApproveProductsAggregator> getApprovedProductsAsync(UUID facilityId,
+      UUID programId) {
+    return supplyAsync(() -> getApprovedProducts(facilityId, programId));
+  }
 }
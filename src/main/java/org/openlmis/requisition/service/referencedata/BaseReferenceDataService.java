@@ -15,7 +15,16 @@
 
 package org.openlmis.requisition.service.referencedata;
 
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.function.Function;
+import java.util.stream.Collectors;
+import org.openlmis.requisition.domain.requisition.VersionEntityReference;
+import org.openlmis.requisition.domain.requisition.Versionable;
+import org.openlmis.requisition.dto.VersionIdentityDto;
 import org.openlmis.requisition.service.BaseCommunicationService;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 
 public abstract class BaseReferenceDataService<T> extends BaseCommunicationService<T> {
@@ -23,6 +32,26 @@ public abstract class BaseReferenceDataService<T> extends BaseCommunicationServi
   @Value("${referencedata.url}")
   private String referenceDataUrl;
 
+  private ReferenceDataCache.Region cache;
+  private ReferenceDataCache.VersionedRegion versionedCache;
+
+  /**
+   * Return one object from service, using the reference data cache if it is enabled for this
+   * resource.
+   *
+   * @param id UUID of requesting object.
+   * @return Requesting reference data object.
+   */
+  @Override
+  public T findOne(UUID id) {
+    if (null == cache || !cache.isEnabled()) {
+      return super.findOne(id);
+    }
+
+    return cache.get(id, getResultClass(),
+        etag -> tryFindOne(id.toString(), String.class, etag));
+  }
+
   @Override
   protected String getServiceName() {
     return "Reference Data";
@@ -32,4 +61,54 @@ public abstract class BaseReferenceDataService<T> extends BaseCommunicationServi
   protected String getServiceUrl() {
     return referenceDataUrl;
   }
+
+  /**
+   * Returns the name of the reference data cache region for this resource, or null if the
+   * resource is never cached.
+   */
+  protected String getCacheName() {
+    return null;
+  }
+
+  /**
+   * Returns resources with the given identities, fetching only those that are not in the
+   * versioned reference data cache, if it is enabled for this resource.
+   *
+   * @param references identities of the resources.
+   * @param fetch      function fetching resources with the given identities.
+   * @return the resources that exist.
+   */
+  protected <V extends Versionable> List<V> findByVersionIdentities(
+      Set<VersionEntityReference> references,
+      Function<List<VersionIdentityDto>, List<V>> fetch) {
+    List<VersionIdentityDto> identities = references
+        .stream()
+        .map(VersionIdentityDto::new)
+        .collect(Collectors.toList());
+
+    if (null == versionedCache || !versionedCache.isEnabled()) {
+      return fetch.apply(identities);
+    }
+
+    return versionedCache.getAll(identities, fetch);
+  }
+
+  /**
+   * Returns the name of the versioned reference data cache region for this resource, or null if
+   * the resource is never cached by its identity.
+   */
+  protected String getVersionedCacheName() {
+    return null;
+  }
+
+  /**
+   * Connects the service with the regions of the reference data cache it uses.
+   */
+  @Autowired
+  public void setReferenceDataCache(ReferenceDataCache referenceDataCache) {
+    this.cache = null == getCacheName() ? null : referenceDataCache.getRegion(getCacheName());
+    this.versionedCache = null == getVersionedCacheName()
+        ? null
+        : referenceDataCache.getVersionedRegion(getVersionedCacheName());
+  }
 }
@@ -0,0 +1,312 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Permission strings of a single user, packed into primitive arrays sorted by right, program and
+ * facility. Right names are replaced by small numbers shared by all users, and a missing facility
+ * or program is stored as the nil UUID.
+ *
+ * <p>Checking a single permission string is a binary search that does not allocate.
+ */
+@SuppressWarnings("PMD.TooManyMethods")
+public final class CompactPermissionStrings {
+  private static final Map<String, Integer> RIGHT_IDS = new ConcurrentHashMap<>();
+  private static final List<String> RIGHT_NAMES = new ArrayList<>();
+
+  private static final int LONGS_PER_ENTRY = 4;
+  private static final char SEPARATOR = '|';
+
+  private static final CompactPermissionStrings EMPTY =
+      new CompactPermissionStrings(new int[0], new long[0]);
+
+  private static final Comparator<Entry> ORDER = Comparator
+      .comparingInt((Entry entry) -> entry.right)
+      .thenComparingLong(entry -> entry.ids[0])
+      .thenComparingLong(entry -> entry.ids[1])
+      .thenComparingLong(entry -> entry.ids[2])
+      .thenComparingLong(entry -> entry.ids[3]);
+
+  private final int[] rights;
+  private final long[] ids;
+
+  private CompactPermissionStrings(int[] rights, long[] ids) {
+    this.rights = rights;
+    this.ids = ids;
+  }
+
+  public static CompactPermissionStrings empty() {
+    return EMPTY;
+  }
+
+  /**
+   * Parses string representations of permission strings, like
+   * {@code RIGHT_NAME|facilityId|programId}. Duplicates are kept once.
+   */
+  public static CompactPermissionStrings from(Collection<String> permissionStrings) {
+    List<Entry> entries = new ArrayList<>(permissionStrings.size());
+
+    for (String permissionString : permissionStrings) {
+      entries.add(parse(permissionString));
+    }
+
+    entries.sort(ORDER);
+
+    int[] rights = new int[entries.size()];
+    long[] ids = new long[entries.size() * LONGS_PER_ENTRY];
+    int size = 0;
+
+    for (int i = 0; i < entries.size(); ++i) {
+      Entry entry = entries.get(i);
+
+      if (i > 0 && ORDER.compare(entries.get(i - 1), entry) == 0) {
+        continue;
+      }
+
+      rights[size] = entry.right;
+      System.arraycopy(entry.ids, 0, ids, size * LONGS_PER_ENTRY, LONGS_PER_ENTRY);
+      ++size;
+    }
+
+    if (size == 0) {
+      return EMPTY;
+    }
+
+    return size == rights.length
+        ? new CompactPermissionStrings(rights, ids)
+        : new CompactPermissionStrings(Arrays.copyOf(rights, size),
+            Arrays.copyOf(ids, size * LONGS_PER_ENTRY));
+  }
+
+  /**
+   * Checks if there is a permission string with the given right, facility and program. A null
+   * facility or program matches only permission strings without it.
+   */
+  public boolean contains(String rightName, UUID facilityId, UUID programId) {
+    Integer right = RIGHT_IDS.get(rightName);
+
+    if (null == right) {
+      return false;
+    }
+
+    int low = 0;
+    int high = rights.length - 1;
+
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compare(middle, right, programId, facilityId);
+
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
+  /**
+   * Returns ids of facilities the user has the given right for.
+   */
+  public Set<UUID> getFacilityIds(String rightName) {
+    Set<UUID> facilityIds = new HashSet<>();
+    Integer right = RIGHT_IDS.get(rightName);
+
+    if (null == right) {
+      return facilityIds;
+    }
+
+    for (int index = firstIndexOf(right); index < rights.length && rights[index] == right;
+        ++index) {
+      UUID facilityId = toUuid(ids[index * LONGS_PER_ENTRY + 2],
+          ids[index * LONGS_PER_ENTRY + 3]);
+
+      if (null != facilityId) {
+        facilityIds.add(facilityId);
+      }
+    }
+
+    return facilityIds;
+  }
+
+  /**
+   * Returns all permission strings as separate objects, sorted by right, program and facility.
+   */
+  public Stream<PermissionStringDto> stream() {
+    return IntStream
+        .range(0, rights.length)
+        .mapToObj(this::get);
+  }
+
+  /**
+   * Passes all permission strings to the given consumer, sorted by right, program and facility,
+   * without creating objects for them. A missing facility or program is passed as null.
+   */
+  public void forEach(PermissionStringConsumer consumer) {
+    String rightName = null;
+
+    for (int index = 0; index < rights.length; ++index) {
+      if (index == 0 || rights[index] != rights[index - 1]) {
+        synchronized (RIGHT_NAMES) {
+          rightName = RIGHT_NAMES.get(rights[index]);
+        }
+      }
+
+      int offset = index * LONGS_PER_ENTRY;
+      consumer.accept(rightName, toUuid(ids[offset + 2], ids[offset + 3]),
+          toUuid(ids[offset], ids[offset + 1]));
+    }
+  }
+
+  public int size() {
+    return rights.length;
+  }
+
+  public boolean isEmpty() {
+    return rights.length == 0;
+  }
+
+  private PermissionStringDto get(int index) {
+    int offset = index * LONGS_PER_ENTRY;
+    String rightName;
+
+    synchronized (RIGHT_NAMES) {
+      rightName = RIGHT_NAMES.get(rights[index]);
+    }
+
+    return PermissionStringDto.create(rightName,
+        toUuid(ids[offset + 2], ids[offset + 3]), toUuid(ids[offset], ids[offset + 1]));
+  }
+
+  private int firstIndexOf(int right) {
+    int low = 0;
+    int high = rights.length;
+
+    while (low < high) {
+      int middle = (low + high) >>> 1;
+
+      if (rights[middle] < right) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    return low;
+  }
+
+  private int compare(int index, int right, UUID programId, UUID facilityId) {
+    int comparison = Integer.compare(rights[index], right);
+
+    if (comparison != 0) {
+      return comparison;
+    }
+
+    int offset = index * LONGS_PER_ENTRY;
+    comparison = compare(ids[offset], ids[offset + 1], programId);
+
+    return comparison != 0
+        ? comparison
+        : compare(ids[offset + 2], ids[offset + 3], facilityId);
+  }
+
+  private static int compare(long mostSigBits, long leastSigBits, UUID id) {
+    int comparison = Long.compare(mostSigBits, null == id ? 0 : id.getMostSignificantBits());
+
+    return comparison != 0
+        ? comparison
+        : Long.compare(leastSigBits, null == id ? 0 : id.getLeastSignificantBits());
+  }
+
+  private static Entry parse(String permissionString) {
+    int facilityStart = permissionString.indexOf(SEPARATOR);
+    int programStart = facilityStart < 0
+        ? -1
+        : permissionString.indexOf(SEPARATOR, facilityStart + 1);
+
+    String rightName = facilityStart < 0
+        ? permissionString
+        : permissionString.substring(0, facilityStart);
+    String facilityId = facilityStart < 0
+        ? null
+        : permissionString.substring(facilityStart + 1,
+            programStart < 0 ? permissionString.length() : programStart);
+    String programId = programStart < 0 ? null : permissionString.substring(programStart + 1);
+
+    Entry entry = new Entry(internRight(rightName));
+    setIds(entry.ids, 0, programId);
+    setIds(entry.ids, 2, facilityId);
+
+    return entry;
+  }
+
+  private static void setIds(long[] ids, int offset, String id) {
+    if (null != id) {
+      UUID uuid = UUID.fromString(id);
+      ids[offset] = uuid.getMostSignificantBits();
+      ids[offset + 1] = uuid.getLeastSignificantBits();
+    }
+  }
+
+  private static UUID toUuid(long mostSigBits, long leastSigBits) {
+    return mostSigBits == 0 && leastSigBits == 0 ? null : new UUID(mostSigBits, leastSigBits);
+  }
+
+  private static int internRight(String rightName) {
+    Integer right = RIGHT_IDS.get(rightName);
+
+    if (null != right) {
+      return right;
+    }
+
+    synchronized (RIGHT_NAMES) {
+      return RIGHT_IDS.computeIfAbsent(rightName, name -> {
+        RIGHT_NAMES.add(name);
+        return RIGHT_NAMES.size() - 1;
+      });
+    }
+  }
+
+  private static final class Entry {
+    private final int right;
+    private final long[] ids = new long[LONGS_PER_ENTRY];
+
+    private Entry(int right) {
+      this.right = right;
+    }
+  }
+
+  @FunctionalInterface
+  public interface PermissionStringConsumer {
+    void accept(String rightName, UUID facilityId, UUID programId);
+  }
+}
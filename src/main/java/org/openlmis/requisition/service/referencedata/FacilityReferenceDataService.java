@@ -20,6 +20,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.dto.FacilityDto;
 import org.openlmis.requisition.dto.MinimalFacilityDto;
 import org.openlmis.requisition.service.RequestParameters;
@@ -45,6 +46,11 @@ public class FacilityReferenceDataService extends BaseReferenceDataService<Facil
     return FacilityDto[].class;
   }
 
+  @Override
+  protected String getCacheName() {
+    return "facilities";
+  }
+
   @Override
   public List<FacilityDto> findAll() {
     return getPage(RequestParameters.init()).getContent();
@@ -79,6 +85,13 @@ public class FacilityReferenceDataService extends BaseReferenceDataService<Facil
     return getBasicFacilityPage("search", RequestParameters.init(), requestBody).getContent();
   }
 
+  /**
+   * Asynchronous variant of {@link #search(Set)}.
+   */
+  public CompletableFuture<List<FacilityDto>> searchAsync(Set<UUID> facilityIds) {
+    return supplyAsync(() -> search(facilityIds));
+  }
+
   protected Page<MinimalFacilityDto> getBasicFacilityPage(String resourceUrl,
                                                           RequestParameters parameters,
                                                           Object payload) {
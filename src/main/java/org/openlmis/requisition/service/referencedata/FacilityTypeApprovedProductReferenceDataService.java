@@ -18,7 +18,7 @@ package org.openlmis.requisition.service.referencedata;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import org.apache.commons.collections.CollectionUtils;
 import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.ApprovedProductDto;
@@ -45,6 +45,11 @@ public class FacilityTypeApprovedProductReferenceDataService extends
     return ApprovedProductDto[].class;
   }
 
+  @Override
+  protected String getVersionedCacheName() {
+    return "facilityTypeApprovedProducts";
+  }
+
   /**
    * Retrieves facility type approved products from the reference data service, based on
    * their identities.
@@ -54,11 +59,18 @@ public class FacilityTypeApprovedProductReferenceDataService extends
       return Collections.emptyList();
     }
 
-    List<VersionIdentityDto> identities = references
-        .stream()
-        .map(ref -> new VersionIdentityDto(ref.getId(), ref.getVersionNumber()))
-        .collect(Collectors.toList());
+    return findByVersionIdentities(references, this::search);
+  }
+
+  /**
+   * Asynchronous variant of {@link #findByIdentities(Set)}.
+   */
+  public CompletableFuture<List<ApprovedProductDto>> findByIdentitiesAsync(
+      Set<VersionEntityReference> references) {
+    return supplyAsync(() -> findByIdentities(references));
+  }
 
+  private List<ApprovedProductDto> search(List<VersionIdentityDto> identities) {
     FacilityTypeApprovedProductSearchParams payload = new FacilityTypeApprovedProductSearchParams(
         null, null, null, identities, 0, identities.size());
 
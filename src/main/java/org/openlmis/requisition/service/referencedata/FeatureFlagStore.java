@@ -0,0 +1,79 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import lombok.AllArgsConstructor;
+import org.openlmis.requisition.dto.TogglzFeatureDto;
+import org.openlmis.requisition.service.ServiceResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps the state of features toggled in the Reference Data service, so that it does not have to
+ * be requested every time a feature is checked. The features are revalidated with their eTag
+ * based on the {@code referencedata.cache.featureFlags.refresh.cron.expression} property.
+ */
+@Component
+public class FeatureFlagStore extends PeriodicallyRefreshedData<FeatureFlagStore.Features> {
+
+  private final TogglzReferenceDataService togglzReferenceDataService;
+
+  @Autowired
+  public FeatureFlagStore(TogglzReferenceDataService togglzReferenceDataService) {
+    this.togglzReferenceDataService = togglzReferenceDataService;
+  }
+
+  /**
+   * Checks if the feature with the given name is enabled. Unknown features are disabled.
+   */
+  public boolean isActive(String name) {
+    return get().enabled.getOrDefault(name, false);
+  }
+
+  @Scheduled(cron = "${referencedata.cache.featureFlags.refresh.cron.expression}")
+  public void refreshFeatures() {
+    refresh();
+  }
+
+  @Override
+  Features load(Features previous) {
+    ServiceResponse<List<TogglzFeatureDto>> response = togglzReferenceDataService
+        .getFeatures(null == previous ? null : previous.etag);
+
+    if (null != previous && !response.isModified()) {
+      return previous;
+    }
+
+    Map<String, Boolean> enabled = response
+        .getBody()
+        .stream()
+        .collect(Collectors.toMap(TogglzFeatureDto::getName, TogglzFeatureDto::isEnabled,
+            (first, second) -> first));
+
+    return new Features(Collections.unmodifiableMap(enabled), response.getETag());
+  }
+
+  @AllArgsConstructor
+  static final class Features {
+    private final Map<String, Boolean> enabled;
+    private final String etag;
+  }
+}
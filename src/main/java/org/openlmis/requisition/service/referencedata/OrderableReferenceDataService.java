@@ -18,7 +18,7 @@ package org.openlmis.requisition.service.referencedata;
 import java.util.Collections;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.OrderableDto;
 import org.openlmis.requisition.dto.VersionIdentityDto;
@@ -45,6 +45,11 @@ public class OrderableReferenceDataService
     return OrderableDto[].class;
   }
 
+  @Override
+  protected String getVersionedCacheName() {
+    return "orderables";
+  }
+
   @Override
   public List<OrderableDto> findAll() {
     return getPage(RequestParameters.init()).getContent();
@@ -58,11 +63,18 @@ public class OrderableReferenceDataService
       return Collections.emptyList();
     }
 
-    List<VersionIdentityDto> identities = references
-        .stream()
-        .map(ref -> new VersionIdentityDto(ref.getId(), ref.getVersionNumber()))
-        .collect(Collectors.toList());
+    return findByVersionIdentities(references, this::search);
+  }
+
+  /**
+   * Asynchronous variant of {@link #findByIdentities(Set)}.
+   */
+  public CompletableFuture<List<OrderableDto>> findByIdentitiesAsync(
+      Set<VersionEntityReference> references) {
+    return supplyAsync(() -> findByIdentities(references));
+  }
 
+  private List<OrderableDto> search(List<VersionIdentityDto> identities) {
     OrderableSearchParams payload = new OrderableSearchParams(
         null, null, null, identities, 0, identities.size());
 
@@ -20,6 +20,7 @@ import java.util.Collection;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
 import org.openlmis.requisition.service.RequestParameters;
 import org.springframework.data.domain.PageRequest;
@@ -44,6 +45,11 @@ public class PeriodReferenceDataService extends BaseReferenceDataService<Process
     return ProcessingPeriodDto[].class;
   }
 
+  @Override
+  protected String getCacheName() {
+    return "processingPeriods";
+  }
+
   /**
    * Retrieves periods from the reference data service by schedule ID and end date.
    *
@@ -88,6 +94,13 @@ public class PeriodReferenceDataService extends BaseReferenceDataService<Process
     return getPage(parameters).getContent();
   }
 
+  /**
+   * Asynchronous variant of {@link #search(Set)}.
+   */
+  public CompletableFuture<List<ProcessingPeriodDto>> searchAsync(Set<UUID> periodIds) {
+    return supplyAsync(() -> search(periodIds));
+  }
+
   /**
    * Retrieves periods from the reference data service by program ID and facility ID.
    *
@@ -0,0 +1,83 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Keeps data downloaded from the Reference Data service in memory. The data is downloaded the
+ * first time it is used and is then replaced only by {@link #refresh()}, which subclasses call
+ * periodically, so that readers never wait for the Reference Data service after the first use.
+ *
+ * @param <T> type of the kept data, which must not be modified once it is loaded.
+ */
+abstract class PeriodicallyRefreshedData<T> {
+  final Logger logger = LoggerFactory.getLogger(getClass());
+
+  private final Object lock = new Object();
+  private volatile T data;
+
+  /**
+   * Returns the kept data, downloading it if it has not been used yet.
+   */
+  T get() {
+    T current = data;
+
+    if (null == current) {
+      synchronized (lock) {
+        if (null == data) {
+          data = load(null);
+        }
+
+        current = data;
+      }
+    }
+
+    return current;
+  }
+
+  /**
+   * Downloads the data again if it has been used. If the download fails, the data that is
+   * already kept is used until the next refresh.
+   */
+  void refresh() {
+    T current = data;
+
+    if (null == current) {
+      return;
+    }
+
+    try {
+      T loaded = load(current);
+
+      synchronized (lock) {
+        data = loaded;
+      }
+    } catch (RuntimeException ex) {
+      logger.warn("Could not refresh {}, the previous data is kept", getClass().getSimpleName(),
+          ex);
+    }
+  }
+
+  /**
+   * Downloads the data.
+   *
+   * @param previous data that is kept at the moment or null if there is none.
+   * @return the downloaded data, which can be the previous data if it has not changed.
+   */
+  abstract T load(T previous);
+}
@@ -47,7 +47,7 @@ public final class PermissionStringDto {
    */
   public static Set<PermissionStringDto> from(Collection<String> permissionStrings) {
     return permissionStrings
-        .parallelStream()
+        .stream()
         .map(PermissionStringDto::from)
         .collect(Collectors.toSet());
   }
@@ -15,33 +15,66 @@
 
 package org.openlmis.requisition.service.referencedata;
 
-import com.google.common.collect.Maps;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.function.Supplier;
 import org.openlmis.requisition.service.ServiceResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
+/**
+ * Keeps permission strings of recently active users. Users that have not been active for the
+ * configured time, or the least recently active ones once there are too many, are evicted and
+ * their permission strings are downloaded again on next use.
+ */
 @Component
 public class PermissionStrings {
-  private final Map<UUID, Handler> handlers = Maps.newConcurrentMap();
+  private final Cache<UUID, Handler> handlers;
+
+  private final UserReferenceDataService userReferenceDataService;
 
+  /**
+   * Creates a new instance with the given limits of the user cache.
+   */
   @Autowired
-  private UserReferenceDataService userReferenceDataService;
+  public PermissionStrings(UserReferenceDataService userReferenceDataService,
+      @Value("${permissionStrings.cache.maxSize}") long maxSize,
+      @Value("${permissionStrings.cache.timeToIdle}") long timeToIdle) {
+    this.userReferenceDataService = userReferenceDataService;
+    this.handlers = CacheBuilder
+        .newBuilder()
+        .maximumSize(maxSize)
+        .expireAfterAccess(timeToIdle, TimeUnit.SECONDS)
+        .build();
+  }
 
+  /**
+   * Returns the handler of permission strings of the given user, creating it if necessary.
+   */
   public Handler forUser(UUID user) {
-    return handlers.computeIfAbsent(user, Handler::new);
+    try {
+      return handlers.get(user, () -> new Handler(user));
+    } catch (ExecutionException ex) {
+      // creating a handler does not throw checked exceptions
+      throw new IllegalStateException(ex);
+    }
+  }
+
+  long size() {
+    return handlers.size();
   }
 
-  public class Handler implements Supplier<Set<PermissionStringDto>> {
+  public class Handler implements Supplier<CompactPermissionStrings> {
     private final Object lock = new Object();
 
     private UUID userId;
 
-    private Set<PermissionStringDto> permissionStrings;
+    private CompactPermissionStrings permissionStrings = CompactPermissionStrings.empty();
     private String etag;
 
     Handler(UUID userId) {
@@ -49,7 +82,7 @@ public class PermissionStrings {
     }
 
     @Override
-    public Set<PermissionStringDto> get() {
+    public CompactPermissionStrings get() {
       updatePermissionStrings();
       return permissionStrings;
     }
@@ -60,7 +93,7 @@ public class PermissionStrings {
             .getPermissionStrings(userId, etag);
 
         if (response.isModified()) {
-          permissionStrings = PermissionStringDto.from(response.getBody());
+          permissionStrings = CompactPermissionStrings.from(response.getBody());
           etag = response.getETag();
         }
       }
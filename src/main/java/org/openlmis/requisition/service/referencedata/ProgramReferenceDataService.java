@@ -41,6 +41,11 @@ public class ProgramReferenceDataService extends BaseReferenceDataService<Progra
     return ProgramDto[].class;
   }
 
+  @Override
+  protected String getCacheName() {
+    return "programs";
+  }
+
   /**
    * This method retrieves Programs with programName similar with name parameter.
    *
@@ -0,0 +1,318 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import lombok.AllArgsConstructor;
+import org.openlmis.requisition.domain.requisition.Versionable;
+import org.openlmis.requisition.dto.VersionIdentityDto;
+import org.openlmis.requisition.exception.ServerException;
+import org.openlmis.requisition.i18n.MessageKeys;
+import org.openlmis.requisition.service.ServiceResponse;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.core.env.Environment;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps reference data resources that were recently fetched, so that they do not have to be
+ * requested from the Reference Data service on every use.
+ *
+ * <p>Resources fetched by id are kept in a {@link Region} with a time to live set by the
+ * {@code referencedata.cache.<region>.timeToLive} property (in seconds, 0 turns the region off).
+ * Once the time to live passes, an entry is revalidated with its eTag and kept if the resource
+ * has not changed. Every such region holds at most {@code referencedata.cache.maxSize} entries.
+ *
+ * <p>Resources fetched by id and version number never change, so they are kept in a
+ * {@link VersionedRegion} until they are evicted. Its size is set by the
+ * {@code referencedata.cache.<region>.maxSize} property (0 turns the region off).
+ *
+ * <p>All regions evict the least recently used entries first.
+ */
+@Component
+public class ReferenceDataCache {
+  static final String GETS_METRIC = "referencedata.cache.gets";
+  static final String EVICTIONS_METRIC = "referencedata.cache.evictions";
+  static final String SIZE_METRIC = "referencedata.cache.size";
+
+  private static final String PROPERTY_PREFIX = "referencedata.cache.";
+
+  private final Map<String, BaseRegion<?, ?>> regions = new ConcurrentHashMap<>();
+
+  private final Environment environment;
+  private final MeterRegistry meterRegistry;
+  private final ObjectMapper objectMapper;
+  private final Clock clock;
+  private final long maxSize;
+
+  /**
+   * Creates a new instance of the cache with regions configured by the given environment.
+   */
+  @Autowired
+  public ReferenceDataCache(Environment environment, MeterRegistry meterRegistry,
+      ObjectMapper objectMapper, Clock clock) {
+    this.environment = environment;
+    this.meterRegistry = meterRegistry;
+    this.objectMapper = objectMapper;
+    this.clock = clock;
+    this.maxSize = environment.getProperty(PROPERTY_PREFIX + "maxSize", Long.class, 10_000L);
+  }
+
+  /**
+   * Returns the region with the given name, creating it on first use.
+   */
+  public Region getRegion(String name) {
+    return (Region) regions.computeIfAbsent(name, Region::new);
+  }
+
+  /**
+   * Returns the versioned region with the given name, creating it on first use.
+   */
+  public VersionedRegion getVersionedRegion(String name) {
+    return (VersionedRegion) regions.computeIfAbsent(name, VersionedRegion::new);
+  }
+
+  public Set<String> getRegionNames() {
+    return regions.keySet();
+  }
+
+  /**
+   * Removes all entries from every region.
+   */
+  public void flush() {
+    regions.values().forEach(BaseRegion::flush);
+  }
+
+  /**
+   * Removes all entries from the region with the given name.
+   *
+   * @return false if there is no such region
+   */
+  public boolean flush(String name) {
+    BaseRegion<?, ?> region = regions.get(name);
+
+    if (null == region) {
+      return false;
+    }
+
+    region.flush();
+    return true;
+  }
+
+  private long getProperty(String name, String property, long defaultValue) {
+    return environment.getProperty(PROPERTY_PREFIX + name + '.' + property, Long.class,
+        defaultValue);
+  }
+
+  abstract class BaseRegion<K, V> {
+    final Cache<K, V> entries;
+
+    final Counter hits;
+    final Counter misses;
+    private final Counter evictions;
+
+    BaseRegion(String name, long maximumSize) {
+      this.entries = CacheBuilder
+          .newBuilder()
+          .maximumSize(maximumSize)
+          .removalListener(this::onRemoval)
+          .build();
+
+      this.hits = gets(name, "hit");
+      this.misses = gets(name, "miss");
+      this.evictions = Counter
+          .builder(EVICTIONS_METRIC)
+          .tag("cache", name)
+          .register(meterRegistry);
+
+      Gauge
+          .builder(SIZE_METRIC, entries, Cache::size)
+          .tag("cache", name)
+          .register(meterRegistry);
+    }
+
+    public abstract boolean isEnabled();
+
+    void flush() {
+      entries.invalidateAll();
+    }
+
+    final Counter gets(String name, String result) {
+      return Counter
+          .builder(GETS_METRIC)
+          .tag("cache", name)
+          .tag("result", result)
+          .register(meterRegistry);
+    }
+
+    private void onRemoval(RemovalNotification<K, V> notification) {
+      if (notification.wasEvicted()) {
+        evictions.increment();
+      }
+    }
+  }
+
+  public final class Region extends BaseRegion<UUID, Entry> {
+    private final long timeToLive;
+    private final Counter revalidations;
+
+    private Region(String name) {
+      super(name, maxSize);
+      this.timeToLive = TimeUnit.SECONDS.toMillis(getProperty(name, "timeToLive", 0L));
+      this.revalidations = gets(name, "revalidated");
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return timeToLive > 0;
+    }
+
+    /**
+     * Returns the resource with the given id. A resource that is not in the region or has
+     * expired is fetched with the given function, which is passed the eTag of the expired
+     * entry, if any.
+     *
+     * @param id    id of the resource
+     * @param type  type to read the resource as
+     * @param fetch function returning the resource as JSON for the given eTag
+     * @return the resource, or null if it does not exist
+     */
+    public <P> P get(UUID id, Class<P> type, Function<String, ServiceResponse<String>> fetch) {
+      return read(getBody(id, fetch), type);
+    }
+
+    private String getBody(UUID id, Function<String, ServiceResponse<String>> fetch) {
+      long now = clock.millis();
+      Entry entry = entries.getIfPresent(id);
+
+      if (null != entry && now - entry.fetchedAt < timeToLive) {
+        hits.increment();
+        return entry.body;
+      }
+
+      ServiceResponse<String> response = fetch.apply(null == entry ? null : entry.etag);
+
+      if (null != entry && !response.isModified()) {
+        revalidations.increment();
+        entries.put(id, new Entry(entry.body, entry.etag, now));
+        return entry.body;
+      }
+
+      misses.increment();
+
+      if (null == response.getBody()) {
+        entries.invalidate(id);
+        return null;
+      }
+
+      entries.put(id, new Entry(response.getBody(), response.getETag(), now));
+      return response.getBody();
+    }
+
+    // each caller gets its own copy, as the returned objects are often modified
+    private <P> P read(String body, Class<P> type) {
+      if (null == body) {
+        return null;
+      }
+
+      try {
+        return objectMapper.readValue(body, type);
+      } catch (IOException ex) {
+        throw new ServerException(ex, MessageKeys.ERROR_IO, ex.getMessage());
+      }
+    }
+  }
+
+  public final class VersionedRegion extends BaseRegion<VersionIdentityDto, Versionable> {
+    private final boolean enabled;
+
+    private VersionedRegion(String name) {
+      this(name, getProperty(name, "maxSize", 0L));
+    }
+
+    private VersionedRegion(String name, long maximumSize) {
+      super(name, maximumSize);
+      this.enabled = maximumSize > 0;
+    }
+
+    @Override
+    public boolean isEnabled() {
+      return enabled;
+    }
+
+    /**
+     * Returns the resources with the given identities. Only the resources that are not in the
+     * region are fetched with the given function. Hits and misses are counted per identity.
+     *
+     * @param identities identities of the resources
+     * @param fetch      function returning the resources with the given identities
+     * @return the resources that exist
+     */
+    @SuppressWarnings("unchecked")
+    public <V extends Versionable> List<V> getAll(Collection<VersionIdentityDto> identities,
+        Function<List<VersionIdentityDto>, List<V>> fetch) {
+      Map<VersionIdentityDto, Versionable> present = entries.getAllPresent(identities);
+      List<V> resources = new ArrayList<>(identities.size());
+      List<VersionIdentityDto> missing = new ArrayList<>();
+
+      for (VersionIdentityDto identity : identities) {
+        Versionable resource = present.get(identity);
+
+        if (null == resource) {
+          missing.add(identity);
+        } else {
+          resources.add((V) resource);
+        }
+      }
+
+      hits.increment(resources.size());
+      misses.increment(missing.size());
+
+      if (!missing.isEmpty()) {
+        for (V resource : fetch.apply(missing)) {
+          entries.put(new VersionIdentityDto(resource.getId(), resource.getVersionNumber()),
+              resource);
+          resources.add(resource);
+        }
+      }
+
+      return resources;
+    }
+  }
+
+  @AllArgsConstructor
+  private static final class Entry {
+    private final String body;
+    private final String etag;
+    private final long fetchedAt;
+  }
+}
@@ -19,6 +19,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.dto.SupervisoryNodeDto;
 import org.openlmis.requisition.service.RequestParameters;
 import org.springframework.stereotype.Service;
@@ -43,6 +44,11 @@ public class SupervisoryNodeReferenceDataService
     return SupervisoryNodeDto[].class;
   }
 
+  @Override
+  protected String getCacheName() {
+    return "supervisoryNodes";
+  }
+
   /**
    * Find a correct supervisory node by the provided facility and program.
    */
@@ -66,4 +72,11 @@ public class SupervisoryNodeReferenceDataService
     }
     return getPage(RequestParameters.init().set("id", ids)).getContent();
   }
+
+  /**
+   * Asynchronous variant of {@link #findByIds(Collection)}.
+   */
+  public CompletableFuture<List<SupervisoryNodeDto>> findByIdsAsync(Collection<UUID> ids) {
+    return supplyAsync(() -> findByIds(ids));
+  }
 }
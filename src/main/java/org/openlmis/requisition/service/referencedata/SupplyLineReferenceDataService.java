@@ -18,6 +18,7 @@ package org.openlmis.requisition.service.referencedata;
 import java.util.List;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.dto.SupplyLineDto;
 import org.openlmis.requisition.service.RequestParameters;
 import org.springframework.stereotype.Service;
@@ -75,4 +76,12 @@ public class SupplyLineReferenceDataService extends BaseReferenceDataService<Sup
   private List<SupplyLineDto> search(RequestParameters parameters) {
     return getPage(parameters).getContent();
   }
+
+  /**
+   * Asynchronous variant of {@link #search(UUID, UUID)}.
+   */
+  public CompletableFuture<List<SupplyLineDto>> searchAsync(UUID programId,
+      UUID supervisoryNodeId) {
+    return supplyAsync(() -> search(programId, supervisoryNodeId));
+  }
 }
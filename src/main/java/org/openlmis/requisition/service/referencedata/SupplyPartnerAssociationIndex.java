@@ -0,0 +1,152 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static org.springframework.util.CollectionUtils.isEmpty;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import org.openlmis.requisition.dto.SupplyPartnerAssociationDto;
+import org.openlmis.requisition.dto.SupplyPartnerDto;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps all supply partner associations indexed by program and supervisory node, so that the
+ * associations for a requisition can be found without requesting supply partners from the
+ * Reference Data service. The associations are downloaded again based on the
+ * {@code referencedata.cache.supplyPartners.refresh.cron.expression} property.
+ *
+ * <p>The returned associations are shared between callers and must not be modified.
+ */
+@Component
+public class SupplyPartnerAssociationIndex
+    extends PeriodicallyRefreshedData<SupplyPartnerAssociationIndex.Associations> {
+
+  private final SupplyPartnerReferenceDataService supplyPartnerReferenceDataService;
+
+  @Autowired
+  public SupplyPartnerAssociationIndex(
+      SupplyPartnerReferenceDataService supplyPartnerReferenceDataService) {
+    this.supplyPartnerReferenceDataService = supplyPartnerReferenceDataService;
+  }
+
+  /**
+   * Finds the associations that handle the given facility and at least one of the given
+   * orderables for the given program and one of the given supervisory nodes. Only the first
+   * matching association of each supply partner is returned, in the order the supply partners
+   * were received. If no supervisory nodes are given, associations for any node are returned.
+   *
+   * @param programId          UUID of program.
+   * @param supervisoryNodeIds UUIDs of supervisory nodes.
+   * @param facilityId         UUID of facility.
+   * @param orderableIds       UUIDs of orderables.
+   * @return the matching associations.
+   */
+  public List<SupplyPartnerAssociationDto> find(UUID programId, Set<UUID> supervisoryNodeIds,
+      UUID facilityId, Set<UUID> orderableIds) {
+    Map<UUID, List<Entry>> byNode = get().byProgram
+        .getOrDefault(programId, Collections.emptyMap());
+    List<Entry> candidates = new ArrayList<>();
+
+    if (isEmpty(supervisoryNodeIds)) {
+      byNode.values().forEach(candidates::addAll);
+    } else {
+      for (UUID supervisoryNodeId : supervisoryNodeIds) {
+        candidates.addAll(byNode.getOrDefault(supervisoryNodeId, Collections.emptyList()));
+      }
+    }
+
+    candidates.sort(Comparator
+        .comparingInt((Entry entry) -> entry.partner)
+        .thenComparingInt(entry -> entry.position));
+
+    List<SupplyPartnerAssociationDto> associations = new ArrayList<>();
+    Set<Integer> matchedPartners = new HashSet<>();
+
+    for (Entry entry : candidates) {
+      if (entry.facilityIds.contains(facilityId)
+          && containsAtLeastOne(orderableIds, entry.orderableIds)
+          && matchedPartners.add(entry.partner)) {
+        associations.add(entry.association);
+      }
+    }
+
+    return associations;
+  }
+
+  @Scheduled(cron = "${referencedata.cache.supplyPartners.refresh.cron.expression}")
+  public void refreshAssociations() {
+    refresh();
+  }
+
+  @Override
+  Associations load(Associations previous) {
+    List<SupplyPartnerDto> partners = supplyPartnerReferenceDataService.findAll();
+    Map<UUID, Map<UUID, List<Entry>>> byProgram = new HashMap<>();
+
+    for (int partner = 0; partner < partners.size(); ++partner) {
+      List<SupplyPartnerAssociationDto> associations = partners.get(partner).getAssociations();
+
+      if (null == associations) {
+        continue;
+      }
+
+      for (int position = 0; position < associations.size(); ++position) {
+        SupplyPartnerAssociationDto association = associations.get(position);
+
+        byProgram
+            .computeIfAbsent(association.getProgramId(), key -> new HashMap<>())
+            .computeIfAbsent(association.getSupervisoryNodeId(), key -> new ArrayList<>())
+            .add(new Entry(partner, position, association.getFacilityIds(),
+                association.getOrderableIds(), association));
+      }
+    }
+
+    return new Associations(byProgram);
+  }
+
+  // disjoint returns true if collections have no elements in common but we want
+  // set that have at least one element from the values set
+  // that is why we negate the result of the method.
+  private boolean containsAtLeastOne(Set<UUID> set, Collection<UUID> values) {
+    return isEmpty(set) || !Collections.disjoint(set, values);
+  }
+
+  @AllArgsConstructor
+  static final class Associations {
+    private final Map<UUID, Map<UUID, List<Entry>>> byProgram;
+  }
+
+  @AllArgsConstructor
+  private static final class Entry {
+    private final int partner;
+    private final int position;
+    private final Set<UUID> facilityIds;
+    private final Set<UUID> orderableIds;
+    private final SupplyPartnerAssociationDto association;
+  }
+}
@@ -40,6 +40,11 @@ public class SupplyPartnerReferenceDataService extends BaseReferenceDataService<
     return SupplyPartnerDto[].class;
   }
 
+  @Override
+  public List<SupplyPartnerDto> findAll() {
+    return getPage(RequestParameters.init()).getContent();
+  }
+
   /**
    * This method retrieves supply partners for given supervisory node id.
    *
@@ -15,7 +15,9 @@
 
 package org.openlmis.requisition.service.referencedata;
 
+import java.util.List;
 import org.openlmis.requisition.dto.TogglzFeatureDto;
+import org.openlmis.requisition.service.ServiceResponse;
 import org.springframework.stereotype.Service;
 
 @Service
@@ -36,4 +38,14 @@ public class TogglzReferenceDataService extends BaseReferenceDataService<TogglzF
     return TogglzFeatureDto[].class;
   }
 
+  /**
+   * Get all features if they have changed since the given eTag was sent.
+   *
+   * @param etag eTag of the features that were received before or null.
+   * @return a response with the features, which has no body if they have not changed.
+   */
+  public ServiceResponse<List<TogglzFeatureDto>> getFeatures(String etag) {
+    return tryFindAll("", TogglzFeatureDto[].class, etag);
+  }
+
 }
@@ -17,6 +17,7 @@ package org.openlmis.requisition.service.referencedata;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.dto.ResultDto;
 import org.openlmis.requisition.dto.UserDto;
 import org.openlmis.requisition.service.RequestParameters;
@@ -95,4 +96,11 @@ public class UserReferenceDataService extends BaseReferenceDataService<UserDto>
   public ServiceResponse<List<String>> getPermissionStrings(UUID user, String etag) {
     return tryFindAll(user + "/permissionStrings", String[].class, etag);
   }
+
+  /**
+   * Asynchronous variant of {@link #getPermissionStrings(UUID)}.
+   */
+  public CompletableFuture<List<String>> getPermissionStringsAsync(UUID user) {
+    return supplyAsync(() -> getPermissionStrings(user));
+  }
 }
@@ -17,6 +17,7 @@ package org.openlmis.requisition.service.stockmanagement;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.dto.stockmanagement.StockCardDto;
 import org.openlmis.requisition.service.RequestParameters;
 import org.springframework.stereotype.Service;
@@ -40,6 +41,13 @@ public class StockCardStockManagementService extends BaseStockManagementService<
     return getPage(params).getContent();
   }
 
+  /**
+   * Asynchronous variant of {@link #getStockCards(UUID, UUID)}.
+   */
+  public CompletableFuture<List<StockCardDto>> getStockCardsAsync(UUID facility, UUID program) {
+    return supplyAsync(() -> getStockCards(facility, program));
+  }
+
   @Override
   protected String getUrl() {
     return "/api/stockCardSummaries";
@@ -17,6 +17,7 @@ package org.openlmis.requisition.service.stockmanagement;
 
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import org.openlmis.requisition.dto.ValidReasonDto;
 import org.openlmis.requisition.service.RequestParameters;
 import org.springframework.stereotype.Service;
@@ -36,6 +37,13 @@ public class ValidReasonStockmanagementService extends BaseStockManagementServic
     return findAll("", parameters);
   }
 
+  /**
+   * Asynchronous variant of {@link #search(UUID, UUID)}.
+   */
+  public CompletableFuture<List<ValidReasonDto>> searchAsync(UUID program, UUID facilityType) {
+    return supplyAsync(() -> search(program, facilityType));
+  }
+
   @Override
   protected String getUrl() {
     return "/api/validReasons";
@@ -0,0 +1,90 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.utils;
+
+import java.util.List;
+import java.util.Objects;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+
+/**
+ * Page returned for a {@link CursorPageRequest}. Tells if there is a next page by the cursor
+ * pointing to it, as the page number and total number of elements are not enough for that. If
+ * the elements were not counted, the total number of elements only includes the elements of
+ * this page, plus one if there is a next page.
+ */
+public final class CursorPage<T> extends PageImpl<T> {
+  private static final long serialVersionUID = 5413707238423186390L;
+
+  private final String nextCursor;
+
+  /**
+   * Creates a new page.
+   *
+   * @param content    elements of the page.
+   * @param pageable   pageable used to find the elements.
+   * @param total      number of all matching elements.
+   * @param nextCursor cursor pointing to the next page or null if this is the last page.
+   */
+  public CursorPage(List<T> content, CursorPageRequest pageable, long total, String nextCursor) {
+    super(content, pageable, total);
+    this.nextCursor = nextCursor;
+  }
+
+  public String getNextCursor() {
+    return nextCursor;
+  }
+
+  /**
+   * Returns a page with the given content, pointing to the same next page as this one.
+   */
+  public <U> CursorPage<U> withContent(List<U> content) {
+    return new CursorPage<>(content, (CursorPageRequest) getPageable(), getTotalElements(),
+        nextCursor);
+  }
+
+  @Override
+  public boolean hasNext() {
+    return null != nextCursor;
+  }
+
+  @Override
+  public boolean isLast() {
+    return !hasNext();
+  }
+
+  /**
+   * Returns the pageable continuing after the cursor of this page.
+   */
+  @Override
+  public Pageable nextPageable() {
+    return hasNext()
+        ? ((CursorPageRequest) getPageable()).after(nextCursor)
+        : Pageable.unpaged();
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    return obj instanceof CursorPage
+        && super.equals(obj)
+        && Objects.equals(nextCursor, ((CursorPage<?>) obj).nextCursor);
+  }
+
+  @Override
+  public int hashCode() {
+    return 31 * super.hashCode() + Objects.hashCode(nextCursor);
+  }
+}
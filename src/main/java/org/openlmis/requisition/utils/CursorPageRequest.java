@@ -0,0 +1,171 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.utils;
+
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_SEARCH_INVALID_CURSOR;
+
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Base64;
+import java.util.UUID;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+import lombok.ToString;
+import org.apache.commons.lang3.StringUtils;
+import org.openlmis.requisition.exception.ValidationMessageException;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+/**
+ * Pageable that continues a search right after the last element of the previous page, instead
+ * of skipping a number of rows. Elements are ordered by creation date and id, so the position
+ * of the last element can be passed back by the client as an opaque cursor and looked up with
+ * an index, no matter how deep the page is. Counting all matching elements can be skipped.
+ *
+ * <p>Pages after the cursor can also be requested by number with {@link #next()}, for callers
+ * that walk through pages without reading the cursor. Such pages skip rows again, so the cursor
+ * of the returned page should be preferred where it is available.
+ */
+@Getter
+@ToString
+@EqualsAndHashCode
+public final class CursorPageRequest implements Pageable {
+  public static final String CREATED_DATE = "createdDate";
+  public static final String ID = "id";
+
+  private static final Sort SORT = Sort.by(Sort.Order.asc(CREATED_DATE), Sort.Order.asc(ID));
+  private static final char SEPARATOR = '/';
+
+  private final int pageNumber;
+  private final int pageSize;
+  private final Cursor cursor;
+  private final boolean counted;
+
+  private CursorPageRequest(int pageNumber, int pageSize, Cursor cursor, boolean counted) {
+    this.pageNumber = pageNumber;
+    this.pageSize = pageSize;
+    this.cursor = cursor;
+    this.counted = counted;
+  }
+
+  /**
+   * Creates a new pageable that continues after the given cursor. An empty cursor points to the
+   * first page.
+   *
+   * @param pageable page size is taken from it, page number and sort are ignored.
+   * @param cursor   cursor returned with the previous page.
+   * @param counted  whether all matching elements should be counted.
+   * @throws ValidationMessageException if the cursor is not valid.
+   */
+  public static CursorPageRequest of(Pageable pageable, String cursor, boolean counted) {
+    return new CursorPageRequest(0, Pagination.getPageSize(pageable), decode(cursor), counted);
+  }
+
+  /**
+   * Returns the pageable of the same size that continues after the given cursor.
+   *
+   * @throws ValidationMessageException if the cursor is not valid.
+   */
+  public CursorPageRequest after(String cursor) {
+    return new CursorPageRequest(0, pageSize, decode(cursor), counted);
+  }
+
+  /**
+   * Returns the number of the page counted from the cursor.
+   */
+  @Override
+  public int getPageNumber() {
+    return pageNumber;
+  }
+
+  /**
+   * Returns the number of elements skipped after the cursor.
+   */
+  @Override
+  public long getOffset() {
+    return (long) pageNumber * pageSize;
+  }
+
+  @Override
+  public Sort getSort() {
+    return SORT;
+  }
+
+  @Override
+  public Pageable next() {
+    return new CursorPageRequest(pageNumber + 1, pageSize, cursor, counted);
+  }
+
+  @Override
+  public Pageable previousOrFirst() {
+    return pageNumber > 0
+        ? new CursorPageRequest(pageNumber - 1, pageSize, cursor, counted)
+        : first();
+  }
+
+  @Override
+  public Pageable first() {
+    return new CursorPageRequest(0, pageSize, null, counted);
+  }
+
+  @Override
+  public boolean hasPrevious() {
+    return pageNumber > 0 || null != cursor;
+  }
+
+  /**
+   * Returns the cursor pointing right after the given element.
+   */
+  public static String encode(ZonedDateTime createdDate, UUID id) {
+    String position = createdDate.toInstant().toString() + SEPARATOR + id;
+
+    return Base64
+        .getUrlEncoder()
+        .withoutPadding()
+        .encodeToString(position.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static Cursor decode(String value) {
+    if (StringUtils.isBlank(value)) {
+      return null;
+    }
+
+    try {
+      String position = new String(Base64.getUrlDecoder().decode(value), StandardCharsets.UTF_8);
+      int separator = position.indexOf(SEPARATOR);
+
+      Instant createdDate = Instant.parse(position.substring(0, separator));
+      UUID id = UUID.fromString(position.substring(separator + 1));
+
+      return new Cursor(ZonedDateTime.ofInstant(createdDate, ZoneOffset.UTC), id);
+    } catch (IllegalArgumentException | DateTimeException | IndexOutOfBoundsException ex) {
+      throw new ValidationMessageException(new Message(ERROR_SEARCH_INVALID_CURSOR, value), ex);
+    }
+  }
+
+  @Getter
+  @ToString
+  @EqualsAndHashCode
+  @AllArgsConstructor
+  public static final class Cursor {
+    private final ZonedDateTime createdDate;
+    private final UUID id;
+  }
+}
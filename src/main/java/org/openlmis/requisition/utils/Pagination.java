@@ -124,4 +124,17 @@ public final class Pagination {
     return new PageImpl<>(subList, pageable, fullListSize);
   }
 
+  /**
+   * Returns the Page with the given content and the same number of elements as the source page.
+   * Intended for use when the elements of the source page are converted to another type. A
+   * {@link CursorPage} keeps pointing to the same next page.
+   */
+  public static <T> Page<T> getPage(List<T> subList, Pageable pageable, Page<?> source) {
+    if (source instanceof CursorPage) {
+      return ((CursorPage<?>) source).withContent(subList);
+    }
+
+    return getPage(subList, pageable, source.getTotalElements());
+  }
+
 }
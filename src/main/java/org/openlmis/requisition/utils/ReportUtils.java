@@ -21,6 +21,7 @@ import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.AP
 import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.REMARKS_COLUMN;
 import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.SKIPPED_COLUMN;
 
+import java.nio.charset.StandardCharsets;
 import java.util.Comparator;
 import java.util.HashMap;
 import java.util.LinkedHashMap;
@@ -34,6 +35,7 @@ import net.sf.jasperreports.engine.design.JRDesignTextField;
 import org.openlmis.requisition.domain.RequisitionTemplateColumn;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
 import org.springframework.context.i18n.LocaleContextHolder;
+import org.springframework.http.MediaType;
 
 public final class ReportUtils {
   private ReportUtils() {
@@ -56,6 +58,23 @@ public final class ReportUtils {
     return params;
   }
 
+  /**
+   * Returns the media type of a report generated in the given format. Reports in unknown formats
+   * are generated as PDF files.
+   */
+  public static MediaType getMediaType(String format) {
+    if ("csv".equals(format)) {
+      return new MediaType("text", "csv", StandardCharsets.UTF_8);
+    }
+    if ("xls".equals(format)) {
+      return new MediaType("application", "vnd.ms-excel", StandardCharsets.UTF_8);
+    }
+    if ("html".equals(format)) {
+      return new MediaType("text", "html", StandardCharsets.UTF_8);
+    }
+    return new MediaType("application", "pdf", StandardCharsets.UTF_8);
+  }
+
   /**
    * Sorts the map of requisition template columns by their display order, without 'skipped' column.
    * It also filters out 'approvedQuantity' column if the requisition status is either
@@ -19,13 +19,16 @@ import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.TO
 
 import java.time.LocalDate;
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Collectors;
 import org.apache.commons.lang3.BooleanUtils;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
@@ -52,6 +55,7 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 @Component
+@SuppressWarnings("PMD.TooManyMethods")
 public class StockEventBuilder {
 
   private static final XLogger XLOGGER = XLoggerFactory.getXLogger(StockEventBuilder.class);
@@ -85,12 +89,62 @@ public class StockEventBuilder {
     LOGGER.debug("Building stock events for requisition: {}", requisition.getId());
 
     profiler.start("GET_STOCK_CARDS");
-    List<StockCardDto> stockCards = stockCardService.getStockCards(requisition.getFacilityId(),
-        requisition.getProgramId()).stream().filter(stockCard -> stockCard.getLot() == null)
-        .collect(Collectors.toList());
+    Map<UUID, StockCardDto> stockCards = indexByOrderable(stockCardService.getStockCards(
+        requisition.getFacilityId(), requisition.getProgramId()));
 
     profiler.start("BUILD_STOCK_EVENT");
-    StockEventDto stockEventDto = StockEventDto
+    StockEventDto stockEventDto = buildStockEvent(requisition, currentUserId, orderables,
+        stockCards);
+
+    profiler.stop().log();
+    XLOGGER.exit(stockEventDto);
+    return stockEventDto;
+  }
+
+  /**
+   * Builds stock event DTOs from the given requisitions. Stock cards are retrieved once for each
+   * facility and program, and the requests for different facilities and programs are sent at
+   * the same time.
+   *
+   * @param requisitions  the requisitions to be used as a source for the stock events
+   * @return  the stock events in the order of the given requisitions
+   */
+  public List<StockEventDto> fromRequisitions(List<Requisition> requisitions,
+      UUID currentUserId, Map<VersionIdentityDto, OrderableDto> orderables) {
+    Profiler profiler = new Profiler("BUILD_STOCK_EVENTS_FROM_REQUISITIONS");
+    profiler.setLogger(XLOGGER);
+
+    LOGGER.debug("Building stock events for {} requisitions", requisitions.size());
+
+    profiler.start("GET_STOCK_CARDS");
+    Map<Pair<UUID, UUID>, CompletableFuture<List<StockCardDto>>> stockCardsFutures =
+        new LinkedHashMap<>();
+
+    for (Requisition requisition : requisitions) {
+      stockCardsFutures.computeIfAbsent(
+          Pair.of(requisition.getFacilityId(), requisition.getProgramId()),
+          key -> stockCardService.getStockCardsAsync(key.getLeft(), key.getRight()));
+    }
+
+    Map<Pair<UUID, UUID>, Map<UUID, StockCardDto>> stockCards = new HashMap<>();
+    stockCardsFutures.forEach((key, future) -> stockCards
+        .put(key, indexByOrderable(future.join())));
+
+    profiler.start("BUILD_STOCK_EVENTS");
+    List<StockEventDto> stockEvents = new ArrayList<>(requisitions.size());
+
+    for (Requisition requisition : requisitions) {
+      stockEvents.add(buildStockEvent(requisition, currentUserId, orderables, stockCards
+          .get(Pair.of(requisition.getFacilityId(), requisition.getProgramId()))));
+    }
+
+    profiler.stop().log();
+    return stockEvents;
+  }
+
+  private StockEventDto buildStockEvent(Requisition requisition, UUID currentUserId,
+      Map<VersionIdentityDto, OrderableDto> orderables, Map<UUID, StockCardDto> stockCards) {
+    return StockEventDto
         .builder()
         .facilityId(requisition.getFacilityId())
         .programId(requisition.getProgramId())
@@ -104,15 +158,25 @@ public class StockEventBuilder {
             orderables
         ))
         .build();
+  }
 
-    profiler.stop().log();
-    XLOGGER.exit(stockEventDto);
-    return stockEventDto;
+  // only stock cards without lots are used, the first one of each orderable is kept
+  private Map<UUID, StockCardDto> indexByOrderable(List<StockCardDto> stockCards) {
+    Map<UUID, StockCardDto> index = new HashMap<>();
+
+    for (StockCardDto stockCard : stockCards) {
+      if (stockCard.getLot() == null) {
+        index.putIfAbsent(stockCard.getOrderable().getId(), stockCard);
+      }
+    }
+
+    return index;
   }
 
   private List<StockEventLineItemDto> fromLineItems(List<RequisitionLineItem> lineItems,
-      List<StockAdjustmentReason> reasons, RequisitionTemplate template, LocalDate occurredDate,
-      List<StockCardDto> stockCards, Map<VersionIdentityDto, OrderableDto> orderables) {
+      List<StockAdjustmentReason> reasons, RequisitionTemplate template,
+      LocalDate occurredDate, Map<UUID, StockCardDto> stockCards,
+      Map<VersionIdentityDto, OrderableDto> orderables) {
 
     List<StockEventLineItemDto> list = new ArrayList<>();
 
@@ -133,7 +197,7 @@ public class StockEventBuilder {
                                              List<StockAdjustmentReason> reasons,
                                              RequisitionTemplate template,
                                              LocalDate occurredDate,
-                                             List<StockCardDto> stockCards) {
+                                             Map<UUID, StockCardDto> stockCards) {
     return StockEventLineItemDto.builder()
         .orderableId(lineItem.getOrderable().getId())
         .quantity(lineItem.getStockOnHand() != null ? lineItem.getStockOnHand() : 0)
@@ -144,23 +208,15 @@ public class StockEventBuilder {
 
   private List<StockEventAdjustmentDto> getStockAdjustments(RequisitionLineItem lineItem,
       List<StockAdjustmentReason> reasons, RequisitionTemplate template,
-      List<StockCardDto> stockCards) {
-
-    XLOGGER.entry(lineItem, reasons, template, stockCards);
-
-    Profiler profiler = new Profiler("GET_STOCK_ADJUSTMENTS");
-    profiler.setLogger(XLOGGER);
-
+      Map<UUID, StockCardDto> stockCards) {
     List<StockEventAdjustmentDto> stockAdjustments = new ArrayList<>();
 
-    profiler.start("TOTAL_LOSSES_AND_ADJUSTMENTS");
     if (template.isColumnInTemplateAndDisplayed(TOTAL_LOSSES_AND_ADJUSTMENTS)) {
       stockAdjustments = lineItem.getStockAdjustments().stream()
           .map(stockAdjustment -> fromStockAdjustment(stockAdjustment, reasons))
           .collect(Collectors.toList());
     }
 
-    profiler.start("TOTAL_CONSUMED_QUANTITY");
     if (shouldIncludeConsumed(reasons, template)) {
       stockAdjustments.add(StockEventAdjustmentDto.builder()
           .quantity(lineItem.getTotalConsumedQuantity())
@@ -169,7 +225,6 @@ public class StockEventBuilder {
       );
     }
 
-    profiler.start("TOTAL_RECEIVED_QUANTITY");
     if (shouldIncludeReceipts(reasons, template)) {
       stockAdjustments.add(StockEventAdjustmentDto.builder()
           .quantity(lineItem.getTotalReceivedQuantity())
@@ -178,13 +233,7 @@ public class StockEventBuilder {
       );
     }
 
-    profiler.start("GET_STOCK_CARD_FROM_LINE_ITEM");
-    StockCardDto stockCard = stockCards
-        .stream()
-        .filter(card -> Objects.equals(
-            card.getOrderable().getId(), lineItem.getOrderable().getId()))
-        .findFirst()
-        .orElse(null);
+    StockCardDto stockCard = stockCards.get(lineItem.getOrderable().getId());
 
     if (stockCard == null) {
       LOGGER.warn("No stock card found for Orderable: {}", lineItem.getOrderable().getId());
@@ -196,7 +245,6 @@ public class StockEventBuilder {
     int beginningBalance =
         lineItem.getBeginningBalance() == null ? 0 : lineItem.getBeginningBalance();
 
-    profiler.start("INCLUDE_BEGINNING_BALANCE_EXCESS");
     if (shouldIncludeBeginningBalanceExcess(stockCard, beginningBalance, reasons)) {
       stockAdjustments.add(StockEventAdjustmentDto.builder()
           .quantity(beginningBalance - stockCard.getStockOnHand())
@@ -204,7 +252,6 @@ public class StockEventBuilder {
           .build());
     }
 
-    profiler.start("INCLUDE_BEGINNING_BALANCE_INSUFFICIENCY");
     if (shouldIncludeBeginningBalanceInsufficiency(stockCard, beginningBalance, reasons)) {
       stockAdjustments.add(StockEventAdjustmentDto.builder()
           .quantity(stockCard.getStockOnHand() - beginningBalance)
@@ -212,8 +259,6 @@ public class StockEventBuilder {
           .build());
     }
 
-    profiler.stop().log();
-    XLOGGER.exit(stockAdjustments);
     return stockAdjustments;
   }
 
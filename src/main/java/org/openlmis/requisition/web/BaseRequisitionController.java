@@ -17,6 +17,7 @@ package org.openlmis.requisition.web;
 
 import static org.apache.commons.lang3.BooleanUtils.isNotTrue;
 import static org.apache.commons.lang3.BooleanUtils.isTrue;
+import static org.apache.commons.lang3.StringUtils.isBlank;
 import static org.apache.commons.lang3.StringUtils.isNotEmpty;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_FACILITY_NOT_FOUND;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_ID_MISMATCH;
@@ -28,6 +29,7 @@ import static org.openlmis.requisition.i18n.MessageKeys.IDEMPOTENCY_KEY_WRONG_FO
 import static org.springframework.util.CollectionUtils.isEmpty;
 
 import com.google.common.collect.ImmutableList;
+import io.micrometer.core.instrument.MeterRegistry;
 import java.time.LocalDate;
 import java.time.format.DateTimeFormatter;
 import java.util.Collection;
@@ -38,6 +40,8 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
 import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
@@ -109,12 +113,14 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 
 @SuppressWarnings("PMD.TooManyMethods")
 public abstract class BaseRequisitionController extends BaseController {
 
   static final String RESOURCE_URL = "/requisitions";
   static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+  static final String CONDITIONAL_GETS_METRIC = "requisition.conditional.gets";
 
   private final XLogger extLogger = XLoggerFactory.getXLogger(getClass());
   final Logger logger = LoggerFactory.getLogger(getClass());
@@ -153,10 +159,10 @@ public abstract class BaseRequisitionController extends BaseController {
   private RequisitionStatusProcessor requisitionStatusProcessor;
 
   @Autowired
-  private StockEventStockManagementService stockEventStockManagementService;
+  StockEventStockManagementService stockEventStockManagementService;
 
   @Autowired
-  private StockEventBuilder stockEventBuilder;
+  StockEventBuilder stockEventBuilder;
 
   @Autowired
   DatePhysicalStockCountCompletedEnabledPredicate datePhysicalStockCountCompletedEnabledPredicate;
@@ -201,6 +207,9 @@ public abstract class BaseRequisitionController extends BaseController {
   @Autowired
   private ReasonsValidator reasonsValidator;
 
+  @Autowired
+  private MeterRegistry meterRegistry;
+
   InitiateResult doInitiate(UUID programId, UUID facilityId, UUID suggestedPeriod,
       boolean emergency, HttpServletRequest request, Profiler profiler) {
     if (null == facilityId || null == programId) {
@@ -212,7 +221,19 @@ public abstract class BaseRequisitionController extends BaseController {
 
     validateIdempotencyKey(request, profiler);
 
-    FacilityDto facility = findFacility(facilityId, profiler);
+    profiler.start("REQUEST_REFERENCE_DATA");
+    final CompletableFuture<FacilityDto> facilityFuture = facilityReferenceDataService
+        .findOneAsync(facilityId);
+    final CompletableFuture<ProgramDto> programFuture = programReferenceDataService
+        .findOneAsync(programId);
+    final CompletableFuture<ApproveProductsAggregator> approvedProductsFuture =
+        approvedProductReferenceDataService.getApprovedProductsAsync(facilityId, programId);
+    final CompletableFuture<List<StockAdjustmentReason>> stockAdjustmentReasonsFuture =
+        facilityFuture.thenCompose(facility -> null == facility
+            ? CompletableFuture.completedFuture(Collections.emptyList())
+            : getStockAdjustmentReasons(programId, facility));
+
+    FacilityDto facility = findFacility(facilityId, facilityFuture, profiler);
 
     profiler.start("CHECK_FACILITY_SUPPORTS_PROGRAM");
     facilitySupportsProgramHelper.checkIfFacilitySupportsProgram(facility, programId);
@@ -224,10 +245,9 @@ public abstract class BaseRequisitionController extends BaseController {
     boolean reportOnly = period.isReportOnly();
 
     profiler.start("GET_STOCK_ADJ_REASONS");
-    List<StockAdjustmentReason> stockAdjustmentReasons =
-        getStockAdjustmentReasons(programId, facility);
+    List<StockAdjustmentReason> stockAdjustmentReasons = join(stockAdjustmentReasonsFuture);
 
-    ProgramDto program = findProgram(programId, profiler);
+    ProgramDto program = findProgram(programId, programFuture, profiler);
 
     profiler.start("FIND_REQUISITION_TEMPLATE");
     RequisitionTemplate requisitionTemplate = requisitionTemplateService.findTemplate(
@@ -235,8 +255,7 @@ public abstract class BaseRequisitionController extends BaseController {
     );
 
     profiler.start("FIND_APPROVED_PRODUCTS");
-    ApproveProductsAggregator approvedProducts = approvedProductReferenceDataService
-        .getApprovedProducts(facility.getId(), program.getId());
+    ApproveProductsAggregator approvedProducts = join(approvedProductsFuture);
 
     profiler.start("INITIATE_REQUISITION");
     Requisition newRequisition = requisitionService.initiate(
@@ -426,7 +445,7 @@ public abstract class BaseRequisitionController extends BaseController {
   void submitStockEvent(Requisition requisition, UUID currentUserId,
       Map<VersionIdentityDto, OrderableDto> orderables) {
     Profiler profiler = getProfiler("SUBMIT_STOCK_EVENT", requisition, currentUserId);
-    if (requisition.getStatus().isApproved() && isNotTrue(requisition.getEmergency())) {
+    if (shouldSubmitStockEvent(requisition)) {
       profiler.start("BUILD_STOCK_EVENT_FROM_REQUISITION");
       StockEventDto stockEventDto = stockEventBuilder
           .fromRequisition(requisition, currentUserId, orderables);
@@ -437,6 +456,10 @@ public abstract class BaseRequisitionController extends BaseController {
     }
   }
 
+  boolean shouldSubmitStockEvent(Requisition requisition) {
+    return requisition.getStatus().isApproved() && isNotTrue(requisition.getEmergency());
+  }
+
   Set<VersionEntityReference> getLineItemOrderableIdentities(Requisition requisition) {
     return requisition
         .getRequisitionLineItems()
@@ -523,6 +546,43 @@ public abstract class BaseRequisitionController extends BaseController {
     extLogger.exit(exitArgs);
   }
 
+  /**
+   * Checks the If-None-Match header of a request for the given requisition against its current
+   * version, reading only the fields needed to check that the user can view it. If the
+   * requisition has not changed, the response is set to 304 and true is returned, so the caller
+   * does not need to load and build the whole requisition.
+   */
+  boolean isNotModified(UUID requisitionId, HttpServletRequest request,
+      HttpServletResponse response, Profiler profiler) {
+    String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+
+    if (isBlank(ifNoneMatch)) {
+      return false;
+    }
+
+    profiler.start("GET_REQUISITION_VERSION");
+    Requisition requisition = requisitionRepository.findVersionById(requisitionId).orElse(null);
+
+    if (null == requisition) {
+      stopProfiler(profiler);
+      throw new ContentNotFoundMessageException(ERROR_REQUISITION_NOT_FOUND, requisitionId);
+    }
+
+    checkPermission(profiler, () -> permissionService.canViewRequisition(requisition));
+
+    boolean notModified = ETagResource.matches(ifNoneMatch, requisition.getVersion());
+    meterRegistry
+        .counter(CONDITIONAL_GETS_METRIC, "result", notModified ? "notModified" : "modified")
+        .increment();
+
+    if (notModified) {
+      response.setStatus(HttpStatus.NOT_MODIFIED.value());
+      response.setHeader(HttpHeaders.ETAG, ETagResource.buildWeakETag(requisition.getVersion()));
+    }
+
+    return notModified;
+  }
+
   Requisition findRequisition(UUID requisitionId, Profiler profiler) {
     profiler.start("GET_REQUISITION_BY_ID");
     Requisition requisition = requisitionRepository.findById(requisitionId).orElse(null);
@@ -544,6 +604,12 @@ public abstract class BaseRequisitionController extends BaseController {
     );
   }
 
+  FacilityDto findFacility(UUID facilityId, CompletableFuture<FacilityDto> facility,
+      Profiler profiler) {
+    profiler.start("GET_FACILITY");
+    return findResource(profiler, facilityId, id -> join(facility), ERROR_FACILITY_NOT_FOUND);
+  }
+
   ProgramDto findProgram(UUID programId, Profiler profiler) {
     profiler.start("GET_PROGRAM");
     return findResource(
@@ -551,6 +617,12 @@ public abstract class BaseRequisitionController extends BaseController {
     );
   }
 
+  ProgramDto findProgram(UUID programId, CompletableFuture<ProgramDto> program,
+      Profiler profiler) {
+    profiler.start("GET_PROGRAM");
+    return findResource(profiler, programId, id -> join(program), ERROR_PROGRAM_NOT_FOUND);
+  }
+
   private <R> R findResource(Profiler profiler, UUID id, Function<UUID, R> finder,
       String errorMessage) {
     return Optional
@@ -570,6 +642,15 @@ public abstract class BaseRequisitionController extends BaseController {
         .collect(Collectors.toMap(OrderableDto::getIdentity, Function.identity()));
   }
 
+  CompletableFuture<Map<VersionIdentityDto, OrderableDto>> findOrderablesAsync(
+      Set<VersionEntityReference> identities) {
+    return orderableReferenceDataService
+        .findByIdentitiesAsync(identities)
+        .thenApply(orderables -> orderables
+            .stream()
+            .collect(Collectors.toMap(OrderableDto::getIdentity, Function.identity())));
+  }
+
   Map<VersionIdentityDto, ApprovedProductDto> findApprovedProducts(
       Supplier<Set<VersionEntityReference>> supplier, Profiler profiler) {
 
@@ -580,6 +661,30 @@ public abstract class BaseRequisitionController extends BaseController {
         .collect(Collectors.toMap(ApprovedProductDto::getIdentity, Function.identity()));
   }
 
+  CompletableFuture<Map<VersionIdentityDto, ApprovedProductDto>> findApprovedProductsAsync(
+      Set<VersionEntityReference> identities) {
+    return facilityTypeApprovedProductReferenceDataService
+        .findByIdentitiesAsync(identities)
+        .thenApply(approvedProducts -> approvedProducts
+            .stream()
+            .collect(Collectors.toMap(ApprovedProductDto::getIdentity, Function.identity())));
+  }
+
+  /**
+   * Waits for the result of an asynchronous request. If the request failed, the original
+   * exception is thrown so it is handled in the same way as a failure of a synchronous request.
+   */
+  <R> R join(CompletableFuture<R> future) {
+    try {
+      return future.join();
+    } catch (CompletionException ex) {
+      if (ex.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) ex.getCause();
+      }
+      throw ex;
+    }
+  }
+
   void checkPermission(Profiler profiler, Supplier<ValidationResult> supplier) {
     profiler.start("CHECK_PERMISSION");
     supplier.get().throwExceptionIfHasErrors();
@@ -648,16 +753,18 @@ public abstract class BaseRequisitionController extends BaseController {
     return null;
   }
 
-  List<StockAdjustmentReason> getStockAdjustmentReasons(UUID programId, FacilityDto facilityDto) {
-    List<ValidReasonDto> validReasons = validReasonStockmanagementService
-            .search(programId, facilityDto.getType().getId());
-
-    List<ReasonDto> reasonDtos = validReasons
-        .stream()
-        .map(ValidReasonDto::getReasonWithHidden)
-        .collect(Collectors.toList());
+  CompletableFuture<List<StockAdjustmentReason>> getStockAdjustmentReasons(UUID programId,
+      FacilityDto facilityDto) {
+    return validReasonStockmanagementService
+        .searchAsync(programId, facilityDto.getType().getId())
+        .thenApply(validReasons -> {
+          List<ReasonDto> reasonDtos = validReasons
+              .stream()
+              .map(ValidReasonDto::getReasonWithHidden)
+              .collect(Collectors.toList());
 
-    return StockAdjustmentReason.newInstance(reasonDtos);
+          return StockAdjustmentReason.newInstance(reasonDtos);
+        });
   }
 
   RequisitionDto buildDto(Profiler profiler, Requisition requisition,
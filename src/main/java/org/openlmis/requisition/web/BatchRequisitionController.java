@@ -20,6 +20,7 @@ import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static org.apache.commons.lang3.BooleanUtils.isFalse;
 import static org.openlmis.requisition.i18n.MessageKeys.ERROR_NO_FOLLOWING_PERMISSION;
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
 
 import com.google.common.collect.Lists;
 import java.lang.reflect.InvocationTargetException;
@@ -32,8 +33,7 @@ import java.util.Objects;
 import java.util.Set;
 import java.util.UUID;
 import java.util.concurrent.CompletableFuture;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
+import java.util.concurrent.Executor;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.apache.commons.beanutils.PropertyUtils;
@@ -62,6 +62,7 @@ import org.openlmis.requisition.dto.SupervisoryNodeDto;
 import org.openlmis.requisition.dto.SupplyLineDto;
 import org.openlmis.requisition.dto.UserDto;
 import org.openlmis.requisition.dto.VersionIdentityDto;
+import org.openlmis.requisition.dto.stockmanagement.StockEventDto;
 import org.openlmis.requisition.errorhandling.ValidationFailure;
 import org.openlmis.requisition.errorhandling.ValidationResult;
 import org.openlmis.requisition.i18n.MessageKeys;
@@ -75,6 +76,7 @@ import org.slf4j.ext.XLogger;
 import org.slf4j.ext.XLoggerFactory;
 import org.slf4j.profiler.Profiler;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
@@ -107,6 +109,10 @@ public class BatchRequisitionController extends BaseRequisitionController {
   @Autowired
   private PeriodReferenceDataService periodReferenceDataService;
 
+  @Autowired
+  @Qualifier(APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+  private Executor taskExecutor;
+
   /**
    * Attempts to retrieve requisitions with the provided UUIDs.
    */
@@ -180,22 +186,48 @@ public class BatchRequisitionController extends BaseRequisitionController {
     profiler.start("FIND_REQUISITIONS");
     List<Requisition> requisitions = requisitionRepository.readDistinctByIdIn(uuids);
 
+    profiler.start("REQUEST_REFERENCE_DATA");
+    CompletableFuture<List<String>> permissionStringsFuture = userReferenceDataService
+        .getPermissionStringsAsync(user.getId());
+    CompletableFuture<Map<UUID, SupervisoryNodeDto>> supervisoryNodesFuture =
+        findSupervisoryNodes(requisitions);
+    CompletableFuture<Map<VersionIdentityDto, OrderableDto>> orderablesFuture =
+        findOrderablesAsync(getLineItemOrderableIdentities(requisitions));
+    CompletableFuture<Map<Pair<UUID, UUID>, List<SupplyLineDto>>> supplyLinesFuture =
+        findSupplyLines(requisitions);
+    CompletableFuture<Map<UUID, FacilityDto>> facilitiesFuture = facilityReferenceDataService
+        .searchAsync(getFacilityIds(requisitions))
+        .thenApply(facilities -> facilities
+            .stream()
+            .collect(Collectors.toMap(BaseDto::getId, Function.identity())));
+    CompletableFuture<Map<UUID, ProcessingPeriodDto>> periodsFuture = periodReferenceDataService
+        .searchAsync(getPeriodIds(requisitions))
+        .thenApply(periods -> periods
+            .stream()
+            .collect(Collectors.toMap(BaseDto::getId, Function.identity())));
+    CompletableFuture<Map<VersionIdentityDto, ApprovedProductDto>> approvedProductsFuture =
+        findApprovedProductsAsync(getLineItemApprovedProductIdentities(requisitions));
+
     profiler.start("GET_USER_PERMISSION_STRINGS");
-    List<String> permissionStrings = userReferenceDataService.getPermissionStrings(user.getId());
+    List<String> permissionStrings = join(permissionStringsFuture);
 
-    Map<UUID, SupervisoryNodeDto> supervisoryNodeMap = findSupervisoryNodes(requisitions, profiler);
-    Map<VersionIdentityDto, OrderableDto> orderables = findOrderables(
-        profiler, () -> getLineItemOrderableIdentities(requisitions)
-    );
-    Map<Pair<UUID, UUID>, List<SupplyLineDto>> supplyLinesMap =
-        findSupplyLines(requisitions, profiler);
+    profiler.start("FIND_SUPERVISORY_NODES");
+    Map<UUID, SupervisoryNodeDto> supervisoryNodeMap = join(supervisoryNodesFuture);
 
-    Map<UUID, FacilityDto> facilities = findFacilities(requisitions, profiler);
+    profiler.start("GET_ORDERABLES");
+    Map<VersionIdentityDto, OrderableDto> orderables = join(orderablesFuture);
 
-    Map<UUID, ProcessingPeriodDto> periods = findPeriods(requisitions, profiler);
+    profiler.start("GET_SUPPLY_LINES");
+    Map<Pair<UUID, UUID>, List<SupplyLineDto>> supplyLinesMap = join(supplyLinesFuture);
+
+    profiler.start("FIND_ALL_FACILITIES_FOR_REQUISITIONS");
+    Map<UUID, FacilityDto> facilities = join(facilitiesFuture);
 
-    Map<VersionIdentityDto, ApprovedProductDto> approvedProducts = findApprovedProducts(
-        () -> getLineItemApprovedProductIdentities(requisitions), profiler);
+    profiler.start("FIND_ALL_PERIODS_FOR_REQUISITIONS");
+    Map<UUID, ProcessingPeriodDto> periods = join(periodsFuture);
+
+    profiler.start("GET_APPROVED_PRODUCTS");
+    Map<VersionIdentityDto, ApprovedProductDto> approvedProducts = join(approvedProductsFuture);
 
     profiler.start("VALIDATE_AND_APPROVE");
     for (Requisition requisition : requisitions) {
@@ -210,7 +242,7 @@ public class BatchRequisitionController extends BaseRequisitionController {
           facilities, periods, approveParams, approvedProducts);
     }
 
-    submitStockEvent(profiler, user, requisitions, orderables);
+    submitStockEvents(profiler, user, requisitions, orderables);
 
     ResponseEntity<RequisitionsProcessingStatusDto> response =
         buildResponse(processingStatus, profiler, HttpStatus.OK);
@@ -349,32 +381,39 @@ public class BatchRequisitionController extends BaseRequisitionController {
   }
 
 
-  private Map<UUID, SupervisoryNodeDto> findSupervisoryNodes(List<Requisition> requisitions,
-      Profiler profiler) {
-    profiler.start("FIND_SUPERVISORY_NODES");
+  private CompletableFuture<Map<UUID, SupervisoryNodeDto>> findSupervisoryNodes(
+      List<Requisition> requisitions) {
     List<UUID> supervisoryNodeIds = requisitions.stream()
         .map(Requisition::getSupervisoryNodeId)
         .collect(toList());
 
     return supervisoryNodeService
-        .findByIds(supervisoryNodeIds)
-        .stream()
-        .collect(toMap(SupervisoryNodeDto::getId, supervisoryNode -> supervisoryNode));
+        .findByIdsAsync(supervisoryNodeIds)
+        .thenApply(supervisoryNodes -> supervisoryNodes
+            .stream()
+            .collect(toMap(SupervisoryNodeDto::getId, supervisoryNode -> supervisoryNode)));
   }
 
-  private Map<Pair<UUID, UUID>, List<SupplyLineDto>> findSupplyLines(
-      List<Requisition> requisitions, Profiler profiler) {
-    profiler.start("GET_SUPPLY_LINES");
+  private CompletableFuture<Map<Pair<UUID, UUID>, List<SupplyLineDto>>> findSupplyLines(
+      List<Requisition> requisitions) {
     Set<Pair<UUID, UUID>> programsFacilities = new HashSet<>();
     requisitions
         .forEach(r -> programsFacilities.add(Pair.of(r.getProgramId(), r.getSupervisoryNodeId())));
 
-    Map<Pair<UUID, UUID>, List<SupplyLineDto>> supplyLinesMap = new HashMap<>();
+    Map<Pair<UUID, UUID>, CompletableFuture<List<SupplyLineDto>>> supplyLinesFutures =
+        new HashMap<>();
     for (Pair<UUID, UUID> pair : programsFacilities) {
-      supplyLinesMap.put(pair,
-          supplyLineReferenceDataService.search(pair.getLeft(), pair.getRight()));
+      supplyLinesFutures.put(pair,
+          supplyLineReferenceDataService.searchAsync(pair.getLeft(), pair.getRight()));
     }
-    return supplyLinesMap;
+
+    return CompletableFuture
+        .allOf(supplyLinesFutures.values().toArray(new CompletableFuture[0]))
+        .thenApply(ignored -> {
+          Map<Pair<UUID, UUID>, List<SupplyLineDto>> supplyLinesMap = new HashMap<>();
+          supplyLinesFutures.forEach((pair, future) -> supplyLinesMap.put(pair, future.join()));
+          return supplyLinesMap;
+        });
   }
 
   private void validateAndApprove(Requisition requisition,
@@ -423,15 +462,22 @@ public class BatchRequisitionController extends BaseRequisitionController {
     return ValidationResult.success();
   }
 
-  private void submitStockEvent(Profiler profiler, UserDto user, List<Requisition> requisitions,
+  private void submitStockEvents(Profiler profiler, UserDto user, List<Requisition> requisitions,
       Map<VersionIdentityDto, OrderableDto> orderables) {
-    profiler.start("SEND_STOCK_EVENT");
-    ExecutorService executor = Executors.newFixedThreadPool(requisitions.size());
+    profiler.start("BUILD_STOCK_EVENTS");
+    List<Requisition> approved = requisitions
+        .stream()
+        .filter(this::shouldSubmitStockEvent)
+        .collect(Collectors.toList());
+    List<StockEventDto> stockEvents = stockEventBuilder
+        .fromRequisitions(approved, user.getId(), orderables);
+
+    profiler.start("SEND_STOCK_EVENTS");
     List<CompletableFuture<Void>> futures = Lists.newArrayList();
     try {
-      for (Requisition requisition : requisitions) {
+      for (StockEventDto stockEvent : stockEvents) {
         CompletableFuture<Void> future = runAsync(
-            () -> submitStockEvent(requisition, user.getId(), orderables), executor);
+            () -> stockEventStockManagementService.submit(stockEvent), taskExecutor);
         futures.add(future);
       }
     } finally {
@@ -537,13 +583,8 @@ public class BatchRequisitionController extends BaseRequisitionController {
 
   private Map<UUID, FacilityDto> findFacilities(List<Requisition> requisitions, Profiler profiler) {
     profiler.start("FIND_ALL_FACILITIES_FOR_REQUISITIONS");
-    Set<UUID> facilityIds = requisitions
-        .stream()
-        .map(Requisition::getFacilityId)
-        .collect(Collectors.toSet());
-
     return facilityReferenceDataService
-        .search(facilityIds)
+        .search(getFacilityIds(requisitions))
         .stream()
         .collect(Collectors.toMap(BaseDto::getId, Function.identity()));
   }
@@ -551,15 +592,24 @@ public class BatchRequisitionController extends BaseRequisitionController {
   private Map<UUID, ProcessingPeriodDto> findPeriods(Collection<Requisition> requisitions,
       Profiler profiler) {
     profiler.start("FIND_ALL_PERIODS_FOR_REQUISITIONS");
-    Set<UUID> periodIds = requisitions
+    return periodReferenceDataService
+        .search(getPeriodIds(requisitions))
         .stream()
-        .map(Requisition::getProcessingPeriodId)
+        .collect(Collectors.toMap(BaseDto::getId, Function.identity()));
+  }
+
+  private Set<UUID> getFacilityIds(Collection<Requisition> requisitions) {
+    return requisitions
+        .stream()
+        .map(Requisition::getFacilityId)
         .collect(Collectors.toSet());
+  }
 
-    return periodReferenceDataService
-        .search(periodIds)
+  private Set<UUID> getPeriodIds(Collection<Requisition> requisitions) {
+    return requisitions
         .stream()
-        .collect(Collectors.toMap(BaseDto::getId, Function.identity()));
+        .map(Requisition::getProcessingPeriodId)
+        .collect(Collectors.toSet());
   }
 
   private Map<VersionIdentityDto, OrderableDto> getOrderables(List<Requisition> requisitions) {
@@ -48,6 +48,40 @@ public class ETagResource<T> {
     return new StringBuilder(WEAK_E_TAG_PREFIX).append(version).toString();
   }
 
+  /**
+   * Checks if any of the eTags from the If-None-Match header matches the given version, using the
+   * weak comparison.
+   *
+   * @param ifNoneMatch value of the If-None-Match header
+   * @param version the current version of the resource
+   * @return true if the header contains a matching eTag or a wildcard
+   */
+  public static boolean matches(String ifNoneMatch, Long version) {
+    String current = String.valueOf(version);
+
+    for (String etag : ifNoneMatch.split(",")) {
+      String value = etag.trim();
+
+      if ("*".equals(value)) {
+        return true;
+      }
+
+      if (value.startsWith(WEAK_E_TAG_PREFIX)) {
+        value = value.substring(WEAK_E_TAG_PREFIX.length());
+      }
+
+      if (value.length() > 1 && value.startsWith("\"") && value.endsWith("\"")) {
+        value = value.substring(1, value.length() - 1);
+      }
+
+      if (current.equals(value)) {
+        return true;
+      }
+    }
+
+    return false;
+  }
+
   /**
    * Reads version (as Long) from the etag string. Supports both weak and strong eTags.
    *
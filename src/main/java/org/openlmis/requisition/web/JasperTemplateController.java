@@ -15,29 +15,34 @@
 
 package org.openlmis.requisition.web;
 
-import java.nio.charset.StandardCharsets;
+import java.io.IOException;
 import java.util.Map;
 import java.util.UUID;
 import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
 import org.openlmis.requisition.domain.JasperTemplate;
 import org.openlmis.requisition.dto.JasperTemplateDto;
+import org.openlmis.requisition.dto.ReportJobDto;
 import org.openlmis.requisition.exception.ContentNotFoundMessageException;
 import org.openlmis.requisition.exception.JasperReportViewException;
 import org.openlmis.requisition.exception.ReportingException;
 import org.openlmis.requisition.i18n.MessageKeys;
 import org.openlmis.requisition.repository.JasperTemplateRepository;
+import org.openlmis.requisition.service.JasperReportCache;
 import org.openlmis.requisition.service.JasperReportsViewService;
 import org.openlmis.requisition.service.JasperTemplateService;
 import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.ReportJobService;
 import org.openlmis.requisition.utils.Message;
+import org.openlmis.requisition.utils.ReportUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
-import org.springframework.http.MediaType;
-import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Controller;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.RequestMapping;
@@ -53,9 +58,6 @@ import org.springframework.web.multipart.MultipartFile;
 public class JasperTemplateController extends BaseController {
 
   private static final String CONSISTENCY_REPORT = "Consistency Report";
-  private static final String TIMELINESS_REPORT = "Timeliness Report";
-  private static final String REPORTING_RATE_REPORT = "Reporting Rate Report";
-  private static final int DUE_DAYS = 10;
 
   private static final Logger LOGGER = LoggerFactory.getLogger(JasperTemplateController.class);
 
@@ -68,9 +70,15 @@ public class JasperTemplateController extends BaseController {
   @Autowired
   private JasperReportsViewService jasperReportsViewService;
 
+  @Autowired
+  private JasperReportCache jasperReportCache;
+
   @Autowired
   private PermissionService permissionService;
 
+  @Autowired
+  private ReportJobService reportJobService;
+
   @Value("${dateTimeFormat}")
   private String dateTimeFormat;
 
@@ -103,6 +111,8 @@ public class JasperTemplateController extends BaseController {
       jasperTemplateService.validateFileAndSaveTemplate(jasperTemplateToUpdate, file);
     }
 
+    jasperReportCache.evictTemplate(jasperTemplateToUpdate.getId());
+
     LOGGER.debug("Saved template with id: " + jasperTemplateToUpdate.getId());
   }
 
@@ -153,60 +163,73 @@ public class JasperTemplateController extends BaseController {
             MessageKeys.ERROR_JASPER_TEMPLATE_NOT_FOUND, templateId)));
 
     jasperTemplateRepository.delete(jasperTemplate);
+    jasperReportCache.evictTemplate(templateId);
   }
 
   /**
-   * Generate a report based on the template, the format and the request parameters.
+   * Generate a report based on the template, the format and the request parameters. The report
+   * is written directly to the response.
    *
    * @param request    request (to get the request parameters)
+   * @param response   response the generated report is written to
    * @param templateId report template ID
    * @param format     report format to generate, default is PDF
-   * @return the generated report
    */
   @RequestMapping(value = "/{id}/{format}", method = RequestMethod.GET)
-  @ResponseBody
-  public ResponseEntity<byte[]> generateReport(HttpServletRequest request,
+  public void generateReport(HttpServletRequest request, HttpServletResponse response,
       @PathVariable("id") UUID templateId,
-      @PathVariable("format") String format) throws JasperReportViewException {
+      @PathVariable("format") String format) throws JasperReportViewException, IOException {
     permissionService.canViewReports().throwExceptionIfHasErrors();
 
-    JasperTemplate template = jasperTemplateRepository.findById(templateId)
+    JasperTemplate template = findTemplate(templateId);
+    Map<String, Object> map = getReportParameters(request, template, format);
+    String fileName = template.getName().replaceAll("\\s+", "_");
+
+    response.setContentType(ReportUtils.getMediaType(format).toString());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION,
+        "inline; filename=" + fileName + "." + format);
+
+    jasperReportsViewService.generateTemplateReport(template, map, response.getOutputStream());
+  }
+
+  /**
+   * Submit a report based on the template, the format and the request parameters to be
+   * generated in the background. If the same report has already been submitted and has not
+   * expired or failed, the existing job is returned.
+   *
+   * @param request    request (to get the request parameters)
+   * @param templateId report template ID
+   * @param format     report format to generate, default is PDF
+   * @return the report job that can be polled for the generated report
+   */
+  @RequestMapping(value = "/{id}/{format}", method = RequestMethod.POST)
+  @ResponseStatus(HttpStatus.ACCEPTED)
+  @ResponseBody
+  @Transactional(propagation = Propagation.NOT_SUPPORTED)
+  public ReportJobDto submitReport(HttpServletRequest request,
+      @PathVariable("id") UUID templateId, @PathVariable("format") String format) {
+    permissionService.canViewReports().throwExceptionIfHasErrors();
+
+    JasperTemplate template = findTemplate(templateId);
+    Map<String, Object> map = getReportParameters(request, template, format);
+
+    return ReportJobDto.newInstance(reportJobService.submit(template, format, map));
+  }
+
+  private JasperTemplate findTemplate(UUID templateId) {
+    return jasperTemplateRepository.findById(templateId)
         .orElseThrow(() -> new ContentNotFoundMessageException(new Message(
             MessageKeys.ERROR_JASPER_TEMPLATE_NOT_FOUND, templateId)));
+  }
 
+  private Map<String, Object> getReportParameters(HttpServletRequest request,
+      JasperTemplate template, String format) {
     Map<String, Object> map = jasperTemplateService
         .mapRequestParametersToTemplate(request, template);
     map.put("format", format);
     map.put("dateTimeFormat", dateTimeFormat);
     map.put("timeZoneId", timeZoneId);
 
-    byte[] reportData;
-    
-    if (TIMELINESS_REPORT.equals(template.getType())) {
-      reportData = jasperReportsViewService.generateTimelinessReport(template, map);
-    } else if (REPORTING_RATE_REPORT.equals(template.getType())) {
-      map.putIfAbsent("DueDays", String.valueOf(DUE_DAYS));
-      reportData = jasperReportsViewService.generateReportingRateReport(template, map);
-    } else {
-      reportData = jasperReportsViewService.generateReport(template, map);
-    }
-
-    MediaType mediaType;
-    if ("csv".equals(format)) {
-      mediaType = new MediaType("text", "csv", StandardCharsets.UTF_8);
-    } else if ("xls".equals(format)) {
-      mediaType = new MediaType("application", "vnd.ms-excel", StandardCharsets.UTF_8);
-    } else if ("html".equals(format)) {
-      mediaType = new MediaType("text", "html", StandardCharsets.UTF_8);
-    } else {
-      mediaType = new MediaType("application", "pdf", StandardCharsets.UTF_8);
-    }
-    String fileName = template.getName().replaceAll("\\s+", "_");
-
-    return ResponseEntity
-        .ok()
-        .contentType(mediaType)
-        .header("Content-Disposition", "inline; filename=" + fileName + "." + format)
-        .body(reportData);
+    return map;
   }
 }
@@ -0,0 +1,68 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REFERENCE_DATA_CACHE_NOT_FOUND;
+
+import org.openlmis.requisition.exception.ContentNotFoundMessageException;
+import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.referencedata.ReferenceDataCache;
+import org.openlmis.requisition.utils.Message;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Controller
+public class ReferenceDataCacheController extends BaseController {
+
+  static final String RESOURCE_URL = "/referenceDataCache";
+
+  @Autowired
+  private ReferenceDataCache referenceDataCache;
+
+  @Autowired
+  private PermissionService permissionService;
+
+  /**
+   * Removes all entries from the reference data cache, so that resources are fetched from the
+   * Reference Data service on their next use.
+   */
+  @DeleteMapping(RESOURCE_URL)
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void flush() {
+    permissionService.canManageRequisitionTemplate().throwExceptionIfHasErrors();
+    referenceDataCache.flush();
+  }
+
+  /**
+   * Removes all entries from the given region of the reference data cache.
+   *
+   * @param name name of the region, for example facilities.
+   */
+  @DeleteMapping(RESOURCE_URL + "/{name}")
+  @ResponseStatus(HttpStatus.NO_CONTENT)
+  public void flush(@PathVariable("name") String name) {
+    permissionService.canManageRequisitionTemplate().throwExceptionIfHasErrors();
+
+    if (!referenceDataCache.flush(name)) {
+      throw new ContentNotFoundMessageException(
+          new Message(ERROR_REFERENCE_DATA_CACHE_NOT_FOUND, name));
+    }
+  }
+}
@@ -0,0 +1,103 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.web;
+
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REPORT_JOB_NOT_COMPLETED;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_REPORT_JOB_NOT_FOUND;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.UUID;
+import javax.servlet.http.HttpServletResponse;
+import org.openlmis.requisition.domain.ReportJob;
+import org.openlmis.requisition.dto.ReportJobDto;
+import org.openlmis.requisition.exception.ContentNotFoundMessageException;
+import org.openlmis.requisition.exception.ValidationMessageException;
+import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.ReportJobService;
+import org.openlmis.requisition.utils.Message;
+import org.openlmis.requisition.utils.ReportUtils;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Controller;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.ResponseBody;
+import org.springframework.web.bind.annotation.ResponseStatus;
+
+@Controller
+public class ReportJobController extends BaseController {
+
+  static final String RESOURCE_URL = "/reports/jobs";
+
+  @Autowired
+  private ReportJobService reportJobService;
+
+  @Autowired
+  private PermissionService permissionService;
+
+  /**
+   * Get the status of a report submitted to be generated in the background.
+   *
+   * @param jobId UUID of the report job
+   * @return the report job
+   */
+  @GetMapping(RESOURCE_URL + "/{id}")
+  @ResponseStatus(HttpStatus.OK)
+  @ResponseBody
+  public ReportJobDto getJob(@PathVariable("id") UUID jobId) {
+    permissionService.canViewReports().throwExceptionIfHasErrors();
+
+    return ReportJobDto.newInstance(findJob(jobId));
+  }
+
+  /**
+   * Download the report generated by a completed report job.
+   *
+   * @param jobId    UUID of the report job
+   * @param response response the generated report is written to
+   */
+  @GetMapping(RESOURCE_URL + "/{id}/report")
+  public void getReport(@PathVariable("id") UUID jobId, HttpServletResponse response)
+      throws IOException {
+    permissionService.canViewReports().throwExceptionIfHasErrors();
+
+    ReportJob job = findJob(jobId);
+    Path file = reportJobService.getReportFile(job);
+
+    if (!job.isCompleted()) {
+      throw new ValidationMessageException(
+          new Message(ERROR_REPORT_JOB_NOT_COMPLETED, jobId, job.getStatus()));
+    }
+    if (!Files.exists(file)) {
+      throw new ContentNotFoundMessageException(new Message(ERROR_REPORT_JOB_NOT_FOUND, jobId));
+    }
+
+    response.setContentType(ReportUtils.getMediaType(job.getFormat()).toString());
+    response.setHeader(HttpHeaders.CONTENT_DISPOSITION, "inline; filename=" + job.getFileName());
+    response.setContentLengthLong(Files.size(file));
+
+    Files.copy(file, response.getOutputStream());
+  }
+
+  private ReportJob findJob(UUID jobId) {
+    return reportJobService.findJob(jobId)
+        .orElseThrow(() -> new ContentNotFoundMessageException(
+            new Message(ERROR_REPORT_JOB_NOT_FOUND, jobId)));
+  }
+}
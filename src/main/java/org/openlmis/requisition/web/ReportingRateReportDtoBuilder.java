@@ -16,18 +16,23 @@
 package org.openlmis.requisition.web;
 
 import java.time.LocalDate;
+import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
-import java.util.Optional;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
 import java.util.stream.Collectors;
 import lombok.Getter;
 import lombok.NoArgsConstructor;
 import lombok.Setter;
-import org.openlmis.requisition.domain.requisition.Requisition;
+import org.apache.commons.lang3.tuple.ImmutablePair;
+import org.apache.commons.lang3.tuple.Pair;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
-import org.openlmis.requisition.domain.requisition.StatusChange;
+import org.openlmis.requisition.domain.requisition.RequisitionStatusChangeDate;
 import org.openlmis.requisition.dto.GeographicZoneDto;
 import org.openlmis.requisition.dto.MinimalFacilityDto;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
@@ -73,22 +78,51 @@ public class ReportingRateReportDtoBuilder {
 
     Collection<ProcessingPeriodDto> periods = getLatestPeriods(period, LATEST_PERIODS);
     Collection<GeographicZoneDto> zones = getAvailableGeographicZones(zone);
-    Collection<MinimalFacilityDto> facilities = getAvailableFacilities(zones);
 
-    report.setCompletionByPeriod(getCompletionsByPeriod(program, periods, facilities, dueDays));
-    report.setCompletionByZone(getCompletionsByZone(program, periods, zones, dueDays));
+    Map<GeographicZoneDto, Collection<MinimalFacilityDto>> facilitiesByZone = new LinkedHashMap<>();
+    for (GeographicZoneDto available : zones) {
+      facilitiesByZone.put(available, getAvailableFacilities(Collections.singletonList(available)));
+    }
+
+    Collection<MinimalFacilityDto> facilities = facilitiesByZone
+        .values()
+        .stream()
+        .flatMap(Collection::stream)
+        .collect(Collectors.toList());
+
+    StatusChangeDates statusChangeDates = getStatusChangeDates(program, periods, facilities);
+
+    report.setCompletionByPeriod(
+        getCompletionsByPeriod(statusChangeDates, periods, facilities, dueDays));
+    report.setCompletionByZone(
+        getCompletionsByZone(statusChangeDates, periods, facilitiesByZone, dueDays));
 
     return report;
   }
 
+  private StatusChangeDates getStatusChangeDates(ProgramDto program,
+      Collection<ProcessingPeriodDto> periods, Collection<MinimalFacilityDto> facilities) {
+    Set<UUID> periodIds = periods
+        .stream()
+        .map(ProcessingPeriodDto::getId)
+        .collect(Collectors.toSet());
+    Set<UUID> facilityIds = facilities
+        .stream()
+        .map(MinimalFacilityDto::getId)
+        .collect(Collectors.toSet());
+
+    return new StatusChangeDates(requisitionRepository
+        .searchStatusChangeDates(program.getId(), periodIds, facilityIds, false, REQUIRED_STATUS));
+  }
+
   private List<RequisitionCompletionDto> getCompletionsByPeriod(
-      ProgramDto program, Collection<ProcessingPeriodDto> periods,
+      StatusChangeDates statusChangeDates, Collection<ProcessingPeriodDto> periods,
       Collection<MinimalFacilityDto> facilities, Integer dueDays) {
     List<RequisitionCompletionDto> completionByPeriod = new ArrayList<>();
 
     for (ProcessingPeriodDto period : periods) {
       RequisitionCompletionDto completion = getCompletionForFacilities(
-          program, Collections.singletonList(period), facilities, dueDays);
+          statusChangeDates, Collections.singletonList(period), facilities, dueDays);
       completion.setGrouping(period.getName());
       completionByPeriod.add(completion);
     }
@@ -97,18 +131,18 @@ public class ReportingRateReportDtoBuilder {
   }
 
   private List<RequisitionCompletionDto> getCompletionsByZone(
-      ProgramDto program, Collection<ProcessingPeriodDto> periods,
-      Collection<GeographicZoneDto> zones, Integer dueDays) {
+      StatusChangeDates statusChangeDates, Collection<ProcessingPeriodDto> periods,
+      Map<GeographicZoneDto, Collection<MinimalFacilityDto>> facilitiesByZone, Integer dueDays) {
     List<RequisitionCompletionDto> completionByZone = new ArrayList<>();
 
-    for (GeographicZoneDto zone : zones) {
-      Collection<MinimalFacilityDto> facilities =
-          getAvailableFacilities(Collections.singletonList(zone));
+    for (Map.Entry<GeographicZoneDto, Collection<MinimalFacilityDto>> entry
+        : facilitiesByZone.entrySet()) {
+      Collection<MinimalFacilityDto> facilities = entry.getValue();
 
       if (!facilities.isEmpty()) {
         RequisitionCompletionDto completion =
-            getCompletionForFacilities(program, periods, facilities, dueDays);
-        completion.setGrouping(zone.getName());
+            getCompletionForFacilities(statusChangeDates, periods, facilities, dueDays);
+        completion.setGrouping(entry.getKey().getName());
         completionByZone.add(completion);
       }
     }
@@ -121,7 +155,7 @@ public class ReportingRateReportDtoBuilder {
   }
 
   private RequisitionCompletionDto getCompletionForFacilities(
-      ProgramDto program, Collection<ProcessingPeriodDto> periods,
+      StatusChangeDates statusChangeDates, Collection<ProcessingPeriodDto> periods,
       Collection<MinimalFacilityDto> facilities, Integer dueDays) {
     CompletionCounter completions = new CompletionCounter();
 
@@ -129,8 +163,8 @@ public class ReportingRateReportDtoBuilder {
       LocalDate dueDate = period.getEndDate().plusDays(dueDays);
 
       for (MinimalFacilityDto facility : facilities) {
-        List<Requisition> requisitions = requisitionRepository
-            .searchRequisitions(period.getId(), facility.getId(), program.getId(), false);
+        List<RequisitionStatusChangeDate> requisitions = statusChangeDates
+            .get(facility.getId(), period.getId());
 
         updateCompletionsWithRequisitions(completions, requisitions, dueDate);
       }
@@ -156,21 +190,19 @@ public class ReportingRateReportDtoBuilder {
     return completion;
   }
 
-  void updateCompletionsWithRequisitions(
-      CompletionCounter completions, List<Requisition> requisitions, LocalDate dueDate) {
+  void updateCompletionsWithRequisitions(CompletionCounter completions,
+      List<RequisitionStatusChangeDate> requisitions, LocalDate dueDate) {
     int missed = completions.getMissed();
     int late = completions.getLate();
     int onTime = completions.getOnTime();
 
     if (!requisitions.isEmpty()) {
-      for (Requisition requisition : requisitions) {
-        Optional<StatusChange> entry = requisition.getStatusChanges().stream()
-            .filter(statusChange -> statusChange.getStatus() == REQUIRED_STATUS)
-            .findFirst();
-        if (!entry.isPresent()) {
+      for (RequisitionStatusChangeDate requisition : requisitions) {
+        ZonedDateTime statusChangeDate = requisition.getStatusChangeDate();
+        if (null == statusChangeDate) {
           missed++;
         } else {
-          LocalDate submissionDate = entry.get().getCreatedDate().toLocalDate();
+          LocalDate submissionDate = statusChangeDate.toLocalDate();
           if (submissionDate.isAfter(dueDate)) {
             late++;
           } else {
@@ -243,4 +275,23 @@ public class ReportingRateReportDtoBuilder {
     int late;
     int onTime;
   }
+
+  /**
+   * Status change dates of requisitions indexed by facility and processing period, so that
+   * completions for any facility and period combination can be counted without further queries.
+   */
+  static final class StatusChangeDates {
+    private final Map<Pair<UUID, UUID>, List<RequisitionStatusChangeDate>> dates;
+
+    StatusChangeDates(Collection<RequisitionStatusChangeDate> requisitions) {
+      this.dates = requisitions
+          .stream()
+          .collect(Collectors.groupingBy(requisition -> ImmutablePair
+              .of(requisition.getFacilityId(), requisition.getProcessingPeriodId())));
+    }
+
+    List<RequisitionStatusChangeDate> get(UUID facilityId, UUID periodId) {
+      return dates.getOrDefault(ImmutablePair.of(facilityId, periodId), Collections.emptyList());
+    }
+  }
 }
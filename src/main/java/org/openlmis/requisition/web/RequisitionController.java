@@ -47,6 +47,7 @@ import org.openlmis.requisition.repository.custom.DefaultRequisitionSearchParams
 import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
 import org.openlmis.requisition.service.RequisitionStatusNotifier;
 import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
+import org.openlmis.requisition.utils.CursorPageRequest;
 import org.openlmis.requisition.utils.Message;
 import org.openlmis.requisition.utils.Pagination;
 import org.slf4j.profiler.Profiler;
@@ -274,17 +275,24 @@ public class RequisitionController extends BaseRequisitionController {
   }
 
   /**
-   * Get chosen requisition.
+   * Get chosen requisition. If the requisition has not changed since the version given in the
+   * If-None-Match header, 304 is returned without loading the whole requisition.
    *
    * @param requisitionId UUID of requisition whose we want to get
    * @return Requisition.
    */
   @GetMapping(RESOURCE_URL + "/{id}")
-  @ResponseStatus(HttpStatus.OK)
+  // no @ResponseStatus, as it would replace the 304 status of unchanged requisitions
   @ResponseBody
   public RequisitionDto getRequisition(@PathVariable("id") UUID requisitionId,
-      HttpServletResponse response) {
+      HttpServletRequest request, HttpServletResponse response) {
     Profiler profiler = getProfiler("GET_REQUISITION", requisitionId);
+
+    if (isNotModified(requisitionId, request, response, profiler)) {
+      stopProfiler(profiler);
+      return null;
+    }
+
     Requisition requisition = findRequisition(requisitionId, profiler);
     checkPermission(profiler, () -> permissionService.canViewRequisition(requisition));
     RequisitionDto requisitionDto = buildDto(
@@ -303,27 +311,32 @@ public class RequisitionController extends BaseRequisitionController {
   }
 
   /**
-   * Finds requisitions matching all of the provided parameters.
+   * Finds requisitions matching all of the provided parameters. If the cursor parameter is
+   * present, the next page is read after the given cursor (an empty one means the first page)
+   * and requisitions are always sorted by created date and id.
    */
   @GetMapping(RESOURCE_URL + "/search")
   @ResponseStatus(HttpStatus.OK)
   @ResponseBody
   public Page<BasicRequisitionDto> searchRequisitions(
       @RequestParam MultiValueMap<String, String> queryParams,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "count", defaultValue = "true") boolean count,
       Pageable pageable) {
 
     RequisitionSearchParams params = new QueryRequisitionSearchParams(queryParams);
 
     Profiler profiler = getProfiler("REQUISITIONS_SEARCH", params);
+    Pageable page = getPageable(pageable, cursor, count);
 
     profiler.start("REQUISITION_SERVICE_SEARCH");
-    Page<Requisition> requisitionPage = requisitionService.searchRequisitions(params, pageable);
+    Page<Requisition> requisitionPage = requisitionService.searchRequisitions(params, page);
 
     profiler.start("REQUISITION_DTO_BUILD");
     Page<BasicRequisitionDto> requisitionDtoPage = Pagination.getPage(
         basicRequisitionDtoBuilder.build(requisitionPage.getContent()),
-        pageable,
-        requisitionPage.getTotalElements());
+        page,
+        requisitionPage);
 
     stopProfiler(profiler, requisitionDtoPage);
     return requisitionDtoPage;
@@ -457,7 +470,8 @@ public class RequisitionController extends BaseRequisitionController {
   }
 
   /**
-   * Get requisitions to approve for right supervisor.
+   * Get requisitions to approve for right supervisor. Supports the same cursor pagination as
+   * the requisition search.
    *
    * @return Approved requisitions.
    */
@@ -466,19 +480,22 @@ public class RequisitionController extends BaseRequisitionController {
   @ResponseBody
   public Page<BasicRequisitionDto> requisitionsForApproval(
       @RequestParam(value = "program", required = false) UUID programId,
+      @RequestParam(value = "cursor", required = false) String cursor,
+      @RequestParam(value = "count", defaultValue = "true") boolean count,
       Pageable pageable) {
     Profiler profiler = getProfiler("REQUISITIONS_FOR_APPROVAL", programId, pageable);
     UserDto user = getCurrentUser(profiler);
+    Pageable page = getPageable(pageable, cursor, count);
 
     profiler.start("REQUISITION_SERVICE_GET_FOR_APPROVAL");
     Page<Requisition> approvalRequisitions = requisitionService
-        .getRequisitionsForApproval(user, programId, pageable);
+        .getRequisitionsForApproval(user, programId, page);
 
     profiler.start(BUILD_DTO_LIST);
     Page<BasicRequisitionDto> dtoPage = Pagination.getPage(
         basicRequisitionDtoBuilder.build(approvalRequisitions.getContent()),
-        pageable,
-        approvalRequisitions.getTotalElements());
+        page,
+        approvalRequisitions);
 
     stopProfiler(profiler);
     return dtoPage;
@@ -632,4 +649,8 @@ public class RequisitionController extends BaseRequisitionController {
         requisition.getProgramId(), requisition.getSupervisoryNodeId());
   }
 
+  private Pageable getPageable(Pageable pageable, String cursor, boolean count) {
+    return null == cursor ? pageable : CursorPageRequest.of(pageable, cursor, count);
+  }
+
 }
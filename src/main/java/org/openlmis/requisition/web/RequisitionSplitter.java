@@ -16,11 +16,9 @@
 package org.openlmis.requisition.web;
 
 import static org.openlmis.requisition.i18n.MessageKeys.LINE_ITEM_SUPPLIED_BY_OTHER_PARTNER;
-import static org.springframework.util.CollectionUtils.isEmpty;
 
 import com.google.common.collect.Lists;
 import com.google.common.collect.Sets;
-import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -32,13 +30,11 @@ import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionLineItem;
 import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.SupplyPartnerAssociationDto;
-import org.openlmis.requisition.dto.SupplyPartnerDto;
-import org.openlmis.requisition.dto.TogglzFeatureDto;
 import org.openlmis.requisition.i18n.MessageService;
 import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.service.referencedata.FeatureFlagStore;
 import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
-import org.openlmis.requisition.service.referencedata.SupplyPartnerReferenceDataService;
-import org.openlmis.requisition.service.referencedata.TogglzReferenceDataService;
+import org.openlmis.requisition.service.referencedata.SupplyPartnerAssociationIndex;
 import org.openlmis.requisition.utils.Message;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
@@ -51,10 +47,10 @@ class RequisitionSplitter {
   private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
 
   @Autowired
-  private SupplyPartnerReferenceDataService supplyPartnerReferenceDataService;
+  private SupplyPartnerAssociationIndex supplyPartnerAssociationIndex;
 
   @Autowired
-  private TogglzReferenceDataService togglzReferenceDataService;
+  private FeatureFlagStore featureFlagStore;
 
   @Autowired
   private RequisitionRepository requisitionRepository;
@@ -85,7 +81,8 @@ class RequisitionSplitter {
    * @return an instance of {@link RequisitionSplitResult}.
    */
   RequisitionSplitResult split(Requisition requisition, UUID supervisoryNodeId) {
-    if (null == supervisoryNodeId || !isFeatureActive() || wasSplit(requisition)) {
+    if (null == supervisoryNodeId || !featureFlagStore.isActive(MULTIPLE_SUPPLIERS)
+        || wasSplit(requisition)) {
       return new RequisitionSplitResult(requisition);
     }
 
@@ -112,34 +109,17 @@ class RequisitionSplitter {
   private List<SupplyPartnerAssociationDto> getAssociations(Requisition requisition,
       UUID supervisoryNodeId,
       Map<VersionEntityReference, RequisitionLineItem> requisitionLineItems) {
-    Set<UUID> programIds = Sets.newHashSet(requisition.getProgramId());
     Set<UUID> partnerNodeIds = supervisoryNodeReferenceDataService
         .findOne(supervisoryNodeId)
         .getPartnerNodeIds();
-    Set<UUID> facilityIds = Sets.newHashSet(requisition.getFacilityId());
     Set<UUID> orderableIds = requisitionLineItems
         .values()
         .stream()
         .map(line -> line.getOrderable().getId())
         .collect(Collectors.toSet());
 
-    return supplyPartnerReferenceDataService
-        .search(partnerNodeIds)
-        .stream()
-        .map(partner -> findAssociation(partner, programIds, partnerNodeIds,
-            facilityIds, orderableIds))
-        .filter(Objects::nonNull)
-        .collect(Collectors.toList());
-  }
-
-  private boolean isFeatureActive() {
-    return togglzReferenceDataService
-        .findAll()
-        .stream()
-        .filter(feature -> MULTIPLE_SUPPLIERS.equals(feature.getName()))
-        .findFirst()
-        .map(TogglzFeatureDto::isEnabled)
-        .orElse(false);
+    return supplyPartnerAssociationIndex.find(requisition.getProgramId(), partnerNodeIds,
+        requisition.getFacilityId(), orderableIds);
   }
 
   private boolean wasSplit(Requisition requisition) {
@@ -217,29 +197,4 @@ class RequisitionSplitter {
     return partnerLineItem;
   }
 
-  private SupplyPartnerAssociationDto findAssociation(SupplyPartnerDto partner,
-      Set<UUID> programIds, Set<UUID> partnerNodeIds, Set<UUID> facilityIds,
-      Set<UUID> orderableIds) {
-    return partner
-        .getAssociations()
-        .stream()
-        .filter(association -> containsValue(programIds, association.getProgramId()))
-        .filter(association -> containsValue(partnerNodeIds, association.getSupervisoryNodeId()))
-        .filter(association -> containsAtLeastOne(facilityIds, association.getFacilityIds()))
-        .filter(association -> containsAtLeastOne(orderableIds, association.getOrderableIds()))
-        .findFirst()
-        .orElse(null);
-  }
-
-  private boolean containsValue(Set<UUID> set, UUID value) {
-    return isEmpty(set) || set.contains(value);
-  }
-
-  private boolean containsAtLeastOne(Set<UUID> set, Set<UUID> values) {
-    // disjoint returns true if collections have no elements in common but we want
-    // set that have at least one element from the values set
-    // that is why we negate the result of the method.
-    return isEmpty(set) || !Collections.disjoint(set, values);
-  }
-
 }
@@ -152,16 +152,22 @@ public class RequisitionV2Controller extends BaseRequisitionController {
   }
 
   /**
-   * Get chosen requisition.
+   * Get chosen requisition. If the requisition has not changed since the version given in the
+   * If-None-Match header, 304 is returned without loading the whole requisition.
    *
    * @param requisitionId UUID of requisition whose we want to get
    * @return Requisition.
    */
   @GetMapping("/{id}")
   public RequisitionV2Dto getRequisition(@PathVariable("id") UUID requisitionId,
-      HttpServletResponse response) {
+      HttpServletRequest request, HttpServletResponse response) {
     Profiler profiler = getProfiler("GET_REQUISITION_V2", requisitionId);
 
+    if (isNotModified(requisitionId, request, response, profiler)) {
+      stopProfiler(profiler);
+      return null;
+    }
+
     Requisition requisition = findRequisition(requisitionId, profiler);
 
     checkPermission(profiler, () -> permissionService.canViewRequisition(requisition));
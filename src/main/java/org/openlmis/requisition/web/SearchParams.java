@@ -44,6 +44,8 @@ public final class SearchParams {
   private static final String PAGE = "page";
   private static final String SIZE = "size";
   private static final String SORT = "sort";
+  private static final String CURSOR = "cursor";
+  private static final String COUNT = "count";
   private static final String ACCESS_TOKEN = "access_token";
 
   private MultiValueMap<String, String> params;
@@ -57,6 +59,8 @@ public final class SearchParams {
       params.remove(PAGE);
       params.remove(SIZE);
       params.remove(SORT);
+      params.remove(CURSOR);
+      params.remove(COUNT);
       params.remove(ACCESS_TOKEN);
     } else {
       params = new LinkedMultiValueMap<>();
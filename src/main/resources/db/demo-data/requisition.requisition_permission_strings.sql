@@ -0,0 +1,12 @@
+INSERT INTO requisition.requisition_permission_strings
+    (id, requisitionid, permissionstring, rightname, facilityid, programid)
+WITH requisition_rights (name) AS (VALUES ('REQUISITION_VIEW'))
+SELECT uuid_generate_v4() AS id
+  , r.id AS requisitionid
+  , rr.name || '|' || r.facilityid || '|' || r.programid AS permissionstring
+  , rr.name AS rightname
+  , r.facilityid AS facilityid
+  , r.programid AS programid
+FROM requisition.requisitions r
+  CROSS JOIN requisition_rights rr
+;
@@ -0,0 +1,6 @@
+-- used to find the next page of requisitions after the one with the given created date and id
+CREATE INDEX req_created_date_id ON requisitions (createddate, id);
+
+-- used to find the next page of requisitions waiting for approval at the given supervisory node
+CREATE INDEX req_prog_node_status_created_date_id
+    ON requisitions (programid, supervisorynodeid, status, createddate, id);
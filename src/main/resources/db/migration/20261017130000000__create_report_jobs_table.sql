@@ -0,0 +1,20 @@
+CREATE TABLE report_jobs (
+    id uuid NOT NULL,
+    createddate timestamp with time zone,
+    modifieddate timestamp with time zone,
+    templateid uuid NOT NULL,
+    format text NOT NULL,
+    filename text NOT NULL,
+    parametershash text NOT NULL,
+    status character varying(255) NOT NULL,
+    errormessage text,
+    completeddate timestamp with time zone,
+    expirydate timestamp with time zone NOT NULL,
+    CONSTRAINT report_jobs_pkey PRIMARY KEY (id)
+);
+
+-- used to find a job for the same report that can be reused
+CREATE INDEX report_jobs_parametershash_idx ON report_jobs (parametershash);
+
+-- used to find expired jobs to remove
+CREATE INDEX report_jobs_expirydate_idx ON report_jobs (expirydate);
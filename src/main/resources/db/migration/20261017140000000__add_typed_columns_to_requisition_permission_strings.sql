@@ -0,0 +1,18 @@
+ALTER TABLE requisition_permission_strings
+    ADD COLUMN rightname text,
+    ADD COLUMN facilityid uuid,
+    ADD COLUMN programid uuid;
+
+UPDATE requisition_permission_strings
+SET rightname = split_part(permissionstring, '|', 1)
+  , facilityid = CAST(split_part(permissionstring, '|', 2) AS uuid)
+  , programid = CAST(split_part(permissionstring, '|', 3) AS uuid);
+
+ALTER TABLE requisition_permission_strings
+    ALTER COLUMN rightname SET NOT NULL,
+    ALTER COLUMN facilityid SET NOT NULL,
+    ALTER COLUMN programid SET NOT NULL;
+
+-- used to find requisitions visible to a user with the given rights in programs and facilities
+CREATE INDEX req_perm_strings_right_program_facility_idx
+    ON requisition_permission_strings (rightname, programid, facilityid, requisitionid);
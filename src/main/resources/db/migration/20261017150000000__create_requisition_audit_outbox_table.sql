@@ -0,0 +1,9 @@
+CREATE TABLE requisition_audit_outbox (
+    id bigserial PRIMARY KEY,
+    requisitionid uuid NOT NULL,
+    version bigint,
+    author text NOT NULL,
+    deleted boolean NOT NULL DEFAULT FALSE,
+    createddate timestamp with time zone NOT NULL DEFAULT now(),
+    attempts integer NOT NULL DEFAULT 0
+);
@@ -0,0 +1,7 @@
+-- progress of the init-audit-log profile, so that an interrupted run resumes where it stopped
+CREATE TABLE audit_log_initializer_partitions (
+    lowerbound uuid PRIMARY KEY,
+    upperbound uuid NOT NULL,
+    lastid uuid NOT NULL,
+    done boolean NOT NULL DEFAULT FALSE
+);
@@ -0,0 +1,12 @@
+CREATE TABLE notification_outbox (
+    id bigserial PRIMARY KEY,
+    userid uuid NOT NULL,
+    notification jsonb NOT NULL,
+    createddate timestamp with time zone NOT NULL DEFAULT now(),
+    nextattemptdate timestamp with time zone NOT NULL DEFAULT now(),
+    attempts integer NOT NULL DEFAULT 0
+);
+
+-- used to find notifications that are due to be sent
+CREATE INDEX notification_outbox_nextattemptdate_idx
+    ON notification_outbox (nextattemptdate);
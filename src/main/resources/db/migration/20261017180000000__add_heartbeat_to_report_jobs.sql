@@ -0,0 +1,19 @@
+ALTER TABLE report_jobs ADD COLUMN heartbeatdate timestamp with time zone;
+
+UPDATE report_jobs SET heartbeatdate = COALESCE(modifieddate, createddate, now());
+
+ALTER TABLE report_jobs ALTER COLUMN heartbeatdate SET NOT NULL;
+
+-- only the latest pending or running job for the same report is kept active
+UPDATE report_jobs j
+SET status = 'FAILED', completeddate = now()
+FROM (
+    SELECT id, row_number() OVER (PARTITION BY parametershash ORDER BY createddate DESC) AS position
+    FROM report_jobs
+    WHERE status IN ('PENDING', 'RUNNING')
+) active
+WHERE j.id = active.id AND active.position > 1;
+
+-- concurrent submissions of the same report cannot create two active jobs
+CREATE UNIQUE INDEX report_jobs_active_parametershash_idx ON report_jobs (parametershash)
+    WHERE status IN ('PENDING', 'RUNNING');
@@ -0,0 +1,21 @@
+-- the version was read before the flush and was never used, the recorded state replaces it
+ALTER TABLE requisition_audit_outbox
+    DROP COLUMN version,
+    ADD COLUMN state jsonb,
+    ADD COLUMN nextattemptdate timestamp with time zone NOT NULL DEFAULT now();
+
+-- used to find the oldest entry of each requisition, so its entries are recorded in order
+CREATE INDEX req_audit_outbox_requisitionid_id_idx
+    ON requisition_audit_outbox (requisitionid, id);
+
+-- entries that failed the maximum number of times, kept until they are recorded by hand
+CREATE TABLE requisition_audit_outbox_dead_letters (
+    id bigint PRIMARY KEY,
+    requisitionid uuid NOT NULL,
+    author text NOT NULL,
+    deleted boolean NOT NULL,
+    state jsonb,
+    createddate timestamp with time zone NOT NULL,
+    attempts integer NOT NULL,
+    deadletterdate timestamp with time zone NOT NULL DEFAULT now()
+);
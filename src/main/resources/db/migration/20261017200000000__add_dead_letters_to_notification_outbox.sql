@@ -0,0 +1,13 @@
+-- used to find the oldest notification of each recipient, so they are sent in order
+CREATE INDEX notification_outbox_userid_id_idx
+    ON notification_outbox (userid, id);
+
+-- notifications that failed the maximum number of times, kept until they are sent by hand
+CREATE TABLE notification_outbox_dead_letters (
+    id bigint PRIMARY KEY,
+    userid uuid NOT NULL,
+    notification jsonb NOT NULL,
+    createddate timestamp with time zone NOT NULL,
+    attempts integer NOT NULL,
+    deadletterdate timestamp with time zone NOT NULL DEFAULT now()
+);
@@ -15,105 +15,143 @@
 
 package org.openlmis.requisition;
 
-import static org.mockito.Matchers.any;
-import static org.mockito.Matchers.eq;
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.startsWith;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
+import static org.openlmis.requisition.AuditLogInitializer.AUTHOR;
 
-import com.google.common.collect.Lists;
-import java.util.ArrayList;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.List;
 import java.util.UUID;
-import lombok.AllArgsConstructor;
-import lombok.Getter;
+import java.util.stream.Collectors;
 import org.javers.core.Javers;
-import org.javers.core.metamodel.object.CdoSnapshot;
-import org.javers.repository.jql.JqlQuery;
-import org.javers.spring.annotation.JaversSpringDataAuditable;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.AuditLogInitializer.Partition;
 import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
 import org.openlmis.requisition.repository.RequisitionRepository;
-import org.powermock.api.mockito.PowerMockito;
-import org.powermock.core.classloader.annotations.PrepareForTest;
-import org.powermock.modules.junit4.PowerMockRunner;
-import org.springframework.context.ApplicationContext;
-import org.springframework.data.domain.Page;
-import org.springframework.data.domain.PageImpl;
-import org.springframework.data.domain.Pageable;
-import org.springframework.data.repository.PagingAndSortingRepository;
-
-@RunWith(PowerMockRunner.class)
-@PrepareForTest({CdoSnapshot.class})
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@RunWith(MockitoJUnitRunner.class)
 public class AuditLogInitializerTest {
+  private static final int PAGE_SIZE = 2;
 
   @Mock
-  private ApplicationContext applicationContext;
+  private RequisitionRepository requisitionRepository;
 
   @Mock
   private Javers javers;
 
   @Mock
-  private RequisitionRepository requisitionRepository;
+  private JdbcTemplate jdbcTemplate;
 
   @Mock
-  private CdoSnapshot snapshot;
+  private PlatformTransactionManager transactionManager;
 
-  @Mock
-  private TestItemRepository testItemRepository;
+  private Requisition first = new RequisitionDataBuilder().build();
+  private Requisition second = new RequisitionDataBuilder().build();
+  private Requisition third = new RequisitionDataBuilder().build();
 
   private AuditLogInitializer auditLogInitializer;
 
-  private Map<String, Object> repositoryMap = new HashMap<>();
-
   @Before
   public void setUp() {
-    auditLogInitializer = new AuditLogInitializer(applicationContext, javers);
+    auditLogInitializer = new AuditLogInitializer(requisitionRepository, javers, jdbcTemplate,
+        transactionManager, 1, 1, PAGE_SIZE);
+  }
+
+  @Test
+  public void shouldSplitUuidsIntoContiguousRanges() {
+    List<Partition> partitions = AuditLogInitializer.split(4);
 
-    when(applicationContext.getBeansWithAnnotation(JaversSpringDataAuditable.class))
-        .thenReturn(repositoryMap);
+    assertEquals(4, partitions.size());
+    assertEquals(new UUID(0, 0), partitions.get(0).getLowerBound());
+    assertEquals(new UUID(-1L, -1L), partitions.get(3).getUpperBound());
+
+    for (int index = 1; index < partitions.size(); ++index) {
+      Partition previous = partitions.get(index - 1);
+      Partition current = partitions.get(index);
+
+      assertEquals(previous.getUpperBound(), current.getLowerBound());
+      assertTrue(Long.compareUnsigned(previous.getLowerBound().getMostSignificantBits(),
+          current.getLowerBound().getMostSignificantBits()) < 0);
+    }
   }
 
   @Test
-  public void shouldNotCreateSnapshotIfRepositoryDoesNotExtendsRequiredInterface() {
-    repositoryMap.put("testItemRepository", testItemRepository);
+  public void shouldCreateSnapshotsPageByPageAndRemovePartitionsWhenDone() {
+    mockStoredPartitions(emptyList());
+    Partition partition = AuditLogInitializer.split(1).get(0);
+    mockPage(partition.getLowerBound(), first, second);
+    mockPage(second.getId(), third);
 
     auditLogInitializer.run();
 
-    verifyZeroInteractions(javers);
+    verify(jdbcTemplate).update(anyString(), eq(partition.getLowerBound()),
+        eq(partition.getUpperBound()), eq(partition.getLastId()));
+    verify(javers).commit(AUTHOR, first);
+    verify(javers).commit(AUTHOR, second);
+    verify(javers).commit(AUTHOR, third);
+    verify(jdbcTemplate).update(anyString(), eq(second.getId()), eq(false),
+        eq(partition.getLowerBound()));
+    verify(jdbcTemplate).update(anyString(), eq(third.getId()), eq(true),
+        eq(partition.getLowerBound()));
+    verify(jdbcTemplate).update(startsWith("DELETE"));
   }
 
   @Test
-  public void shouldNotCreateSecondSnapshot() {
-    repositoryMap.put("requisitionRepository", requisitionRepository);
+  public void shouldResumeAfterLastIdOfUnfinishedPartitions() {
+    Partition done = new Partition(new UUID(0, 0), new UUID(1, 0), new UUID(1, 0), true);
+    Partition unfinished = new Partition(new UUID(1, 0), new UUID(-1L, -1L), first.getId(),
+        false);
+    mockStoredPartitions(asList(done, unfinished));
+    mockPage(first.getId(), second);
 
-    ArrayList<Requisition> content = Lists.newArrayList(new RequisitionDataBuilder().build());
-    Page<Requisition> page = new PageImpl<>(content);
+    auditLogInitializer.run();
 
-    when(requisitionRepository.findAllWithoutSnapshots(any(Pageable.class)))
-        .thenReturn(page)
-        .thenReturn(new PageImpl<>(Lists.newArrayList()));
+    verify(jdbcTemplate, never()).queryForList(anyString(), eq(UUID.class),
+        eq(done.getLastId()), any(), any());
+    verify(javers, never()).commit(AUTHOR, first);
+    verify(javers).commit(AUTHOR, second);
+    verify(jdbcTemplate).update(startsWith("DELETE"));
+  }
 
-    PowerMockito.when(javers.findSnapshots(any(JqlQuery.class)))
-        .thenReturn(Lists.newArrayList(snapshot));
+  @Test
+  public void shouldKeepPartitionsIfSnapshotsCouldNotBeCreated() {
+    mockStoredPartitions(emptyList());
+    Partition partition = AuditLogInitializer.split(1).get(0);
+    mockPage(partition.getLowerBound(), first);
+    when(javers.commit(AUTHOR, first)).thenThrow(new IllegalStateException());
 
     auditLogInitializer.run();
-    verify(javers, never()).commit(eq("System: AuditLogInitializer"), any());
+
+    verify(jdbcTemplate, never()).update(startsWith("DELETE"));
   }
 
-  @Getter
-  @AllArgsConstructor
-  class TestItem {
-    UUID id;
+  @SuppressWarnings("unchecked")
+  private void mockStoredPartitions(List<Partition> partitions) {
+    when(jdbcTemplate.query(anyString(), any(RowMapper.class))).thenReturn(partitions);
   }
 
-  @JaversSpringDataAuditable
-  interface TestItemRepository
-      extends PagingAndSortingRepository<TestItem, UUID> {}
+  private void mockPage(UUID after, Requisition... requisitions) {
+    List<Requisition> page = asList(requisitions);
+    List<UUID> ids = page.stream().map(Requisition::getId).collect(Collectors.toList());
+
+    when(jdbcTemplate.queryForList(anyString(), eq(UUID.class), eq(after), any(), eq(PAGE_SIZE)))
+        .thenReturn(ids);
+    when(requisitionRepository.findAllById(ids)).thenReturn(page);
+  }
 }
@@ -0,0 +1,80 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openlmis.requisition.HttpClientConfiguration.LEASE_METRIC;
+import static org.openlmis.requisition.HttpClientConfiguration.POOL_NAME;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.TimeUnit;
+import org.apache.http.HttpClientConnection;
+import org.apache.http.HttpHost;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.impl.conn.PoolingHttpClientConnectionManager;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+public class HttpClientConfigurationTest {
+  private static final HttpRoute ROUTE = new HttpRoute(new HttpHost("localhost", 80));
+
+  private HttpClientConfiguration configuration = new HttpClientConfiguration();
+  private MeterRegistry registry = new SimpleMeterRegistry();
+  private PoolingHttpClientConnectionManager manager;
+
+  @Before
+  public void setUp() {
+    ReflectionTestUtils.setField(configuration, "maxConnections", 10);
+    ReflectionTestUtils.setField(configuration, "maxConnectionsPerRoute", 2);
+    ReflectionTestUtils.setField(configuration, "timeToLive", 300L);
+
+    manager = configuration.httpConnectionManager(registry);
+    configuration.httpConnectionPoolMetrics(manager).bindTo(registry);
+  }
+
+  @After
+  public void tearDown() {
+    manager.shutdown();
+  }
+
+  @Test
+  public void shouldLimitConnectionPool() {
+    // then
+    assertThat(manager.getMaxTotal()).isEqualTo(10);
+    assertThat(manager.getDefaultMaxPerRoute()).isEqualTo(2);
+    assertThat(registry.get("httpcomponents.httpclient.pool.route.max.default")
+        .tag("httpclient", POOL_NAME).gauge().value()).isEqualTo(2);
+  }
+
+  @Test
+  public void shouldRecordTimeOfLeasingConnection() throws Exception {
+    // when
+    HttpClientConnection connection = manager.requestConnection(ROUTE, null)
+        .get(1, TimeUnit.SECONDS);
+
+    // then
+    Timer timer = registry.get(LEASE_METRIC).tag("httpclient", POOL_NAME).timer();
+    assertThat(timer.count()).isEqualTo(1);
+    assertThat(registry.get("httpcomponents.httpclient.pool.total.connections")
+        .tags("httpclient", POOL_NAME, "state", "leased").gauge().value()).isEqualTo(1);
+
+    manager.releaseConnection(connection, null, 0, TimeUnit.SECONDS);
+  }
+}
@@ -0,0 +1,113 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.openlmis.requisition.TaskExecutionConfiguration.REJECTED_METRIC;
+import static org.springframework.boot.autoconfigure.task.TaskExecutionAutoConfiguration.APPLICATION_TASK_EXECUTOR_BEAN_NAME;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.task.TaskExecutorBuilder;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.authentication.TestingAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+
+public class TaskExecutionConfigurationTest {
+
+  private TaskExecutionConfiguration configuration = new TaskExecutionConfiguration();
+  private MeterRegistry registry = new SimpleMeterRegistry();
+  private ThreadPoolTaskExecutor executor;
+  private Authentication authentication = new TestingAuthenticationToken("admin", "password");
+
+  @Before
+  public void setUp() {
+    executor = new TaskExecutorBuilder()
+        .corePoolSize(1)
+        .maxPoolSize(1)
+        .queueCapacity(1)
+        .taskDecorator(configuration.securityContextTaskDecorator())
+        .customizers(configuration.rejectionPolicyCustomizer())
+        .build();
+    executor.initialize();
+
+    configuration.applicationTaskExecutorMetrics(executor).bindTo(registry);
+    SecurityContextHolder.getContext().setAuthentication(authentication);
+  }
+
+  @After
+  public void tearDown() {
+    executor.shutdown();
+    SecurityContextHolder.clearContext();
+  }
+
+  @Test
+  public void shouldPassSecurityContextToWorkerThread() throws Exception {
+    // given
+    AtomicReference<Authentication> workerAuthentication = new AtomicReference<>();
+
+    // when
+    Future<?> future = executor.submit(() -> workerAuthentication
+        .set(SecurityContextHolder.getContext().getAuthentication()));
+    future.get(5, TimeUnit.SECONDS);
+
+    // then
+    assertThat(workerAuthentication.get()).isSameAs(authentication);
+  }
+
+  @Test
+  public void shouldRunTaskOnCallerThreadAndCountItWhenExecutorIsSaturated() throws Exception {
+    // given
+    CountDownLatch release = new CountDownLatch(1);
+    executor.execute(() -> await(release));
+    executor.execute(() -> await(release));
+    AtomicReference<Thread> rejectedTaskThread = new AtomicReference<>();
+
+    // when
+    executor.execute(() -> rejectedTaskThread.set(Thread.currentThread()));
+    release.countDown();
+
+    // then
+    assertThat(rejectedTaskThread.get()).isSameAs(Thread.currentThread());
+    assertThat(SecurityContextHolder.getContext().getAuthentication()).isSameAs(authentication);
+    assertThat(registry.get(REJECTED_METRIC).tag("name", APPLICATION_TASK_EXECUTOR_BEAN_NAME)
+        .functionCounter().count()).isEqualTo(1);
+  }
+
+  @Test
+  public void shouldPublishExecutorMetrics() {
+    // then
+    assertThat(registry.get("executor.active").gauge().value()).isZero();
+    assertThat(registry.get("executor.queued").gauge().value()).isZero();
+    assertThat(registry.get("executor.pool.size").gauge().value()).isZero();
+  }
+
+  private void await(CountDownLatch latch) {
+    try {
+      latch.await(5, TimeUnit.SECONDS);
+    } catch (InterruptedException exp) {
+      Thread.currentThread().interrupt();
+    }
+  }
+}
@@ -0,0 +1,162 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.domain.requisition;
+
+import static org.junit.Assert.assertEquals;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+/**
+ * Checks that the integer arithmetic in {@link LineItemFieldsCalculator} gives exactly the same
+ * results as the {@link BigDecimal} and floating point formulas it replaced, on random values
+ * from realistic ranges and on values that are known to be sensitive to rounding.
+ */
+public class LineItemFieldsCalculatorEquivalenceTest {
+
+  private static final long SEED = 20261017L;
+  private static final int SAMPLES = 200_000;
+
+  private final Random random = new Random(SEED);
+
+  @Test
+  public void shouldCalculateAdjustedConsumptionLikeBigDecimalFormulaForRealisticValues() {
+    for (int i = 0; i < SAMPLES; i++) {
+      int months = 1 + random.nextInt(12);
+      int consumed = random.nextInt(1_000_000);
+      int stockoutDays = random.nextInt(30 * months + 1);
+
+      assertAdjustedConsumption(consumed, stockoutDays, months);
+    }
+  }
+
+  @Test
+  public void shouldCalculateAdjustedConsumptionLikeBigDecimalFormulaForWholeProducts() {
+    for (int i = 0; i < SAMPLES; i++) {
+      int months = 1 + random.nextInt(12);
+      int nonStockoutDays = 1 + random.nextInt(30 * months);
+      int consumed = nonStockoutDays * random.nextInt(1000);
+
+      assertAdjustedConsumption(consumed, 30 * months - nonStockoutDays, months);
+    }
+  }
+
+  @Test
+  public void shouldCalculateAdjustedConsumptionLikeBigDecimalFormulaForAllSmallValues() {
+    for (int months = -2; months <= 4; months++) {
+      for (int stockoutDays = -40; stockoutDays <= 150; stockoutDays++) {
+        for (int consumed = -50; consumed <= 250; consumed++) {
+          assertAdjustedConsumption(consumed, stockoutDays, months);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldCalculateAdjustedConsumptionLikeBigDecimalFormulaForExtremeValues() {
+    int[] values = { Integer.MIN_VALUE, Integer.MIN_VALUE + 1, -1_000_003, -7, -1, 0, 1, 7, 29,
+        31, 1_000_003, Integer.MAX_VALUE - 1, Integer.MAX_VALUE };
+
+    for (int consumed : values) {
+      for (int stockoutDays : values) {
+        for (int months : values) {
+          assertAdjustedConsumption(consumed, stockoutDays, months);
+        }
+      }
+    }
+  }
+
+  @Test
+  public void shouldCalculateAverageConsumptionLikeFloatingPointFormula() {
+    for (int i = 0; i < SAMPLES; i++) {
+      List<Integer> adjustedConsumptions = new ArrayList<>();
+      int numberOfPeriods = 1 + random.nextInt(6);
+      for (int j = 0; j < numberOfPeriods; j++) {
+        adjustedConsumptions.add(random.nextInt(2_000_000) - 1_000_000);
+      }
+
+      int expected = calculateAverageConsumptionWithDoubles(adjustedConsumptions);
+
+      assertEquals(adjustedConsumptions.toString(), expected,
+          LineItemFieldsCalculator.calculateAverageConsumption(adjustedConsumptions));
+      assertEquals(adjustedConsumptions.toString(), expected,
+          LineItemFieldsCalculator.calculateAverageConsumption(
+              adjustedConsumptions.subList(1, numberOfPeriods), adjustedConsumptions.get(0)));
+    }
+  }
+
+  @Test
+  public void shouldCalculateAverageConsumptionLikeFloatingPointFormulaWhenSumOverflows() {
+    List<Integer> adjustedConsumptions = new ArrayList<>();
+    adjustedConsumptions.add(Integer.MAX_VALUE);
+    adjustedConsumptions.add(Integer.MAX_VALUE);
+    adjustedConsumptions.add(3);
+
+    assertEquals(calculateAverageConsumptionWithDoubles(adjustedConsumptions),
+        LineItemFieldsCalculator.calculateAverageConsumption(adjustedConsumptions));
+    assertEquals(calculateAverageConsumptionWithDoubles(adjustedConsumptions.subList(0, 2)),
+        LineItemFieldsCalculator.calculateAverageConsumption(adjustedConsumptions.subList(0, 2)));
+  }
+
+  private void assertAdjustedConsumption(int consumed, int stockoutDays, int months) {
+    assertEquals(String.format("consumed: %d, stockout days: %d, months: %d",
+        consumed, stockoutDays, months),
+        calculateAdjustedConsumptionWithBigDecimals(consumed, stockoutDays, months),
+        LineItemFieldsCalculator.calculateAdjustedConsumptionValue(
+            consumed, stockoutDays, months));
+  }
+
+  private int calculateAdjustedConsumptionWithBigDecimals(int consumedQuantity,
+      int stockoutDays, int monthsInThePeriod) {
+    if (consumedQuantity == 0) {
+      return 0;
+    }
+
+    final int totalDays = 30 * monthsInThePeriod;
+    final int nonStockoutDays = totalDays - stockoutDays;
+
+    if (nonStockoutDays == 0) {
+      return consumedQuantity;
+    }
+
+    BigDecimal divide = new BigDecimal(totalDays)
+        .divide(new BigDecimal(nonStockoutDays), 1000, BigDecimal.ROUND_HALF_UP);
+
+    return new BigDecimal(consumedQuantity)
+        .multiply(divide)
+        .setScale(0, RoundingMode.CEILING)
+        .intValue();
+  }
+
+  private int calculateAverageConsumptionWithDoubles(List<Integer> adjustedConsumptions) {
+    int numberOfPeriods = adjustedConsumptions.size();
+    if (numberOfPeriods == 1) {
+      return adjustedConsumptions.get(0);
+    }
+
+    if (numberOfPeriods == 2) {
+      return (int) Math.ceil((adjustedConsumptions.get(0) + adjustedConsumptions.get(1)) / 2.0);
+    }
+
+    int sum = adjustedConsumptions.stream().reduce(0, Integer::sum);
+
+    return (int) Math.ceil((double) sum / numberOfPeriods);
+  }
+}
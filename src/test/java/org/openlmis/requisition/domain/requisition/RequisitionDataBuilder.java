@@ -278,8 +278,7 @@ public class RequisitionDataBuilder implements DataBuilder<Requisition>,
    */
   public RequisitionDataBuilder withPermissionStrings() {
     permissionStrings.add(new RequisitionPermissionString(null,
-        String.join("|", PermissionService.REQUISITION_VIEW, facilityId.toString(),
-            programId.toString())));
+        PermissionService.REQUISITION_VIEW, facilityId, programId));
     return this;
   }
 
@@ -994,7 +994,7 @@ public class RequisitionTest {
     adjustedConsumptions.add(5);
     prepareForTestAverageConsumption(adjustedConsumptions);
     when(LineItemFieldsCalculator
-        .calculateAverageConsumption(Arrays.asList(5, ADJUSTED_CONSUMPTION)))
+        .calculateAverageConsumption(adjustedConsumptions, ADJUSTED_CONSUMPTION))
         .thenReturn(AVERAGE_CONSUMPTION);
 
     //when
@@ -1014,7 +1014,7 @@ public class RequisitionTest {
     adjustedConsumptions.add(5);
     prepareForTestAverageConsumption(adjustedConsumptions);
     when(LineItemFieldsCalculator
-        .calculateAverageConsumption(Arrays.asList(5, 5, 5, ADJUSTED_CONSUMPTION)))
+        .calculateAverageConsumption(adjustedConsumptions, ADJUSTED_CONSUMPTION))
         .thenReturn(AVERAGE_CONSUMPTION);
 
     //when
@@ -1354,6 +1354,33 @@ public class RequisitionTest {
     assertThat(req.findLineByProduct(orderable.getId(), 1L).getTotalStockoutDays(), is(3));
   }
 
+  @Test
+  public void shouldFindStockCardRangeSummaryOfOrderableIfRequisitionIsStockBased() {
+    Map<UUID, Integer> orderableSoh = Maps.newHashMap();
+    orderableSoh.put(orderable.getId(), 1000);
+
+    stockCardRangeSummaryDto.getOrderable().setId(orderable.getId());
+    StockCardRangeSummaryDto otherSummary = new StockCardRangeSummaryDtoDataBuilder()
+        .withStockOutDays(10)
+        .buildAsDto();
+    StockCardRangeSummaryDto duplicatedSummary = new StockCardRangeSummaryDtoDataBuilder()
+        .withOrderableId(orderable.getId())
+        .withStockOutDays(20)
+        .buildAsDto();
+
+    RequisitionTemplate requisitionTemplate = mockStockBasedRequisitionTemplate();
+
+    Requisition req = createRequisitionWithStatusOf(RequisitionStatus.INITIATED);
+    req.setNumberOfMonthsInPeriod(1);
+
+    req.initiate(requisitionTemplate, singletonList(product), emptyList(), 0, null, emptyMap(),
+        UUID.randomUUID(), new StockData(orderableSoh, emptyMap()),
+        asList(otherSummary, stockCardRangeSummaryDto, duplicatedSummary),
+        singletonList(stockCardRangeSummaryDto), singletonList(period));
+
+    assertThat(req.findLineByProduct(orderable.getId(), 1L).getTotalStockoutDays(), is(3));
+  }
+
   @Test
   public void shouldNotExceedNumberOfDaysInPeriod() {
     Map<UUID, Integer> orderableSoh = Maps.newHashMap();
@@ -1740,7 +1767,7 @@ public class RequisitionTest {
             CURRENCY_UNIT))
         .thenReturn(TOTAL_COST);
     when(LineItemFieldsCalculator
-        .calculateAverageConsumption(Collections.singletonList(ADJUSTED_CONSUMPTION)))
+        .calculateAverageConsumption(Collections.emptyList(), ADJUSTED_CONSUMPTION))
         .thenReturn(AVERAGE_CONSUMPTION);
 
     when(template.isColumnInTemplateAndDisplayed(any())).thenReturn(true);
@@ -16,10 +16,13 @@
 package org.openlmis.requisition.service;
 
 import static org.hamcrest.Matchers.allOf;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.greaterThan;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasProperty;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.isA;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.Matchers.startsWith;
@@ -34,11 +37,20 @@ import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import com.google.common.collect.ImmutableList;
+import java.lang.reflect.Array;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 import org.apache.http.NameValuePair;
 import org.apache.http.client.utils.URLEncodedUtils;
 import org.junit.After;
@@ -54,6 +66,7 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.requisition.dto.ResultDto;
 import org.openlmis.requisition.utils.DynamicPageTypeReference;
 import org.openlmis.requisition.utils.DynamicResultDtoTypeReference;
+import org.openlmis.requisition.utils.RequestHelper;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpMethod;
@@ -195,6 +208,46 @@ public abstract class BaseCommunicationServiceTest<T> {
     verify(authService, times(2)).obtainAccessToken();
   }
 
+  @Test
+  public void shouldFindByIdOnAsyncExecutor() {
+    // given
+    UUID id = UUID.randomUUID();
+    List<Runnable> tasks = new ArrayList<>();
+    service.setAsyncExecutor(task -> {
+      tasks.add(task);
+      task.run();
+    });
+
+    // when
+    T instance = mockResponseEntityAndGetDto();
+    CompletableFuture<T> found = service.findOneAsync(id);
+
+    // then
+    assertThat(found.join(), is(instance));
+    assertThat(tasks, hasSize(1));
+
+    verifyRequest()
+        .isGetRequest()
+        .hasAuthHeader()
+        .hasEmptyBody()
+        .isUriStartsWith(service.getServiceUrl() + service.getUrl() + id);
+  }
+
+  @Test
+  public void shouldCompleteAsyncRequestExceptionallyIfThereIsProblemWithFindingById() {
+    // given
+    UUID id = UUID.randomUUID();
+
+    // when
+    mockRequestFail(HttpStatus.BAD_REQUEST);
+    CompletableFuture<T> found = service.findOneAsync(id);
+
+    // then
+    assertThat(found.isCompletedExceptionally(), is(true));
+    expectedException.expectCause(isA(DataRetrievalException.class));
+    found.join();
+  }
+
   @Test
   public void shouldFindAllResources() {
     // when
@@ -211,6 +264,39 @@ public abstract class BaseCommunicationServiceTest<T> {
         .isUriStartsWith(service.getServiceUrl() + service.getUrl());
   }
 
+  @Test
+  public void shouldSendSplitRequestsConcurrentlyAndMergeResponsesInOrder() throws Exception {
+    // given
+    RequestParameters parameters = RequestParameters.init().set("id", generateIds(300));
+    String url = service.getServiceUrl() + service.getUrl();
+    final URI[] uris = RequestHelper.splitRequest(url, parameters, 2000);
+
+    Map<URI, T> responses = new ConcurrentHashMap<>();
+    when(restTemplate.exchange(any(URI.class), eq(HttpMethod.GET), any(HttpEntity.class),
+        eq(service.getArrayResultClass())))
+        .thenAnswer(invocation -> {
+          T dto = generateInstance();
+          responses.put(invocation.getArgument(0), dto);
+          return ResponseEntity.ok(ImmutableList.of(dto).toArray((T[]) Array
+              .newInstance(service.getResultClass(), 1)));
+        });
+
+    ExecutorService executor = Executors.newFixedThreadPool(3);
+    service.setAsyncExecutor(executor);
+
+    // when
+    List<T> found;
+    try {
+      found = service.findAll("", parameters);
+    } finally {
+      executor.shutdown();
+    }
+
+    // then
+    assertThat(uris.length, is(greaterThan(1)));
+    assertThat(found, contains(Stream.of(uris).map(responses::get).distinct().toArray()));
+  }
+
   protected abstract T generateInstance();
 
   protected abstract BaseCommunicationService<T> getService();
@@ -221,10 +307,18 @@ public abstract class BaseCommunicationServiceTest<T> {
     service.setAuthService(authService);
 
     ReflectionTestUtils.setField(service, "maxUrlLength", 2000);
+    ReflectionTestUtils.setField(service, "maxParallelRequests", 4);
 
     return service;
   }
 
+  private List<UUID> generateIds(int count) {
+    return Stream
+        .generate(UUID::randomUUID)
+        .limit(count)
+        .collect(Collectors.toList());
+  }
+
   protected void disableAuthCheck() {
     checkAuth = false;
   }
@@ -18,6 +18,7 @@ package org.openlmis.requisition.service;
 import static org.junit.Assert.assertNotNull;
 import static org.mockito.Mockito.mock;
 
+import java.io.ByteArrayOutputStream;
 import net.sf.jasperreports.engine.JRException;
 import net.sf.jasperreports.engine.JasperPrint;
 import org.junit.Test;
@@ -27,18 +28,24 @@ public class JasperExporterTest {
   @Test
   public void csvExportReportShouldReturnData() throws JRException {
     JasperCsvExporter exporter = new JasperCsvExporter(mock(JasperPrint.class));
-    assertNotNull(exporter.exportReport());
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    exporter.exportReport(outputStream);
+    assertNotNull(outputStream.toByteArray());
   }
 
   @Test
   public void xlsExportReportShouldReturnData() throws JRException {
     JasperXlsExporter exporter = new JasperXlsExporter(new JasperPrint());
-    assertNotNull(exporter.exportReport());
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    exporter.exportReport(outputStream);
+    assertNotNull(outputStream.toByteArray());
   }
 
   @Test
   public void htmlExportReportShouldReturnData() throws JRException {
     JasperHtmlExporter exporter = new JasperHtmlExporter(mock(JasperPrint.class));
-    assertNotNull(exporter.exportReport());
+    ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+    exporter.exportReport(outputStream);
+    assertNotNull(outputStream.toByteArray());
   }
 }
@@ -0,0 +1,106 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Mockito.mock;
+
+import java.util.Arrays;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
+import net.sf.jasperreports.engine.JasperReport;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.exception.JasperReportViewException;
+import org.openlmis.requisition.i18n.MessageKeys;
+
+public class JasperReportCacheTest {
+
+  private JasperReportCache cache = new JasperReportCache(10);
+  private JasperTemplate template = new JasperTemplate();
+  private AtomicInteger loads = new AtomicInteger();
+
+  @Before
+  public void setUp() {
+    template.setId(UUID.randomUUID());
+    template.setData(new byte[]{1, 2, 3});
+  }
+
+  @Test
+  public void shouldLoadTemplateReportOnlyOnce() throws Exception {
+    // when
+    JasperReport first = cache.getTemplateReport(template, this::load);
+    JasperReport second = cache.getTemplateReport(template, this::load);
+
+    // then
+    assertThat(second, is(sameInstance(first)));
+    assertThat(loads.get(), is(1));
+  }
+
+  @Test
+  public void shouldLoadTemplateReportAgainIfDataChanged() throws Exception {
+    // given
+    cache.getTemplateReport(template, this::load);
+
+    // when
+    template.setData(new byte[]{3, 2, 1});
+    cache.getTemplateReport(template, this::load);
+
+    // then
+    assertThat(loads.get(), is(2));
+  }
+
+  @Test
+  public void shouldLoadTemplateReportAgainIfEvicted() throws Exception {
+    // given
+    cache.getTemplateReport(template, this::load);
+    cache.getResourceReport("/report.jrxml", this::load);
+
+    // when
+    cache.evictTemplate(template.getId());
+    cache.getTemplateReport(template, this::load);
+    cache.getResourceReport("/report.jrxml", this::load);
+
+    // then
+    assertThat(loads.get(), is(3));
+  }
+
+  @Test
+  public void shouldKeepLineSubreportsByColumns() throws Exception {
+    // when
+    cache.getLineSubreport(Arrays.asList("a", "b"), this::load);
+    cache.getLineSubreport(Arrays.asList("a", "b"), this::load);
+    cache.getLineSubreport(Arrays.asList("b", "a"), this::load);
+
+    // then
+    assertThat(loads.get(), is(2));
+  }
+
+  @Test(expected = JasperReportViewException.class)
+  public void shouldRethrowLoaderException() throws Exception {
+    cache.getResourceReport("/report.jrxml", () -> {
+      throw new JasperReportViewException(null, MessageKeys.ERROR_IO);
+    });
+  }
+
+  private JasperReport load() {
+    loads.incrementAndGet();
+    return mock(JasperReport.class);
+  }
+}
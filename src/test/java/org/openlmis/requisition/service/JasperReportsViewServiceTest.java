@@ -15,12 +15,17 @@
 
 package org.openlmis.requisition.service;
 
-import static java.util.Collections.singletonList;
+import static org.hamcrest.Matchers.instanceOf;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
 import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
@@ -32,9 +37,11 @@ import static org.openlmis.requisition.domain.requisition.RequisitionStatus.INIT
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.RELEASED;
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.RELEASED_WITHOUT_ORDER;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
+import java.io.OutputStream;
 import java.sql.Connection;
 import java.text.DecimalFormat;
 import java.text.DecimalFormatSymbols;
@@ -42,18 +49,25 @@ import java.text.NumberFormat;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.EnumSet;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 import java.util.stream.Collectors;
 import javax.sql.DataSource;
 import net.sf.jasperreports.engine.JRDataSource;
+import net.sf.jasperreports.engine.JRParameter;
 import net.sf.jasperreports.engine.JasperPrint;
 import net.sf.jasperreports.engine.JasperReport;
+import net.sf.jasperreports.engine.fill.JRAbstractLRUVirtualizer;
+import net.sf.jasperreports.engine.fill.JRGzipVirtualizer;
+import net.sf.jasperreports.engine.fill.JRSwapFileVirtualizer;
 import org.junit.Assert;
 import org.junit.Before;
 import org.junit.Test;
@@ -63,6 +77,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.junit.MockitoJUnitRunner;
 import org.openlmis.requisition.domain.JasperTemplate;
 import org.openlmis.requisition.domain.RequisitionTemplate;
@@ -78,8 +93,7 @@ import org.openlmis.requisition.dto.ProgramDto;
 import org.openlmis.requisition.dto.RequisitionReportDto;
 import org.openlmis.requisition.dto.SupervisoryNodeDto;
 import org.openlmis.requisition.exception.JasperReportViewException;
-import org.openlmis.requisition.repository.custom.DefaultRequisitionSearchParams;
-import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
+import org.openlmis.requisition.repository.RequisitionRepository;
 import org.openlmis.requisition.service.referencedata.FacilityReferenceDataService;
 import org.openlmis.requisition.service.referencedata.GeographicZoneReferenceDataService;
 import org.openlmis.requisition.service.referencedata.PeriodReferenceDataService;
@@ -87,7 +101,6 @@ import org.openlmis.requisition.service.referencedata.ProgramReferenceDataServic
 import org.openlmis.requisition.testutils.DtoGenerator;
 import org.openlmis.requisition.web.ReportingRateReportDtoBuilder;
 import org.openlmis.requisition.web.RequisitionReportDtoBuilder;
-import org.springframework.data.domain.Page;
 import org.springframework.test.util.ReflectionTestUtils;
 
 @SuppressWarnings({"PMD.TooManyMethods"})
@@ -120,7 +133,7 @@ public class JasperReportsViewServiceTest {
   private ReportingRateReportDtoBuilder reportingRateReportDtoBuilder; //NOPMD
 
   @Mock
-  private RequisitionService requisitionService;
+  private RequisitionRepository requisitionRepository;
 
   @Mock
   private ObjectInputStream objectInputStream;
@@ -146,6 +159,9 @@ public class JasperReportsViewServiceTest {
   @Mock
   private DataSource replicationDataSource; //NOPMD
 
+  @Spy
+  private JasperReportCache jasperReportCache = new JasperReportCache(10); //NOPMD
+
   @InjectMocks
   private JasperReportsViewService service;
 
@@ -163,8 +179,12 @@ public class JasperReportsViewServiceTest {
 
   private Map<String, Object> reportParams = new HashMap<>();
 
+  private Set<UUID> facilitiesWithRnR = new HashSet<>();
+
   private byte[] expectedReportData;
 
+  private ByteArrayOutputStream outputStream = new ByteArrayOutputStream();
+
   @Before
   public void setUp() throws Exception {
     generateRequisition();
@@ -184,9 +204,17 @@ public class JasperReportsViewServiceTest {
         .fillJasperReport(any(JasperReport.class), anyMap(), nullable(Connection.class));
     doReturn(jasperPrint).when(service)
         .fillJasperReport(any(JasperReport.class), anyMap(), any(JRDataSource.class));
-    doReturn(expectedReportData).when(service).exportJasperReportToPdf(any(JasperPrint.class));
+    doAnswer(this::writeReportData).when(service)
+        .exportJasperReportToPdf(any(JasperPrint.class), any(OutputStream.class));
 
     MockitoAnnotations.initMocks(this);
+
+    when(requisitionRepository.searchFacilityIdsWithRequisitions(eq(program.getId()),
+        eq(period.getId()), eq(EnumSet.of(APPROVED, RELEASED, RELEASED_WITHOUT_ORDER)), any()))
+        .thenAnswer(invocation -> ((Collection<UUID>) invocation.getArgument(3))
+            .stream()
+            .filter(facilitiesWithRnR::contains)
+            .collect(Collectors.toSet()));
   }
 
   @Test
@@ -194,49 +222,52 @@ public class JasperReportsViewServiceTest {
     //given
 
     //when
-    byte[] reportData = service.generateReport(jasperTemplate, reportParams);
+    service.generateReport(jasperTemplate, reportParams, outputStream);
     
     //then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
   }
 
   @Test
   public void generateReportShouldReturnCsvReport() throws Exception {
     //given
     reportParams.put(PARAM_KEY_FORMAT, "csv");
-    doReturn(expectedReportData).when(service).exportJasperReportToCsv(any(JasperPrint.class));
+    doAnswer(this::writeReportData).when(service)
+        .exportJasperReportToCsv(any(JasperPrint.class), any(OutputStream.class));
 
     //when
-    byte[] reportData = service.generateReport(jasperTemplate, reportParams);
+    service.generateReport(jasperTemplate, reportParams, outputStream);
 
     //then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
   }
 
   @Test
   public void generateReportShouldReturnXlsReport() throws Exception {
     //given
     reportParams.put(PARAM_KEY_FORMAT, "xls");
-    doReturn(expectedReportData).when(service).exportJasperReportToXls(any(JasperPrint.class));
+    doAnswer(this::writeReportData).when(service)
+        .exportJasperReportToXls(any(JasperPrint.class), any(OutputStream.class));
 
     //when
-    byte[] reportData = service.generateReport(jasperTemplate, reportParams);
+    service.generateReport(jasperTemplate, reportParams, outputStream);
 
     //then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
   }
 
   @Test
   public void generateReportShouldReturnHtmlReport() throws Exception {
     //given
     reportParams.put(PARAM_KEY_FORMAT, "html");
-    doReturn(expectedReportData).when(service).exportJasperReportToHtml(any(JasperPrint.class));
+    doAnswer(this::writeReportData).when(service)
+        .exportJasperReportToHtml(any(JasperPrint.class), any(OutputStream.class));
 
     //when
-    byte[] reportData = service.generateReport(jasperTemplate, reportParams);
+    service.generateReport(jasperTemplate, reportParams, outputStream);
 
     //then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
   }
 
   @Test
@@ -251,14 +282,15 @@ public class JasperReportsViewServiceTest {
     when(geographicZoneReferenceDataService.findOne(districtId)).thenReturn(district);
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    service.generateTimelinessReport(jasperTemplate, reportParams, outputStream);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture(),
+        eq(outputStream));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
     Assert.assertEquals(Collections.emptyList(), facilities);
     Assert.assertEquals(program, outputParams.get(PROGRAM));
     Assert.assertEquals(period, outputParams.get(PERIOD));
@@ -293,14 +325,15 @@ public class JasperReportsViewServiceTest {
     when(facilityReferenceDataService.findAll()).thenReturn(facilitiesToReturn);
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    service.generateTimelinessReport(jasperTemplate, reportParams, outputStream);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture(),
+        eq(outputStream));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
     assertEquals(2, facilities.size());
     List<UUID> facilityIds = facilities.stream()
         .map(FacilityDto::getId).collect(Collectors.toList());
@@ -338,14 +371,15 @@ public class JasperReportsViewServiceTest {
         .thenReturn(Arrays.asList(facility, childFacility));
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    service.generateTimelinessReport(jasperTemplate, reportParams, outputStream);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture(),
+        eq(outputStream));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
     assertEquals(2, facilities.size());
     List<UUID> facilityIds = facilities.stream()
         .map(FacilityDto::getId).collect(Collectors.toList());
@@ -377,14 +411,15 @@ public class JasperReportsViewServiceTest {
     when(facilityReferenceDataService.findAll()).thenReturn(facilitiesToReturn);
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    service.generateTimelinessReport(jasperTemplate, reportParams, outputStream);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture(),
+        eq(outputStream));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
     assertEquals(4, facilities.size());
     List<UUID> facilityIds = facilities.stream()
         .map(FacilityDto::getId).collect(Collectors.toList());
@@ -415,14 +450,15 @@ public class JasperReportsViewServiceTest {
         facility2B, facility2A, facility1A, facility1B));
 
     // when
-    byte[] reportData = service.generateTimelinessReport(jasperTemplate, reportParams);
+    service.generateTimelinessReport(jasperTemplate, reportParams, outputStream);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture(),
+        eq(outputStream));
     Map<String, Object> outputParams = paramArg.getValue();
     List<FacilityDto> facilities = extractFacilitiesFromOutputParams(outputParams);
 
     // then
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
     assertEquals(4, facilities.size());
     assertEquals(facility1A.getId(), facilities.get(0).getId());
     assertEquals(facility1B.getId(), facilities.get(1).getId());
@@ -430,6 +466,30 @@ public class JasperReportsViewServiceTest {
     assertEquals(facility2B.getId(), facilities.get(3).getId());
   }
 
+  @Test
+  public void generateTemplateReportShouldSetDefaultDueDaysOfReportingRateReport()
+      throws Exception {
+    when(jasperTemplate.getType()).thenReturn("Reporting Rate Report");
+    doNothing().when(service).generateReportingRateReport(jasperTemplate, reportParams,
+        outputStream);
+
+    service.generateTemplateReport(jasperTemplate, reportParams, outputStream);
+
+    verify(service).generateReportingRateReport(jasperTemplate, reportParams, outputStream);
+    assertEquals("10", reportParams.get("DueDays"));
+  }
+
+  @Test
+  public void generateTemplateReportShouldGenerateTimelinessReport() throws Exception {
+    when(jasperTemplate.getType()).thenReturn("Timeliness Report");
+    doNothing().when(service).generateTimelinessReport(jasperTemplate, reportParams,
+        outputStream);
+
+    service.generateTemplateReport(jasperTemplate, reportParams, outputStream);
+
+    verify(service).generateTimelinessReport(jasperTemplate, reportParams, outputStream);
+  }
+
   @Test
   public void generateReportingRateReportShouldSetParams() throws Exception {
     UUID districtId = UUID.randomUUID();
@@ -439,7 +499,7 @@ public class JasperReportsViewServiceTest {
     reportParams.put("DueDays", "10");
     when(geographicZoneReferenceDataService.findOne(districtId)).thenReturn(district);
 
-    service.generateReportingRateReport(jasperTemplate, reportParams);
+    service.generateReportingRateReport(jasperTemplate, reportParams, outputStream);
 
     assertEquals(DATE_FORMAT, reportParams.get("dateFormat"));
     assertEquals(createDecimalFormat(), reportParams.get("decimalFormat"));
@@ -453,18 +513,64 @@ public class JasperReportsViewServiceTest {
     RequisitionReportDto requisitionReportDto = DtoGenerator.of(RequisitionReportDto.class);
     when(requisitionReportDtoBuilder.build(requisition)).thenReturn(requisitionReportDto);
 
-    byte[] reportData = service.generateRequisitionReport(requisition);
+    service.generateRequisitionReport(requisition, outputStream);
     ArgumentCaptor<Map<String,Object>> paramArg = ArgumentCaptor.forClass(Map.class);
-    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture());
+    verify(service).fillAndExportReport(any(JasperReport.class), paramArg.capture(),
+        eq(outputStream));
     Map<String, Object> outputParams = paramArg.getValue();
 
-    assertEquals(expectedReportData, reportData);
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
     assertEquals(DATE_FORMAT, outputParams.get("dateFormat"));
     assertEquals(createDecimalFormat(), outputParams.get("decimalFormat"));
     assertEquals(NumberFormat.getCurrencyInstance(locale),
         outputParams.get("currencyDecimalFormat"));
   }
 
+  @Test
+  public void generateReportShouldReadTemplateDataOnlyOnce() throws Exception {
+    service.generateReport(jasperTemplate, reportParams, outputStream);
+    service.generateReport(jasperTemplate, reportParams, outputStream);
+
+    verify(service).readReportData(any(ObjectInputStream.class));
+  }
+
+  @Test
+  public void generateReportShouldUseConfiguredVirtualizer() throws Exception {
+    ReflectionTestUtils.setField(service, "virtualizerType", "gzip");
+    ReflectionTestUtils.setField(service, "virtualizerMaxSize", 10);
+
+    service.generateReport(jasperTemplate, reportParams, outputStream);
+
+    assertThat(reportParams.get(JRParameter.REPORT_VIRTUALIZER),
+        instanceOf(JRGzipVirtualizer.class));
+    assertArrayEquals(expectedReportData, outputStream.toByteArray());
+  }
+
+  @Test
+  public void generateReportShouldNotUseVirtualizerIfNotConfigured() throws Exception {
+    ReflectionTestUtils.setField(service, "virtualizerType", "none");
+
+    service.generateReport(jasperTemplate, reportParams, outputStream);
+
+    assertFalse(reportParams.containsKey(JRParameter.REPORT_VIRTUALIZER));
+  }
+
+  @Test
+  public void createVirtualizerShouldCreateSwapFileVirtualizer() {
+    ReflectionTestUtils.setField(service, "virtualizerType", "swap");
+    ReflectionTestUtils.setField(service, "virtualizerMaxSize", 10);
+
+    JRAbstractLRUVirtualizer virtualizer = service.createVirtualizer();
+
+    assertThat(virtualizer, instanceOf(JRSwapFileVirtualizer.class));
+    virtualizer.cleanup();
+  }
+
+  private Object writeReportData(InvocationOnMock invocation) throws IOException {
+    invocation.getArgument(1, OutputStream.class).write(expectedReportData);
+    return null;
+  }
+
   private List<FacilityDto> extractFacilitiesFromOutputParams(Map<String, Object> outputParams) {
     return (List<FacilityDto>) outputParams.get("datasource");
   }
@@ -512,17 +618,9 @@ public class JasperReportsViewServiceTest {
 
     when(geographicZoneReferenceDataService.findOne(districtId)).thenReturn(geographicZoneDto);
 
-    Requisition mockRequisition = mock(Requisition.class);
-    Page<Requisition> requisitionPage = mock(Page.class);
-    when(requisitionPage.getContent()).thenReturn(
-        (isMissingRnR) ? Collections.emptyList() : singletonList(mockRequisition));
-
-    RequisitionSearchParams params = new DefaultRequisitionSearchParams(
-        facilityId, program.getId(), period.getId(), null, null, null, null,
-        null, null, EnumSet.of(APPROVED, RELEASED, RELEASED_WITHOUT_ORDER));
-
-    when(requisitionService.searchRequisitions(eq(params), any()))
-        .thenReturn(requisitionPage);
+    if (!isMissingRnR) {
+      facilitiesWithRnR.add(facilityId);
+    }
 
     return geographicZoneDto;
   }
@@ -0,0 +1,326 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyMap;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.requisition.i18n.MessageKeys.ERROR_IO;
+import static org.openlmis.requisition.service.ReportJobService.STALE_HEARTBEATS;
+import static org.openlmis.requisition.service.ReportJobService.STOPPED_MESSAGE;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.MockitoAnnotations;
+import org.openlmis.requisition.domain.JasperTemplate;
+import org.openlmis.requisition.domain.ReportJob;
+import org.openlmis.requisition.domain.ReportJobStatus;
+import org.openlmis.requisition.exception.JasperReportViewException;
+import org.openlmis.requisition.repository.ReportJobRepository;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.test.util.ReflectionTestUtils;
+
+@SuppressWarnings("PMD.TooManyMethods")
+public class ReportJobServiceTest {
+  private static final String PDF = "pdf";
+  private static final String HASH = "hash";
+  private static final long TIME_TO_LIVE = 3600;
+  private static final long HEARTBEAT_INTERVAL = 30000;
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock
+  private ReportJobRepository reportJobRepository;
+
+  @Mock
+  private JasperReportsViewService jasperReportsViewService;
+
+  @Mock
+  private ThreadPoolTaskExecutor executor;
+
+  @InjectMocks
+  private ReportJobService reportJobService;
+
+  private JasperTemplate template;
+  private Map<String, Object> params;
+
+  @Before
+  public void setUp() {
+    MockitoAnnotations.initMocks(this);
+    ReflectionTestUtils.setField(reportJobService, "directory",
+        temporaryFolder.getRoot().getPath());
+    ReflectionTestUtils.setField(reportJobService, "timeToLive", TIME_TO_LIVE);
+    ReflectionTestUtils.setField(reportJobService, "heartbeatInterval", HEARTBEAT_INTERVAL);
+
+    template = new JasperTemplate();
+    template.setId(UUID.randomUUID());
+    template.setName("Reporting Rate Report");
+    template.setData(new byte[] { 1 });
+
+    params = new HashMap<>();
+    params.put("format", PDF);
+    params.put("Program", UUID.randomUUID().toString());
+
+    when(reportJobRepository.save(any(ReportJob.class))).thenAnswer(invocation -> {
+      ReportJob job = invocation.getArgument(0);
+      if (null == job.getId()) {
+        job.setId(UUID.randomUUID());
+      }
+      return job;
+    });
+    when(reportJobRepository.existsById(any(UUID.class))).thenReturn(true);
+    doAnswer(invocation -> {
+      invocation.getArgument(0, Runnable.class).run();
+      return null;
+    }).when(executor).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void shouldGenerateSubmittedReport() throws Exception {
+    // given
+    byte[] report = new byte[] { 1, 2, 3 };
+    doAnswer(invocation -> {
+      invocation.getArgument(2, OutputStream.class).write(report);
+      return null;
+    }).when(jasperReportsViewService)
+        .generateTemplateReport(any(JasperTemplate.class), anyMap(), any(OutputStream.class));
+
+    // when
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // then
+    assertEquals(ReportJobStatus.COMPLETED, job.getStatus());
+    assertEquals("Reporting_Rate_Report.pdf", job.getFileName());
+    assertArrayEquals(report, Files.readAllBytes(reportJobService.getReportFile(job)));
+    verify(jasperReportsViewService)
+        .generateTemplateReport(any(JasperTemplate.class), anyMap(), any(OutputStream.class));
+  }
+
+  @Test
+  public void shouldReuseExistingJob() {
+    // given
+    ReportJob existing = new ReportJob(template, PDF, HASH, ZonedDateTime.now());
+    when(reportJobRepository
+        .findFirstByParametersHashAndStatusInAndExpiryDateAfterOrderByCreatedDateDesc(
+            anyString(), anyCollection(), any(ZonedDateTime.class)))
+        .thenReturn(Optional.of(existing));
+
+    // when
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // then
+    assertThat(job, is(existing));
+    verify(executor, never()).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void shouldSubmitReportAgainIfExistingJobWasAbandoned() {
+    // given
+    ReportJob abandoned = new ReportJob(template, PDF, HASH, ZonedDateTime.now());
+    abandoned.setId(UUID.randomUUID());
+    ReflectionTestUtils.setField(abandoned, "heartbeatDate",
+        ZonedDateTime.now().minusSeconds(HEARTBEAT_INTERVAL * STALE_HEARTBEATS / 1000 + 1));
+    when(reportJobRepository
+        .findFirstByParametersHashAndStatusInAndExpiryDateAfterOrderByCreatedDateDesc(
+            anyString(), anyCollection(), any(ZonedDateTime.class)))
+        .thenReturn(Optional.of(abandoned));
+
+    // when
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // then
+    assertThat(job, is(not(abandoned)));
+    assertEquals(ReportJobStatus.COMPLETED, job.getStatus());
+    verify(reportJobRepository).failJobs(eq(Collections.singleton(abandoned.getId())),
+        eq(ReportJobStatus.ACTIVE), eq(STOPPED_MESSAGE), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldReturnJobOfSameReportSubmittedAtTheSameTime() {
+    // given
+    ReportJob concurrent = new ReportJob(template, PDF, HASH, ZonedDateTime.now());
+    when(reportJobRepository
+        .findFirstByParametersHashAndStatusInAndExpiryDateAfterOrderByCreatedDateDesc(
+            anyString(), anyCollection(), any(ZonedDateTime.class)))
+        .thenReturn(Optional.empty(), Optional.of(concurrent));
+    when(reportJobRepository.save(any(ReportJob.class)))
+        .thenThrow(new DataIntegrityViolationException("duplicate"));
+
+    // when
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // then
+    assertThat(job, is(concurrent));
+    verify(executor, never()).execute(any(Runnable.class));
+  }
+
+  @Test
+  public void shouldUpdateHeartbeatOfJobsBeingGenerated() {
+    // given
+    doNothing().when(executor).execute(any(Runnable.class));
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // when
+    reportJobService.updateHeartbeats();
+
+    // then
+    verify(reportJobRepository).updateHeartbeatDate(eq(Collections.singletonList(job.getId())),
+        eq(ReportJobStatus.ACTIVE), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldNotUpdateHeartbeatOfGeneratedJobs() {
+    // given
+    reportJobService.submit(template, PDF, params);
+
+    // when
+    reportJobService.updateHeartbeats();
+
+    // then
+    verify(reportJobRepository, never())
+        .updateHeartbeatDate(anyCollection(), anyCollection(), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldFailJobsBeingGeneratedWhenStopped() {
+    // given
+    doNothing().when(executor).execute(any(Runnable.class));
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // when
+    reportJobService.stopWorkers();
+
+    // then
+    verify(executor).shutdown();
+    verify(reportJobRepository).failJobs(eq(Collections.singletonList(job.getId())),
+        eq(ReportJobStatus.ACTIVE), eq(STOPPED_MESSAGE), any(ZonedDateTime.class));
+  }
+
+  @Test
+  public void shouldHashParametersRegardlessOfTheirOrder() {
+    // given
+    Map<String, Object> reversed = new LinkedHashMap<>();
+    reversed.put("Program", params.get("Program"));
+    reversed.put("format", PDF);
+
+    // when
+    ReportJob first = reportJobService.submit(template, PDF, params);
+    ReportJob second = reportJobService.submit(template, PDF, reversed);
+    params.put("Period", UUID.randomUUID().toString());
+    ReportJob third = reportJobService.submit(template, PDF, params);
+
+    // then
+    assertEquals(first.getParametersHash(), second.getParametersHash());
+    assertFalse(first.getParametersHash().equals(third.getParametersHash()));
+  }
+
+  @Test
+  public void shouldFailJobIfReportCouldNotBeGenerated() throws Exception {
+    // given
+    doThrow(new JasperReportViewException(new IOException(), ERROR_IO))
+        .when(jasperReportsViewService)
+        .generateTemplateReport(any(JasperTemplate.class), anyMap(), any(OutputStream.class));
+
+    // when
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // then
+    assertEquals(ReportJobStatus.FAILED, job.getStatus());
+    assertFalse(Files.exists(reportJobService.getReportFile(job)));
+  }
+
+  @Test
+  public void shouldFailJobIfQueueIsFull() {
+    // given
+    doThrow(new TaskRejectedException("full")).when(executor).execute(any(Runnable.class));
+
+    // when
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // then
+    assertEquals(ReportJobStatus.FAILED, job.getStatus());
+    assertEquals(ReportJobService.QUEUE_FULL_MESSAGE, job.getErrorMessage());
+  }
+
+  @Test
+  public void shouldRemoveReportOfJobExpiredWhileGenerating() {
+    // given
+    when(reportJobRepository.existsById(any(UUID.class))).thenReturn(false);
+
+    // when
+    ReportJob job = reportJobService.submit(template, PDF, params);
+
+    // then
+    assertFalse(Files.exists(reportJobService.getReportFile(job)));
+  }
+
+  @Test
+  public void shouldRemoveExpiredJobsAndTheirReports() throws IOException {
+    // given
+    ReportJob job = new ReportJob(template, PDF, HASH, ZonedDateTime.now());
+    job.setId(UUID.randomUUID());
+    Path file = reportJobService.getReportFile(job);
+    Files.write(file, new byte[] { 1 });
+
+    when(reportJobRepository.findByExpiryDateBefore(any(ZonedDateTime.class)))
+        .thenReturn(Collections.singletonList(job));
+
+    // when
+    reportJobService.removeExpiredJobs();
+
+    // then
+    verify(reportJobRepository).failJobsWithHeartbeatDateBefore(any(ZonedDateTime.class),
+        eq(ReportJobStatus.ACTIVE), eq(STOPPED_MESSAGE), any(ZonedDateTime.class));
+    assertFalse(Files.exists(file));
+    ArgumentCaptor<Iterable<ReportJob>> captor = ArgumentCaptor.forClass(Iterable.class);
+    verify(reportJobRepository).deleteAll(captor.capture());
+    assertTrue(captor.getValue().iterator().hasNext());
+  }
+}
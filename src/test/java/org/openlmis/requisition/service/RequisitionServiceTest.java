@@ -18,14 +18,12 @@ package org.openlmis.requisition.service;
 import static com.google.common.collect.Sets.newHashSet;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
-import static java.util.Collections.emptySet;
 import static java.util.Collections.singleton;
 import static java.util.Collections.singletonList;
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.Matchers.hasItems;
 import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
-import static org.hibernate.validator.internal.util.CollectionHelper.asSet;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNull;
@@ -53,6 +51,7 @@ import static org.openlmis.requisition.domain.requisition.RequisitionStatus.RELE
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.SKIPPED;
 import static org.openlmis.requisition.domain.requisition.RequisitionStatus.SUBMITTED;
 import static org.openlmis.requisition.service.PermissionService.ORDERS_EDIT;
+import static org.openlmis.requisition.service.PermissionService.REQUISITION_VIEW;
 import static org.openlmis.requisition.utils.Pagination.DEFAULT_PAGE_NUMBER;
 import static org.openlmis.requisition.utils.Pagination.NO_PAGINATION;
 import static org.openlmis.requisition.utils.Pagination.getPage;
@@ -133,6 +132,7 @@ import org.openlmis.requisition.repository.custom.DefaultRequisitionSearchParams
 import org.openlmis.requisition.repository.custom.RequisitionSearchParams;
 import org.openlmis.requisition.service.fulfillment.OrderFulfillmentService;
 import org.openlmis.requisition.service.referencedata.ApproveProductsAggregator;
+import org.openlmis.requisition.service.referencedata.CompactPermissionStrings;
 import org.openlmis.requisition.service.referencedata.FacilityReferenceDataService;
 import org.openlmis.requisition.service.referencedata.IdealStockAmountReferenceDataService;
 import org.openlmis.requisition.service.referencedata.OrderableReferenceDataService;
@@ -1128,12 +1128,10 @@ public class RequisitionServiceTest {
 
     given(permissionService.getPermissionStrings(user.getId()))
         .willReturn(permissionStringsHandler);
-
-    List<String> permissionStrings = permissionStringsHandler
-        .get()
-        .stream()
-        .map(PermissionStringDto::toString)
-        .collect(toList());
+    CompactPermissionStrings permissionStrings = CompactPermissionStrings.from(singletonList(
+        PermissionStringDto.create(REQUISITION_VIEW, facility.getId(), program.getId())
+            .toString()));
+    given(permissionStringsHandler.get()).willReturn(permissionStrings);
 
     given(requisitionRepository
         .searchRequisitions(params, permissionStrings,
@@ -1189,7 +1187,7 @@ public class RequisitionServiceTest {
         EnumSet.of(requisition.getStatus()));
 
     given(authenticationHelper.getCurrentUser()).willReturn(user);
-    given(permissionStringsHandler.get()).willReturn(emptySet());
+    given(permissionStringsHandler.get()).willReturn(CompactPermissionStrings.empty());
 
     user.setRoleAssignments(Sets.newHashSet());
 
@@ -1268,7 +1266,7 @@ public class RequisitionServiceTest {
     when(authenticationHelper.getCurrentUser())
         .thenReturn(user);
     when(permissionStringsHandler.get())
-        .thenReturn(emptySet());
+        .thenReturn(CompactPermissionStrings.empty());
 
     // when
     Page<RequisitionWithSupplyingDepotsDto> receivedRequisitions = requisitionService
@@ -1685,8 +1683,8 @@ public class RequisitionServiceTest {
     when(authenticationHelper.getCurrentUser()).thenReturn(user);
     when(permissionService.getPermissionStrings(user.getId())).thenReturn(permissionStringsHandler);
     when(permissionStringsHandler.get())
-        .thenReturn(asSet(
-            PermissionStringDto.create(ORDERS_EDIT, facility.getId(), program.getId())));
+        .thenReturn(CompactPermissionStrings.from(singletonList(String.join("|",
+            ORDERS_EDIT, facility.getId().toString(), program.getId().toString()))));
     when(supplyLineReferenceDataService.search(singleton(facility.getId()), program.getId()))
         .thenReturn(singletonList(supplyLine));
   }
@@ -0,0 +1,91 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.openlmis.requisition.service.ServiceRestTemplates.IN_FLIGHT_METRIC;
+import static org.openlmis.requisition.service.ServiceRestTemplates.REQUESTS_METRIC;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.method;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.requestTo;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.Test;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.client.ClientHttpRequestFactory;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+import org.springframework.web.client.RestTemplate;
+
+public class ServiceRestTemplatesTest {
+  private static final String SERVICE = "Reference Data";
+  private static final String SERVICE_TAG = "service";
+  private static final String URL = "http://localhost/api/facilities";
+
+  private MeterRegistry registry = new SimpleMeterRegistry();
+  private ServiceRestTemplates templates =
+      new ServiceRestTemplates(mock(ClientHttpRequestFactory.class), registry);
+
+  @Test
+  public void shouldReuseTemplateOfService() {
+    // when
+    RestTemplate template = templates.forService(SERVICE);
+
+    // then
+    assertThat(templates.forService(SERVICE)).isSameAs(template);
+    assertThat(templates.forService("Auth")).isNotSameAs(template);
+  }
+
+  @Test
+  public void shouldRecordLatencyOfRequestsPerService() {
+    // given
+    RestTemplate template = templates.forService(SERVICE);
+    MockRestServiceServer server = MockRestServiceServer.bindTo(template).build();
+    server.expect(requestTo(URL)).andExpect(method(HttpMethod.GET)).andRespond(withSuccess());
+
+    // when
+    template.getForEntity(URL, String.class);
+
+    // then
+    server.verify();
+    assertThat(registry.get(REQUESTS_METRIC)
+        .tags(SERVICE_TAG, SERVICE, "method", "GET", "status", "200").timer().count())
+        .isEqualTo(1);
+    assertThat(registry.get(IN_FLIGHT_METRIC).tag(SERVICE_TAG, SERVICE).gauge().value()).isZero();
+  }
+
+  @Test
+  public void shouldRecordFailedRequests() {
+    // given
+    RestTemplate template = templates.forService(SERVICE);
+    MockRestServiceServer server = MockRestServiceServer.bindTo(template).build();
+    server.expect(requestTo(URL)).andRespond(withServerError());
+
+    // when
+    assertThatThrownBy(() -> template.postForEntity(URL, null, String.class))
+        .isInstanceOf(HttpServerErrorException.class);
+
+    // then
+    assertThat(registry.get(REQUESTS_METRIC)
+        .tags(SERVICE_TAG, SERVICE, "method", "POST", "status", "500").timer().count())
+        .isEqualTo(1);
+    assertThat(registry.get(IN_FLIGHT_METRIC).tag(SERVICE_TAG, SERVICE).gauge().value()).isZero();
+  }
+}
@@ -0,0 +1,170 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.audit;
+
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyBoolean;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.UUID;
+import javax.persistence.EntityManager;
+import org.aspectj.lang.JoinPoint;
+import org.javers.spring.auditable.AuthorProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+@RunWith(MockitoJUnitRunner.class)
+public class RequisitionAuditOutboxAspectTest {
+  private static final String AUTHOR = "author";
+
+  @Mock
+  private RequisitionAuditOutbox outbox;
+
+  @Mock
+  private AuthorProvider authorProvider;
+
+  @Mock
+  private JoinPoint joinPoint;
+
+  @Mock
+  private EntityManager entityManager;
+
+  private Instant now = Instant.parse("2026-10-17T12:00:00Z");
+  private Requisition requisition = new RequisitionDataBuilder().build();
+  private Requisition other = new RequisitionDataBuilder().build();
+
+  private RequisitionAuditOutboxAspect aspect;
+
+  @Before
+  public void setUp() {
+    aspect = new RequisitionAuditOutboxAspect(outbox, authorProvider,
+        Clock.fixed(now, ZoneOffset.UTC));
+    ReflectionTestUtils.setField(aspect, "entityManager", entityManager);
+  }
+
+  @After
+  public void tearDown() {
+    if (TransactionSynchronizationManager.isSynchronizationActive()) {
+      TransactionSynchronizationManager.clearSynchronization();
+    }
+  }
+
+  @Test
+  public void shouldAddEntryWithStateOfSavedRequisition() {
+    when(authorProvider.provide()).thenReturn(AUTHOR);
+    aspect.onSave(requisition);
+
+    verify(outbox).add(requisition.getId(), AUTHOR, false,
+        RequisitionAuditState.write(requisition), now);
+  }
+
+  @Test
+  public void shouldAddEntriesForAllSavedRequisitions() {
+    when(authorProvider.provide()).thenReturn(AUTHOR);
+    aspect.onSave(Arrays.asList(requisition, other));
+
+    verify(outbox).add(requisition.getId(), AUTHOR, false,
+        RequisitionAuditState.write(requisition), now);
+    verify(outbox).add(other.getId(), AUTHOR, false, RequisitionAuditState.write(other), now);
+  }
+
+  @Test
+  public void shouldAddEntryForDeletedRequisition() {
+    when(authorProvider.provide()).thenReturn(AUTHOR);
+    when(joinPoint.getArgs()).thenReturn(new Object[]{ requisition });
+
+    aspect.onDelete(joinPoint);
+
+    verify(outbox).add(requisition.getId(), AUTHOR, true, null, now);
+  }
+
+  @Test
+  public void shouldAddEntryForRequisitionDeletedById() {
+    when(authorProvider.provide()).thenReturn(AUTHOR);
+    UUID id = UUID.randomUUID();
+    when(joinPoint.getArgs()).thenReturn(new Object[]{ id });
+
+    aspect.onDelete(joinPoint);
+
+    verify(outbox).add(id, AUTHOR, true, null, now);
+  }
+
+  @Test
+  public void shouldIgnoreOtherResults() {
+    aspect.onSave(AUTHOR);
+
+    verify(outbox, never()).add(any(), anyString(), anyBoolean(), any(), any());
+  }
+
+  @Test
+  public void shouldAddEntriesAfterFlushBeforeTransactionCommits() {
+    when(authorProvider.provide()).thenReturn(AUTHOR);
+    TransactionSynchronizationManager.initSynchronization();
+
+    aspect.onSave(requisition);
+    requisition.setVersion(2L);
+    aspect.onSave(requisition);
+
+    verify(outbox, never()).add(any(), anyString(), anyBoolean(), any(), any());
+
+    TransactionSynchronizationManager
+        .getSynchronizations()
+        .forEach(synchronization -> synchronization.beforeCommit(false));
+
+    InOrder order = inOrder(entityManager, outbox);
+    order.verify(entityManager).flush();
+    order.verify(outbox).add(requisition.getId(), AUTHOR, false,
+        RequisitionAuditState.write(requisition), now);
+    verify(outbox, times(1)).add(any(), anyString(), anyBoolean(), any(), any());
+  }
+
+  @Test
+  public void shouldAddEntryForLastChangeOfRequisitionInTransaction() {
+    when(authorProvider.provide()).thenReturn(AUTHOR);
+    when(joinPoint.getArgs()).thenReturn(new Object[]{ requisition });
+    TransactionSynchronizationManager.initSynchronization();
+
+    aspect.onSave(requisition);
+    aspect.onDelete(joinPoint);
+
+    TransactionSynchronizationManager
+        .getSynchronizations()
+        .forEach(synchronization -> synchronization.beforeCommit(false));
+
+    verify(outbox).add(eq(requisition.getId()), eq(AUTHOR), eq(true), isNull(), eq(now));
+    verify(outbox, times(1)).add(any(), anyString(), anyBoolean(), any(), any());
+  }
+}
@@ -0,0 +1,75 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.audit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+import com.google.common.collect.Sets;
+import java.time.LocalDate;
+import java.time.ZoneId;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Test;
+import org.openlmis.requisition.domain.requisition.ApprovedProductReference;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.openlmis.requisition.domain.requisition.RequisitionLineItemDataBuilder;
+
+public class RequisitionAuditStateTest {
+
+  @Test
+  public void shouldReadAuditedFieldsThatWereWritten() {
+    Requisition requisition = new RequisitionDataBuilder()
+        .withDatePhysicalStockCountCompleted(LocalDate.of(2026, 10, 1))
+        .withSupervisoryNodeId(UUID.randomUUID())
+        .withCreatedDate(ZonedDateTime.of(2026, 10, 17, 12, 0, 0, 0, ZoneId.of("UTC")))
+        .build();
+    requisition.setAvailableProducts(Sets.newHashSet(new ApprovedProductReference(
+        UUID.randomUUID(), 1L, UUID.randomUUID(), 2L)));
+    requisition.setExtraData(Collections.singletonMap("key", "value"));
+
+    Requisition read = RequisitionAuditState.read(RequisitionAuditState.write(requisition));
+
+    assertEquals(requisition.getId(), read.getId());
+    assertEquals(requisition.getVersion(), read.getVersion());
+    assertEquals(requisition.getStatus(), read.getStatus());
+    assertEquals(requisition.getFacilityId(), read.getFacilityId());
+    assertEquals(requisition.getProgramId(), read.getProgramId());
+    assertEquals(requisition.getProcessingPeriodId(), read.getProcessingPeriodId());
+    assertEquals(requisition.getSupervisoryNodeId(), read.getSupervisoryNodeId());
+    assertEquals(requisition.getEmergency(), read.getEmergency());
+    assertEquals(requisition.getCreatedDate(), read.getCreatedDate());
+    assertEquals(requisition.getModifiedDate(), read.getModifiedDate());
+    assertEquals(requisition.getDatePhysicalStockCountCompleted(),
+        read.getDatePhysicalStockCountCompleted());
+    assertEquals(requisition.getAvailableProducts(), read.getAvailableProducts());
+    assertEquals(requisition.getExtraData(), read.getExtraData());
+  }
+
+  @Test
+  public void shouldNotWriteFieldsIgnoredByAuditLog() {
+    Requisition requisition = new RequisitionDataBuilder()
+        .addLineItem(new RequisitionLineItemDataBuilder().build(), false)
+        .build();
+
+    Requisition read = RequisitionAuditState.read(RequisitionAuditState.write(requisition));
+
+    assertNull(read.getRequisitionLineItems());
+    assertNull(read.getTemplate());
+  }
+}
@@ -0,0 +1,279 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.audit;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.requisition.service.audit.RequisitionAuditWorker.DEAD_LETTERED_METRIC;
+import static org.openlmis.requisition.service.audit.RequisitionAuditWorker.DEAD_LETTERS_METRIC;
+import static org.openlmis.requisition.service.audit.RequisitionAuditWorker.FAILED_METRIC;
+import static org.openlmis.requisition.service.audit.RequisitionAuditWorker.LAG_METRIC;
+import static org.openlmis.requisition.service.audit.RequisitionAuditWorker.PROCESSED_METRIC;
+import static org.openlmis.requisition.service.audit.RequisitionAuditWorker.SIZE_METRIC;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import org.javers.core.Javers;
+import org.javers.core.metamodel.object.CdoSnapshot;
+import org.javers.repository.jql.JqlQuery;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.JaVersDateProvider;
+import org.openlmis.requisition.domain.requisition.Requisition;
+import org.openlmis.requisition.domain.requisition.RequisitionDataBuilder;
+import org.openlmis.requisition.repository.RequisitionRepository;
+import org.openlmis.requisition.service.audit.RequisitionAuditOutbox.Backlog;
+import org.openlmis.requisition.service.audit.RequisitionAuditOutbox.Entry;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("PMD.TooManyMethods")
+public class RequisitionAuditWorkerTest {
+  private static final int BATCH_SIZE = 2;
+  private static final int MAX_BATCHES = 3;
+  private static final int MAX_ATTEMPTS = 5;
+  private static final long RETRY_DELAY = 1000;
+  private static final long MAX_RETRY_DELAY = 5000;
+  private static final String AUTHOR = "author";
+  private static final String OTHER_AUTHOR = "other-author";
+
+  @Mock
+  private RequisitionAuditOutbox outbox;
+
+  @Mock
+  private RequisitionRepository requisitionRepository;
+
+  @Mock
+  private Javers javers;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private CdoSnapshot snapshot;
+
+  private JaVersDateProvider dateProvider = new JaVersDateProvider();
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private Instant now = Instant.parse("2026-10-17T12:00:00Z");
+  private Instant changed = Instant.parse("2026-10-17T11:00:00Z");
+  private Requisition requisition = new RequisitionDataBuilder().build();
+
+  private RequisitionAuditWorker worker;
+
+  @Before
+  public void setUp() {
+    worker = new RequisitionAuditWorker(outbox, requisitionRepository, javers, dateProvider,
+        Clock.fixed(now, ZoneOffset.UTC), transactionManager, meterRegistry,
+        BATCH_SIZE, MAX_BATCHES, MAX_ATTEMPTS, RETRY_DELAY, MAX_RETRY_DELAY);
+
+    when(outbox.getBacklog(now))
+        .thenReturn(new Backlog(0, Duration.ZERO, 0));
+  }
+
+  @Test
+  public void shouldCommitRecordedStateWithAuthorOfEachEntry() {
+    Requisition other = new RequisitionDataBuilder().build();
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(asList(entry(1, requisition, AUTHOR), entry(2, other, OTHER_AUTHOR)))
+        .thenReturn(emptyList());
+
+    worker.drain();
+
+    ArgumentCaptor<Requisition> captor = ArgumentCaptor.forClass(Requisition.class);
+    verify(javers).commit(eq(AUTHOR), captor.capture());
+    verify(javers).commit(eq(OTHER_AUTHOR), captor.capture());
+    assertEquals(requisition.getId(), captor.getAllValues().get(0).getId());
+    assertEquals(requisition.getStatus(), captor.getAllValues().get(0).getStatus());
+    assertEquals(other.getId(), captor.getAllValues().get(1).getId());
+    verify(requisitionRepository, never()).findById(any());
+    verify(outbox).remove(asList(1L, 2L));
+    assertEquals(2, meterRegistry.counter(PROCESSED_METRIC).count(), 0);
+  }
+
+  @Test
+  public void shouldDateCommitAtTimeOfChange() {
+    List<LocalDateTime> commitDates = new ArrayList<>();
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(entry(1, requisition, AUTHOR)))
+        .thenReturn(emptyList());
+    doAnswer(invocation -> commitDates.add(dateProvider.now()))
+        .when(javers).commit(eq(AUTHOR), any(Requisition.class));
+
+    worker.drain();
+
+    assertEquals(singletonList(LocalDateTime.ofInstant(changed, ZoneOffset.UTC)), commitDates);
+  }
+
+  @Test
+  public void shouldFallBackToCurrentStateForEntriesWithoutState() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(new Entry(1, requisition.getId(), AUTHOR, false, null,
+            changed, 0)))
+        .thenReturn(emptyList());
+    when(requisitionRepository.findById(requisition.getId()))
+        .thenReturn(Optional.of(requisition));
+
+    worker.drain();
+
+    verify(javers).commit(AUTHOR, requisition);
+    verify(outbox).remove(singletonList(1L));
+  }
+
+  @Test
+  public void shouldStopWhenNothingIsDrained() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(entry(1, requisition, AUTHOR)))
+        .thenReturn(emptyList());
+
+    worker.drain();
+
+    verify(outbox, times(2)).lock(anyInt(), any());
+  }
+
+  @Test
+  public void shouldDrainAtMostMaxBatchesPerRun() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(entry(1, requisition, AUTHOR)));
+
+    worker.drain();
+
+    verify(outbox, times(MAX_BATCHES)).lock(anyInt(), any());
+  }
+
+  @Test
+  public void shouldCommitShallowDeleteOfAuditedRequisition() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(deletedEntry(1)))
+        .thenReturn(emptyList());
+    when(javers.findSnapshots(any(JqlQuery.class)))
+        .thenReturn(singletonList(snapshot));
+
+    worker.drain();
+
+    ArgumentCaptor<Requisition> captor = ArgumentCaptor.forClass(Requisition.class);
+    verify(javers).commitShallowDelete(eq(AUTHOR), captor.capture());
+    assertEquals(requisition.getId(), captor.getValue().getId());
+    verify(outbox).remove(singletonList(1L));
+  }
+
+  @Test
+  public void shouldNotCommitShallowDeleteOfRequisitionWithoutSnapshots() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(deletedEntry(1)))
+        .thenReturn(emptyList());
+    when(javers.findSnapshots(any(JqlQuery.class)))
+        .thenReturn(emptyList());
+
+    worker.drain();
+
+    verify(javers, never()).commitShallowDelete(any(String.class), any());
+    verify(outbox).remove(singletonList(1L));
+  }
+
+  @Test
+  public void shouldRetryFailedEntryWithDoublingDelay() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(entry(1, requisition, AUTHOR, 2)))
+        .thenReturn(emptyList());
+    when(javers.commit(eq(AUTHOR), any(Requisition.class)))
+        .thenThrow(new IllegalStateException());
+
+    worker.drain();
+
+    verify(outbox, never()).remove(singletonList(1L));
+    verify(outbox).retry(1L, now.plusMillis(RETRY_DELAY * 4));
+    verify(outbox, never()).moveToDeadLetters(anyLong(), any());
+    assertEquals(1, meterRegistry.counter(FAILED_METRIC).count(), 0);
+  }
+
+  @Test
+  public void shouldLimitRetryDelay() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(entry(1, requisition, AUTHOR, 3)))
+        .thenReturn(emptyList());
+    when(javers.commit(eq(AUTHOR), any(Requisition.class)))
+        .thenThrow(new IllegalStateException());
+
+    worker.drain();
+
+    verify(outbox).retry(1L, now.plusMillis(MAX_RETRY_DELAY));
+  }
+
+  @Test
+  public void shouldMoveEntryToDeadLettersAfterMaxAttempts() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(singletonList(entry(1, requisition, AUTHOR, MAX_ATTEMPTS - 1)))
+        .thenReturn(emptyList());
+    when(javers.commit(eq(AUTHOR), any(Requisition.class)))
+        .thenThrow(new IllegalStateException());
+
+    worker.drain();
+
+    verify(outbox).moveToDeadLetters(1L, now);
+    verify(outbox, never()).retry(anyLong(), any());
+    assertEquals(1, meterRegistry.counter(DEAD_LETTERED_METRIC).count(), 0);
+  }
+
+  @Test
+  public void shouldReportBacklog() {
+    when(outbox.lock(BATCH_SIZE, now))
+        .thenReturn(emptyList());
+    when(outbox.getBacklog(now))
+        .thenReturn(new Backlog(42, Duration.ofMinutes(2), 3));
+
+    worker.drain();
+
+    assertEquals(42, meterRegistry.get(SIZE_METRIC).gauge().value(), 0);
+    assertEquals(120, meterRegistry.get(LAG_METRIC).gauge().value(), 0);
+    assertEquals(3, meterRegistry.get(DEAD_LETTERS_METRIC).gauge().value(), 0);
+  }
+
+  private Entry entry(long id, Requisition requisition, String author) {
+    return entry(id, requisition, author, 0);
+  }
+
+  private Entry entry(long id, Requisition requisition, String author, int attempts) {
+    return new Entry(id, requisition.getId(), author, false,
+        RequisitionAuditState.write(requisition), changed, attempts);
+  }
+
+  private Entry deletedEntry(long id) {
+    return new Entry(id, requisition.getId(), AUTHOR, true, null, changed, 0);
+  }
+}
@@ -0,0 +1,254 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.notification;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
+import static java.util.Collections.singletonMap;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+import static org.mockito.Mockito.when;
+import static org.openlmis.requisition.service.notification.NotificationDispatcher.DEAD_LETTERED_METRIC;
+import static org.openlmis.requisition.service.notification.NotificationDispatcher.DEAD_LETTERS_METRIC;
+import static org.openlmis.requisition.service.notification.NotificationDispatcher.FAILED_METRIC;
+import static org.openlmis.requisition.service.notification.NotificationDispatcher.LAG_METRIC;
+import static org.openlmis.requisition.service.notification.NotificationDispatcher.SENT_METRIC;
+import static org.openlmis.requisition.service.notification.NotificationDispatcher.SIZE_METRIC;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.time.Duration;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.service.AuthService;
+import org.openlmis.requisition.service.notification.NotificationOutbox.Backlog;
+import org.openlmis.requisition.service.notification.NotificationOutbox.Entry;
+import org.springframework.transaction.PlatformTransactionManager;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings("PMD.TooManyMethods")
+public class NotificationDispatcherTest {
+  private static final int BATCH_SIZE = 3;
+  private static final int MAX_BATCHES = 2;
+  private static final int MAX_ATTEMPTS = 4;
+  private static final long RETRY_DELAY = 30000;
+  private static final long MAX_RETRY_DELAY = 100000;
+  private static final long LEASE = 300000;
+  private static final long SEND_TIMEOUT = 75000;
+  private static final String ACCESS_TOKEN = "token";
+
+  @Mock
+  private NotificationOutbox outbox;
+
+  @Mock
+  private NotificationService notificationService;
+
+  @Mock
+  private AuthService authService;
+
+  @Mock
+  private PlatformTransactionManager transactionManager;
+
+  @Mock
+  private Clock clock;
+
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+  private Instant now = Instant.parse("2026-10-17T12:00:00Z");
+  private Instant leaseEnd = now.plusMillis(LEASE);
+  private UUID user = UUID.randomUUID();
+  private UUID otherUser = UUID.randomUUID();
+
+  private NotificationDispatcher dispatcher;
+
+  @Before
+  public void setUp() {
+    dispatcher = createDispatcher(Clock.fixed(now, ZoneOffset.UTC), LEASE);
+
+    when(outbox.getBacklog(any()))
+        .thenReturn(new Backlog(0, Duration.ZERO, 0));
+  }
+
+  @Test
+  public void shouldSendBatchWithOneAccessToken() {
+    Entry first = entry(1, user, 0);
+    Entry second = entry(2, otherUser, 0);
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd))
+        .thenReturn(asList(first, second))
+        .thenReturn(emptyList());
+    when(authService.obtainAccessToken()).thenReturn(ACCESS_TOKEN);
+    when(notificationService.send(any(), anyString())).thenReturn(true);
+
+    dispatcher.drain();
+
+    verify(authService, times(1)).obtainAccessToken();
+    verify(notificationService).send(first.getNotification(), ACCESS_TOKEN);
+    verify(notificationService).send(second.getNotification(), ACCESS_TOKEN);
+    verify(outbox).remove(asList(1L, 2L));
+    assertEquals(2, meterRegistry.counter(SENT_METRIC).count(), 0);
+  }
+
+  @Test
+  public void shouldSendClaimedNotificationsOutsideOfTransaction() {
+    Entry entry = entry(1, user, 0);
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd))
+        .thenReturn(singletonList(entry))
+        .thenReturn(emptyList());
+    when(authService.obtainAccessToken()).thenReturn(ACCESS_TOKEN);
+    when(notificationService.send(any(), anyString())).thenReturn(true);
+
+    dispatcher.drain();
+
+    InOrder order = inOrder(outbox, transactionManager, notificationService);
+    order.verify(outbox).claim(BATCH_SIZE, now, leaseEnd);
+    order.verify(transactionManager).commit(any());
+    order.verify(notificationService).send(entry.getNotification(), ACCESS_TOKEN);
+    order.verify(transactionManager).getTransaction(any());
+    order.verify(outbox).remove(singletonList(1L));
+    order.verify(transactionManager).commit(any());
+  }
+
+  @Test
+  public void shouldReleaseNotificationsThatCouldNotBeSentBeforeLeaseEnds() {
+    Instant late = leaseEnd.minusMillis(SEND_TIMEOUT - 1);
+    when(clock.instant()).thenReturn(now, now, late);
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd))
+        .thenReturn(asList(entry(1, user, 0), entry(2, otherUser, 0)));
+    when(authService.obtainAccessToken()).thenReturn(ACCESS_TOKEN);
+    when(notificationService.send(any(), anyString())).thenReturn(true);
+
+    createDispatcher(clock, LEASE).dispatchBatch();
+
+    verify(notificationService, times(1)).send(any(), anyString());
+    verify(outbox).remove(singletonList(1L));
+    verify(outbox).release(singletonList(2L), late);
+    verify(outbox, never()).retry(anyLong(), any());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void shouldRequireLeaseLongerThanSendTimeout() {
+    createDispatcher(Clock.fixed(now, ZoneOffset.UTC), SEND_TIMEOUT);
+  }
+
+  @Test
+  public void shouldNotRequestAccessTokenIfThereIsNothingToSend() {
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd)).thenReturn(emptyList());
+
+    dispatcher.drain();
+
+    verifyZeroInteractions(authService, notificationService);
+    verify(outbox, never()).remove(any());
+  }
+
+  @Test
+  public void shouldDrainAtMostMaxBatchesPerRun() {
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd))
+        .thenReturn(asList(entry(1, user, 0), entry(2, otherUser, 0)));
+    when(authService.obtainAccessToken()).thenReturn(ACCESS_TOKEN);
+    when(notificationService.send(any(), anyString())).thenReturn(true);
+
+    dispatcher.drain();
+
+    verify(outbox, times(MAX_BATCHES)).claim(anyInt(), any(), any());
+  }
+
+  @Test
+  public void shouldRetryFailedNotificationAndSendTheOthers() {
+    Entry failing = entry(1, user, 0);
+    Entry other = entry(2, otherUser, 0);
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd))
+        .thenReturn(asList(failing, other))
+        .thenReturn(emptyList());
+    when(authService.obtainAccessToken()).thenReturn(ACCESS_TOKEN);
+    when(notificationService.send(failing.getNotification(), ACCESS_TOKEN)).thenReturn(false);
+    when(notificationService.send(other.getNotification(), ACCESS_TOKEN)).thenReturn(true);
+
+    dispatcher.drain();
+
+    verify(outbox).retry(1, now.plusMillis(RETRY_DELAY));
+    verify(outbox).remove(singletonList(2L));
+    assertEquals(1, meterRegistry.counter(FAILED_METRIC).count(), 0);
+  }
+
+  @Test
+  public void shouldBackOffExponentiallyUpToMaxRetryDelay() {
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd))
+        .thenReturn(asList(entry(1, user, 1), entry(2, otherUser, 2)))
+        .thenReturn(emptyList());
+    when(authService.obtainAccessToken()).thenReturn(ACCESS_TOKEN);
+    when(notificationService.send(any(), anyString())).thenReturn(false);
+
+    dispatcher.drain();
+
+    verify(outbox).retry(1, now.plusMillis(2 * RETRY_DELAY));
+    verify(outbox).retry(2, now.plusMillis(MAX_RETRY_DELAY));
+  }
+
+  @Test
+  public void shouldMoveNotificationToDeadLettersAfterMaxAttempts() {
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd))
+        .thenReturn(singletonList(entry(1, user, MAX_ATTEMPTS - 1)))
+        .thenReturn(emptyList());
+    when(authService.obtainAccessToken()).thenReturn(ACCESS_TOKEN);
+    when(notificationService.send(any(), anyString())).thenReturn(false);
+
+    dispatcher.drain();
+
+    verify(outbox).moveToDeadLetters(1, now);
+    verify(outbox, never()).retry(anyLong(), any());
+    assertEquals(1, meterRegistry.counter(DEAD_LETTERED_METRIC).count(), 0);
+  }
+
+  @Test
+  public void shouldReportBacklog() {
+    when(outbox.claim(BATCH_SIZE, now, leaseEnd)).thenReturn(emptyList());
+    when(outbox.getBacklog(now))
+        .thenReturn(new Backlog(7, Duration.ofSeconds(45), 2));
+
+    dispatcher.drain();
+
+    assertEquals(7, meterRegistry.get(SIZE_METRIC).gauge().value(), 0);
+    assertEquals(45, meterRegistry.get(LAG_METRIC).gauge().value(), 0);
+    assertEquals(2, meterRegistry.get(DEAD_LETTERS_METRIC).gauge().value(), 0);
+  }
+
+  private NotificationDispatcher createDispatcher(Clock clock, long lease) {
+    return new NotificationDispatcher(outbox, notificationService, authService, clock,
+        transactionManager, meterRegistry, BATCH_SIZE, MAX_BATCHES, MAX_ATTEMPTS, RETRY_DELAY,
+        MAX_RETRY_DELAY, lease, SEND_TIMEOUT);
+  }
+
+  private Entry entry(long id, UUID userId, int attempts) {
+    MessageDto message = new MessageDto("subject " + id, "body", "tag");
+    return new Entry(id, new NotificationDto(userId, singletonMap("email", message)), attempts);
+  }
+}
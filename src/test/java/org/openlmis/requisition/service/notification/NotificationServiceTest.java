@@ -15,13 +15,19 @@
 
 package org.openlmis.requisition.service.notification;
 
+import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
 import static org.mockito.Matchers.eq;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
 import static org.mockito.Mockito.when;
 
 import java.net.URI;
+import java.util.UUID;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -30,11 +36,13 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.requisition.dto.UserDto;
-import org.openlmis.requisition.service.AuthService;
 import org.openlmis.requisition.testutils.DtoGenerator;
 import org.springframework.http.HttpEntity;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.web.client.HttpClientErrorException;
+import org.springframework.web.client.ResourceAccessException;
 import org.springframework.web.client.RestTemplate;
 
 @RunWith(MockitoJUnitRunner.class)
@@ -47,7 +55,7 @@ public class NotificationServiceTest {
   private static final String BASE_URL = "http://localhost";
 
   @Mock
-  private AuthService authService;
+  private NotificationOutbox notificationOutbox;
 
   @Mock
   private RestTemplate restTemplate;
@@ -55,19 +63,36 @@ public class NotificationServiceTest {
   @InjectMocks
   private NotificationService notificationService;
 
+  private NotificationDto notification = new NotificationDto(UUID.randomUUID(), emptyMap());
+
   @Before
   public void before() {
-    when(authService.obtainAccessToken()).thenReturn(ACCESS_TOKEN);
-
     notificationService.setRestTemplate(restTemplate);
     ReflectionTestUtils.setField(notificationService, "notificationUrl", BASE_URL);
   }
 
   @Test
-  public void shouldNotifyUser() throws Exception {
+  public void shouldQueueNotification() {
     UserDto user = DtoGenerator.of(UserDto.class);
 
-    notificationService.notify(user, MAIL_SUBJECT, MAIL_CONTENT, SMS_CONTENT, MAIL_TAG);
+    assertTrue(notificationService
+        .notify(user, MAIL_SUBJECT, MAIL_CONTENT, SMS_CONTENT, MAIL_TAG));
+
+    ArgumentCaptor<NotificationDto> captor = ArgumentCaptor.forClass(NotificationDto.class);
+    verify(notificationOutbox).add(captor.capture());
+    verifyZeroInteractions(restTemplate);
+
+    NotificationDto queued = captor.getValue();
+    assertEquals(user.getId(), queued.getUserId());
+    assertEquals(new MessageDto(MAIL_SUBJECT, MAIL_CONTENT, MAIL_TAG),
+        queued.getMessages().get(NotificationChannelDto.EMAIL.toString()));
+    assertEquals(new MessageDto(MAIL_SUBJECT, SMS_CONTENT, MAIL_TAG),
+        queued.getMessages().get(NotificationChannelDto.SMS.toString()));
+  }
+
+  @Test
+  public void shouldSendNotification() throws Exception {
+    assertTrue(notificationService.send(notification, ACCESS_TOKEN));
 
     ArgumentCaptor<HttpEntity> captor = ArgumentCaptor.forClass(HttpEntity.class);
 
@@ -77,5 +102,22 @@ public class NotificationServiceTest {
 
     assertEquals(singletonList("Bearer " + ACCESS_TOKEN), captor.getValue().getHeaders()
             .get(HttpHeaders.AUTHORIZATION));
+    assertEquals(notification, captor.getValue().getBody());
+  }
+
+  @Test
+  public void shouldReturnFalseIfNotificationServiceRejectsNotification() {
+    when(restTemplate.postForObject(any(URI.class), any(HttpEntity.class), eq(Object.class)))
+        .thenThrow(new HttpClientErrorException(HttpStatus.BAD_REQUEST));
+
+    assertFalse(notificationService.send(notification, ACCESS_TOKEN));
+  }
+
+  @Test
+  public void shouldReturnFalseIfNotificationServiceCannotBeReached() {
+    when(restTemplate.postForObject(any(URI.class), any(HttpEntity.class), eq(Object.class)))
+        .thenThrow(new ResourceAccessException("Connection refused"));
+
+    assertFalse(notificationService.send(notification, ACCESS_TOKEN));
   }
 }
@@ -0,0 +1,113 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.emptyList;
+import static java.util.UUID.randomUUID;
+import static java.util.stream.Collectors.toList;
+import static java.util.stream.Collectors.toSet;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import org.junit.Test;
+
+public class CompactPermissionStringsTest {
+  private static final String RIGHT = "REQUISITION_VIEW";
+  private static final String OTHER_RIGHT = "ORDERS_EDIT";
+  private static final String GENERAL_RIGHT = "REQUISITION_TEMPLATES_MANAGE";
+
+  private final UUID facilityId = randomUUID();
+  private final UUID otherFacilityId = randomUUID();
+  private final UUID programId = randomUUID();
+
+  private final CompactPermissionStrings permissionStrings = CompactPermissionStrings.from(asList(
+      permissionString(RIGHT, facilityId, programId),
+      permissionString(RIGHT, otherFacilityId, programId),
+      permissionString(OTHER_RIGHT, facilityId, null),
+      permissionString(RIGHT, facilityId, programId),
+      GENERAL_RIGHT));
+
+  @Test
+  public void shouldSkipDuplicates() {
+    assertThat(permissionStrings.size(), is(4));
+  }
+
+  @Test
+  public void shouldContainGivenPermissionStrings() {
+    assertTrue(permissionStrings.contains(RIGHT, facilityId, programId));
+    assertTrue(permissionStrings.contains(RIGHT, otherFacilityId, programId));
+    assertTrue(permissionStrings.contains(OTHER_RIGHT, facilityId, null));
+    assertTrue(permissionStrings.contains(GENERAL_RIGHT, null, null));
+  }
+
+  @Test
+  public void shouldNotContainOtherPermissionStrings() {
+    assertFalse(permissionStrings.contains(RIGHT, facilityId, randomUUID()));
+    assertFalse(permissionStrings.contains(RIGHT, facilityId, null));
+    assertFalse(permissionStrings.contains(OTHER_RIGHT, otherFacilityId, null));
+    assertFalse(permissionStrings.contains("UNKNOWN_RIGHT", facilityId, programId));
+  }
+
+  @Test
+  public void shouldReturnFacilityIdsForRight() {
+    assertThat(permissionStrings.getFacilityIds(RIGHT),
+        containsInAnyOrder(facilityId, otherFacilityId));
+    assertThat(permissionStrings.getFacilityIds(OTHER_RIGHT), containsInAnyOrder(facilityId));
+    assertThat(permissionStrings.getFacilityIds(GENERAL_RIGHT), is(empty()));
+  }
+
+  @Test
+  public void shouldStreamPermissionStrings() {
+    assertThat(permissionStrings.stream().collect(toSet()), containsInAnyOrder(
+        PermissionStringDto.create(RIGHT, facilityId, programId),
+        PermissionStringDto.create(RIGHT, otherFacilityId, programId),
+        PermissionStringDto.create(OTHER_RIGHT, facilityId, null),
+        PermissionStringDto.create(GENERAL_RIGHT, null, null)));
+  }
+
+  @Test
+  public void shouldPassPermissionStringsToConsumerInOrder() {
+    List<PermissionStringDto> consumed = new ArrayList<>();
+
+    permissionStrings.forEach((rightName, facility, program) ->
+        consumed.add(PermissionStringDto.create(rightName, facility, program)));
+
+    assertThat(consumed, is(permissionStrings.stream().collect(toList())));
+  }
+
+  @Test
+  public void shouldReturnEmptyInstanceForNoPermissionStrings() {
+    CompactPermissionStrings empty = CompactPermissionStrings.from(emptyList());
+
+    assertTrue(empty.isEmpty());
+    assertFalse(empty.contains(RIGHT, facilityId, programId));
+  }
+
+  private String permissionString(String rightName, UUID facility, UUID program) {
+    return new StringBuilder(rightName)
+        .append(null == facility ? "" : "|" + facility)
+        .append(null == program ? "" : "|" + program)
+        .toString();
+  }
+}
@@ -17,10 +17,19 @@ package org.openlmis.requisition.service.referencedata;
 
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -32,6 +41,11 @@ import org.openlmis.requisition.dto.MinimalFacilityDto;
 import org.openlmis.requisition.service.BaseCommunicationService;
 import org.openlmis.requisition.testutils.FacilityDtoDataBuilder;
 import org.openlmis.requisition.testutils.MinimalFacilityDtoDataBuilder;
+import org.springframework.http.HttpEntity;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.ResponseEntity;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
 
 public class FacilityReferenceDataServiceTest extends BaseReferenceDataServiceTest<FacilityDto> {
 
@@ -150,4 +164,29 @@ public class FacilityReferenceDataServiceTest extends BaseReferenceDataServiceTe
         .hasBody(expectedBody);
   }
 
+  @Test
+  public void shouldFindFacilityInReferenceDataCache() throws Exception {
+    // given
+    ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("referencedata.cache.facilities.timeToLive", "60");
+    service.setReferenceDataCache(new ReferenceDataCache(environment, new SimpleMeterRegistry(),
+        objectMapper, Clock.systemUTC()));
+
+    FacilityDto dto = new FacilityDtoDataBuilder().buildAsDto();
+    when(restTemplate.exchange(anyString(), eq(HttpMethod.GET), any(HttpEntity.class),
+        eq(String.class)))
+        .thenReturn(ResponseEntity.ok(objectMapper.writeValueAsString(dto)));
+
+    // when
+    FacilityDto first = service.findOne(dto.getId());
+    FacilityDto second = service.findOne(dto.getId());
+
+    // then
+    assertThat(first, is(dto));
+    assertThat(second, is(dto));
+
+    verify(restTemplate).exchange(eq(serviceUrl + service.getUrl() + dto.getId()),
+        eq(HttpMethod.GET), any(HttpEntity.class), eq(String.class));
+  }
 }
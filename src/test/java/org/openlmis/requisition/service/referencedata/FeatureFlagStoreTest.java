@@ -0,0 +1,159 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import com.google.common.collect.Lists;
+import java.util.List;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.dto.TogglzFeatureDto;
+import org.openlmis.requisition.service.DataRetrievalException;
+import org.openlmis.requisition.service.ServiceResponse;
+import org.openlmis.requisition.testutils.TogglzFeatureDtoDataBuilder;
+import org.openlmis.requisition.utils.Message;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+
+@RunWith(MockitoJUnitRunner.class)
+public class FeatureFlagStoreTest {
+  private static final String FEATURE = "FEATURE";
+  private static final String ETAG = "\"1\"";
+
+  @Mock
+  private TogglzReferenceDataService togglzReferenceDataService;
+
+  @InjectMocks
+  private FeatureFlagStore featureFlagStore;
+
+  private TogglzFeatureDto feature = new TogglzFeatureDtoDataBuilder().buildAsDto();
+
+  @Before
+  public void setUp() {
+    feature.setName(FEATURE);
+    feature.setEnabled(true);
+
+    given(togglzReferenceDataService.getFeatures(null))
+        .willReturn(modified(Lists.newArrayList(feature)));
+  }
+
+  @Test
+  public void shouldReturnStateOfFeature() {
+    // when
+    boolean active = featureFlagStore.isActive(FEATURE);
+
+    // then
+    assertThat(active).isTrue();
+  }
+
+  @Test
+  public void shouldTreatUnknownFeatureAsDisabled() {
+    // when
+    boolean active = featureFlagStore.isActive("UNKNOWN");
+
+    // then
+    assertThat(active).isFalse();
+  }
+
+  @Test
+  public void shouldDownloadFeaturesOnlyOnce() {
+    // when
+    featureFlagStore.isActive(FEATURE);
+    featureFlagStore.isActive(FEATURE);
+
+    // then
+    verify(togglzReferenceDataService, times(1)).getFeatures(any());
+  }
+
+  @Test
+  public void shouldNotDownloadFeaturesOnRefreshIfTheyWereNotUsed() {
+    // when
+    featureFlagStore.refreshFeatures();
+
+    // then
+    verifyZeroInteractions(togglzReferenceDataService);
+  }
+
+  @Test
+  public void shouldKeepFeaturesIfTheyWereNotModified() {
+    // given
+    featureFlagStore.isActive(FEATURE);
+    given(togglzReferenceDataService.getFeatures(ETAG))
+        .willReturn(new ServiceResponse<>(null, headers(), false));
+
+    // when
+    featureFlagStore.refreshFeatures();
+
+    // then
+    assertThat(featureFlagStore.isActive(FEATURE)).isTrue();
+    verify(togglzReferenceDataService).getFeatures(ETAG);
+  }
+
+  @Test
+  public void shouldReplaceFeaturesIfTheyWereModified() {
+    // given
+    featureFlagStore.isActive(FEATURE);
+
+    TogglzFeatureDto disabled = new TogglzFeatureDtoDataBuilder().buildAsDto();
+    disabled.setName(FEATURE);
+    disabled.setEnabled(false);
+
+    given(togglzReferenceDataService.getFeatures(ETAG))
+        .willReturn(modified(Lists.newArrayList(disabled)));
+
+    // when
+    featureFlagStore.refreshFeatures();
+
+    // then
+    assertThat(featureFlagStore.isActive(FEATURE)).isFalse();
+  }
+
+  @Test
+  public void shouldKeepFeaturesIfRefreshFails() {
+    // given
+    featureFlagStore.isActive(FEATURE);
+    given(togglzReferenceDataService.getFeatures(ETAG))
+        .willThrow(new DataRetrievalException(new Message("error"), "Features",
+            HttpStatus.SERVICE_UNAVAILABLE, ""));
+
+    // when
+    featureFlagStore.refreshFeatures();
+
+    // then
+    assertThat(featureFlagStore.isActive(FEATURE)).isTrue();
+  }
+
+  private ServiceResponse<List<TogglzFeatureDto>> modified(List<TogglzFeatureDto> features) {
+    return new ServiceResponse<>(features, headers(), true);
+  }
+
+  private HttpHeaders headers() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+
+    return headers;
+  }
+}
@@ -20,7 +20,11 @@ import static org.hamcrest.Matchers.hasSize;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
 import java.util.Collections;
 import java.util.List;
 import java.util.UUID;
@@ -30,6 +34,7 @@ import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.OrderableDto;
 import org.openlmis.requisition.dto.VersionIdentityDto;
 import org.openlmis.requisition.testutils.OrderableDtoDataBuilder;
+import org.springframework.mock.env.MockEnvironment;
 
 public class OrderableReferenceDataServiceTest extends BaseReferenceDataServiceTest<OrderableDto> {
 
@@ -76,6 +81,35 @@ public class OrderableReferenceDataServiceTest extends BaseReferenceDataServiceT
         .hasBody(searchParams);
   }
 
+  @Test
+  public void shouldOnlyFetchOrderablesMissingFromReferenceDataCache() {
+    // given
+    MockEnvironment environment = new MockEnvironment()
+        .withProperty("referencedata.cache.orderables.maxSize", "10");
+    service.setReferenceDataCache(new ReferenceDataCache(environment, new SimpleMeterRegistry(),
+        new ObjectMapper(), Clock.systemUTC()));
+
+    OrderableDto product = mockPageResponseEntityAndGetDto();
+    VersionEntityReference cached = new VersionEntityReference(product.getId(),
+        product.getVersionNumber());
+    VersionEntityReference missing = new VersionEntityReference(UUID.randomUUID(), 1L);
+
+    service.findByIdentities(Collections.singleton(cached));
+
+    OrderableSearchParams searchParams = new OrderableSearchParams(null, null, null,
+        Lists.newArrayList(new VersionIdentityDto(missing)), 0, 1);
+
+    // when
+    List<OrderableDto> response = service.findByIdentities(Sets.newHashSet(cached, missing));
+
+    // then
+    assertThat(response, hasItem(product));
+
+    verifyPageRequest()
+        .isPostRequest()
+        .hasBody(searchParams);
+  }
+
   @Test
   public void shouldReturnEmptyListIfEmptyParamProvided() {
     // given
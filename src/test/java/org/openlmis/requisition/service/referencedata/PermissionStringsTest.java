@@ -17,116 +17,113 @@ package org.openlmis.requisition.service.referencedata;
 
 import static java.util.Collections.singletonList;
 import static java.util.UUID.randomUUID;
-import static org.apache.commons.lang3.RandomStringUtils.random;
-import static org.hamcrest.Matchers.equalTo;
-import static org.hamcrest.Matchers.hasSize;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.not;
 import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
 import static org.junit.Assert.assertThat;
 import static org.mockito.Mockito.when;
 
-import java.lang.reflect.Field;
 import java.util.List;
-import java.util.Map;
-import java.util.Set;
 import java.util.UUID;
+import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
-import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.openlmis.requisition.service.ServiceResponse;
 
 @RunWith(MockitoJUnitRunner.class)
 public class PermissionStringsTest {
-  private static final String HANDLERS_FIELD_NAME = "handlers";
   private static final UUID USER = randomUUID();
+  private static final String ETAG = "etag";
 
   @Mock
   private UserReferenceDataService userReferenceDataService;
 
-  @InjectMocks
-  private PermissionStrings permissionStrings;
-
   @Mock
   private ServiceResponse<List<String>> response;
 
-  @Test
-  public void shouldCreateHandlerIfNotExist() throws Exception {
-    Field handlers = PermissionStrings.class.getDeclaredField(HANDLERS_FIELD_NAME);
-    handlers.setAccessible(true);
+  private PermissionStrings permissionStrings;
 
-    Map map = (Map) handlers.get(permissionStrings);
-    assertThat(map.size(), is(0));
+  @Before
+  public void setUp() {
+    permissionStrings = new PermissionStrings(userReferenceDataService, 2, 60);
+  }
+
+  @Test
+  public void shouldCreateHandlerIfNotExist() {
+    assertThat(permissionStrings.size(), is(0L));
 
     PermissionStrings.Handler handler = permissionStrings.forUser(USER);
 
     assertThat(handler, is(notNullValue()));
-
-    map = (Map) handlers.get(permissionStrings);
-    assertThat(map.size(), is(1));
+    assertThat(permissionStrings.size(), is(1L));
   }
 
   @Test
-  public void shouldNotRecreateHandler() throws Exception {
-    Field handlers = PermissionStrings.class.getDeclaredField(HANDLERS_FIELD_NAME);
-    handlers.setAccessible(true);
+  public void shouldNotRecreateHandler() {
+    PermissionStrings.Handler handler = permissionStrings.forUser(USER);
 
-    permissionStrings.forUser(USER);
-    permissionStrings.forUser(USER);
-    permissionStrings.forUser(USER);
-    permissionStrings.forUser(USER);
+    assertThat(permissionStrings.forUser(USER), is(sameInstance(handler)));
+    assertThat(permissionStrings.forUser(USER), is(sameInstance(handler)));
+    assertThat(permissionStrings.size(), is(1L));
+  }
 
-    Map map = (Map) handlers.get(permissionStrings);
-    assertThat(map.size(), is(1));
+  @Test
+  public void shouldEvictLeastRecentlyUsedHandlers() {
+    final PermissionStrings.Handler handler = permissionStrings.forUser(USER);
+    permissionStrings.forUser(randomUUID());
+    permissionStrings.forUser(randomUUID());
+
+    assertThat(permissionStrings.size(), is(2L));
+    assertThat(permissionStrings.forUser(USER), is(not(sameInstance(handler))));
   }
 
   @Test
-  public void shouldUpdateDataIfResponseWasModified() throws Exception {
-    String etag = random(5);
+  public void shouldUpdateDataIfResponseWasModified() {
     PermissionStrings.Handler handler = permissionStrings.forUser(USER);
 
     // here handler does not have etag so it should pass null value
     when(userReferenceDataService.getPermissionStrings(USER, null)).thenReturn(response);
     when(response.isModified()).thenReturn(true);
-    when(response.getETag()).thenReturn(etag);
-    when(response.getBody()).thenReturn(singletonList(random(5)));
-    Set<PermissionStringDto> one = handler.get();
+    when(response.getETag()).thenReturn(ETAG);
+    when(response.getBody()).thenReturn(singletonList(permissionString()));
+    CompactPermissionStrings one = handler.get();
 
-    assertThat(one, hasSize(1));
+    assertThat(one.size(), is(1));
 
     // here handler should have etag and should use it
-    when(userReferenceDataService.getPermissionStrings(USER, etag)).thenReturn(response);
-    when(response.getBody()).thenReturn(singletonList(random(5)));
-    Set<PermissionStringDto> two = handler.get();
-
-    assertThat(two, hasSize(1));
+    when(userReferenceDataService.getPermissionStrings(USER, ETAG)).thenReturn(response);
+    when(response.getBody()).thenReturn(singletonList(permissionString()));
+    CompactPermissionStrings two = handler.get();
 
-    assertThat(one, is(not(equalTo(two))));
+    assertThat(two.size(), is(1));
+    assertThat(one, is(not(sameInstance(two))));
   }
 
   @Test
-  public void shouldNotUpdateDataIfResponseWasNotModified() throws Exception {
-    String etag = random(5);
+  public void shouldNotUpdateDataIfResponseWasNotModified() {
     PermissionStrings.Handler handler = permissionStrings.forUser(USER);
 
     // here handler does not have etag so it should pass null value
     when(userReferenceDataService.getPermissionStrings(USER, null)).thenReturn(response);
     when(response.isModified()).thenReturn(true);
-    when(response.getETag()).thenReturn(etag);
-    when(response.getBody()).thenReturn(singletonList(random(5)));
-    Set<PermissionStringDto> one = handler.get();
+    when(response.getETag()).thenReturn(ETAG);
+    when(response.getBody()).thenReturn(singletonList(permissionString()));
+    CompactPermissionStrings one = handler.get();
 
-    assertThat(one, hasSize(1));
+    assertThat(one.size(), is(1));
 
     // here handler should have etag and should use it
-    when(userReferenceDataService.getPermissionStrings(USER, etag)).thenReturn(response);
+    when(userReferenceDataService.getPermissionStrings(USER, ETAG)).thenReturn(response);
     when(response.isModified()).thenReturn(false);
-    Set<PermissionStringDto> two = handler.get();
+    CompactPermissionStrings two = handler.get();
 
-    assertThat(two, hasSize(1));
+    assertThat(one, is(sameInstance(two)));
+  }
 
-    assertThat(one, is(equalTo(two)));
+  private String permissionString() {
+    return String.join("|", "RIGHT", randomUUID().toString(), randomUUID().toString());
   }
 }
@@ -0,0 +1,292 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.openlmis.requisition.service.referencedata.ReferenceDataCache.EVICTIONS_METRIC;
+import static org.openlmis.requisition.service.referencedata.ReferenceDataCache.GETS_METRIC;
+import static org.openlmis.requisition.service.referencedata.ReferenceDataCache.SIZE_METRIC;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.Lists;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.search.RequiredSearch;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import java.time.Clock;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Function;
+import org.junit.Before;
+import org.junit.Test;
+import org.openlmis.requisition.dto.FacilityDto;
+import org.openlmis.requisition.dto.OrderableDto;
+import org.openlmis.requisition.dto.VersionIdentityDto;
+import org.openlmis.requisition.service.ServiceResponse;
+import org.openlmis.requisition.service.referencedata.ReferenceDataCache.Region;
+import org.openlmis.requisition.service.referencedata.ReferenceDataCache.VersionedRegion;
+import org.openlmis.requisition.testutils.FacilityDtoDataBuilder;
+import org.openlmis.requisition.testutils.OrderableDtoDataBuilder;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.mock.env.MockEnvironment;
+
+@SuppressWarnings({"unchecked", "PMD.TooManyMethods"})
+public class ReferenceDataCacheTest {
+  private static final String FACILITIES = "facilities";
+  private static final String ORDERABLES = "orderables";
+  private static final String ETAG = "W/\"1\"";
+
+  private MockEnvironment environment = new MockEnvironment()
+      .withProperty("referencedata.cache.maxSize", "2")
+      .withProperty("referencedata.cache.facilities.timeToLive", "60")
+      .withProperty("referencedata.cache.orderables.maxSize", "10");
+  private MeterRegistry registry = new SimpleMeterRegistry();
+  private ObjectMapper objectMapper = Jackson2ObjectMapperBuilder.json().build();
+  private Clock clock = mock(Clock.class);
+
+  private Function<String, ServiceResponse<String>> fetch = mock(Function.class);
+
+  private ReferenceDataCache cache;
+  private FacilityDto facility = new FacilityDtoDataBuilder().buildAsDto();
+
+  @Before
+  public void setUp() throws Exception {
+    cache = new ReferenceDataCache(environment, registry, objectMapper, clock);
+
+    when(clock.millis()).thenReturn(0L);
+    when(fetch.apply(any())).thenReturn(modified(objectMapper.writeValueAsString(facility)));
+  }
+
+  @Test
+  public void shouldFetchResourceOnlyOnceWithinTimeToLive() {
+    // given
+    Region region = cache.getRegion(FACILITIES);
+
+    // when
+    FacilityDto first = region.get(facility.getId(), FacilityDto.class, fetch);
+    when(clock.millis()).thenReturn(59_999L);
+    FacilityDto second = region.get(facility.getId(), FacilityDto.class, fetch);
+
+    // then
+    assertThat(first, is(facility));
+    assertThat(second, is(facility));
+    assertThat(second, is(not(sameInstance(first))));
+
+    verify(fetch).apply(null);
+    assertThat(count(FACILITIES, GETS_METRIC, "miss"), is(1.0));
+    assertThat(count(FACILITIES, GETS_METRIC, "hit"), is(1.0));
+  }
+
+  @Test
+  public void shouldRevalidateExpiredResourceWithEtag() {
+    // given
+    Region region = cache.getRegion(FACILITIES);
+    region.get(facility.getId(), FacilityDto.class, fetch);
+
+    when(clock.millis()).thenReturn(60_000L);
+    when(fetch.apply(ETAG)).thenReturn(new ServiceResponse<>(null, etag(), false));
+
+    // when
+    FacilityDto found = region.get(facility.getId(), FacilityDto.class, fetch);
+    when(clock.millis()).thenReturn(119_999L);
+    region.get(facility.getId(), FacilityDto.class, fetch);
+
+    // then
+    assertThat(found, is(facility));
+    verify(fetch).apply(ETAG);
+    assertThat(count(FACILITIES, GETS_METRIC, "revalidated"), is(1.0));
+    assertThat(count(FACILITIES, GETS_METRIC, "hit"), is(1.0));
+  }
+
+  @Test
+  public void shouldReplaceExpiredResourceIfItHasChanged() throws Exception {
+    // given
+    Region region = cache.getRegion(FACILITIES);
+    region.get(facility.getId(), FacilityDto.class, fetch);
+
+    FacilityDto changed = new FacilityDtoDataBuilder()
+        .withId(facility.getId())
+        .buildAsDto();
+
+    when(clock.millis()).thenReturn(60_000L);
+    when(fetch.apply(ETAG)).thenReturn(modified(objectMapper.writeValueAsString(changed)));
+
+    // when
+    FacilityDto found = region.get(facility.getId(), FacilityDto.class, fetch);
+
+    // then
+    assertThat(found, is(changed));
+    assertThat(count(FACILITIES, GETS_METRIC, "miss"), is(2.0));
+  }
+
+  @Test
+  public void shouldNotKeepResourcesThatDoNotExist() {
+    // given
+    Region region = cache.getRegion(FACILITIES);
+    when(fetch.apply(any())).thenReturn(modified(null));
+
+    // when
+    FacilityDto first = region.get(facility.getId(), FacilityDto.class, fetch);
+    FacilityDto second = region.get(facility.getId(), FacilityDto.class, fetch);
+
+    // then
+    assertThat(first, is(nullValue()));
+    assertThat(second, is(nullValue()));
+    verify(fetch, times(2)).apply(null);
+  }
+
+  @Test
+  public void shouldEvictLeastRecentlyUsedResourcesAboveMaxSize() {
+    // given
+    Region region = cache.getRegion(FACILITIES);
+
+    // when
+    region.get(facility.getId(), FacilityDto.class, fetch);
+    region.get(UUID.randomUUID(), FacilityDto.class, fetch);
+    region.get(UUID.randomUUID(), FacilityDto.class, fetch);
+    region.get(facility.getId(), FacilityDto.class, fetch);
+
+    // then
+    verify(fetch, times(4)).apply(null);
+    assertThat(count(FACILITIES, EVICTIONS_METRIC, null), is(2.0));
+    assertThat(meter(FACILITIES, SIZE_METRIC).gauge().value(), is(2.0));
+  }
+
+  @Test
+  public void shouldFetchResourceAgainAfterFlush() {
+    // given
+    Region region = cache.getRegion(FACILITIES);
+    region.get(facility.getId(), FacilityDto.class, fetch);
+
+    // when
+    boolean flushed = cache.flush(FACILITIES);
+    region.get(facility.getId(), FacilityDto.class, fetch);
+
+    // then
+    assertThat(flushed, is(true));
+    verify(fetch, times(2)).apply(null);
+    assertThat(count(FACILITIES, EVICTIONS_METRIC, null), is(0.0));
+  }
+
+  @Test
+  public void shouldNotFlushUnknownRegion() {
+    // given
+    cache.getRegion(FACILITIES);
+
+    // when
+    boolean flushed = cache.flush("programs");
+
+    // then
+    assertThat(flushed, is(false));
+    assertThat(cache.getRegionNames(), contains(FACILITIES));
+  }
+
+  @Test
+  public void shouldDisableRegionWithoutTimeToLive() {
+    // when
+    Region region = cache.getRegion("programs");
+
+    // then
+    assertThat(region.isEnabled(), is(false));
+    assertThat(cache.getRegion(FACILITIES).isEnabled(), is(true));
+    verify(fetch, never()).apply(any());
+  }
+
+  @Test
+  public void shouldOnlyFetchVersionedResourcesThatAreMissing() {
+    // given
+    VersionedRegion region = cache.getVersionedRegion(ORDERABLES);
+    OrderableDto orderable = new OrderableDtoDataBuilder().buildAsDto();
+    OrderableDto other = new OrderableDtoDataBuilder().buildAsDto();
+
+    Function<List<VersionIdentityDto>, List<OrderableDto>> search = mock(Function.class);
+    when(search.apply(any()))
+        .thenReturn(Lists.newArrayList(orderable))
+        .thenReturn(Lists.newArrayList(other));
+
+    // when
+    region.getAll(Lists.newArrayList(orderable.getIdentity()), search);
+    List<OrderableDto> found = region.getAll(
+        Lists.newArrayList(orderable.getIdentity(), other.getIdentity()), search);
+
+    // then
+    assertThat(found, contains(sameInstance(orderable), sameInstance(other)));
+    verify(search).apply(Lists.newArrayList(other.getIdentity()));
+
+    assertThat(count(ORDERABLES, GETS_METRIC, "hit"), is(1.0));
+    assertThat(count(ORDERABLES, GETS_METRIC, "miss"), is(2.0));
+  }
+
+  @Test
+  public void shouldNotFetchVersionedResourcesIfAllArePresent() {
+    // given
+    VersionedRegion region = cache.getVersionedRegion(ORDERABLES);
+    OrderableDto orderable = new OrderableDtoDataBuilder().buildAsDto();
+
+    Function<List<VersionIdentityDto>, List<OrderableDto>> search = mock(Function.class);
+    when(search.apply(any())).thenReturn(Lists.newArrayList(orderable));
+    region.getAll(Lists.newArrayList(orderable.getIdentity()), search);
+
+    // when
+    List<OrderableDto> found = region.getAll(
+        Lists.newArrayList(orderable.getIdentity()), search);
+
+    // then
+    assertThat(found, contains(sameInstance(orderable)));
+    verify(search, times(1)).apply(any());
+  }
+
+  @Test
+  public void shouldDisableVersionedRegionWithoutMaxSize() {
+    // when
+    VersionedRegion region = cache.getVersionedRegion("facilityTypeApprovedProducts");
+
+    // then
+    assertThat(region.isEnabled(), is(false));
+    assertThat(cache.getVersionedRegion(ORDERABLES).isEnabled(), is(true));
+  }
+
+  private ServiceResponse<String> modified(String body) {
+    return new ServiceResponse<>(body, etag(), true);
+  }
+
+  private HttpHeaders etag() {
+    HttpHeaders headers = new HttpHeaders();
+    headers.setETag(ETAG);
+    return headers;
+  }
+
+  private double count(String region, String name, String result) {
+    return null == result
+        ? meter(region, name).counter().count()
+        : meter(region, name).tag("result", result).counter().count();
+  }
+
+  private RequiredSearch meter(String region, String name) {
+    return registry.get(name).tag("cache", region);
+  }
+}
@@ -0,0 +1,202 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.service.referencedata;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.BDDMockito.given;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyZeroInteractions;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.openlmis.requisition.dto.ObjectReferenceDto;
+import org.openlmis.requisition.dto.SupplyPartnerAssociationDto;
+import org.openlmis.requisition.dto.SupplyPartnerDto;
+import org.openlmis.requisition.testutils.SupplyPartnerAssociationDtoDataBuilder;
+import org.openlmis.requisition.testutils.SupplyPartnerDtoDataBuilder;
+
+@RunWith(MockitoJUnitRunner.class)
+@SuppressWarnings({"PMD.TooManyMethods"})
+public class SupplyPartnerAssociationIndexTest {
+
+  @Mock
+  private SupplyPartnerReferenceDataService supplyPartnerReferenceDataService;
+
+  @InjectMocks
+  private SupplyPartnerAssociationIndex index;
+
+  private UUID programId = UUID.randomUUID();
+  private UUID supervisoryNodeId = UUID.randomUUID();
+  private UUID facilityId = UUID.randomUUID();
+  private UUID orderableId = UUID.randomUUID();
+
+  private Set<UUID> supervisoryNodeIds = Sets.newHashSet(supervisoryNodeId);
+  private Set<UUID> orderableIds = Sets.newHashSet(orderableId, UUID.randomUUID());
+
+  private SupplyPartnerAssociationDto association;
+
+  @Before
+  public void setUp() {
+    association = association(programId, supervisoryNodeId, facilityId, orderableId);
+
+    given(supplyPartnerReferenceDataService.findAll())
+        .willReturn(Lists.newArrayList(partner(association)));
+  }
+
+  @Test
+  public void shouldFindAssociation() {
+    // when
+    List<SupplyPartnerAssociationDto> result = index
+        .find(programId, supervisoryNodeIds, facilityId, orderableIds);
+
+    // then
+    assertThat(result).containsExactly(association);
+  }
+
+  @Test
+  public void shouldNotFindAssociationForOtherProgram() {
+    // when
+    List<SupplyPartnerAssociationDto> result = index
+        .find(UUID.randomUUID(), supervisoryNodeIds, facilityId, orderableIds);
+
+    // then
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  public void shouldNotFindAssociationForOtherSupervisoryNode() {
+    // when
+    List<SupplyPartnerAssociationDto> result = index
+        .find(programId, Sets.newHashSet(UUID.randomUUID()), facilityId, orderableIds);
+
+    // then
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  public void shouldNotFindAssociationForOtherFacility() {
+    // when
+    List<SupplyPartnerAssociationDto> result = index
+        .find(programId, supervisoryNodeIds, UUID.randomUUID(), orderableIds);
+
+    // then
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  public void shouldNotFindAssociationForOtherOrderables() {
+    // when
+    List<SupplyPartnerAssociationDto> result = index
+        .find(programId, supervisoryNodeIds, facilityId, Sets.newHashSet(UUID.randomUUID()));
+
+    // then
+    assertThat(result).isEmpty();
+  }
+
+  @Test
+  public void shouldFindAssociationForAnySupervisoryNodeIfNoneWasGiven() {
+    // when
+    List<SupplyPartnerAssociationDto> result = index
+        .find(programId, Collections.emptySet(), facilityId, orderableIds);
+
+    // then
+    assertThat(result).containsExactly(association);
+  }
+
+  @Test
+  public void shouldFindFirstMatchingAssociationOfEachPartnerInOrder() {
+    // given
+    UUID otherNodeId = UUID.randomUUID();
+    SupplyPartnerAssociationDto second = association(programId, otherNodeId, facilityId,
+        orderableId);
+    SupplyPartnerAssociationDto third = association(programId, supervisoryNodeId, facilityId,
+        orderableId);
+
+    given(supplyPartnerReferenceDataService.findAll())
+        .willReturn(Lists.newArrayList(partner(third), partner(second, association)));
+
+    // when
+    List<SupplyPartnerAssociationDto> result = index.find(programId,
+        Sets.newHashSet(supervisoryNodeId, otherNodeId), facilityId, orderableIds);
+
+    // then
+    assertThat(result).containsExactly(third, second);
+  }
+
+  @Test
+  public void shouldDownloadSupplyPartnersOnlyOnce() {
+    // when
+    index.find(programId, supervisoryNodeIds, facilityId, orderableIds);
+    index.find(programId, supervisoryNodeIds, facilityId, orderableIds);
+
+    // then
+    verify(supplyPartnerReferenceDataService, times(1)).findAll();
+  }
+
+  @Test
+  public void shouldNotDownloadSupplyPartnersOnRefreshIfTheyWereNotUsed() {
+    // when
+    index.refreshAssociations();
+
+    // then
+    verifyZeroInteractions(supplyPartnerReferenceDataService);
+  }
+
+  @Test
+  public void shouldReplaceAssociationsOnRefresh() {
+    // given
+    index.find(programId, supervisoryNodeIds, facilityId, orderableIds);
+    given(supplyPartnerReferenceDataService.findAll())
+        .willReturn(Collections.emptyList());
+
+    // when
+    index.refreshAssociations();
+
+    // then
+    assertThat(index.find(programId, supervisoryNodeIds, facilityId, orderableIds)).isEmpty();
+  }
+
+  private SupplyPartnerAssociationDto association(UUID programId, UUID supervisoryNodeId,
+      UUID facilityId, UUID orderableId) {
+    return new SupplyPartnerAssociationDtoDataBuilder()
+        .withProgram(new ObjectReferenceDto(programId))
+        .withSupervisoryNode(new ObjectReferenceDto(supervisoryNodeId))
+        .withFacility(new ObjectReferenceDto(facilityId))
+        .withOrderable(new ObjectReferenceDto(orderableId))
+        .buildAsDto();
+  }
+
+  private SupplyPartnerDto partner(SupplyPartnerAssociationDto... associations) {
+    SupplyPartnerDtoDataBuilder builder = new SupplyPartnerDtoDataBuilder();
+
+    for (SupplyPartnerAssociationDto association : associations) {
+      builder.withAssociation(association);
+    }
+
+    return builder.buildAsDto();
+  }
+}
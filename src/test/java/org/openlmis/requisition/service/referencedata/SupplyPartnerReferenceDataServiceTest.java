@@ -78,4 +78,21 @@ public class SupplyPartnerReferenceDataServiceTest
         .hasQueryParameter("supervisoryNodeId", supervisoryNodeId3);
   }
 
+  @Test
+  public void shouldFindAllResources() {
+    // when
+    SupplyPartnerDto dto = mockPageResponseEntityAndGetDto();
+    List<SupplyPartnerDto> result = service.findAll();
+
+    // then
+    assertThat(result, hasSize(1));
+    assertTrue(result.contains(dto));
+
+    verifyPageRequest()
+        .isGetRequest()
+        .hasAuthHeader()
+        .hasEmptyBody()
+        .isUriStartsWith(service.getServiceUrl() + service.getUrl());
+  }
+
 }
@@ -0,0 +1,137 @@
+/*
+ * This program is part of the OpenLMIS logistics management information system platform software.
+ * Copyright © 2017 VillageReach
+ *
+ * This program is free software: you can redistribute it and/or modify it under the terms
+ * of the GNU Affero General Public License as published by the Free Software Foundation, either
+ * version 3 of the License, or (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful, but WITHOUT ANY WARRANTY;
+ * without even the implied warranty of MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.
+ * See the GNU Affero General Public License for more details. You should have received a copy of
+ * the GNU Affero General Public License along with this program. If not, see
+ * http://www.gnu.org/licenses.  For additional information contact info@OpenLMIS.org.
+ */
+
+package org.openlmis.requisition.utils;
+
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.assertThat;
+
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.UUID;
+import org.junit.Test;
+import org.openlmis.requisition.exception.ValidationMessageException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+
+public class CursorPageRequestTest {
+
+  private static final PageRequest PAGE_REQUEST = PageRequest.of(3, 10, Sort.by("status"));
+
+  @Test
+  public void shouldDecodeEncodedCursor() {
+    // given
+    ZonedDateTime createdDate = ZonedDateTime.parse("2026-10-17T12:00:00.123456Z");
+    UUID id = UUID.randomUUID();
+
+    // when
+    CursorPageRequest pageable = CursorPageRequest
+        .of(PAGE_REQUEST, CursorPageRequest.encode(createdDate, id), false);
+
+    // then
+    assertThat(pageable.getCursor().getCreatedDate().toInstant(), is(createdDate.toInstant()));
+    assertThat(pageable.getCursor().getId(), is(id));
+    assertThat(pageable.isCounted(), is(false));
+  }
+
+  @Test
+  public void shouldPointToFirstPageIfCursorIsEmpty() {
+    // when
+    CursorPageRequest pageable = CursorPageRequest.of(PAGE_REQUEST, "", true);
+
+    // then
+    assertThat(pageable.getCursor(), is(nullValue()));
+    assertThat(pageable.hasPrevious(), is(false));
+  }
+
+  @Test
+  public void shouldIgnorePageNumberAndSort() {
+    // when
+    CursorPageRequest pageable = CursorPageRequest.of(PAGE_REQUEST, "", true);
+
+    // then
+    assertThat(pageable.getPageSize(), is(10));
+    assertThat(pageable.getPageNumber(), is(0));
+    assertThat(pageable.getOffset(), is(0L));
+    assertThat(pageable.getSort(), is(Sort.by(
+        CursorPageRequest.CREATED_DATE, CursorPageRequest.ID)));
+  }
+
+  @Test
+  public void shouldSkipPagesAfterCursorForNextPageable() {
+    // given
+    String cursor = CursorPageRequest.encode(ZonedDateTime.now(), UUID.randomUUID());
+    CursorPageRequest pageable = CursorPageRequest.of(PAGE_REQUEST, cursor, true);
+
+    // when
+    Pageable next = pageable.next().next();
+
+    // then
+    assertThat(next.getPageNumber(), is(2));
+    assertThat(next.getOffset(), is(20L));
+    assertThat(((CursorPageRequest) next).getCursor(), is(pageable.getCursor()));
+    assertThat(next.previousOrFirst().previousOrFirst(), is(pageable));
+    assertThat(pageable.previousOrFirst(), is(pageable.first()));
+  }
+
+  @Test
+  public void shouldContinueAfterNextCursorOfPage() {
+    // given
+    String nextCursor = CursorPageRequest.encode(ZonedDateTime.now(), UUID.randomUUID());
+    CursorPage<Integer> page = new CursorPage<>(Collections.singletonList(1),
+        CursorPageRequest.of(PAGE_REQUEST, "", false), 2, nextCursor);
+
+    // when
+    CursorPageRequest next = (CursorPageRequest) page.nextPageable();
+
+    // then
+    assertThat(next, is(CursorPageRequest.of(PAGE_REQUEST, nextCursor, false)));
+    assertThat(next.getOffset(), is(0L));
+  }
+
+  @Test(expected = ValidationMessageException.class)
+  public void shouldThrowExceptionIfCursorIsInvalid() {
+    CursorPageRequest.of(PAGE_REQUEST, "invalid", true);
+  }
+
+  @Test
+  public void shouldKeepNextCursorWhenContentIsReplaced() {
+    // given
+    CursorPageRequest pageable = CursorPageRequest.of(PAGE_REQUEST, "", false);
+    CursorPage<Integer> page = new CursorPage<>(
+        Collections.singletonList(1), pageable, 2, "next");
+
+    // when
+    CursorPage<String> result = page.withContent(Collections.singletonList("1"));
+
+    // then
+    assertThat(result.getContent(), is(Collections.singletonList("1")));
+    assertThat(result.getNextCursor(), is("next"));
+    assertThat(result.hasNext(), is(true));
+  }
+
+  @Test
+  public void shouldBeLastPageIfThereIsNoNextCursor() {
+    // when
+    CursorPage<Integer> page = new CursorPage<>(Collections.singletonList(1),
+        CursorPageRequest.of(PAGE_REQUEST, "", true), 1, null);
+
+    // then
+    assertThat(page.hasNext(), is(false));
+    assertThat(page.isLast(), is(true));
+  }
+}
@@ -59,6 +59,16 @@ public class ReportUtilsTest {
   private static final int DELTA = 1000;
 
 
+  @Test
+  public void shouldReturnMediaTypeOfReportFormat() {
+    assertEquals("text/csv;charset=UTF-8", ReportUtils.getMediaType("csv").toString());
+    assertEquals("application/vnd.ms-excel;charset=UTF-8",
+        ReportUtils.getMediaType("xls").toString());
+    assertEquals("text/html;charset=UTF-8", ReportUtils.getMediaType("html").toString());
+    assertEquals("application/pdf;charset=UTF-8", ReportUtils.getMediaType("pdf").toString());
+    assertEquals("application/pdf;charset=UTF-8", ReportUtils.getMediaType(null).toString());
+  }
+
   @Test
   public void shouldCreateDefaultParametersMap() {
     // when
@@ -16,6 +16,8 @@
 package org.openlmis.requisition.utils;
 
 import static org.assertj.core.api.Java6Assertions.assertThat;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.STOCK_ON_HAND;
 import static org.openlmis.requisition.domain.requisition.RequisitionLineItem.TOTAL_CONSUMED_QUANTITY;
@@ -31,6 +33,7 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Function;
 import java.util.stream.Collectors;
 import org.junit.Before;
@@ -434,6 +437,48 @@ public class StockEventBuilderTest {
     assertThat(result.getLineItems().get(0).getStockAdjustments().size()).isEqualTo(4);
   }
 
+  @Test
+  public void shouldBuildSameStockEventsFromRequisitionsAsFromEachRequisition() {
+    when(stockCardStockManagementService.getStockCardsAsync(
+        requisition.getFacilityId(), requisition.getProgramId())
+    ).thenReturn(CompletableFuture.completedFuture(stockCards));
+
+    List<StockEventDto> result = stockEventBuilder
+        .fromRequisitions(Arrays.asList(requisition, requisition), userId, orderables);
+
+    assertThat(result).hasSize(2);
+    assertThat(result.get(0)).isEqualToComparingFieldByFieldRecursively(getStockEventDto());
+    assertThat(result.get(1)).isEqualToComparingFieldByFieldRecursively(getStockEventDto());
+    verify(stockCardStockManagementService, times(1))
+        .getStockCardsAsync(requisition.getFacilityId(), requisition.getProgramId());
+  }
+
+  @Test
+  public void shouldGetStockCardsOnceForEachFacilityAndProgram() {
+    Map<VersionIdentityDto, OrderableDto> firstOrderables = orderables;
+    Requisition other = prepareRequisitionDto(period.getId());
+    orderables.putAll(firstOrderables);
+
+    when(stockCardStockManagementService.getStockCardsAsync(
+        requisition.getFacilityId(), requisition.getProgramId())
+    ).thenReturn(CompletableFuture.completedFuture(stockCards));
+    when(stockCardStockManagementService.getStockCardsAsync(
+        other.getFacilityId(), other.getProgramId())
+    ).thenReturn(CompletableFuture.completedFuture(stockCards));
+
+    List<StockEventDto> result = stockEventBuilder
+        .fromRequisitions(Arrays.asList(requisition, other, requisition), userId, orderables);
+
+    assertThat(result).hasSize(3);
+    assertThat(result.get(0).getFacilityId()).isEqualTo(requisition.getFacilityId());
+    assertThat(result.get(1).getFacilityId()).isEqualTo(other.getFacilityId());
+    assertThat(result.get(2).getFacilityId()).isEqualTo(requisition.getFacilityId());
+    verify(stockCardStockManagementService, times(1))
+        .getStockCardsAsync(requisition.getFacilityId(), requisition.getProgramId());
+    verify(stockCardStockManagementService, times(1))
+        .getStockCardsAsync(other.getFacilityId(), other.getProgramId());
+  }
+
   private RequisitionLineItem prepareLineItemOneDto() {
     lineItemOneDto = new RequisitionLineItemDataBuilder()
         .withSkippedFlag(false)
@@ -16,7 +16,9 @@
 package org.openlmis.requisition.web;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 
 import org.junit.Test;
 
@@ -43,4 +45,20 @@ public class ETagResourceTest {
 
     assertEquals(7L, version.longValue());
   }
+
+  @Test
+  public void shouldMatchWeakAndStrongETags() {
+    assertTrue(ETagResource.matches("W/7", 7L));
+    assertTrue(ETagResource.matches("7", 7L));
+    assertTrue(ETagResource.matches("\"7\"", 7L));
+    assertTrue(ETagResource.matches("W/5, W/7", 7L));
+    assertTrue(ETagResource.matches("*", 7L));
+  }
+
+  @Test
+  public void shouldNotMatchOtherVersions() {
+    assertFalse(ETagResource.matches("W/6", 7L));
+    assertFalse(ETagResource.matches("W/5, W/6", 7L));
+    assertFalse(ETagResource.matches("W/17", 7L));
+  }
 }
@@ -17,9 +17,12 @@ package org.openlmis.requisition.web;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.ArgumentMatchers.nullable;
 import static org.mockito.Matchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 import java.time.LocalDate;
@@ -42,14 +45,17 @@ import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.openlmis.requisition.domain.requisition.Requisition;
 import org.openlmis.requisition.domain.requisition.RequisitionStatus;
-import org.openlmis.requisition.domain.requisition.StatusChange;
+import org.openlmis.requisition.domain.requisition.RequisitionStatusChangeDate;
 import org.openlmis.requisition.dto.BasicProcessingPeriodDto;
 import org.openlmis.requisition.dto.GeographicZoneDto;
 import org.openlmis.requisition.dto.MinimalFacilityDto;
 import org.openlmis.requisition.dto.ProcessingPeriodDto;
 import org.openlmis.requisition.dto.ProcessingScheduleDto;
+import org.openlmis.requisition.dto.ProgramDto;
+import org.openlmis.requisition.dto.ReportingRateReportDto;
+import org.openlmis.requisition.dto.RequisitionCompletionDto;
+import org.openlmis.requisition.repository.RequisitionRepository;
 import org.openlmis.requisition.service.referencedata.FacilityReferenceDataService;
 import org.openlmis.requisition.service.referencedata.GeographicZoneReferenceDataService;
 import org.openlmis.requisition.service.referencedata.PeriodReferenceDataService;
@@ -71,6 +77,9 @@ public class ReportingRateDtoBuilderTest {
   @Mock
   private GeographicZoneReferenceDataService geographicZoneReferenceDataService;
 
+  @Mock
+  private RequisitionRepository requisitionRepository;
+
   @Test
   public void shouldGetLatestPeriods() {
     // given
@@ -190,19 +199,16 @@ public class ReportingRateDtoBuilderTest {
     LocalDateTime dueDate = LocalDate.of(1994, 8, 10).atStartOfDay();
     ZoneId zoneId = ZoneId.systemDefault();
 
-    List<Requisition> requisitions = new ArrayList<>();
+    List<RequisitionStatusChangeDate> requisitions = new ArrayList<>();
 
     // on-time requisition
-    requisitions.add(mockRequisitionWithStatusChanges(
-        RequisitionStatus.APPROVED, ZonedDateTime.of(dueDate, zoneId)));
+    requisitions.add(statusChangeDate(ZonedDateTime.of(dueDate, zoneId)));
 
     // late requisition
-    requisitions.add(mockRequisitionWithStatusChanges(
-        RequisitionStatus.APPROVED, ZonedDateTime.of(dueDate.plusDays(5), zoneId)));
+    requisitions.add(statusChangeDate(ZonedDateTime.of(dueDate.plusDays(5), zoneId)));
 
     // missed requisition
-    requisitions.add(mockRequisitionWithStatusChanges(
-        RequisitionStatus.SUBMITTED, ZonedDateTime.of(dueDate.minusDays(5), zoneId)));
+    requisitions.add(statusChangeDate(null));
 
     // when
     ReportingRateReportDtoBuilder.CompletionCounter counter = builder.new CompletionCounter();
@@ -217,7 +223,7 @@ public class ReportingRateDtoBuilderTest {
   @Test
   public void shouldUpdateCompletionsWithMissedIfNoRequisitionsProvided() {
     // given
-    List<Requisition> requisitions = new ArrayList<>();
+    List<RequisitionStatusChangeDate> requisitions = new ArrayList<>();
 
     // when
     ReportingRateReportDtoBuilder.CompletionCounter counter = builder.new CompletionCounter();
@@ -229,6 +235,56 @@ public class ReportingRateDtoBuilderTest {
     assertEquals(1, counter.getMissed());
   }
 
+  @Test
+  public void shouldBuildReportFromSingleStatusChangeDatesQuery() {
+    // given
+    List<ProcessingPeriodDto> periods = generateProcessingPeriods(1, null);
+    ProcessingPeriodDto period = periods.get(0);
+    period.setName("period");
+
+    GeographicZoneDto zone1 = mockGeographicZoneWithFacility(true);
+    GeographicZoneDto zone2 = mockGeographicZoneWithFacility(true);
+    when(zone1.getName()).thenReturn("zone1");
+    when(zone2.getName()).thenReturn("zone2");
+    when(geographicZoneReferenceDataService.search(GEOGRAPHIC_LEVEL_NUMBER, null))
+        .thenReturn(Arrays.asList(zone1, zone2));
+
+    UUID facilityId = facilityReferenceDataService.search(null, null, zone1.getId(), true)
+        .get(0).getId();
+    ZonedDateTime submittedDate = period.getEndDate().atStartOfDay(ZoneId.systemDefault());
+
+    ProgramDto program = new ProgramDto();
+    program.setId(UUID.randomUUID());
+
+    when(requisitionRepository.searchStatusChangeDates(eq(program.getId()), anyCollection(),
+        anyCollection(), eq(false), eq(RequisitionStatus.APPROVED)))
+        .thenReturn(Collections.singletonList(new RequisitionStatusChangeDate(
+            UUID.randomUUID(), facilityId, period.getId(), submittedDate)));
+
+    // when
+    ReportingRateReportDto report = builder.build(program, period, null, 0);
+
+    // then
+    verify(requisitionRepository).searchStatusChangeDates(eq(program.getId()), anyCollection(),
+        anyCollection(), eq(false), eq(RequisitionStatus.APPROVED));
+
+    assertEquals(1, report.getCompletionByPeriod().size());
+    RequisitionCompletionDto byPeriod = report.getCompletionByPeriod().get(0);
+    assertEquals(1, byPeriod.getOnTime());
+    assertEquals(1, byPeriod.getMissed());
+    assertEquals(2, byPeriod.getTotal());
+
+    assertEquals(2, report.getCompletionByZone().size());
+    RequisitionCompletionDto byZone1 = report.getCompletionByZone().get(0);
+    assertEquals("zone1", byZone1.getGrouping());
+    assertEquals(1, byZone1.getOnTime());
+    assertEquals(0, byZone1.getMissed());
+    RequisitionCompletionDto byZone2 = report.getCompletionByZone().get(1);
+    assertEquals("zone2", byZone2.getGrouping());
+    assertEquals(0, byZone2.getOnTime());
+    assertEquals(1, byZone2.getMissed());
+  }
+
   private GeographicZoneDto mockGeographicZoneWithFacility(boolean facilityActive) {
     GeographicZoneDto zone = mock(GeographicZoneDto.class);
     UUID zoneId = UUID.randomUUID();
@@ -237,6 +293,7 @@ public class ReportingRateDtoBuilderTest {
 
     MinimalFacilityDto facility = mock(MinimalFacilityDto.class);
 
+    when(facility.getId()).thenReturn(UUID.randomUUID());
     when(facility.getActive()).thenReturn(facilityActive);
     when(facility.getGeographicZone()).thenReturn(zone);
     List<MinimalFacilityDto> facilitiesForZone = Collections.singletonList(facility);
@@ -247,17 +304,9 @@ public class ReportingRateDtoBuilderTest {
     return zone;
   }
 
-  private Requisition mockRequisitionWithStatusChanges(
-      RequisitionStatus status, ZonedDateTime date) {
-    StatusChange entry = mock(StatusChange.class);
-    when(entry.getStatus()).thenReturn(status);
-    when(entry.getCreatedDate()).thenReturn(date);
-    List<StatusChange> changes = Collections.singletonList(entry);
-
-    Requisition requisition = mock(Requisition.class);
-    when(requisition.getStatusChanges()).thenReturn(changes);
-
-    return requisition;
+  private RequisitionStatusChangeDate statusChangeDate(ZonedDateTime date) {
+    return new RequisitionStatusChangeDate(
+        UUID.randomUUID(), UUID.randomUUID(), UUID.randomUUID(), date);
   }
 
   private List<ProcessingPeriodDto> generateProcessingPeriods(
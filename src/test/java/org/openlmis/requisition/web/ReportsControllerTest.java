@@ -15,12 +15,15 @@
 
 package org.openlmis.requisition.web;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.mockito.Mockito.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.util.Optional;
 import java.util.UUID;
 import net.sf.jasperreports.engine.JRException;
@@ -37,6 +40,7 @@ import org.openlmis.requisition.repository.RequisitionRepository;
 import org.openlmis.requisition.service.JasperReportsViewService;
 import org.openlmis.requisition.service.JasperTemplateService;
 import org.openlmis.requisition.service.PermissionService;
+import org.springframework.mock.web.MockHttpServletResponse;
 
 @SuppressWarnings({"PMD.UnusedPrivateField"})
 public class ReportsControllerTest {
@@ -67,12 +71,12 @@ public class ReportsControllerTest {
 
   @Test(expected = ContentNotFoundMessageException.class)
   public void shouldNotPrintRequisitionIfTRequisitionDoesNotExist()
-      throws JasperReportViewException {
+      throws JasperReportViewException, IOException {
     //given
     when(permissionService.canViewRequisition(any(UUID.class)))
         .thenReturn(ValidationResult.notFound("requisition.not.found"));
     // when
-    reportsController.print(UUID.randomUUID());
+    reportsController.print(UUID.randomUUID(), new MockHttpServletResponse());
   }
 
   @Test
@@ -83,15 +87,20 @@ public class ReportsControllerTest {
 
     when(requisitionRepository.findById(any(UUID.class)))
         .thenReturn(Optional.of(mock(Requisition.class)));
-    when(jasperReportsViewService.generateRequisitionReport(
-        any(Requisition.class))).thenReturn(reportData);
+    doAnswer(invocation -> {
+      invocation.getArgument(1, OutputStream.class).write(reportData);
+      return null;
+    }).when(jasperReportsViewService)
+        .generateRequisitionReport(any(Requisition.class), any(OutputStream.class));
     when(permissionService.canViewRequisition(any(UUID.class)))
         .thenReturn(ValidationResult.success());
 
     // when
-    byte[] actualReportData = reportsController.print(UUID.randomUUID()).getBody();
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    reportsController.print(UUID.randomUUID(), response);
 
     // then
-    assertEquals(reportData, actualReportData);
+    assertArrayEquals(reportData, response.getContentAsByteArray());
+    assertEquals("application/pdf;charset=UTF-8", response.getContentType());
   }
 }
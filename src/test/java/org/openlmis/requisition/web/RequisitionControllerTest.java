@@ -18,9 +18,11 @@ package org.openlmis.requisition.web;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonList;
+import static java.util.concurrent.CompletableFuture.completedFuture;
 import static org.assertj.core.api.Assertions.assertThatThrownBy;
 import static org.assertj.core.util.Maps.newHashMap;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotEquals;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
@@ -56,6 +58,8 @@ import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Lists;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import java.time.LocalDate;
 import java.time.ZonedDateTime;
 import java.util.ArrayList;
@@ -74,6 +78,7 @@ import org.junit.rules.ExpectedException;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.MockitoAnnotations;
+import org.mockito.Spy;
 import org.openlmis.requisition.domain.RequisitionTemplate;
 import org.openlmis.requisition.domain.RequisitionTemplateDataBuilder;
 import org.openlmis.requisition.domain.requisition.Requisition;
@@ -144,6 +149,7 @@ import org.openlmis.requisition.validate.RequisitionVersionValidator;
 import org.slf4j.profiler.Profiler;
 import org.springframework.context.i18n.LocaleContextHolder;
 import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
 import org.springframework.test.util.ReflectionTestUtils;
 
 @SuppressWarnings({"PMD.TooManyMethods", "PMD.UnusedPrivateField"})
@@ -278,6 +284,9 @@ public class RequisitionControllerTest {
   @Mock
   private RejectionDto rejectionDto;
 
+  @Spy
+  private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
   private UUID programUuid = UUID.randomUUID();
   private UUID facilityUuid = UUID.randomUUID();
   private UUID uuid1 = UUID.fromString("00000000-0000-0000-0000-000000000001");
@@ -360,6 +369,9 @@ public class RequisitionControllerTest {
 
     when(approvedProductReferenceDataService.getApprovedProducts(any(), any()))
         .thenReturn(new ApproveProductsAggregator(emptyList(), UUID.randomUUID()));
+    when(approvedProductReferenceDataService.getApprovedProductsAsync(any(), any()))
+        .thenReturn(completedFuture(
+            new ApproveProductsAggregator(emptyList(), UUID.randomUUID())));
   }
 
   private void stubValidations(Requisition... requisitions) {
@@ -683,16 +695,18 @@ public class RequisitionControllerTest {
         .thenReturn(ValidationResult.success());
     UUID facilityTypeId = UUID.randomUUID();
     FacilityTypeDto facilityType = mock(FacilityTypeDto.class);
-    when(facilityReferenceDataService.findOne(facilityUuid)).thenReturn(facility);
+    when(facilityReferenceDataService.findOneAsync(facilityUuid))
+        .thenReturn(completedFuture(facility));
     when(facility.getType()).thenReturn(facilityType);
     when(facilityType.getId()).thenReturn(facilityTypeId);
     ProgramDto program = new ProgramDto();
     program.setId(programUuid);
-    when(programReferenceDataService.findOne(programUuid)).thenReturn(program);
+    when(programReferenceDataService.findOneAsync(programUuid))
+        .thenReturn(completedFuture(program));
     doNothing().when(facilitySupportsProgramHelper).checkIfFacilitySupportsProgram(
         any(FacilityDto.class), eq(programUuid));
-    when(validReasonStockmanagementService.search(programUuid, facilityTypeId))
-        .thenReturn(Collections.emptyList());
+    when(validReasonStockmanagementService.searchAsync(programUuid, facilityTypeId))
+        .thenReturn(completedFuture(Collections.emptyList()));
     Requisition requisition = mock(Requisition.class);
     when(requisitionService.initiate(any(ProgramDto.class), any(FacilityDto.class),
         any(ProcessingPeriodDto.class), eq(false), anyListOf(StockAdjustmentReason.class),
@@ -730,16 +744,18 @@ public class RequisitionControllerTest {
         .thenReturn(ValidationResult.success());
     UUID facilityTypeId = UUID.randomUUID();
     FacilityTypeDto facilityType = mock(FacilityTypeDto.class);
-    when(facilityReferenceDataService.findOne(facilityUuid)).thenReturn(facility);
+    when(facilityReferenceDataService.findOneAsync(facilityUuid))
+        .thenReturn(completedFuture(facility));
     when(facility.getType()).thenReturn(facilityType);
     when(facilityType.getId()).thenReturn(facilityTypeId);
     ProgramDto program = new ProgramDto();
     program.setId(programUuid);
-    when(programReferenceDataService.findOne(programUuid)).thenReturn(program);
+    when(programReferenceDataService.findOneAsync(programUuid))
+        .thenReturn(completedFuture(program));
     doNothing().when(facilitySupportsProgramHelper).checkIfFacilitySupportsProgram(
         any(FacilityDto.class), eq(programUuid));
-    when(validReasonStockmanagementService.search(programUuid, facilityTypeId))
-        .thenReturn(Collections.emptyList());
+    when(validReasonStockmanagementService.searchAsync(programUuid, facilityTypeId))
+        .thenReturn(completedFuture(Collections.emptyList()));
     Requisition requisition = mock(Requisition.class);
     when(requisitionService.initiate(any(ProgramDto.class), any(FacilityDto.class),
         any(ProcessingPeriodDto.class), eq(true), anyListOf(StockAdjustmentReason.class),
@@ -1282,6 +1298,52 @@ public class RequisitionControllerTest {
     assertNull(requisition.getSupervisoryNodeId());
   }
 
+  @Test
+  public void shouldReturnNotModifiedWithoutLoadingRequisitionIfVersionMatches() {
+    stubRequisitionVersion("W/3", 3L);
+
+    RequisitionDto result = requisitionController.getRequisition(uuid1, request, response);
+
+    assertNull(result);
+    verify(response).setStatus(HttpStatus.NOT_MODIFIED.value());
+    verify(response).setHeader(HttpHeaders.ETAG, "W/3");
+    verify(requisitionRepository, never()).findById(uuid1);
+    assertEquals(1.0, getConditionalGets("notModified"), 0);
+  }
+
+  @Test
+  public void shouldNotReturnNotModifiedIfVersionHasChanged() {
+    stubRequisitionVersion("W/2", 3L);
+
+    boolean notModified = requisitionController
+        .isNotModified(uuid1, request, response, mock(Profiler.class));
+
+    assertFalse(notModified);
+    verify(response, never()).setStatus(HttpStatus.NOT_MODIFIED.value());
+    assertEquals(1.0, getConditionalGets("modified"), 0);
+  }
+
+  @Test
+  public void shouldCheckPermissionBeforeReturningNotModified() {
+    stubRequisitionVersion("W/3", 3L);
+    when(permissionService.canViewRequisition(any(Requisition.class)))
+        .thenReturn(ValidationResult.noPermission("some-key"));
+
+    assertThatThrownBy(() -> requisitionController.getRequisition(uuid1, request, response))
+        .isInstanceOf(PermissionMessageException.class);
+
+    verify(response, never()).setStatus(HttpStatus.NOT_MODIFIED.value());
+  }
+
+  @Test
+  public void shouldNotCheckVersionIfThereIsNoIfNoneMatchHeader() {
+    boolean notModified = requisitionController
+        .isNotModified(uuid1, request, response, mock(Profiler.class));
+
+    assertFalse(notModified);
+    verify(requisitionRepository, never()).findVersionById(uuid1);
+  }
+
   @Test
   public void findRequisitionShouldHaveHiddenColumnsInTemplateForReportOnlyRequisition() {
     //given
@@ -1457,6 +1519,20 @@ public class RequisitionControllerTest {
     return supplyLineDto;
   }
 
+  private void stubRequisitionVersion(String ifNoneMatch, Long version) {
+    when(request.getHeader(HttpHeaders.IF_NONE_MATCH)).thenReturn(ifNoneMatch);
+    when(requisitionRepository.findVersionById(uuid1)).thenReturn(Optional.of(
+        new Requisition(uuid1, version, facilityUuid, programUuid, null, emptyMap())));
+    when(permissionService.canViewRequisition(any(Requisition.class)))
+        .thenReturn(ValidationResult.success());
+  }
+
+  private double getConditionalGets(String result) {
+    return meterRegistry
+        .counter(BaseRequisitionController.CONDITIONAL_GETS_METRIC, "result", result)
+        .count();
+  }
+
   private List<RejectionDto> generateRejections() {
     return singletonList(rejectionDto);
   }
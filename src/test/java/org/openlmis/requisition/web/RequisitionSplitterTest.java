@@ -45,18 +45,15 @@ import org.openlmis.requisition.domain.requisition.VersionEntityReference;
 import org.openlmis.requisition.dto.ObjectReferenceDto;
 import org.openlmis.requisition.dto.SupervisoryNodeDto;
 import org.openlmis.requisition.dto.SupplyPartnerAssociationDto;
-import org.openlmis.requisition.dto.SupplyPartnerDto;
-import org.openlmis.requisition.dto.TogglzFeatureDto;
 import org.openlmis.requisition.i18n.MessageService;
 import org.openlmis.requisition.repository.RequisitionRepository;
 import org.openlmis.requisition.service.PermissionService;
+import org.openlmis.requisition.service.referencedata.FeatureFlagStore;
 import org.openlmis.requisition.service.referencedata.SupervisoryNodeReferenceDataService;
-import org.openlmis.requisition.service.referencedata.SupplyPartnerReferenceDataService;
-import org.openlmis.requisition.service.referencedata.TogglzReferenceDataService;
+import org.openlmis.requisition.service.referencedata.SupplyPartnerAssociationIndex;
 import org.openlmis.requisition.testutils.DtoGenerator;
 import org.openlmis.requisition.testutils.StockAdjustmentReasonDataBuilder;
 import org.openlmis.requisition.testutils.SupplyPartnerAssociationDtoDataBuilder;
-import org.openlmis.requisition.testutils.SupplyPartnerDtoDataBuilder;
 import org.openlmis.requisition.utils.Message;
 import org.openlmis.requisition.utils.Message.LocalizedMessage;
 
@@ -73,10 +70,10 @@ public class RequisitionSplitterTest {
   private SupervisoryNodeReferenceDataService supervisoryNodeReferenceDataService;
 
   @Mock
-  private SupplyPartnerReferenceDataService supplyPartnerReferenceDataService;
+  private SupplyPartnerAssociationIndex supplyPartnerAssociationIndex;
 
   @Mock
-  private TogglzReferenceDataService togglzReferenceDataService;
+  private FeatureFlagStore featureFlagStore;
 
   @Mock
   private RequisitionRepository requisitionRepository;
@@ -91,7 +88,6 @@ public class RequisitionSplitterTest {
   private UUID supervisoryNodeId;
 
   private Requisition requisition;
-  private SupplyPartnerDto supplyPartner;
 
   private UUID orderableId1 = UUID.randomUUID();
   private UUID orderableId2 = UUID.randomUUID();
@@ -100,12 +96,6 @@ public class RequisitionSplitterTest {
   private StockAdjustment stockAdjustment;
 
   private SupplyPartnerAssociationDto association;
-  private SupplyPartnerAssociationDto associationWithDifferentProgram;
-  private SupplyPartnerAssociationDto associationWithDifferentNode;
-  private SupplyPartnerAssociationDto associationWithDifferentFacility;
-  private SupplyPartnerAssociationDto associationWithDifferentOrderable;
-
-  private TogglzFeatureDto featureFlag;
 
   @Before
   public void setUp() {
@@ -137,40 +127,6 @@ public class RequisitionSplitterTest {
         .withOrderable(new ObjectReferenceDto(UUID.randomUUID()))
         .buildAsDto();
 
-    associationWithDifferentProgram = new SupplyPartnerAssociationDtoDataBuilder()
-        .withProgram(new ObjectReferenceDto(UUID.randomUUID()))
-        .withSupervisoryNode(new ObjectReferenceDto(PARTNER_NODE_ID))
-        .withFacility(new ObjectReferenceDto(requisition.getFacilityId()))
-        .withOrderable(new ObjectReferenceDto(orderableId2))
-        .buildAsDto();
-
-    associationWithDifferentNode = new SupplyPartnerAssociationDtoDataBuilder()
-        .withProgram(new ObjectReferenceDto(requisition.getProgramId()))
-        .withSupervisoryNode(new ObjectReferenceDto(UUID.randomUUID()))
-        .withFacility(new ObjectReferenceDto(requisition.getFacilityId()))
-        .withOrderable(new ObjectReferenceDto(orderableId1))
-        .buildAsDto();
-
-    associationWithDifferentFacility = new SupplyPartnerAssociationDtoDataBuilder()
-        .withProgram(new ObjectReferenceDto(requisition.getProgramId()))
-        .withSupervisoryNode(new ObjectReferenceDto(PARTNER_NODE_ID))
-        .withFacility(new ObjectReferenceDto(UUID.randomUUID()))
-        .withOrderable(new ObjectReferenceDto(orderableId3))
-        .buildAsDto();
-
-    associationWithDifferentOrderable = new SupplyPartnerAssociationDtoDataBuilder()
-        .withProgram(new ObjectReferenceDto(requisition.getProgramId()))
-        .withSupervisoryNode(new ObjectReferenceDto(PARTNER_NODE_ID))
-        .withFacility(new ObjectReferenceDto(requisition.getFacilityId()))
-        .withOrderable(new ObjectReferenceDto(UUID.randomUUID()))
-        .buildAsDto();
-
-    supplyPartner = new SupplyPartnerDtoDataBuilder()
-        .withAssociation(association)
-        .withAssociation(associationWithDifferentProgram)
-        .withAssociation(associationWithDifferentNode)
-        .buildAsDto();
-
     SupervisoryNodeDto supervisoryNode = DtoGenerator.of(SupervisoryNodeDto.class);
     supervisoryNode.setPartnerNodes(
         partnerNodeIds
@@ -180,10 +136,6 @@ public class RequisitionSplitterTest {
 
     supervisoryNodeId = supervisoryNode.getId();
 
-    featureFlag = new TogglzFeatureDto();
-    featureFlag.setName(RequisitionSplitter.MULTIPLE_SUPPLIERS);
-    featureFlag.setEnabled(true);
-
     Message message = new Message(LINE_ITEM_SUPPLIED_BY_OTHER_PARTNER);
     LocalizedMessage localizedMessage = message
         .new LocalizedMessage(LINE_ITEM_SUPPLIED_BY_OTHER_PARTNER);
@@ -192,10 +144,11 @@ public class RequisitionSplitterTest {
         .willReturn(false);
     given(supervisoryNodeReferenceDataService.findOne(supervisoryNode.getId()))
         .willReturn(supervisoryNode);
-    given(supplyPartnerReferenceDataService.search(partnerNodeIds))
-        .willReturn(Lists.newArrayList(supplyPartner));
-    given(togglzReferenceDataService.findAll())
-        .willReturn(Lists.newArrayList(featureFlag));
+    given(supplyPartnerAssociationIndex.find(requisition.getProgramId(), partnerNodeIds,
+        requisition.getFacilityId(), Sets.newHashSet(orderableId1, orderableId2, orderableId3)))
+        .willReturn(Lists.newArrayList(association));
+    given(featureFlagStore.isActive(RequisitionSplitter.MULTIPLE_SUPPLIERS))
+        .willReturn(true);
     given(messageService.localize(message))
         .willReturn(localizedMessage);
   }
@@ -203,7 +156,8 @@ public class RequisitionSplitterTest {
   @Test
   public void shouldNotSplitIfFeatureIsTurnedOff() {
     // given
-    featureFlag.setEnabled(false);
+    given(featureFlagStore.isActive(RequisitionSplitter.MULTIPLE_SUPPLIERS))
+        .willReturn(false);
 
     // when
     RequisitionSplitResult result = splitter.split(requisition, supervisoryNodeId);
@@ -255,9 +209,10 @@ public class RequisitionSplitterTest {
   }
 
   @Test
-  public void shouldNotSplitIfThereIsNoSupplyPartnerForPartnerNode() {
+  public void shouldNotSplitIfThereIsNoSupplyPartnerAssociation() {
     // given
-    given(supplyPartnerReferenceDataService.search(partnerNodeIds))
+    given(supplyPartnerAssociationIndex.find(requisition.getProgramId(), partnerNodeIds,
+        requisition.getFacilityId(), Sets.newHashSet(orderableId1, orderableId2, orderableId3)))
         .willReturn(Lists.newArrayList());
 
     // when
@@ -265,49 +220,7 @@ public class RequisitionSplitterTest {
 
     // then
     assertThat(result.wasSplit())
-        .as("Requisition shouldn't be splittable when there is no supply partner for partner node")
-        .isEqualTo(false);
-  }
-
-  @Test
-  public void shouldNotSplitIfThereIsNoSupplyPartnerAssociationForProgram() {
-    // given
-    supplyPartner.setAssociations(Lists.newArrayList(associationWithDifferentProgram));
-
-    // when
-    RequisitionSplitResult result = splitter.split(requisition, supervisoryNodeId);
-
-    // then
-    assertThat(result.wasSplit())
-        .as("Requisition shouldn't be splittable when there is no supply partner for program")
-        .isEqualTo(false);
-  }
-
-  @Test
-  public void shouldNotSplitIfThereIsNoSupplyPartnerAssociationForFacility() {
-    // given
-    supplyPartner.setAssociations(Lists.newArrayList(associationWithDifferentFacility));
-
-    // when
-    RequisitionSplitResult result = splitter.split(requisition, supervisoryNodeId);
-
-    // then
-    assertThat(result.wasSplit())
-        .as("Requisition shouldn't be splittable when there is no supply partner for facility")
-        .isEqualTo(false);
-  }
-
-  @Test
-  public void shouldNotSplitIfThereIsNoSupplyPartnerAssociationForOrderable() {
-    // given
-    supplyPartner.setAssociations(Lists.newArrayList(associationWithDifferentOrderable));
-
-    // when
-    RequisitionSplitResult result = splitter.split(requisition, supervisoryNodeId);
-
-    // then
-    assertThat(result.wasSplit())
-        .as("Requisition shouldn't be splittable when there is no supply partner for orderable")
+        .as("Requisition shouldn't be splittable when there is no supply partner association")
         .isEqualTo(false);
   }
 
@@ -113,6 +113,17 @@ public class SearchParamsTest extends ToStringContractTest<SearchParams> {
     assertFalse(searchParams.containsKey(sort));
   }
 
+  @Test
+  public void shouldRemoveCursorParamsWhenCreatingObject() {
+    map.add("cursor", "");
+    map.add("count", "false");
+
+    SearchParams searchParams = new SearchParams(map);
+
+    assertFalse(searchParams.containsKey("cursor"));
+    assertFalse(searchParams.containsKey("count"));
+  }
+
   @Test
   public void shouldGetUuidFromString() {
     String key = "id";
@@ -224,7 +235,8 @@ public class SearchParamsTest extends ToStringContractTest<SearchParams> {
 
   @Override
   protected void prepare(ToStringVerifier<SearchParams> verifier) {
-    verifier.ignore("PAGE", "SIZE", "SORT", "ZONE_ID", "ACCESS_TOKEN");
+    verifier.ignore(
+        "PAGE", "SIZE", "SORT", "CURSOR", "COUNT", "ZONE_ID", "ACCESS_TOKEN");
   }
 
 }